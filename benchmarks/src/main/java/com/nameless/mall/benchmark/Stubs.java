@@ -0,0 +1,43 @@
+package com.nameless.mall.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.util.Map;
+
+/**
+ * 以動態代理建立介面替身（Feign Client、Service、Mapper），供基準測試組裝真實服務時取代外部依賴。
+ * <p>
+ * 依方法名稱回應；Object 方法（hashCode / equals / toString）有預設實作，其餘未列出的方法拋出
+ * {@link UnsupportedOperationException}，量測路徑意外呼叫到未模擬的依賴時立即失敗。
+ * </p>
+ */
+public final class Stubs {
+
+    private Stubs() {
+    }
+
+    /**
+     * 單一方法的回應；args 為呼叫參數（無參數時為 null）。
+     */
+    @FunctionalInterface
+    public interface Answer {
+        Object apply(Object[] args) throws Throwable;
+    }
+
+    public static <T> T stub(Class<T> type, Map<String, Answer> answers) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> {
+                    Answer answer = answers.get(method.getName());
+                    if (answer != null) {
+                        return answer.apply(args);
+                    }
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> type.getSimpleName() + "Stub";
+                        };
+                    }
+                    throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+                }));
+    }
+}
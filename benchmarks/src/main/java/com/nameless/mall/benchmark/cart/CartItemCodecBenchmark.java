@@ -0,0 +1,119 @@
+package com.nameless.mall.benchmark.cart;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.manager.CartItemCodec;
+import com.nameless.mall.cart.manager.VariantCacheManager;
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.feign.ProductFeignClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.nameless.mall.benchmark.Stubs.stub;
+
+/**
+ * 購物車讀取路徑的 JMH 基準測試：由 Redis 取回的原始值組裝出可渲染的購物車項目。
+ * <ul>
+ * <li>json：舊版格式，每個項目以 ObjectMapper 反序列化完整的 CartItemDTO。</li>
+ * <li>binary：{@link CartItemCodec} 解碼 ID 與價格快照，再由 {@link VariantCacheManager}（已預熱）補上顯示資料。</li>
+ * </ul>
+ * <p>
+ * 執行：{@code mvn -Pbenchmarks -pl benchmarks -am test-compile} 後執行 {@link #main(String[])}；
+ * 同一份資料在 Redis 的記憶體用量見 {@link CartRedisFootprint}。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class CartItemCodecBenchmark {
+
+    @Param({ "50" })
+    public int itemCount;
+
+    @Param({ "json", "binary" })
+    public String format;
+
+    private ObjectMapper objectMapper;
+    private VariantCacheManager variantCache;
+    private long[] variantIds;
+    private int[] quantities;
+    private byte[][] values;
+
+    @Setup
+    public void setup() throws IOException {
+        SyntheticCartData.Dataset data = SyntheticCartData.generate(itemCount, 42L);
+        // 與 Spring Boot 預設及 nacos 全域設定一致
+        objectMapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        variantCache = new VariantCacheManager(productClient(data.variants()), Runnable::run, 100_000, 600, 600);
+
+        variantIds = new long[itemCount];
+        quantities = new int[itemCount];
+        values = new byte[itemCount][];
+        List<Long> ids = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            CartItemDTO item = data.items().get(i);
+            variantIds[i] = item.getVariantId();
+            quantities[i] = item.getQuantity();
+            values[i] = "json".equals(format) ? objectMapper.writeValueAsBytes(item) : CartItemCodec.encode(item);
+            ids.add(item.getVariantId());
+        }
+        // 預熱規格快取，量測穩態讀取路徑
+        variantCache.getVariants(ids);
+    }
+
+    @Benchmark
+    public List<CartItemDTO> decodeCart() throws IOException {
+        List<CartItemDTO> items = new ArrayList<>(itemCount);
+        if ("json".equals(format)) {
+            for (byte[] value : values) {
+                items.add(objectMapper.readValue(value, CartItemDTO.class));
+            }
+            return items;
+        }
+        for (int i = 0; i < itemCount; i++) {
+            CartItemDTO item = CartItemCodec.decode(variantIds[i], values[i]);
+            item.setQuantity(quantities[i]);
+            items.add(item);
+        }
+        variantCache.applyDisplay(items);
+        return items;
+    }
+
+    static ProductFeignClient productClient(List<VariantDTO> variants) {
+        return stub(ProductFeignClient.class, Map.of("getVariantsBatch", args -> Result.ok(variants)));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CartItemCodecBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,176 @@
+package com.nameless.mall.benchmark.cart;
+
+import com.nameless.mall.cart.service.CartService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 購物車服務的多線程負載測試：每個線程操作自己的購物車，依比例混合讀取、加入與更新數量，
+ * 量測各購物車大小下每種操作的吞吐量與延遲百分位數（p50 / p99 / max）。
+ * <p>
+ * 以 {@link CartServiceFixture} 組裝服務（本機 Redis + 模擬 Feign），可透過系統屬性調整：
+ * </p>
+ * <ul>
+ * <li>threads（16）、seconds（每個購物車大小的量測秒數，10）、warmup-seconds（3）</li>
+ * <li>sizes（購物車件數，1,10,50,200）、mix（get/add/update 比例，70,20,10）</li>
+ * <li>rpc-latency-micros（模擬 Feign 延遲，0）、pricing-cache（計價結果快取，true）</li>
+ * </ul>
+ * <p>
+ * 執行：{@code mvn -Pbenchmarks -pl benchmarks -am test-compile} 後以
+ * {@code java -Dthreads=32 -Drpc-latency-micros=2000 ... CartLoadHarness}；延遲為單次呼叫的實際耗時（含排隊）。
+ * </p>
+ */
+public final class CartLoadHarness {
+
+    enum Op {
+        GET, ADD, UPDATE
+    }
+
+    private CartLoadHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = Integer.getInteger("threads", 16);
+        int seconds = Integer.getInteger("seconds", 10);
+        int warmupSeconds = Integer.getInteger("warmup-seconds", 3);
+        int[] sizes = ints(System.getProperty("sizes", "1,10,50,200"));
+        int[] mix = ints(System.getProperty("mix", "70,20,10"));
+        long rpcLatencyMicros = Long.getLong("rpc-latency-micros", 0L);
+        boolean pricingCache = Boolean.parseBoolean(System.getProperty("pricing-cache", "true"));
+
+        System.out.printf("threads=%d, seconds=%d, mix(get/add/update)=%s, rpcLatencyMicros=%d, pricingCache=%s%n",
+                threads, seconds, Arrays.toString(mix), rpcLatencyMicros, pricingCache);
+        System.out.printf("%-6s %-7s %10s %12s %10s %10s %10s %8s%n",
+                "items", "op", "count", "ops/s", "p50(ms)", "p99(ms)", "max(ms)", "errors");
+
+        try (CartServiceFixture fixture = new CartServiceFixture(rpcLatencyMicros, pricingCache)) {
+            for (int size : sizes) {
+                List<Long> userIds = new ArrayList<>(threads);
+                for (int t = 0; t < threads; t++) {
+                    userIds.add(fixture.newUserWithCart(size));
+                }
+                run(fixture.cartService(), fixture, userIds, size, mix, warmupSeconds);
+                long productCalls = fixture.productCalls();
+                long pricingCalls = fixture.pricingCalls();
+                Map<Op, Recorder> merged = run(fixture.cartService(), fixture, userIds, size, mix, seconds);
+                for (Op op : Op.values()) {
+                    merged.get(op).print(size, op, seconds);
+                }
+                System.out.printf("%-6d %-7s product-rpc=%d, pricing-rpc=%d%n", size, "rpc",
+                        fixture.productCalls() - productCalls, fixture.pricingCalls() - pricingCalls);
+            }
+        }
+    }
+
+    private static Map<Op, Recorder> run(CartService service, CartServiceFixture fixture, List<Long> userIds,
+            int size, int[] mix, int seconds) throws InterruptedException {
+        List<Map<Op, Recorder>> perThread = new ArrayList<>(userIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(userIds.size());
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        int total = mix[0] + mix[1] + mix[2];
+
+        for (Long userId : userIds) {
+            Map<Op, Recorder> recorders = recorders();
+            perThread.add(recorders);
+            Thread thread = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                    while (System.nanoTime() < deadline) {
+                        int roll = random.nextInt(total);
+                        Op op = roll < mix[0] ? Op.GET : roll < mix[0] + mix[1] ? Op.ADD : Op.UPDATE;
+                        Long variantId = fixture.variantId(random.nextInt(size));
+                        long begin = System.nanoTime();
+                        try {
+                            switch (op) {
+                                case GET -> service.getCart(userId);
+                                case ADD -> service.addToCart(userId, variantId, 1);
+                                case UPDATE -> service.updateItemQuantity(userId, variantId, 1 + random.nextInt(5));
+                            }
+                            recorders.get(op).record(System.nanoTime() - begin);
+                        } catch (RuntimeException e) {
+                            recorders.get(op).errors++;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "cart-load-" + userId);
+            thread.start();
+        }
+        start.countDown();
+        done.await();
+
+        Map<Op, Recorder> merged = recorders();
+        perThread.forEach(r -> r.forEach((op, recorder) -> merged.get(op).merge(recorder)));
+        return merged;
+    }
+
+    private static Map<Op, Recorder> recorders() {
+        Map<Op, Recorder> recorders = new EnumMap<>(Op.class);
+        for (Op op : Op.values()) {
+            recorders.put(op, new Recorder());
+        }
+        return recorders;
+    }
+
+    private static int[] ints(String csv) {
+        return Arrays.stream(csv.split(",")).map(String::trim).mapToInt(Integer::parseInt).toArray();
+    }
+
+    /**
+     * 單一操作的延遲紀錄（奈秒），由單一線程寫入，量測結束後合併排序求百分位數。
+     */
+    private static final class Recorder {
+
+        private long[] latencies = new long[4096];
+        private int count;
+        private long errors;
+
+        void record(long nanos) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = nanos;
+        }
+
+        void merge(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                record(other.latencies[i]);
+            }
+            errors += other.errors;
+        }
+
+        void print(int size, Op op, int seconds) {
+            if (count == 0 && errors == 0) {
+                return;
+            }
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            System.out.printf("%-6d %-7s %10d %12.1f %10.3f %10.3f %10.3f %8d%n", size, op.name().toLowerCase(),
+                    count, (double) count / seconds, millis(percentile(sorted, 0.50)),
+                    millis(percentile(sorted, 0.99)), millis(count > 0 ? sorted[count - 1] : 0L), errors);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0L;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1_000_000.0;
+        }
+    }
+}
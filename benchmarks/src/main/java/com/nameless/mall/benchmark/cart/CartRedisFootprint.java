@@ -0,0 +1,74 @@
+package com.nameless.mall.benchmark.cart;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.manager.CartItemCodec;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 量測單一購物車在 Redis 的記憶體用量（MEMORY USAGE），比較舊版 JSON 與二進位編碼。
+ * <p>
+ * 需要可連線的 Redis（REDIS_HOST / REDIS_PORT，預設 localhost:6379）；以暫存 Key 寫入後量測並刪除。
+ * 小型 Hash 以 listpack / ziplist 緊湊儲存，欄位值超過 hash-max-ziplist-value（預設 64 位元組）即轉為 hashtable，
+ * 因此舊版 JSON 購物車在任何大小下都是 hashtable，二進位編碼在預設的 128 個欄位（64 件商品）內維持緊湊格式。
+ * </p>
+ */
+public final class CartRedisFootprint {
+
+    private static final int[] CART_SIZES = { 1, 10, 50, 200 };
+    private static final byte[] MEMORY_USAGE = bytes("return redis.call('memory', 'usage', KEYS[1], 'samples', '0')");
+
+    private CartRedisFootprint() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        factory.afterPropertiesSet();
+        factory.start();
+        ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        System.out.printf("%-8s %12s %12s %8s%n", "items", "json(B)", "binary(B)", "ratio");
+        try (RedisConnection connection = factory.getConnection()) {
+            for (int size : CART_SIZES) {
+                List<CartItemDTO> items = SyntheticCartData.generate(size, 42L).items();
+                Map<byte[], byte[]> json = new HashMap<>();
+                Map<byte[], byte[]> binary = new HashMap<>();
+                for (CartItemDTO item : items) {
+                    json.put(bytes(item.getVariantId()), objectMapper.writeValueAsBytes(item));
+                    binary.put(bytes(item.getVariantId()), CartItemCodec.encode(item));
+                    binary.put(bytes(item.getVariantId() + ":qty"), bytes(item.getQuantity()));
+                }
+                long jsonBytes = usage(connection, "bench:cart:json", json);
+                long binaryBytes = usage(connection, "bench:cart:binary", binary);
+                System.out.printf("%-8d %12d %12d %7.1f%%%n", size, jsonBytes, binaryBytes,
+                        100.0 * binaryBytes / jsonBytes);
+            }
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private static long usage(RedisConnection connection, String key, Map<byte[], byte[]> entries) {
+        byte[] rawKey = bytes(key);
+        connection.keyCommands().del(rawKey);
+        connection.hashCommands().hMSet(rawKey, entries);
+        Long usage = connection.scriptingCommands().eval(MEMORY_USAGE, ReturnType.INTEGER, 1, rawKey);
+        connection.keyCommands().del(rawKey);
+        return usage != null ? usage : -1L;
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
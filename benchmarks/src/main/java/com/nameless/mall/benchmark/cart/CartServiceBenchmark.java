@@ -0,0 +1,99 @@
+package com.nameless.mall.benchmark.cart;
+
+import com.nameless.mall.cart.api.vo.CartVO;
+import com.nameless.mall.cart.service.CartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 購物車服務端到端的 JMH 基準測試（本機 Redis + 模擬 Feign，見 {@link CartServiceFixture}）。
+ * <ul>
+ * <li>getCart：LUA 讀取 → 解碼 → 顯示資料與計價並行（含計價快照）→ 庫存鏡像 MGET → 總計聚合 → VO 轉換。</li>
+ * <li>addToCart：既有商品累加數量（單次腳本，不載入商品資訊），回傳快速組裝的購物車。</li>
+ * <li>updateItemQuantity：設定既有商品數量，回傳快速組裝的購物車。</li>
+ * </ul>
+ * <p>
+ * Throughput 與 SampleTime（含 p99）兩種模式，SampleTime 的百分位數即單一請求延遲分布；
+ * 多線程與模擬 RPC 延遲下的量測見 {@link CartLoadHarness}。每個 JMH 線程使用自己的購物車。
+ * 執行：{@code mvn -Pbenchmarks -pl benchmarks -am test-compile} 後執行 {@link #main(String[])}，需要可連線的 Redis。
+ * </p>
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Benchmark)
+public class CartServiceBenchmark {
+
+    @Param({ "1", "10", "50", "200" })
+    public int itemCount;
+
+    private CartServiceFixture fixture;
+
+    @State(Scope.Thread)
+    public static class UserCart {
+
+        Long userId;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setup(CartServiceBenchmark benchmark) {
+            userId = benchmark.fixture.newUserWithCart(benchmark.itemCount);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fixture = new CartServiceFixture(0L, true);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        fixture.close();
+    }
+
+    @Benchmark
+    public CartVO getCart(UserCart cart) {
+        return service().getCart(cart.userId);
+    }
+
+    @Benchmark
+    public CartVO addToCart(UserCart cart) {
+        return service().addToCart(cart.userId, fixture.variantId(cart.cursor++ % itemCount), 1);
+    }
+
+    @Benchmark
+    public CartVO updateItemQuantity(UserCart cart) {
+        int index = cart.cursor++ % itemCount;
+        return service().updateItemQuantity(cart.userId, fixture.variantId(index), 1 + cart.cursor % 5);
+    }
+
+    private CartService service() {
+        return fixture.cartService();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CartServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
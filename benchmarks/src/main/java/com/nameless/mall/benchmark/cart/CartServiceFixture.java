@@ -0,0 +1,217 @@
+package com.nameless.mall.benchmark.cart;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.config.AsyncConfig;
+import com.nameless.mall.cart.manager.CartLifecycleManager;
+import com.nameless.mall.cart.manager.CartPricingManager;
+import com.nameless.mall.cart.manager.CartRedisManager;
+import com.nameless.mall.cart.manager.StockMirrorManager;
+import com.nameless.mall.cart.manager.VariantCacheManager;
+import com.nameless.mall.cart.mapper.CartArchiveMapper;
+import com.nameless.mall.cart.service.CartService;
+import com.nameless.mall.cart.service.impl.CartServiceImpl;
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.enums.StockStatus;
+import com.nameless.mall.product.api.feign.ProductFeignClient;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.nameless.mall.benchmark.Stubs.stub;
+
+/**
+ * 以本機 Redis 組裝真實的購物車服務（{@link CartServiceImpl} 與各 Manager、cartFeignExecutor），
+ * product-service 與 promotion-service 的 Feign 以動態代理取代。
+ * <p>
+ * 需要可連線的 Redis（REDIS_HOST / REDIS_PORT，預設 localhost:6379）；使用負數 userId，結束時清除購物車、
+ * 計價快照與庫存鏡像。設定值與 nacos 的 cart-service.yml 相同。
+ * </p>
+ * <ul>
+ * <li>rpcLatencyMicros：每次 Feign 呼叫的模擬延遲（0 表示只量測服務內部成本）。</li>
+ * <li>pricingCache：false 時停用計價結果快取，每次讀取購物車都會呼叫促銷服務（量測計價扇出）。</li>
+ * </ul>
+ */
+public final class CartServiceFixture implements AutoCloseable {
+
+    /** 規格數量上限，涵蓋 1–200 件商品的購物車 */
+    public static final int MAX_ITEMS = 200;
+    private static final String PRICING_VERSION = "bench-1";
+
+    private final LettuceConnectionFactory connectionFactory;
+    private final StringRedisTemplate redisTemplate;
+    private final Executor executor;
+    private final CartService cartService;
+    private final List<Long> variantIds;
+    private final List<Long> userIds = new ArrayList<>();
+    private final long rpcLatencyNanos;
+    private final AtomicLong productCalls = new AtomicLong();
+    private final AtomicLong pricingCalls = new AtomicLong();
+
+    public CartServiceFixture(long rpcLatencyMicros, boolean pricingCache) {
+        this.rpcLatencyNanos = rpcLatencyMicros * 1_000L;
+        SyntheticCartData.Dataset data = SyntheticCartData.generate(MAX_ITEMS, 42L);
+        this.variantIds = data.items().stream().map(CartItemDTO::getVariantId).toList();
+
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        data.variants().forEach(v -> redisTemplate.opsForValue()
+                .set(StockStatus.MIRROR_KEY_PREFIX + v.getId(), String.valueOf(v.getStock())));
+
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        AsyncConfig asyncConfig = new AsyncConfig();
+        DirectFieldAccessor executorConfig = new DirectFieldAccessor(asyncConfig);
+        executorConfig.setPropertyValue("corePoolSize", 8);
+        executorConfig.setPropertyValue("maxPoolSize", 30);
+        executorConfig.setPropertyValue("queueCapacity", 200);
+        executor = asyncConfig.cartFeignExecutor(meterRegistry);
+
+        CartLifecycleManager lifecycle = new CartLifecycleManager(redisTemplate, archiveMapper(), meterRegistry,
+                30, 7, 180);
+        CartRedisManager cartRedisManager = new CartRedisManager(redisTemplate, objectMapper, lifecycle, 72);
+        VariantCacheManager variantCache = new VariantCacheManager(productClient(data.variants()), executor,
+                100_000, 120, 600);
+        CartPricingManager pricing = new CartPricingManager(
+                new PricingResultCache(promotionClient(), pricingCache, 50_000, 60_000, 0L),
+                redisTemplate, objectMapper, meterRegistry, 3600);
+        StockMirrorManager stockMirror = new StockMirrorManager(redisTemplate, meterRegistry, true);
+
+        CartServiceImpl service = new CartServiceImpl(cartRedisManager, variantCache, pricing, stockMirror,
+                executor, meterRegistry);
+        DirectFieldAccessor serviceConfig = new DirectFieldAccessor(service);
+        serviceConfig.setPropertyValue("checkoutSnapshotTtlSeconds", 600L);
+        serviceConfig.setPropertyValue("displayTimeoutMs", 1000L);
+        serviceConfig.setPropertyValue("pricingTimeoutMs", 1500L);
+        serviceConfig.setPropertyValue("pricingOpenMs", 5000L);
+        cartService = service;
+    }
+
+    public CartService cartService() {
+        return cartService;
+    }
+
+    /** 第 index 個規格 ID（0 ≤ index &lt; {@link #MAX_ITEMS}） */
+    public Long variantId(int index) {
+        return variantIds.get(index);
+    }
+
+    /**
+     * 建立一位測試使用者並放入 itemCount 件商品（數量各 1），結束時由 {@link #close()} 清除。
+     */
+    public synchronized Long newUserWithCart(int itemCount) {
+        Long userId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+        userIds.add(userId);
+        cartService.clearCart(userId);
+        for (int i = 0; i < itemCount; i++) {
+            cartService.addToCart(userId, variantIds.get(i), 1);
+        }
+        return userId;
+    }
+
+    public long productCalls() {
+        return productCalls.get();
+    }
+
+    public long pricingCalls() {
+        return pricingCalls.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            userIds.forEach(cartService::clearCart);
+            userIds.clear();
+        }
+        redisTemplate.delete(variantIds.stream().map(id -> StockStatus.MIRROR_KEY_PREFIX + id).toList());
+        if (executor instanceof DisposableBean disposable) {
+            disposable.destroy();
+        }
+        connectionFactory.destroy();
+    }
+
+    private void simulateLatency() {
+        if (rpcLatencyNanos > 0) {
+            LockSupport.parkNanos(rpcLatencyNanos);
+        }
+    }
+
+    private ProductFeignClient productClient(List<VariantDTO> variants) {
+        Map<Long, VariantDTO> byId = new HashMap<>(variants.size() * 2);
+        variants.forEach(v -> byId.put(v.getId(), v));
+        return stub(ProductFeignClient.class, Map.of("getVariantsBatch", args -> {
+            productCalls.incrementAndGet();
+            simulateLatency();
+            @SuppressWarnings("unchecked")
+            List<Long> ids = (List<Long>) args[0];
+            return Result.ok(ids.stream().map(byId::get).filter(Objects::nonNull).toList());
+        }));
+    }
+
+    /**
+     * 促銷服務：每個項目九折（CAMPAIGN），回應帶計價版本與一小時有效期限。
+     */
+    private PromotionFeignClient promotionClient() {
+        return stub(PromotionFeignClient.class, Map.of("calculateBestPrices", args -> {
+            pricingCalls.incrementAndGet();
+            simulateLatency();
+            return price(args);
+        }, "calculateBestPricesWithVersion", args -> {
+            pricingCalls.incrementAndGet();
+            simulateLatency();
+            return ResponseEntity.ok()
+                    .header(PricingResultCache.HEADER_VERSION, PRICING_VERSION)
+                    .header(PricingResultCache.HEADER_VALID_UNTIL,
+                            String.valueOf(System.currentTimeMillis() + 3_600_000L))
+                    .body(price(args));
+        }));
+    }
+
+    private static Result<List<ProductPriceResultDTO>> price(Object[] args) {
+        @SuppressWarnings("unchecked")
+        List<ProductPriceCheckDTO> checks = (List<ProductPriceCheckDTO>) args[0];
+        List<ProductPriceResultDTO> results = new ArrayList<>(checks.size());
+        for (ProductPriceCheckDTO check : checks) {
+            BigDecimal finalPrice = check.getOriginalPrice().multiply(new BigDecimal("0.9"))
+                    .setScale(2, RoundingMode.HALF_UP);
+            results.add(new ProductPriceResultDTO(check.getVariantId(), check.getOriginalPrice(), finalPrice,
+                    check.getOriginalPrice().subtract(finalPrice), "CAMPAIGN", 1L, "週年慶"));
+        }
+        return Result.ok(results);
+    }
+
+    /** 封存資料表：量測期間購物車不會閒置，查無封存資料 */
+    private static CartArchiveMapper archiveMapper() {
+        return stub(CartArchiveMapper.class, Map.of("selectById", args -> null));
+    }
+}
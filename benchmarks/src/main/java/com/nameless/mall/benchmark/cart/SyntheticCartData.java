@@ -0,0 +1,84 @@
+package com.nameless.mall.benchmark.cart;
+
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.dto.VariantOptionDTO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 購物車的合成資料產生器。
+ * <p>
+ * 以固定種子產生規格（含中文商品名稱、圖片 URL、兩組規格選項）與對應的購物車項目，
+ * 欄位長度接近正式環境的商品資料，編碼大小與解碼成本可跨版本比較。
+ * </p>
+ */
+public final class SyntheticCartData {
+
+    private static final String[] NAMES = { "無線降噪耳機", "機械式鍵盤", "不鏽鋼保溫瓶", "輕量防潑水外套", "智慧手錶" };
+    private static final String[] COLORS = { "黑色", "白色", "深藍", "霧灰" };
+    private static final String[] SIZES = { "S", "M", "L", "XL", "128GB", "256GB" };
+
+    /**
+     * @param variants 規格（product-service 回傳的資料）
+     * @param items    完整的購物車項目（含顯示資料與數量），順序與 variants 相同
+     */
+    public record Dataset(List<VariantDTO> variants, List<CartItemDTO> items) {
+    }
+
+    private SyntheticCartData() {
+    }
+
+    public static Dataset generate(int itemCount, long seed) {
+        Random random = new Random(seed);
+        List<VariantDTO> variants = new ArrayList<>(itemCount);
+        List<CartItemDTO> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            long variantId = 100_000L + i;
+            long productId = 10_000L + i / 2;
+            BigDecimal msrp = BigDecimal.valueOf(500 + random.nextInt(50_000), 2);
+            BigDecimal price = msrp.subtract(BigDecimal.valueOf(random.nextInt(100), 2));
+
+            VariantDTO variant = new VariantDTO();
+            variant.setId(variantId);
+            variant.setProductId(productId);
+            variant.setCategoryId(1L + random.nextInt(200));
+            variant.setProductName(NAMES[random.nextInt(NAMES.length)] + " 第" + productId + "代 限定版");
+            variant.setImage("https://cdn.nameless-mall.com/products/" + productId + "/main-" + variantId + ".webp");
+            variant.setSku("SKU-" + productId + "-" + variantId);
+            variant.setPrice(price);
+            variant.setOriginalPrice(msrp);
+            variant.setStock(1_000);
+            variant.setOptions(List.of(
+                    option("顏色", COLORS[random.nextInt(COLORS.length)]),
+                    option("規格", SIZES[random.nextInt(SIZES.length)])));
+            variants.add(variant);
+
+            items.add(CartItemDTO.builder()
+                    .productId(productId)
+                    .categoryId(variant.getCategoryId())
+                    .productName(variant.getProductName())
+                    .productImage(variant.getImage())
+                    .variantId(variantId)
+                    .sku(variant.getSku())
+                    .options(variant.getOptions())
+                    .quantity(1 + random.nextInt(5))
+                    .price(price)
+                    .originalPrice(msrp)
+                    .discountAmount(msrp.subtract(price))
+                    .promotionType("NONE")
+                    .build());
+        }
+        return new Dataset(variants, items);
+    }
+
+    private static VariantOptionDTO option(String name, String value) {
+        VariantOptionDTO option = new VariantOptionDTO();
+        option.setOptionName(name);
+        option.setOptionValue(value);
+        return option;
+    }
+}
@@ -0,0 +1,87 @@
+package com.nameless.mall.benchmark.pricing;
+
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.service.PriceCalculationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link PriceCalculationService#calculateBestPrices} 的 JMH 基準測試。
+ * <p>
+ * 以 {@link SyntheticPricingData} 產生資料，變化行銷活動數、分類樹深度與閃購商品數；
+ * 每次呼叫為一個購物車大小的請求（{@value #ITEMS_PER_REQUEST} 件），
+ * 以 {@link OperationsPerInvocation} 換算為「每件商品」的延遲分佈（SampleTime，可取 p50 / p99）
+ * 與配置量（搭配 {@link GCProfiler} 的 gc.alloc.rate.norm）。
+ * </p>
+ * <p>
+ * 執行完整矩陣：{@code mvn -Pbenchmarks -pl benchmarks -am test-compile} 後執行 {@link #main(String[])}；
+ * 回歸閘門見 PricingRegressionGateTest。
+ * </p>
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = { "-Xms1g", "-Xmx1g" })
+@State(Scope.Thread)
+public class PriceCalculationBenchmark {
+
+    static final int ITEMS_PER_REQUEST = 50;
+    private static final int CATEGORY_COUNT = 2_000;
+    private static final int REQUEST_COUNT = 1_024;
+
+    @Param({ "50", "2000" })
+    public int campaignCount;
+
+    @Param({ "4", "10" })
+    public int categoryDepth;
+
+    @Param({ "200", "5000" })
+    public int flashSaleSize;
+
+    private PriceCalculationService service;
+    private List<ProductPriceCheckDTO>[] requests;
+    private int next;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        SyntheticPricingData.Dataset data = SyntheticPricingData.generate(new SyntheticPricingData.Spec(
+                campaignCount, categoryDepth, CATEGORY_COUNT, flashSaleSize, ITEMS_PER_REQUEST, REQUEST_COUNT, 42L));
+        service = PricingFixture.create(data);
+        requests = data.requests().toArray(new List[0]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS_PER_REQUEST)
+    public List<ProductPriceResultDTO> calculateBestPrices() {
+        // REQUEST_COUNT 為 2 的冪次，輪流使用預先產生的請求
+        List<ProductPriceCheckDTO> request = requests[next++ & (REQUEST_COUNT - 1)];
+        return service.calculateBestPrices(request);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PriceCalculationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,47 @@
+package com.nameless.mall.benchmark.pricing;
+
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.promotion.client.ProductClient;
+import com.nameless.mall.promotion.manager.PricingIndexManager;
+import com.nameless.mall.promotion.service.FlashSalePromotionService;
+import com.nameless.mall.promotion.service.MarketingCampaignService;
+import com.nameless.mall.promotion.service.PriceCalculationService;
+import com.nameless.mall.promotion.service.PromotionCacheManager;
+import com.nameless.mall.promotion.service.impl.PriceCalculationServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.Map;
+
+import static com.nameless.mall.benchmark.Stubs.stub;
+
+/**
+ * 以合成資料組裝真實的計價引擎（{@link PriceCalculationServiceImpl} + {@link PromotionCacheManager}
+ * + {@link PricingIndexManager}），資料來源以動態代理取代 DB 與 product-service。
+ * <p>
+ * 快取安全 TTL 設為一小時，量測期間不會觸發重載，量到的是穩態查價路徑（含本地快取讀取與索引比對）。
+ * </p>
+ */
+public final class PricingFixture {
+
+    private static final long SAFETY_TTL_MS = 3_600_000L;
+
+    private PricingFixture() {
+    }
+
+    public static PriceCalculationService create(SyntheticPricingData.Dataset data) {
+        FlashSalePromotionService flashSaleService = stub(FlashSalePromotionService.class,
+                Map.of("getCurrentSession", args -> data.session()));
+        MarketingCampaignService campaignService = stub(MarketingCampaignService.class,
+                Map.of("getActiveCampaigns", args -> data.campaigns()));
+        ProductClient productClient = stub(ProductClient.class,
+                Map.of("getCategoryTree", args -> Result.ok(data.categoryTree())));
+
+        PromotionCacheManager cacheManager = new PromotionCacheManager(flashSaleService, campaignService,
+                productClient, Runnable::run, SAFETY_TTL_MS, SAFETY_TTL_MS, SAFETY_TTL_MS, 5_000L, 0.8,
+                new SimpleMeterRegistry());
+        PriceCalculationService service = new PriceCalculationServiceImpl(cacheManager, new PricingIndexManager());
+        // 預先載入快取與索引，避免首次載入計入量測
+        service.currentIndex();
+        return service;
+    }
+}
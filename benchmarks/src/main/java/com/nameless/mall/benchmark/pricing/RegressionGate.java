@@ -0,0 +1,165 @@
+package com.nameless.mall.benchmark.pricing;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * 效能回歸閘門：比較 JMH 結果與基準檔，任一情境的 p50 / p99 每件延遲或每件配置量超出容許範圍即判定回歸。
+ * <p>
+ * 容許範圍為「基準值 × (1 + 比例) + 絕對下限」；絕對下限吸收計時器解析度與極小數值的雜訊，
+ * 避免數奈秒的波動被放大成百分比回歸。p99 受 GC 停頓影響較大，容許比例與 p50 分開設定。
+ * </p>
+ * <p>
+ * 每個 fork 的 JIT 決策（例如逃逸分析是否消除暫存物件）不同，同一份程式碼的配置量可能呈雙峰分佈；
+ * 因此各項指標取所有 fork 中的最佳值，量的是「程式碼能達到的水準」，不受單一 fork 的編譯結果左右。
+ * 延遲受機器影響，基準檔應在執行閘門的同一類機器上重新錄製；配置量與機器無關，可跨機器比較。
+ * </p>
+ */
+public final class RegressionGate {
+
+    /** JMH 1.37 的鍵名；舊版前綴為「·」 */
+    private static final String ALLOC_NORM = "gc.alloc.rate.norm";
+
+    /**
+     * 單一情境的量測值（每件商品）。
+     */
+    public record Metrics(double p50Nanos, double p99Nanos, double allocBytes) {
+    }
+
+    /**
+     * @param medianTolerance   p50 容許的相對增幅，例如 0.25
+     * @param tailTolerance     p99 容許的相對增幅
+     * @param latencyFloorNanos 延遲容許的絕對增幅（奈秒）
+     * @param allocTolerance    配置量容許的相對增幅
+     * @param allocFloorBytes   配置量容許的絕對增幅（位元組）
+     */
+    public record Thresholds(double medianTolerance, double tailTolerance, double latencyFloorNanos,
+            double allocTolerance, double allocFloorBytes) {
+    }
+
+    /**
+     * 比較結果：延遲與配置量分開列出，呼叫端可只強制與機器無關的配置量。
+     *
+     * @param latency    p50 / p99 延遲超出容許範圍的項目（含基準缺少的情境）
+     * @param allocation 配置量超出容許範圍的項目
+     */
+    public record Violations(List<String> latency, List<String> allocation) {
+
+        public boolean isEmpty() {
+            return latency.isEmpty() && allocation.isEmpty();
+        }
+    }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private RegressionGate() {
+    }
+
+    /**
+     * 將 JMH 結果整理為 情境 → 量測值（各 fork 的最佳值）；
+     * 情境以排序後的參數組合表示，例如 campaignCount=50,categoryDepth=4。
+     */
+    public static Map<String, Metrics> collect(Collection<RunResult> results) {
+        Map<String, Metrics> metrics = new TreeMap<>();
+        for (RunResult run : results) {
+            double p50 = Double.MAX_VALUE;
+            double p99 = Double.MAX_VALUE;
+            double alloc = Double.NaN;
+            for (BenchmarkResult fork : run.getBenchmarkResults()) {
+                Result<?> primary = fork.getPrimaryResult();
+                p50 = Math.min(p50, primary.getStatistics().getPercentile(50.0));
+                p99 = Math.min(p99, primary.getStatistics().getPercentile(99.0));
+                double forkAlloc = allocation(fork.getSecondaryResults());
+                alloc = Double.isNaN(alloc) ? forkAlloc : Math.min(alloc, forkAlloc);
+            }
+            metrics.put(scenario(run.getParams()), new Metrics(p50, p99, alloc));
+        }
+        return metrics;
+    }
+
+    /**
+     * @return 回歸項目的說明；皆為空代表通過。基準缺少的情境列為配置量回歸（無論是否強制延遲都應重新錄製）
+     */
+    public static Violations compare(Map<String, Metrics> baseline, Map<String, Metrics> current,
+            Thresholds thresholds) {
+        List<String> latency = new ArrayList<>();
+        List<String> allocation = new ArrayList<>();
+        for (Map.Entry<String, Metrics> e : current.entrySet()) {
+            Metrics base = baseline.get(e.getKey());
+            if (base == null) {
+                allocation.add(e.getKey() + ": 基準檔缺少此情境，請重新錄製基準");
+                continue;
+            }
+            Metrics now = e.getValue();
+            check(latency, e.getKey(), "p50", base.p50Nanos(), now.p50Nanos(), "ns",
+                    thresholds.medianTolerance(), thresholds.latencyFloorNanos());
+            check(latency, e.getKey(), "p99", base.p99Nanos(), now.p99Nanos(), "ns",
+                    thresholds.tailTolerance(), thresholds.latencyFloorNanos());
+            if (!Double.isNaN(base.allocBytes()) && !Double.isNaN(now.allocBytes())) {
+                check(allocation, e.getKey(), "alloc", base.allocBytes(), now.allocBytes(), "B",
+                        thresholds.allocTolerance(), thresholds.allocFloorBytes());
+            }
+        }
+        return new Violations(latency, allocation);
+    }
+
+    public static Map<String, Metrics> readBaseline(Path path) throws IOException {
+        return MAPPER.readValue(Files.readAllBytes(path), new TypeReference<TreeMap<String, Metrics>>() {
+        });
+    }
+
+    public static void writeBaseline(Path path, Map<String, Metrics> metrics) throws IOException {
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        MAPPER.writeValue(path.toFile(), new TreeMap<>(metrics));
+    }
+
+    /**
+     * 以表格列出量測值，供閘門輸出與 PR 說明使用。
+     */
+    public static String format(Map<String, Metrics> metrics) {
+        StringBuilder sb = new StringBuilder(String.format("%-60s %10s %10s %10s%n",
+                "scenario", "p50(ns)", "p99(ns)", "alloc(B)"));
+        metrics.forEach((k, m) -> sb.append(String.format("%-60s %10.1f %10.1f %10.1f%n",
+                k, m.p50Nanos(), m.p99Nanos(), m.allocBytes())));
+        return sb.toString();
+    }
+
+    private static void check(List<String> violations, String scenario, String metric,
+            double base, double now, String unit, double tolerance, double floor) {
+        double limit = base * (1 + tolerance) + floor;
+        if (now > limit) {
+            violations.add(String.format("%s: %s %.1f%s -> %.1f%s (上限 %.1f%s)",
+                    scenario, metric, base, unit, now, unit, limit, unit));
+        }
+    }
+
+    private static String scenario(BenchmarkParams params) {
+        StringJoiner joiner = new StringJoiner(",");
+        params.getParamsKeys().stream().sorted().forEach(k -> joiner.add(k + "=" + params.getParam(k)));
+        return joiner.toString();
+    }
+
+    private static double allocation(Map<String, Result> secondaryResults) {
+        for (Map.Entry<String, Result> e : secondaryResults.entrySet()) {
+            if (e.getKey().endsWith(ALLOC_NORM)) {
+                return e.getValue().getScore();
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,148 @@
+package com.nameless.mall.benchmark.pricing;
+
+import com.nameless.mall.product.api.dto.CategoryDTO;
+import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.vo.FlashSaleProductVO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
+import com.nameless.mall.promotion.enums.CampaignStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 計價引擎的合成資料產生器。
+ * <p>
+ * 以固定種子產生分類樹、行銷活動、閃購場次與查價請求，同樣的參數每次產生相同資料，
+ * 基準測試結果可跨版本比較。規模由 {@link Spec} 控制：
+ * <ul>
+ * <li>分類樹：固定總數的分類平均分佈於 categoryDepth 層，每個分類隨機掛在上一層的某個分類下。</li>
+ * <li>行銷活動：約 10% 為全站活動，其餘隨機指定分類；約 10% 尚未開始，用以涵蓋時間索引。</li>
+ * <li>閃購場次：variantId 1..flashSaleSize，進行中。</li>
+ * <li>查價請求：每批 itemsPerRequest 件，約 20% 命中閃購，其餘為一般商品（含隨機分類與原價）。</li>
+ * </ul>
+ * </p>
+ */
+public final class SyntheticPricingData {
+
+    /** 一般商品的 variantId 起點，與閃購商品（1..flashSaleSize）不重疊 */
+    private static final long REGULAR_VARIANT_BASE = 1_000_000L;
+    private static final int REGULAR_VARIANTS = 100_000;
+
+    /**
+     * @param campaignCount   行銷活動數（含全站與尚未開始的活動）
+     * @param categoryDepth   分類樹層數
+     * @param categoryCount   分類總數
+     * @param flashSaleSize   閃購商品數，0 代表無進行中的場次
+     * @param itemsPerRequest 每次查價請求的商品數
+     * @param requestCount    預先產生的請求批數
+     * @param seed            亂數種子
+     */
+    public record Spec(int campaignCount, int categoryDepth, int categoryCount, int flashSaleSize,
+            int itemsPerRequest, int requestCount, long seed) {
+    }
+
+    /**
+     * @param categoryTree 與 product-service /categories/tree 相同結構的分類樹
+     * @param campaigns    已排程的行銷活動
+     * @param session      當前閃購場次，可為 null
+     * @param requests     查價請求
+     */
+    public record Dataset(List<CategoryDTO> categoryTree, List<MarketingCampaignDTO> campaigns,
+            FlashSaleSessionVO session, List<List<ProductPriceCheckDTO>> requests) {
+    }
+
+    private SyntheticPricingData() {
+    }
+
+    public static Dataset generate(Spec spec) {
+        Random random = new Random(spec.seed());
+        LocalDateTime now = LocalDateTime.now();
+
+        // 1. 分類樹：逐層建立，每層分類數相同
+        List<CategoryDTO> roots = new ArrayList<>();
+        List<CategoryDTO> all = new ArrayList<>();
+        int perLevel = Math.max(1, spec.categoryCount() / Math.max(1, spec.categoryDepth()));
+        long nextCategoryId = 1;
+        List<CategoryDTO> previous = List.of();
+        for (int depth = 0; depth < spec.categoryDepth(); depth++) {
+            List<CategoryDTO> level = new ArrayList<>(perLevel);
+            for (int i = 0; i < perLevel; i++) {
+                CategoryDTO node = new CategoryDTO();
+                node.setId(nextCategoryId++);
+                node.setName("category-" + node.getId());
+                node.setLevel(depth + 1);
+                node.setChildren(new ArrayList<>());
+                if (previous.isEmpty()) {
+                    roots.add(node);
+                } else {
+                    CategoryDTO parent = previous.get(random.nextInt(previous.size()));
+                    node.setParentId(parent.getId());
+                    parent.getChildren().add(node);
+                }
+                level.add(node);
+            }
+            all.addAll(level);
+            previous = level;
+        }
+
+        // 2. 行銷活動
+        List<MarketingCampaignDTO> campaigns = new ArrayList<>(spec.campaignCount());
+        for (int i = 0; i < spec.campaignCount(); i++) {
+            MarketingCampaignDTO c = new MarketingCampaignDTO();
+            c.setId((long) i + 1);
+            c.setTitle("campaign-" + c.getId());
+            c.setCategoryId(random.nextInt(10) == 0 ? null : all.get(random.nextInt(all.size())).getId());
+            c.setDiscountRate(BigDecimal.valueOf(50 + random.nextInt(49), 2));
+            boolean upcoming = random.nextInt(10) == 0;
+            c.setStatus(upcoming ? CampaignStatus.UPCOMING.name() : CampaignStatus.ONGOING.name());
+            c.setStartTime(upcoming ? now.plusDays(1) : now.minusDays(1));
+            c.setEndTime(now.plusDays(2));
+            campaigns.add(c);
+        }
+
+        // 3. 閃購場次
+        FlashSaleSessionVO session = null;
+        if (spec.flashSaleSize() > 0) {
+            List<FlashSaleProductVO> products = new ArrayList<>(spec.flashSaleSize());
+            for (long v = 1; v <= spec.flashSaleSize(); v++) {
+                products.add(FlashSaleProductVO.builder()
+                        .variantId(v)
+                        .originalPrice(BigDecimal.valueOf(1000))
+                        .flashPrice(BigDecimal.valueOf(500 + random.nextInt(400)))
+                        .build());
+            }
+            session = FlashSaleSessionVO.builder()
+                    .id(1L)
+                    .name("bench-session")
+                    .startTime(now.minusHours(1))
+                    .endTime(now.plusDays(1))
+                    .products(products)
+                    .build();
+        }
+
+        // 4. 查價請求
+        List<List<ProductPriceCheckDTO>> requests = new ArrayList<>(spec.requestCount());
+        for (int r = 0; r < spec.requestCount(); r++) {
+            List<ProductPriceCheckDTO> items = new ArrayList<>(spec.itemsPerRequest());
+            for (int i = 0; i < spec.itemsPerRequest(); i++) {
+                boolean flash = spec.flashSaleSize() > 0 && random.nextInt(5) == 0;
+                long variantId = flash
+                        ? 1 + random.nextInt(spec.flashSaleSize())
+                        : REGULAR_VARIANT_BASE + random.nextInt(REGULAR_VARIANTS);
+                items.add(ProductPriceCheckDTO.builder()
+                        .productId(variantId)
+                        .variantId(variantId)
+                        .categoryId(all.get(random.nextInt(all.size())).getId())
+                        .originalPrice(BigDecimal.valueOf(100 + random.nextInt(99_900), 2))
+                        .build());
+            }
+            requests.add(items);
+        }
+
+        return new Dataset(roots, campaigns, session, requests);
+    }
+}
@@ -0,0 +1,89 @@
+package com.nameless.mall.benchmark.pricing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 計價引擎效能回歸閘門。
+ * <p>
+ * 執行 {@link PriceCalculationBenchmark} 的完整參數矩陣（縮短迭代、多個 fork 取最佳值），
+ * 與 baseline/pricing.json 比較：每件配置量與機器無關，超出容許範圍即失敗；
+ * p50 / p99 每件延遲取決於執行機器，預設只列出警告，在錄製基準的同一台機器上才以 gate.enforce-latency=true 強制。
+ * </p>
+ * <p>
+ * 完整矩陣約需數分鐘，預設不隨 {@code mvn -Pbenchmarks test} 執行，需以 gate.enabled=true 啟用：
+ * </p>
+ * <pre>
+ * mvn -Pbenchmarks -pl benchmarks -am test -Dgate.enabled=true -Dtest=PricingRegressionGateTest -Dsurefire.failIfNoSpecifiedTests=false
+ * </pre>
+ * 可調整的系統屬性：
+ * <ul>
+ * <li>gate.update-baseline=true：以本次結果覆寫基準檔（變更計價引擎或更換 CI 機器後）。</li>
+ * <li>gate.enforce-latency=true：延遲超出容許範圍亦判定失敗。</li>
+ * <li>gate.forks：fork 數，預設 3。</li>
+ * <li>gate.p50-tolerance / gate.p99-tolerance / gate.latency-floor-ns：延遲容許增幅，預設 p50 25%、p99 50%，另加 20ns。</li>
+ * <li>gate.alloc-tolerance / gate.alloc-floor-bytes：配置量容許增幅，預設 10% + 16B。</li>
+ * </ul>
+ */
+@EnabledIfSystemProperty(named = "gate.enabled", matches = "true")
+class PricingRegressionGateTest {
+
+    @Test
+    void pricingShouldNotRegress() throws Exception {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(PriceCalculationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .warmupIterations(2)
+                .warmupTime(TimeValue.seconds(1))
+                .measurementIterations(3)
+                .measurementTime(TimeValue.seconds(1))
+                .forks(Integer.getInteger("gate.forks", 3))
+                .shouldFailOnError(true)
+                .build()).run();
+        Map<String, RegressionGate.Metrics> current = RegressionGate.collect(results);
+        System.out.println(RegressionGate.format(current));
+
+        Path baseline = Path.of(System.getProperty("gate.baseline", "baseline/pricing.json"));
+        if (Boolean.getBoolean("gate.update-baseline")) {
+            RegressionGate.writeBaseline(baseline, current);
+            System.out.println("已更新基準檔: " + baseline.toAbsolutePath());
+            return;
+        }
+        assertTrue(Files.exists(baseline), "找不到基準檔 " + baseline.toAbsolutePath()
+                + "，請以 -Dgate.update-baseline=true 錄製");
+
+        RegressionGate.Violations violations = RegressionGate.compare(RegressionGate.readBaseline(baseline), current,
+                new RegressionGate.Thresholds(
+                        doubleProperty("gate.p50-tolerance", 0.25),
+                        doubleProperty("gate.p99-tolerance", 0.50),
+                        doubleProperty("gate.latency-floor-ns", 20),
+                        doubleProperty("gate.alloc-tolerance", 0.10),
+                        doubleProperty("gate.alloc-floor-bytes", 16)));
+        List<String> failures = new ArrayList<>(violations.allocation());
+        if (Boolean.getBoolean("gate.enforce-latency")) {
+            failures.addAll(violations.latency());
+        } else if (!violations.latency().isEmpty()) {
+            System.out.println("【警告】延遲超出基準（依機器而異，未強制）:\n" + String.join("\n", violations.latency()));
+        }
+        assertTrue(failures.isEmpty(), "計價效能回歸:\n" + String.join("\n", failures));
+    }
+
+    private static double doubleProperty(String key, double defaultValue) {
+        String value = System.getProperty(key);
+        return value != null ? Double.parseDouble(value) : defaultValue;
+    }
+}
@@ -0,0 +1,199 @@
+package com.nameless.mall.core.domain;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 定點數金額。
+ * <p>
+ * 以 long 保存最小貨幣單位（分，固定 2 位小數），取代計價熱路徑上的 BigDecimal 運算，
+ * 避免每筆明細配置多個 BigDecimal / BigInteger。捨入規則與既有的
+ * {@code setScale(2, RoundingMode.HALF_UP)} 完全一致。
+ * </p>
+ * <p>
+ * 僅用於服務內部計算；DTO 邊界仍為 BigDecimal，以 {@link #round(BigDecimal)} / {@link #toBigDecimal()} 轉換。
+ * 外部輸入（請求 DTO、Feign 回應、快取資料）的小數位數不受控，邊界一律以 {@link #round(BigDecimal)}
+ * 依 HALF_UP 捨入至 2 位，與改寫前的行為相同；{@link #of(BigDecimal)} 僅供已確定為 2 位小數的內部值使用，
+ * 超出精度視為程式錯誤直接拋出例外。乘法溢位時退回 BigDecimal 計算，結果仍精確。
+ * </p>
+ */
+public final class Money implements Comparable<Money>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 固定小數位數 */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0L);
+
+    /** 10^0 ~ 10^18，供因子縮放使用 */
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1L;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10L;
+        }
+    }
+
+    /** 最小貨幣單位（分） */
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    /**
+     * 以最小貨幣單位建立金額。
+     */
+    public static Money ofMinor(long minor) {
+        return minor == 0L ? ZERO : new Money(minor);
+    }
+
+    /**
+     * 由 BigDecimal 轉換。
+     *
+     * @throws ArithmeticException 小數超過 2 位或超出 long 範圍
+     */
+    public static Money of(BigDecimal amount) {
+        if (amount.scale() == SCALE) {
+            // 常見情況（DB DECIMAL(10,2)）：位移小數點後為 scale 0，longValueExact 直接取內部 long，不產生 BigInteger
+            return ofMinor(amount.scaleByPowerOfTen(SCALE).longValueExact());
+        }
+        return ofMinor(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact());
+    }
+
+    /**
+     * 由 BigDecimal 轉換，超過 2 位小數時以 HALF_UP 捨入（等同 {@code setScale(2, RoundingMode.HALF_UP)}）。
+     * 用於外部輸入的邊界轉換。
+     *
+     * @throws ArithmeticException 超出 long 範圍
+     */
+    public static Money round(BigDecimal amount) {
+        if (amount.scale() <= SCALE) {
+            return of(amount);
+        }
+        return ofMinor(amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    /**
+     * 由 BigDecimal 轉換，null 視為零。
+     */
+    public static Money ofNullable(BigDecimal amount) {
+        return amount == null ? ZERO : of(amount);
+    }
+
+    public long minorUnits() {
+        return minor;
+    }
+
+    /**
+     * 轉回 BigDecimal（scale 固定為 2）。
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minor, other.minor));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minor, other.minor));
+    }
+
+    /**
+     * 乘以數量（精確，不需捨入）。
+     */
+    public Money times(int quantity) {
+        return ofMinor(Math.multiplyExact(minor, (long) quantity));
+    }
+
+    /**
+     * 乘以任意精度的係數（折扣率等），結果以 HALF_UP 捨入至 2 位小數。
+     */
+    public Money times(BigDecimal factor) {
+        if (factor.scale() >= 0 && factor.scale() < POWERS_OF_TEN.length && factor.precision() <= 18) {
+            return times(factor.unscaledValue().longValue(), factor.scale());
+        }
+        return slowTimes(factor);
+    }
+
+    /**
+     * 乘以以「未縮放值 × 10^-scale」表示的係數，結果以 HALF_UP 捨入至 2 位小數。
+     * 供熱路徑預先拆解係數後重複使用，避免每次呼叫都從 BigDecimal 取出 BigInteger。
+     */
+    public Money times(long factorUnscaled, int factorScale) {
+        if (factorScale < 0 || factorScale >= POWERS_OF_TEN.length) {
+            return slowTimes(BigDecimal.valueOf(factorUnscaled, factorScale));
+        }
+        long high = Math.multiplyHigh(minor, factorUnscaled);
+        long product = minor * factorUnscaled;
+        if (high != (product >> 63)) {
+            // 128 位元乘積超出 long 範圍
+            return slowTimes(BigDecimal.valueOf(factorUnscaled, factorScale));
+        }
+        return ofMinor(divideHalfUp(product, POWERS_OF_TEN[factorScale]));
+    }
+
+    public boolean isZero() {
+        return minor == 0L;
+    }
+
+    public boolean isPositive() {
+        return minor > 0L;
+    }
+
+    public boolean isNegative() {
+        return minor < 0L;
+    }
+
+    public Money max(Money other) {
+        return minor >= other.minor ? this : other;
+    }
+
+    public Money min(Money other) {
+        return minor <= other.minor ? this : other;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof Money m && m.minor == minor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString();
+    }
+
+    /**
+     * 整數除法並以 HALF_UP（遠離零方向進位）捨入，與 BigDecimal 的 HALF_UP 一致。
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        if (divisor == 1L) {
+            return dividend;
+        }
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        // divisor ≤ 10^18，remainder × 2 不會溢位
+        if (remainder * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+
+    private Money slowTimes(BigDecimal factor) {
+        return of(toBigDecimal().multiply(factor).setScale(SCALE, RoundingMode.HALF_UP));
+    }
+}
@@ -0,0 +1,102 @@
+package com.nameless.mall.core.benchmark;
+
+import com.nameless.mall.core.domain.Money;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Money 與 BigDecimal 計價路徑的 JMH 基準測試。
+ * <p>
+ * 模擬購物車合計（單價 × 數量累加）與行銷活動折後價（原價 × 折扣率 → HALF_UP）。
+ * 執行 {@link #main(String[])} 時附帶 GC profiler，可比較每次操作的配置量（gc.alloc.rate.norm）。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MoneyBenchmark {
+
+    @Param({ "1", "50", "1000" })
+    public int lines;
+
+    private BigDecimal[] prices;
+    private int[] quantities;
+    private BigDecimal rate;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        prices = new BigDecimal[lines];
+        quantities = new int[lines];
+        for (int i = 0; i < lines; i++) {
+            prices[i] = BigDecimal.valueOf(100 + random.nextInt(1_000_000), 2);
+            quantities[i] = 1 + random.nextInt(10);
+        }
+        rate = new BigDecimal("0.85");
+    }
+
+    @Benchmark
+    public BigDecimal cartTotalBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            total = total.add(prices[i].multiply(new BigDecimal(quantities[i])).setScale(2, RoundingMode.HALF_UP));
+        }
+        return total.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal cartTotalMoney() {
+        long totalMinor = 0L;
+        for (int i = 0; i < lines; i++) {
+            totalMinor = Math.addExact(totalMinor, Money.of(prices[i]).times(quantities[i]).minorUnits());
+        }
+        return Money.ofMinor(totalMinor).toBigDecimal();
+    }
+
+    @Benchmark
+    public long discountBigDecimal() {
+        long checksum = 0;
+        for (int i = 0; i < lines; i++) {
+            BigDecimal finalPrice = prices[i].multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            checksum += prices[i].subtract(finalPrice).unscaledValue().longValue();
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public long discountMoney() {
+        long checksum = 0;
+        for (int i = 0; i < lines; i++) {
+            Money original = Money.of(prices[i]);
+            checksum += original.minus(original.times(85L, 2)).minorUnits();
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MoneyBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
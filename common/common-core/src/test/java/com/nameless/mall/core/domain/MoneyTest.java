@@ -0,0 +1,236 @@
+package com.nameless.mall.core.domain;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 測試 Money 定點數金額與既有 BigDecimal 計算路徑的等價性。
+ * 性質測試以固定亂數種子產生大量輸入，逐筆比對 BigDecimal 的 {@code setScale(2, HALF_UP)} 結果。
+ */
+class MoneyTest {
+
+    private static final int SAMPLES = 200_000;
+
+    /** 新台幣金額：2 位小數，涵蓋負數（折扣差額）與大額訂單 */
+    private static BigDecimal randomAmount(Random random) {
+        long minor = switch (random.nextInt(4)) {
+            case 0 -> random.nextInt(1_000);
+            case 1 -> random.nextInt(10_000_000);
+            case 2 -> random.nextLong() % 1_000_000_000_000L;
+            default -> -random.nextInt(10_000_000);
+        };
+        return BigDecimal.valueOf(minor, 2);
+    }
+
+    /** 折扣率等係數：scale 0~6 */
+    private static BigDecimal randomFactor(Random random) {
+        int scale = random.nextInt(7);
+        long bound = (long) Math.pow(10, scale) * 2;
+        return BigDecimal.valueOf((long) (random.nextDouble() * bound), scale);
+    }
+
+    private static BigDecimal legacyRound(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    // --- 轉換 ---
+
+    @Nested
+    @DisplayName("BigDecimal 邊界轉換")
+    class ConversionTests {
+
+        @Test
+        @DisplayName("of → toBigDecimal — 數值不變且 scale 固定為 2")
+        void roundTrip() {
+            Random random = new Random(1);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal amount = randomAmount(random);
+                BigDecimal back = Money.of(amount).toBigDecimal();
+                assertEquals(amount, back);
+                assertEquals(2, back.scale());
+            }
+        }
+
+        @Test
+        @DisplayName("of — 接受較少小數位與尾隨零")
+        void acceptsShorterAndTrailingZeros() {
+            assertEquals(10_000L, Money.of(new BigDecimal("100")).minorUnits());
+            assertEquals(1_250L, Money.of(new BigDecimal("12.5")).minorUnits());
+            assertEquals(1_234L, Money.of(new BigDecimal("12.3400")).minorUnits());
+        }
+
+        @Test
+        @DisplayName("of — 超過 2 位有效小數拋出 ArithmeticException，不靜默捨入")
+        void rejectsExtraPrecision() {
+            assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("1.005")));
+        }
+
+        @Test
+        @DisplayName("round — 超過 2 位小數以 HALF_UP 捨入，與 setScale(2, HALF_UP) 一致")
+        void roundsExtraPrecision() {
+            assertEquals(101L, Money.round(new BigDecimal("1.005")).minorUnits());
+            assertEquals(-101L, Money.round(new BigDecimal("-1.005")).minorUnits());
+            assertEquals(100L, Money.round(new BigDecimal("1.0049")).minorUnits());
+            assertEquals(1_250L, Money.round(new BigDecimal("12.5")).minorUnits());
+            Random random = new Random(5);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal amount = randomAmount(random).multiply(randomFactor(random));
+                assertEquals(legacyRound(amount), Money.round(amount).toBigDecimal());
+            }
+        }
+
+        @Test
+        @DisplayName("ofNullable(null) — 視為零")
+        void nullAsZero() {
+            assertSame(Money.ZERO, Money.ofNullable(null));
+        }
+    }
+
+    // --- 性質：與 BigDecimal 路徑等價 ---
+
+    @Nested
+    @DisplayName("性質測試：結果與 BigDecimal 路徑一致")
+    class PropertyTests {
+
+        @Test
+        @DisplayName("times(qty) ≡ price × qty → setScale(2, HALF_UP)")
+        void timesQuantity() {
+            Random random = new Random(2);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal price = randomAmount(random);
+                int qty = random.nextInt(1_000);
+                BigDecimal expected = legacyRound(price.multiply(new BigDecimal(qty)));
+                assertEquals(expected, Money.of(price).times(qty).toBigDecimal(), price + " × " + qty);
+            }
+        }
+
+        @Test
+        @DisplayName("times(rate) ≡ price × rate → setScale(2, HALF_UP)")
+        void timesFactor() {
+            Random random = new Random(3);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal price = randomAmount(random);
+                BigDecimal rate = randomFactor(random);
+                BigDecimal expected = legacyRound(price.multiply(rate));
+                assertEquals(expected, Money.of(price).times(rate).toBigDecimal(), price + " × " + rate);
+            }
+        }
+
+        @Test
+        @DisplayName("plus / minus ≡ BigDecimal add / subtract")
+        void addSubtract() {
+            Random random = new Random(4);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal a = randomAmount(random);
+                BigDecimal b = randomAmount(random);
+                assertEquals(a.add(b), Money.of(a).plus(Money.of(b)).toBigDecimal());
+                assertEquals(a.subtract(b), Money.of(a).minus(Money.of(b)).toBigDecimal());
+                assertEquals(Integer.signum(a.compareTo(b)), Integer.signum(Money.of(a).compareTo(Money.of(b))));
+            }
+        }
+
+        @Test
+        @DisplayName("購物車合計 ≡ Σ setScale(price × qty)")
+        void cartTotal() {
+            Random random = new Random(5);
+            for (int cart = 0; cart < 10_000; cart++) {
+                BigDecimal legacy = BigDecimal.ZERO;
+                Money total = Money.ZERO;
+                int lines = 1 + random.nextInt(50);
+                for (int i = 0; i < lines; i++) {
+                    BigDecimal price = BigDecimal.valueOf(random.nextInt(10_000_000), 2);
+                    int qty = 1 + random.nextInt(99);
+                    legacy = legacy.add(legacyRound(price.multiply(new BigDecimal(qty))));
+                    total = total.plus(Money.of(price).times(qty));
+                }
+                assertEquals(legacyRound(legacy), total.toBigDecimal());
+            }
+        }
+
+        @Test
+        @DisplayName("優惠券：先捨入再封頂 ≡ 先封頂再捨入")
+        void couponCapOrder() {
+            Random random = new Random(6);
+            for (int i = 0; i < SAMPLES; i++) {
+                BigDecimal total = BigDecimal.valueOf(random.nextInt(100_000_000), 2);
+                BigDecimal rate = BigDecimal.valueOf(random.nextInt(100), 2);
+                BigDecimal max = BigDecimal.valueOf(random.nextInt(1_000_000), 2);
+
+                BigDecimal legacy = total.multiply(BigDecimal.ONE.subtract(rate));
+                if (max.signum() > 0 && legacy.compareTo(max) > 0) {
+                    legacy = max;
+                }
+                if (legacy.compareTo(total) > 0) {
+                    legacy = total;
+                }
+
+                Money discount = Money.of(total).times(BigDecimal.ONE.subtract(rate));
+                if (max.signum() > 0) {
+                    discount = discount.min(Money.of(max));
+                }
+                discount = discount.min(Money.of(total));
+
+                assertEquals(legacyRound(legacy), discount.toBigDecimal(), total + " / " + rate + " / " + max);
+            }
+        }
+    }
+
+    // --- 捨入與溢位邊界 ---
+
+    @Nested
+    @DisplayName("捨入與溢位邊界")
+    class EdgeTests {
+
+        @Test
+        @DisplayName("HALF_UP — 0.5 分遠離零進位，正負對稱")
+        void halfUpAwayFromZero() {
+            BigDecimal half = new BigDecimal("0.5");
+            assertEquals(new BigDecimal("0.51"), Money.of(new BigDecimal("1.01")).times(half).toBigDecimal());
+            assertEquals(new BigDecimal("-0.51"), Money.of(new BigDecimal("-1.01")).times(half).toBigDecimal());
+            assertEquals(new BigDecimal("0.50"), Money.of(new BigDecimal("1.00")).times(half).toBigDecimal());
+        }
+
+        @Test
+        @DisplayName("乘積超出 long — 退回 BigDecimal 計算，結果仍精確")
+        void overflowFallsBack() {
+            BigDecimal price = BigDecimal.valueOf(Long.MAX_VALUE / 10, 2);
+            BigDecimal rate = new BigDecimal("0.999999");
+            BigDecimal expected = legacyRound(price.multiply(rate));
+            assertEquals(expected, Money.of(price).times(rate).toBigDecimal());
+        }
+
+        @Test
+        @DisplayName("係數 scale 為負或精度過高 — 結果與 BigDecimal 一致")
+        void unusualFactors() {
+            Money price = Money.of(new BigDecimal("123.45"));
+            BigDecimal negativeScale = new BigDecimal("1E+1");
+            BigDecimal highPrecision = new BigDecimal("0.1234567890123456789012");
+            assertEquals(legacyRound(price.toBigDecimal().multiply(negativeScale)),
+                    price.times(negativeScale).toBigDecimal());
+            assertEquals(legacyRound(price.toBigDecimal().multiply(highPrecision)),
+                    price.times(highPrecision).toBigDecimal());
+        }
+
+        @Test
+        @DisplayName("times(qty) 溢位 — 拋出 ArithmeticException")
+        void quantityOverflow() {
+            Money huge = Money.ofMinor(Long.MAX_VALUE / 2);
+            assertThrows(ArithmeticException.class, () -> huge.times(3));
+        }
+
+        @Test
+        @DisplayName("equals / hashCode — 僅依最小單位比較")
+        void equality() {
+            assertEquals(Money.of(new BigDecimal("1.5")), Money.of(new BigDecimal("1.50")));
+            assertEquals(Money.of(new BigDecimal("1.5")).hashCode(), Money.ofMinor(150).hashCode());
+            assertEquals("1.50", Money.ofMinor(150).toString());
+        }
+    }
+}
@@ -1,11 +1,13 @@
 package com.nameless.mall.auth.controller;
 
 import com.nameless.mall.auth.api.vo.LoginResultVO;
+import com.nameless.mall.auth.service.GuestCartMergeService;
 import com.nameless.mall.auth.service.JwtTokenService;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
@@ -36,14 +38,17 @@ public class AuthController {
 
     private final AuthenticationManager authenticationManager;
     private final JwtTokenService jwtTokenService;
+    private final GuestCartMergeService guestCartMergeService;
     /** JWT 過期時間（毫秒），從配置讀取，避免硬編碼 */
     private final long jwtExpirationMs;
 
     public AuthController(AuthenticationManager authenticationManager,
             JwtTokenService jwtTokenService,
+            GuestCartMergeService guestCartMergeService,
             @Value("${jwt.expiration}") long jwtExpirationMs) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenService = jwtTokenService;
+        this.guestCartMergeService = guestCartMergeService;
         this.jwtExpirationMs = jwtExpirationMs;
     }
 
@@ -59,15 +64,17 @@ public class AuthController {
      * 處理用戶帳號密碼登入請求。
      * <p>
      * 使用 Spring Security 的 AuthenticationManager 進行驗證。
-     * 若驗證成功，由 JwtTokenService 簽發具有時效性的 Access Token。
+     * 若驗證成功，由 JwtTokenService 簽發具有時效性的 Access Token，並合併該裝置的訪客購物車。
      * </p>
      *
      * @param loginRequest 封裝帳號密碼的 DTO，並透過 @Valid 確保不為空
+     * @param request      用於取得訪客購物車的裝置識別碼
      * @return 封裝登入成功結果 (Token 與基本用戶資訊) 的 Result 物件
      * @throws BusinessException 當帳密錯誤時拋出 CREDENTIALS_INVALID (HTTP 401)
      */
     @PostMapping("/login")
-    public Result<LoginResultVO> authenticateUser(@Valid @RequestBody LoginRequest loginRequest) {
+    public Result<LoginResultVO> authenticateUser(@Valid @RequestBody LoginRequest loginRequest,
+            HttpServletRequest request) {
         try {
             // 執行 Spring Security 認證
             Authentication authentication = authenticationManager.authenticate(
@@ -78,6 +85,7 @@ public class AuthController {
             // 產生 JWT Token 並組裝回應
             String jwt = jwtTokenService.generateToken(authentication);
             LoginResultVO data = buildLoginResult(jwt, authentication);
+            guestCartMergeService.mergeOnLogin(request, data.getUser().getId());
 
             return Result.ok(data, "登入成功");
         } catch (AuthenticationException e) {
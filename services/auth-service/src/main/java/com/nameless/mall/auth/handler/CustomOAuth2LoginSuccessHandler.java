@@ -1,6 +1,7 @@
 package com.nameless.mall.auth.handler;
 
 import com.nameless.mall.user.api.feign.UserServiceFeignClient;
+import com.nameless.mall.auth.service.GuestCartMergeService;
 import com.nameless.mall.auth.service.JwtTokenService;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.core.enums.ResultCodeEnum;
@@ -36,6 +37,7 @@ public class CustomOAuth2LoginSuccessHandler implements AuthenticationSuccessHan
 
     private final UserServiceFeignClient userServiceFeignClient;
     private final JwtTokenService jwtTokenService;
+    private final GuestCartMergeService guestCartMergeService;
 
     @Value("${app.frontend.callback-url:http://localhost:3000/login/callback}")
     private String frontendCallbackUrl;
@@ -55,7 +57,10 @@ public class CustomOAuth2LoginSuccessHandler implements AuthenticationSuccessHan
             // 3. 建立內部認證物件並生成 JWT
             String jwtToken = generateJwtForUser(internalUser);
 
-            // 4. 重導向到前端
+            // 4. 合併訪客購物車（裝置識別碼取自 Cookie，失敗不影響登入）
+            guestCartMergeService.mergeOnLogin(request, internalUser.getId());
+
+            // 5. 重導向到前端
             redirectWithToken(response, jwtToken, internalUser.getUsername());
 
         } catch (Exception e) {
@@ -0,0 +1,61 @@
+package com.nameless.mall.auth.service;
+
+import com.nameless.mall.cart.api.feign.CartFeignClient;
+import com.nameless.mall.core.domain.Result;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * 登入成功後將訪客購物車併入會員購物車。
+ * <p>
+ * 裝置識別碼取自 {@code X-Device-Id} Header（帳密登入）或 {@code mall_device_id} Cookie（OAuth2 重導向無法帶自訂 Header）。
+ * cart-service 以單次 LUA 腳本完成合併，登入流程只增加一次 RPC；合併失敗不影響登入，訪客購物車保留至逾期。
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class GuestCartMergeService {
+
+    private static final String DEVICE_ID_HEADER = "X-Device-Id";
+    private static final String DEVICE_ID_COOKIE = "mall_device_id";
+
+    private final CartFeignClient cartFeignClient;
+
+    /**
+     * 合併請求所屬裝置的訪客購物車；請求未帶裝置識別碼時不做任何事。
+     */
+    public void mergeOnLogin(HttpServletRequest request, Long userId) {
+        String deviceId = resolveDeviceId(request);
+        if (deviceId == null || userId == null) {
+            return;
+        }
+        try {
+            Result<Integer> result = cartFeignClient.mergeGuestCart(userId, deviceId);
+            if (result == null || !result.isSuccess()) {
+                log.warn("【登入】合併訪客購物車失敗: userId={}, result={}", userId, result);
+            }
+        } catch (Exception e) {
+            log.warn("【登入】合併訪客購物車失敗，不影響登入: userId={}, cause={}", userId, e.getMessage());
+        }
+    }
+
+    private static String resolveDeviceId(HttpServletRequest request) {
+        String deviceId = request.getHeader(DEVICE_ID_HEADER);
+        if (StringUtils.hasText(deviceId)) {
+            return deviceId;
+        }
+        if (request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (DEVICE_ID_COOKIE.equals(cookie.getName()) && StringUtils.hasText(cookie.getValue())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -94,4 +94,10 @@ public class CartItemDTO implements Serializable {
      * 促銷活動ID（用於特賣庫存扣減與記錄）
      */
     private Long promotionId;
+
+    /**
+     * 庫存狀態 (StockStatus: IN_STOCK, INSUFFICIENT, OUT_OF_STOCK)，讀取時依庫存鏡像標示，不存入 Redis；
+     * 庫存未知時為 null
+     */
+    private String stockStatus;
 }
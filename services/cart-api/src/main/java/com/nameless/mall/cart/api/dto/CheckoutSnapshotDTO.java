@@ -0,0 +1,44 @@
+package com.nameless.mall.cart.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 結帳快照資料傳輸物件 (DTO)
+ * <p>
+ * 下單時由購物車服務一次回傳：勾選項目（含凍結數量、顯示資料與計價結果）及快照 ID。
+ * 訂單完成後以快照 ID 提交（自購物車扣除凍結數量），失敗時釋放。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutSnapshotDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 快照 ID；勾選項目皆不在購物車時為 null
+     */
+    private String snapshotId;
+
+    /**
+     * 勾選的購物車項目，數量為凍結時的數量，價格欄位為計價結果
+     */
+    private List<CartItemDTO> items;
+
+    /**
+     * 計價結果所屬的計價版本；促銷服務降級或結果不可快取時為 null
+     */
+    private String pricingVersion;
+
+    /**
+     * 計價版本在無管理端變更的前提下保持有效的時間點（epoch 毫秒）
+     */
+    private Long pricingValidUntil;
+}
@@ -1,10 +1,14 @@
 package com.nameless.mall.cart.api.feign;
 
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
 import com.nameless.mall.core.domain.Result;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import java.util.List;
 
@@ -36,4 +40,43 @@ public interface CartFeignClient {
     @PostMapping("/cart/internal/clear-items")
     Result<Void> clearCartItems(@RequestBody List<Long> cartItemIds);
 
+    /**
+     * 凍結結帳快照：原子讀取勾選的購物車項目並記錄當下數量，一次回傳含顯示資料與計價結果的項目。
+     * <p>
+     * 訂單服務下單時呼叫；userId 明確帶入，不依賴請求上下文透傳。
+     *
+     * @param userId      使用者 ID
+     * @param cartItemIds 勾選的購物車項目 ID（variantId）
+     * @return 結帳快照
+     */
+    @PostMapping("/cart/internal/checkout")
+    Result<CheckoutSnapshotDTO> freezeCheckout(@RequestHeader("X-User-Id") Long userId,
+            @RequestBody List<Long> cartItemIds);
+
+    /**
+     * 提交結帳快照：自購物車扣除凍結的數量。訂單建立成功後呼叫，重複呼叫無副作用。
+     * <p>
+     * 由異步下單線程呼叫，userId 必須明確帶入。
+     */
+    @PostMapping("/cart/internal/checkout/{snapshotId}/commit")
+    Result<Void> commitCheckout(@RequestHeader("X-User-Id") Long userId, @PathVariable("snapshotId") String snapshotId);
+
+    /**
+     * 釋放結帳快照：下單失敗時呼叫，購物車內容不變。
+     */
+    @PostMapping("/cart/internal/checkout/{snapshotId}/release")
+    Result<Void> releaseCheckout(@RequestHeader("X-User-Id") Long userId, @PathVariable("snapshotId") String snapshotId);
+
+    /**
+     * 登入時將訪客購物車併入會員購物車（cart-service 以單次 LUA 腳本完成，與購物車大小無關）。
+     * <p>
+     * 由認證服務在簽發 Token 後呼叫，此時尚無使用者請求上下文，userId 必須明確帶入。
+     *
+     * @param userId   登入的使用者 ID
+     * @param deviceId 訪客購物車的裝置識別碼
+     * @return 合併的商品數
+     */
+    @PostMapping("/cart/internal/merge-guest")
+    Result<Integer> mergeGuestCart(@RequestHeader("X-User-Id") Long userId, @RequestParam("deviceId") String deviceId);
+
 }
@@ -1,6 +1,7 @@
 package com.nameless.mall.cart.api.feign;
 
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import org.slf4j.Logger;
@@ -35,6 +36,34 @@ public class CartFeignFallback implements FallbackFactory<CartFeignClient> {
                         cartItemIds != null ? cartItemIds.size() : 0, cause.getMessage(), cause);
                 return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車服務暫時不可用，清除操作將稍後重試");
             }
+
+            @Override
+            public Result<CheckoutSnapshotDTO> freezeCheckout(Long userId, List<Long> cartItemIds) {
+                log.error("降級 | CartFeignClient.freezeCheckout 失敗, userId: {}, 數量: {}, cause: {}",
+                        userId, cartItemIds != null ? cartItemIds.size() : 0, cause.getMessage(), cause);
+                return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車服務暫時不可用，請稍後重試");
+            }
+
+            @Override
+            public Result<Void> commitCheckout(Long userId, String snapshotId) {
+                log.error("降級 | CartFeignClient.commitCheckout 失敗, userId: {}, snapshotId: {}, cause: {}",
+                        userId, snapshotId, cause.getMessage(), cause);
+                return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車服務暫時不可用，已下單商品將留在購物車");
+            }
+
+            @Override
+            public Result<Void> releaseCheckout(Long userId, String snapshotId) {
+                log.error("降級 | CartFeignClient.releaseCheckout 失敗, userId: {}, snapshotId: {}, cause: {}",
+                        userId, snapshotId, cause.getMessage(), cause);
+                return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車服務暫時不可用，快照將自動逾期");
+            }
+
+            @Override
+            public Result<Integer> mergeGuestCart(Long userId, String deviceId) {
+                log.error("降級 | CartFeignClient.mergeGuestCart 失敗, userId: {}, cause: {}",
+                        userId, cause.getMessage(), cause);
+                return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車服務暫時不可用，訪客購物車保留至逾期");
+            }
         };
     }
 }
@@ -36,4 +36,9 @@ public class CartItemVO implements Serializable {
     private BigDecimal discountAmount;
     private String promotionName;
     private String promotionType;
+
+    /**
+     * 庫存狀態 (IN_STOCK / INSUFFICIENT / OUT_OF_STOCK)，庫存未知時為 null
+     */
+    private String stockStatus;
 }
@@ -1,36 +1,155 @@
 package com.nameless.mall.cart.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 購物車服務異步配置。
  * <p>
- * 提供 cartFeignExecutor 線程池，供 getCartDTO() 並行發射 Feign 呼叫使用。
- * 使用 CallerRunsPolicy 確保過載時降級為同步執行（不會丟失請求）。
+ * 提供 cartFeignExecutor，供 getCartDTO() 並行發射 Feign 呼叫與規格快取背景重載使用，參數可透過 Nacos 調整。
+ * 線程池與佇列皆有上限，滿載時拒絕（AbortPolicy）由呼叫端直接降級，不在 Tomcat 請求線程同步執行。
+ * 指標：executor.active / executor.queued / executor.pool.size 等（name=cartFeignExecutor），
+ * 以及任務在佇列中的等待時間 executor.queue.wait。
+ * </p>
+ * <p>
+ * virtual-threads=true 時改為每個任務一個虛擬線程，以 max-pool-size 限制同時執行數；
+ * 需執行於 Java 21 以上，否則記錄警告並沿用線程池。
  * </p>
  */
 @Slf4j
 @Configuration
 public class AsyncConfig {
 
-    @Bean("cartFeignExecutor")
-    public Executor cartFeignExecutor() {
+    private static final String EXECUTOR_NAME = "cartFeignExecutor";
+
+    @Value("${cart.feign-executor.core-pool-size:8}")
+    private int corePoolSize;
+
+    @Value("${cart.feign-executor.max-pool-size:30}")
+    private int maxPoolSize;
+
+    @Value("${cart.feign-executor.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${cart.feign-executor.virtual-threads:false}")
+    private boolean virtualThreads;
+
+    @Bean(EXECUTOR_NAME)
+    public Executor cartFeignExecutor(MeterRegistry meterRegistry) {
+        TaskDecorator queueWait = queueWaitRecorder(meterRegistry);
+        if (virtualThreads) {
+            ExecutorService virtual = newVirtualThreadPerTaskExecutor();
+            if (virtual != null) {
+                log.info("【Cart 異步配置】Feign 並行改用虛擬線程: maxConcurrency={}", maxPoolSize);
+                return new BoundedExecutor(virtual, maxPoolSize, queueWait, meterRegistry);
+            }
+            log.warn("【Cart 異步配置】目前 JVM 不支援虛擬線程（需 Java 21+），沿用線程池");
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-        executor.setCorePoolSize(8);
-        executor.setMaxPoolSize(30);
-        executor.setQueueCapacity(200);
+        executor.setCorePoolSize(corePoolSize);
+        executor.setMaxPoolSize(maxPoolSize);
+        executor.setQueueCapacity(queueCapacity);
         executor.setThreadNamePrefix("cart-feign-");
-        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setTaskDecorator(queueWait);
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.setWaitForTasksToCompleteOnShutdown(true);
         executor.setAwaitTerminationSeconds(30);
         executor.initialize();
-        log.info("【Cart 異步配置】Feign 並行線程池: core=8, max=30, queue=200");
+        new ExecutorServiceMetrics(executor.getThreadPoolExecutor(), EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+        log.info("【Cart 異步配置】Feign 並行線程池: core={}, max={}, queue={}", corePoolSize, maxPoolSize,
+                queueCapacity);
         return executor;
     }
+
+    /**
+     * 記錄任務自提交到開始執行的等待時間（TaskDecorator 於提交時呼叫）。
+     */
+    private static TaskDecorator queueWaitRecorder(MeterRegistry meterRegistry) {
+        Timer timer = Timer.builder("executor.queue.wait").tag("name", EXECUTOR_NAME).register(meterRegistry);
+        return task -> {
+            long submittedAt = System.nanoTime();
+            return () -> {
+                timer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                task.run();
+            };
+        };
+    }
+
+    /**
+     * 以反射取得 Executors#newVirtualThreadPerTaskExecutor（編譯目標為 Java 17）。
+     *
+     * @return 執行中的 JVM 不支援時回傳 null
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 以 Semaphore 限制同時執行數的 Executor（虛擬線程模式）；超過上限時拒絕，與線程池滿載時的行為一致。
+     */
+    private static final class BoundedExecutor implements Executor, DisposableBean {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+        private final TaskDecorator decorator;
+
+        BoundedExecutor(ExecutorService delegate, int maxConcurrency, TaskDecorator decorator,
+                MeterRegistry meterRegistry) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+            this.decorator = decorator;
+            Gauge.builder("executor.active", permits, p -> maxConcurrency - p.availablePermits())
+                    .tag("name", EXECUTOR_NAME)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (!permits.tryAcquire()) {
+                throw new RejectedExecutionException("cartFeignExecutor 已達同時執行上限");
+            }
+            Runnable decorated = decorator.decorate(task);
+            try {
+                delegate.execute(() -> {
+                    try {
+                        decorated.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void destroy() throws InterruptedException {
+            delegate.shutdown();
+            delegate.awaitTermination(30, TimeUnit.SECONDS);
+        }
+    }
 }
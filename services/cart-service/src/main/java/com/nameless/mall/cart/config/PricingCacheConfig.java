@@ -0,0 +1,78 @@
+package com.nameless.mall.cart.config;
+
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 計價結果快取配置。
+ * <p>
+ * 購物車渲染時的計價結果以 {@link PricingResultCache} 本地快取，價格未變時不再呼叫 promotion-service。
+ * 促銷（場次、行銷活動）或分類樹變更時，由各實例的匿名隊列收到廣播後整批清空。
+ * </p>
+ */
+@Configuration
+public class PricingCacheConfig {
+
+    // 變更廣播 (與 promotion-service / product-service 側一致)
+    public static final String EXCHANGE_PROMOTION_TOPIC = "promotion.topic";
+    public static final String KEY_FLASH_SALE_CHANGED = "promotion.flash_sale.changed";
+    public static final String KEY_CAMPAIGN_CHANGED = "promotion.campaign.changed";
+    public static final String EXCHANGE_PRODUCT_TOPIC = "product.topic";
+    public static final String KEY_CATEGORY_CHANGED = "product.category.changed";
+
+    @Bean
+    public PricingResultCache pricingResultCache(PromotionFeignClient promotionFeignClient,
+            @Value("${cart.pricing-cache.enabled:true}") boolean enabled,
+            @Value("${cart.pricing-cache.max-entries:50000}") int maxEntries,
+            @Value("${cart.pricing-cache.max-age-ms:60000}") long maxAgeMs,
+            @Value("${cart.pricing-cache.settle-ms:3000}") long settleMs) {
+        return new PricingResultCache(promotionFeignClient, enabled, maxEntries, maxAgeMs, settleMs);
+    }
+
+    @Bean
+    public TopicExchange promotionTopicExchange() {
+        return new TopicExchange(EXCHANGE_PROMOTION_TOPIC, true, false);
+    }
+
+    @Bean
+    public TopicExchange productTopicExchange() {
+        return new TopicExchange(EXCHANGE_PRODUCT_TOPIC, true, false);
+    }
+
+    /**
+     * 計價快取失效隊列：每個實例各自一條匿名、自動刪除的隊列，確保所有實例都清空本地快取
+     */
+    @Bean
+    public Queue pricingCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding pricingCacheFlashSaleBinding() {
+        return BindingBuilder.bind(pricingCacheInvalidationQueue())
+                .to(promotionTopicExchange())
+                .with(KEY_FLASH_SALE_CHANGED);
+    }
+
+    @Bean
+    public Binding pricingCacheCampaignBinding() {
+        return BindingBuilder.bind(pricingCacheInvalidationQueue())
+                .to(promotionTopicExchange())
+                .with(KEY_CAMPAIGN_CHANGED);
+    }
+
+    @Bean
+    public Binding pricingCacheCategoryBinding() {
+        return BindingBuilder.bind(pricingCacheInvalidationQueue())
+                .to(productTopicExchange())
+                .with(KEY_CATEGORY_CHANGED);
+    }
+}
@@ -31,6 +31,8 @@ public class SecurityConfig {
                         .requestMatchers("/actuator/**").permitAll()
                         // 內部 API (供訂單服務呼叫)
                         .requestMatchers("/cart/internal/**").permitAll()
+                        // 訪客購物車 (未登入，以 X-Device-Id 區分)
+                        .requestMatchers("/cart/guest/**").permitAll()
                         // 其他請求需要認證
                         .anyRequest().authenticated())
                 .oauth2ResourceServer(oauth2 -> oauth2.jwt(Customizer.withDefaults()));
@@ -0,0 +1,37 @@
+package com.nameless.mall.cart.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 商品規格快取失效配置。
+ * <p>
+ * product-service 在商品異動（更新 / 下架）的事務提交後發送 product.sync.{action}；
+ * 每個實例以匿名隊列各自接收，移除本地快取中該商品的所有規格。
+ * </p>
+ */
+@Configuration
+public class VariantCacheConfig {
+
+    // 商品同步廣播 (與 product-service ProductEventPublisher 一致)
+    public static final String KEY_PRODUCT_SYNC = "product.sync.#";
+
+    @Bean
+    public Queue variantCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding variantCacheProductSyncBinding(
+            @Qualifier("productTopicExchange") TopicExchange productTopicExchange) {
+        return BindingBuilder.bind(variantCacheInvalidationQueue())
+                .to(productTopicExchange)
+                .with(KEY_PRODUCT_SYNC);
+    }
+}
@@ -1,6 +1,7 @@
 package com.nameless.mall.cart.controller;
 
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
 import com.nameless.mall.cart.api.vo.CartVO;
 import com.nameless.mall.cart.service.CartService;
 import com.nameless.mall.core.domain.Result;
@@ -78,6 +79,31 @@ public class CartController {
         return Result.ok();
     }
 
+    // --- Guest APIs（未登入，以 X-Device-Id 區分，登入時併入會員購物車） ---
+
+    @GetMapping("/guest")
+    public Result<CartVO> getGuestCart(@RequestHeader("X-Device-Id") String deviceId) {
+        return Result.ok(cartService.getGuestCart(deviceId));
+    }
+
+    @PostMapping("/guest/items")
+    public Result<CartVO> addToGuestCart(@RequestHeader("X-Device-Id") String deviceId,
+            @Valid @RequestBody AddToCartRequest request) {
+        return Result.ok(cartService.addToGuestCart(deviceId, request.getVariantId(), request.getQuantity()));
+    }
+
+    @PutMapping("/guest/items/{variantId}")
+    public Result<CartVO> updateGuestItemQuantity(@RequestHeader("X-Device-Id") String deviceId,
+            @PathVariable Long variantId, @Valid @RequestBody UpdateQuantityRequest request) {
+        return Result.ok(cartService.updateGuestItemQuantity(deviceId, variantId, request.getQuantity()));
+    }
+
+    @DeleteMapping("/guest/items")
+    public Result<CartVO> removeGuestItems(@RequestHeader("X-Device-Id") String deviceId,
+            @Valid @RequestBody RemoveItemsRequest request) {
+        return Result.ok(cartService.removeGuestItem(deviceId, request.getVariantIds().toArray(new Long[0])));
+    }
+
     // --- Internal APIs (Return DTO) ---
 
     @PostMapping("/internal/items")
@@ -91,4 +117,28 @@ public class CartController {
         cartService.clearCartItems(userId, cartItemIds);
         return Result.ok();
     }
+
+    @PostMapping("/internal/merge-guest")
+    public Result<Integer> mergeGuestCart(@RequestHeader("X-User-Id") Long userId,
+            @RequestParam("deviceId") String deviceId) {
+        return Result.ok(cartService.mergeGuestCart(userId, deviceId));
+    }
+
+    @PostMapping("/internal/checkout")
+    public Result<CheckoutSnapshotDTO> freezeCheckout(@RequestHeader("X-User-Id") Long userId,
+            @RequestBody List<Long> cartItemIds) {
+        return Result.ok(cartService.freezeCheckout(userId, cartItemIds));
+    }
+
+    @PostMapping("/internal/checkout/{snapshotId}/commit")
+    public Result<Void> commitCheckout(@RequestHeader("X-User-Id") Long userId, @PathVariable String snapshotId) {
+        cartService.commitCheckout(userId, snapshotId);
+        return Result.ok();
+    }
+
+    @PostMapping("/internal/checkout/{snapshotId}/release")
+    public Result<Void> releaseCheckout(@RequestHeader("X-User-Id") Long userId, @PathVariable String snapshotId) {
+        cartService.releaseCheckout(userId, snapshotId);
+        return Result.ok();
+    }
 }
@@ -0,0 +1,52 @@
+package com.nameless.mall.cart.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 購物車封存表
+ * 閒置超過設定天數的購物車由 Redis 移至此表，使用者下次存取時還原。
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName("cart_archive")
+public class CartArchive implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 使用者 ID
+     */
+    @TableId(type = IdType.INPUT)
+    private Long userId;
+
+    /**
+     * 整車資料（CartItemCodec#encodeCart 編碼，含數量）
+     */
+    private byte[] payload;
+
+    /**
+     * 項目數
+     */
+    private Integer itemCount;
+
+    /**
+     * 最後存取時間
+     */
+    private LocalDateTime lastActiveAt;
+
+    /**
+     * 封存時間
+     */
+    private LocalDateTime archivedAt;
+}
@@ -0,0 +1,178 @@
+package com.nameless.mall.cart.manager;
+
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.core.domain.Money;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 購物車項目的精簡二進位編碼。
+ * <p>
+ * Redis 內每個購物車項目只保存計價所需的 ID 與價格快照；商品名稱、圖片、SKU、規格選項等顯示資料
+ * 由 {@link VariantCacheManager} 依 variantId 補上，不再隨每個使用者的購物車重複儲存。
+ * 數量另存於 {variantId}:qty 欄位（見 {@link CartRedisManager}），不在此編碼內。
+ * </p>
+ * <pre>
+ * byte    版本 (目前為 1)
+ * byte    旗標 bit0: categoryId, bit1: originalPrice, bit2: price
+ * varlong productId
+ * varlong categoryId          (旗標 bit0)
+ * varlong originalPrice 分    (旗標 bit1，zigzag)
+ * varlong price 分            (旗標 bit2，zigzag)
+ * </pre>
+ * 首位元組不可能是 '{'，讀取端可據此區分舊版 JSON 格式。
+ * <p>
+ * 封存至 MySQL 的整車資料（見 {@link CartLifecycleManager}）同樣以此編碼串接：
+ * </p>
+ * <pre>
+ * byte    版本 (目前為 1)
+ * varlong 項目數
+ * 每個項目: varlong variantId, varlong quantity, varlong 長度, 項目編碼
+ * </pre>
+ */
+public final class CartItemCodec {
+
+    public static final byte VERSION_1 = 1;
+
+    private static final int HAS_CATEGORY = 1;
+    private static final int HAS_ORIGINAL_PRICE = 1 << 1;
+    private static final int HAS_PRICE = 1 << 2;
+
+    private CartItemCodec() {
+    }
+
+    /**
+     * @return 是否為本編碼（否則視為舊版 JSON）
+     */
+    public static boolean isBinary(byte[] value) {
+        return value.length > 0 && value[0] == VERSION_1;
+    }
+
+    public static byte[] encode(CartItemDTO item) {
+        int flags = (item.getCategoryId() != null ? HAS_CATEGORY : 0)
+                | (item.getOriginalPrice() != null ? HAS_ORIGINAL_PRICE : 0)
+                | (item.getPrice() != null ? HAS_PRICE : 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(24);
+        out.write(VERSION_1);
+        out.write(flags);
+        writeVarLong(out, item.getProductId() != null ? item.getProductId() : 0L);
+        if ((flags & HAS_CATEGORY) != 0) {
+            writeVarLong(out, item.getCategoryId());
+        }
+        if ((flags & HAS_ORIGINAL_PRICE) != 0) {
+            writeVarLong(out, zigzag(Money.round(item.getOriginalPrice()).minorUnits()));
+        }
+        if ((flags & HAS_PRICE) != 0) {
+            writeVarLong(out, zigzag(Money.round(item.getPrice()).minorUnits()));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解碼為僅含 ID 與價格快照（含推導的折扣金額）的項目；顯示資料與數量由呼叫端補上。
+     *
+     * @throws IllegalArgumentException 版本不支援或資料截斷
+     */
+    public static CartItemDTO decode(long variantId, byte[] value) {
+        if (!isBinary(value) || value.length < 3) {
+            throw new IllegalArgumentException("不支援的購物車項目編碼");
+        }
+        int[] pos = { 2 };
+        int flags = value[1];
+        CartItemDTO item = new CartItemDTO();
+        item.setVariantId(variantId);
+        long productId = readVarLong(value, pos);
+        item.setProductId(productId != 0 ? productId : null);
+        if ((flags & HAS_CATEGORY) != 0) {
+            item.setCategoryId(readVarLong(value, pos));
+        }
+        if ((flags & HAS_ORIGINAL_PRICE) != 0) {
+            item.setOriginalPrice(Money.ofMinor(unzigzag(readVarLong(value, pos))).toBigDecimal());
+        }
+        if ((flags & HAS_PRICE) != 0) {
+            item.setPrice(Money.ofMinor(unzigzag(readVarLong(value, pos))).toBigDecimal());
+        }
+        if (item.getOriginalPrice() != null && item.getPrice() != null) {
+            item.setDiscountAmount(item.getOriginalPrice().subtract(item.getPrice()));
+        }
+        return item;
+    }
+
+    /**
+     * 將整個購物車（含數量）編碼為封存資料。
+     */
+    public static byte[] encodeCart(List<CartItemDTO> items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(items.size() * 24 + 4);
+        out.write(VERSION_1);
+        writeVarLong(out, items.size());
+        for (CartItemDTO item : items) {
+            byte[] encoded = encode(item);
+            writeVarLong(out, item.getVariantId());
+            writeVarLong(out, item.getQuantity());
+            writeVarLong(out, encoded.length);
+            out.write(encoded, 0, encoded.length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解碼封存資料為含數量的購物車項目。
+     *
+     * @throws IllegalArgumentException 版本不支援或資料截斷
+     */
+    public static List<CartItemDTO> decodeCart(byte[] value) {
+        if (!isBinary(value)) {
+            throw new IllegalArgumentException("不支援的購物車封存編碼");
+        }
+        int[] pos = { 1 };
+        int count = (int) readVarLong(value, pos);
+        List<CartItemDTO> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long variantId = readVarLong(value, pos);
+            int quantity = (int) readVarLong(value, pos);
+            int length = (int) readVarLong(value, pos);
+            if (length < 0 || pos[0] + length > value.length) {
+                throw new IllegalArgumentException("購物車封存編碼截斷");
+            }
+            CartItemDTO item = decode(variantId, Arrays.copyOfRange(value, pos[0], pos[0] + length));
+            item.setQuantity(quantity);
+            items.add(item);
+            pos[0] += length;
+        }
+        return items;
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] in, int[] pos) {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (pos[0] >= in.length) {
+                throw new IllegalArgumentException("購物車項目編碼截斷");
+            }
+            byte b = in[pos[0]++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("購物車項目編碼錯誤");
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,321 @@
+package com.nameless.mall.cart.manager;
+
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.entity.CartArchive;
+import com.nameless.mall.cart.mapper.CartArchiveMapper;
+import com.nameless.mall.core.enums.ResultCodeEnum;
+import com.nameless.mall.core.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 購物車生命週期 - 滑動 TTL、閒置購物車封存至 MySQL 與存取時還原。
+ * <p>
+ * <ul>
+ * <li>滑動 TTL：購物車腳本每次讀寫都延長 Key 的存活時間，並更新活躍索引
+ * （{@link #ACTIVE_KEY}，ZSET userId → 最後存取時間）。</li>
+ * <li>封存：閒置超過 idle-days 的購物車由背景排程分批壓縮（舊版 JSON 項目改為二進位編碼）寫入 cart_archive，
+ * 確認寫入後自 Redis 移除並留下封存標記（{@link #ARCHIVED_PREFIX}）。</li>
+ * <li>還原：購物車腳本遇到封存標記時回報，由 {@link CartRedisManager} 呼叫 {@link #restore(Long)} 還原後重試，
+ * 對呼叫端透明。</li>
+ * </ul>
+ * 封存標記與封存資料保留 archive-retention-days；TTL（ttl-days）必須大於 idle-days，
+ * 封存排程停用或落後時購物車才會直接逾期。
+ * </p>
+ */
+@Slf4j
+@Component
+public class CartLifecycleManager {
+
+    public static final String ACTIVE_KEY = "mall:cart:active";
+    public static final String ARCHIVED_PREFIX = "mall:cart:archived:";
+    /** 舊購物車 TTL 補齊已完成（完整掃描一輪未發現缺少 TTL 的購物車） */
+    private static final String BACKFILLED_KEY = "mall:cart:lifecycle:backfilled";
+    private static final Pattern CART_KEY = Pattern.compile(Pattern.quote(CartRedisManager.CART_PREFIX) + "-?\\d+");
+    private static final int BACKFILL_CHUNK = 500;
+    private static final int PURGE_CHUNK = 1000;
+
+    private static final String METRIC_OFFLOAD = "cart.lifecycle.offload";
+    private static final String METRIC_MEMORY_SAVED = "cart.lifecycle.memory.saved.bytes";
+    private static final String METRIC_REHYDRATE = "cart.lifecycle.rehydrate";
+    private static final RedisSerializer<byte[]> RAW = RedisSerializer.byteArray();
+
+    private final StringRedisTemplate redisTemplate;
+    private final CartArchiveMapper cartArchiveMapper;
+    private final long ttlMillis;
+    private final long idleMillis;
+    private final long retentionMillis;
+    private final DefaultRedisScript<List> offloadScript;
+    private final DefaultRedisScript<Long> rehydrateScript;
+    private final DefaultRedisScript<Long> backfillScript;
+    private final Counter offloaded;
+    private final Counter offloadSkippedActive;
+    private final Counter memorySaved;
+    private final Counter rehydrated;
+
+    /** 封存結果 */
+    public enum Outcome {
+        /** 已封存並自 Redis 移除 */
+        OFFLOADED,
+        /** 封存期間購物車又被存取，保留在 Redis */
+        ACTIVE,
+        /** 購物車已不存在（逾期、已清空或已由其他實例封存） */
+        GONE
+    }
+
+    public CartLifecycleManager(StringRedisTemplate redisTemplate, CartArchiveMapper cartArchiveMapper,
+            MeterRegistry meterRegistry,
+            @Value("${cart.lifecycle.ttl-days:30}") long ttlDays,
+            @Value("${cart.lifecycle.idle-days:7}") long idleDays,
+            @Value("${cart.lifecycle.archive-retention-days:180}") long retentionDays) {
+        if (ttlDays <= idleDays) {
+            throw new IllegalArgumentException("cart.lifecycle.ttl-days 必須大於 idle-days");
+        }
+        this.redisTemplate = redisTemplate;
+        this.cartArchiveMapper = cartArchiveMapper;
+        this.ttlMillis = Duration.ofDays(ttlDays).toMillis();
+        this.idleMillis = Duration.ofDays(idleDays).toMillis();
+        this.retentionMillis = Duration.ofDays(retentionDays).toMillis();
+        this.offloadScript = loadScript("lua/cart_offload.lua", List.class);
+        this.rehydrateScript = loadScript("lua/cart_rehydrate.lua", Long.class);
+        this.backfillScript = loadScript("lua/cart_backfill.lua", Long.class);
+        this.offloaded = meterRegistry.counter(METRIC_OFFLOAD, "outcome", "offloaded");
+        this.offloadSkippedActive = meterRegistry.counter(METRIC_OFFLOAD, "outcome", "active");
+        this.memorySaved = meterRegistry.counter(METRIC_MEMORY_SAVED);
+        this.rehydrated = meterRegistry.counter(METRIC_REHYDRATE);
+    }
+
+    /**
+     * 購物車的滑動 TTL（毫秒）。
+     */
+    public long ttlMillis() {
+        return ttlMillis;
+    }
+
+    /**
+     * 還原封存的購物車：讀取 cart_archive 寫回 Redis，成功後刪除封存資料。
+     * 多個請求同時還原時只有一個會寫入（以封存標記判定）。
+     */
+    public void restore(Long userId) {
+        CartArchive archive;
+        try {
+            archive = cartArchiveMapper.selectById(userId);
+        } catch (RuntimeException e) {
+            log.error("【購物車封存】讀取封存資料失敗: userId={}", userId, e);
+            throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車暫時無法載入，請稍後重試");
+        }
+
+        List<byte[]> args = new ArrayList<>();
+        args.add(bytes(userId));
+        args.add(bytes(System.currentTimeMillis()));
+        args.add(bytes(ttlMillis));
+        boolean decoded = true;
+        if (archive != null) {
+            try {
+                for (CartItemDTO item : CartItemCodec.decodeCart(archive.getPayload())) {
+                    args.add(bytes(item.getVariantId()));
+                    args.add(CartItemCodec.encode(item));
+                    args.add(bytes(item.getVariantId() + ":qty"));
+                    args.add(bytes(item.getQuantity()));
+                }
+            } catch (IllegalArgumentException e) {
+                // 保留封存資料供人工處理，使用者以空購物車繼續
+                log.error("【購物車封存】封存資料解碼失敗，以空購物車還原: userId={}", userId, e);
+                decoded = false;
+                args.subList(3, args.size()).clear();
+            }
+        }
+
+        Long restored = eval(rehydrateScript, trackedKeys(userId), args.toArray());
+        if (restored != null && restored == 1L) {
+            if (archive != null && decoded) {
+                cartArchiveMapper.deleteById(userId);
+            }
+            rehydrated.increment();
+            log.info("【購物車封存】已還原封存購物車: userId={}, items={}", userId,
+                    archive != null ? archive.getItemCount() : 0);
+        }
+    }
+
+    /**
+     * 閒置的購物車（最後存取早於 idle-days），依最後存取時間由舊到新。
+     */
+    public Set<ZSetOperations.TypedTuple<String>> idleCandidates(int limit) {
+        return redisTemplate.opsForZSet().rangeByScoreWithScores(ACTIVE_KEY, Double.NEGATIVE_INFINITY,
+                idleCutoff(), 0, limit);
+    }
+
+    /**
+     * 封存購物車：先寫入 cart_archive，再以腳本確認期間未被存取後自 Redis 移除。
+     *
+     * @param items 購物車項目（含數量）；空清單時僅移出活躍索引
+     */
+    public Outcome offload(Long userId, List<CartItemDTO> items, long lastActiveMillis) {
+        if (items.isEmpty()) {
+            redisTemplate.opsForZSet().remove(ACTIVE_KEY, String.valueOf(userId));
+            return Outcome.GONE;
+        }
+        cartArchiveMapper.upsert(CartArchive.builder()
+                .userId(userId)
+                .payload(CartItemCodec.encodeCart(items))
+                .itemCount(items.size())
+                .lastActiveAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(lastActiveMillis), ZoneId.systemDefault()))
+                .archivedAt(LocalDateTime.now())
+                .build());
+
+        List<String> keys = new ArrayList<>(trackedKeys(userId));
+        keys.add(CartPricingManager.PRICED_PREFIX + userId);
+        List<?> result = eval(offloadScript, keys,
+                bytes(userId), bytes((long) idleCutoff()), bytes(retentionMillis));
+        long status = result != null && !result.isEmpty() ? ((Number) result.get(0)).longValue() : -1L;
+
+        if (status == 1L) {
+            long freed = ((Number) result.get(1)).longValue();
+            offloaded.increment();
+            memorySaved.increment(Math.max(freed, 0));
+            log.debug("【購物車封存】已封存: userId={}, items={}, freedBytes={}", userId, items.size(), freed);
+            return Outcome.OFFLOADED;
+        }
+        if (status == 0L) {
+            // 讀取後又被存取，Redis 內容為準
+            cartArchiveMapper.deleteById(userId);
+            offloadSkippedActive.increment();
+            return Outcome.ACTIVE;
+        }
+        // 已由其他實例封存時保留封存資料；逾期或已清空時刪除
+        if (!Boolean.TRUE.equals(redisTemplate.hasKey(archivedKey(userId)))) {
+            cartArchiveMapper.deleteById(userId);
+        }
+        return Outcome.GONE;
+    }
+
+    /**
+     * 清空購物車時一併捨棄封存標記、活躍索引與封存資料（僅在有封存標記時才存取 MySQL）。
+     */
+    public void discard(Long userId) {
+        redisTemplate.opsForZSet().remove(ACTIVE_KEY, String.valueOf(userId));
+        if (Boolean.TRUE.equals(redisTemplate.delete(archivedKey(userId)))) {
+            cartArchiveMapper.deleteById(userId);
+        }
+    }
+
+    /**
+     * 為功能上線前建立、尚無 TTL 的購物車補上滑動 TTL 並納入活躍索引。
+     * 完整掃描一輪未發現缺少 TTL 的購物車後不再執行。
+     *
+     * @return 本次補上 TTL 的購物車數
+     */
+    public long backfill() {
+        if (Boolean.TRUE.equals(redisTemplate.hasKey(BACKFILLED_KEY))) {
+            return 0;
+        }
+        long total = 0;
+        List<String> chunk = new ArrayList<>(BACKFILL_CHUNK);
+        ScanOptions options = ScanOptions.scanOptions().match(CartRedisManager.CART_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            while (cursor.hasNext()) {
+                String key = cursor.next();
+                if (CART_KEY.matcher(key).matches()) {
+                    chunk.add(key);
+                    if (chunk.size() == BACKFILL_CHUNK) {
+                        total += backfillChunk(chunk);
+                        chunk.clear();
+                    }
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            total += backfillChunk(chunk);
+        }
+        if (total == 0) {
+            redisTemplate.opsForValue().set(BACKFILLED_KEY, "1");
+        } else {
+            log.info("【購物車封存】舊購物車補上 TTL: {} 筆", total);
+        }
+        return total;
+    }
+
+    /**
+     * 刪除超過保留期的封存資料。
+     *
+     * @return 刪除筆數
+     */
+    public int purgeExpiredArchives() {
+        LocalDateTime before = LocalDateTime.now().minus(Duration.ofMillis(retentionMillis));
+        int total = 0;
+        int deleted;
+        do {
+            deleted = cartArchiveMapper.deleteArchivedBefore(before, PURGE_CHUNK);
+            total += deleted;
+        } while (deleted == PURGE_CHUNK);
+        return total;
+    }
+
+    /**
+     * 購物車腳本共用的 Key：購物車、活躍索引、封存標記。
+     */
+    static List<String> trackedKeys(Long userId) {
+        return List.of(CartRedisManager.CART_PREFIX + userId, ACTIVE_KEY, archivedKey(userId));
+    }
+
+    private long idleCutoff() {
+        return System.currentTimeMillis() - idleMillis;
+    }
+
+    private long backfillChunk(List<String> cartKeys) {
+        List<String> keys = new ArrayList<>(cartKeys.size() + 1);
+        keys.add(ACTIVE_KEY);
+        keys.addAll(cartKeys);
+        Object[] args = new Object[cartKeys.size() + 2];
+        args[0] = bytes(System.currentTimeMillis());
+        args[1] = bytes(ttlMillis);
+        for (int i = 0; i < cartKeys.size(); i++) {
+            args[i + 2] = bytes(cartKeys.get(i).substring(CartRedisManager.CART_PREFIX.length()));
+        }
+        Long count = eval(backfillScript, keys, args);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 以原始位元組傳遞參數與回傳值執行腳本（數值回傳不經序列化器，仍為 Long）。
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> T eval(DefaultRedisScript<T> script, List<String> keys, Object... args) {
+        return redisTemplate.execute(script, RAW, (RedisSerializer<T>) (RedisSerializer) RAW, keys, args);
+    }
+
+    private static String archivedKey(Long userId) {
+        return ARCHIVED_PREFIX + userId;
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static <T> DefaultRedisScript<T> loadScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(path));
+        script.setResultType(resultType);
+        return script;
+    }
+}
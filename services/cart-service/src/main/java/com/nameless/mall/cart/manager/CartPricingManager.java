@@ -0,0 +1,239 @@
+package com.nameless.mall.cart.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 購物車增量計價 - 每位使用者保存上次的計價快照，只重算計價輸入有變動的項目。
+ * <p>
+ * 快照（mall:cart:priced:{userId}）記錄計價版本與每個項目的計價輸入（categoryId、originalPrice）及結果，
+ * 存活到版本的有效時間點為止。讀取購物車時：
+ * <ul>
+ * <li>快照版本等於 {@link PricingResultCache#currentVersion()} 且所有項目輸入未變：直接回傳快照結果，不呼叫促銷服務。</li>
+ * <li>版本相同但部分項目新增或輸入變動：只對這些項目計價，再與快照合併；計價途中版本變更則整車重算。</li>
+ * <li>版本不同、本實例尚無有效版本或無快照：整車計價並覆寫快照。</li>
+ * </ul>
+ * 快照在各實例間共用；版本比對以本實例的計價快取為準，收到促銷變更廣播後本實例版本即失效，不會沿用舊快照。
+ * </p>
+ */
+@Slf4j
+@Component
+public class CartPricingManager {
+
+    public static final String PRICED_PREFIX = "mall:cart:priced:";
+    private static final String METRIC_SNAPSHOT = "cart.pricing.snapshot";
+
+    private final PricingResultCache pricingResultCache;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long maxTtlMillis;
+    private final Counter snapshotHit;
+    private final Counter snapshotPartial;
+    private final Counter snapshotMiss;
+
+    /**
+     * 使用者的計價快照。
+     *
+     * @param version          計價版本
+     * @param validUntilMillis 版本有效時間點
+     * @param items            variantId → 計價輸入與結果
+     */
+    record Snapshot(String version, long validUntilMillis, Map<Long, Entry> items) {
+    }
+
+    /**
+     * @param categoryId    計價時的分類
+     * @param originalPrice 計價時的原價
+     * @param result        計價結果
+     */
+    record Entry(Long categoryId, BigDecimal originalPrice, ProductPriceResultDTO result) {
+
+        boolean matches(ProductPriceCheckDTO check) {
+            return Objects.equals(categoryId, check.getCategoryId())
+                    && originalPrice != null && check.getOriginalPrice() != null
+                    && originalPrice.compareTo(check.getOriginalPrice()) == 0;
+        }
+    }
+
+    public CartPricingManager(PricingResultCache pricingResultCache, StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper, MeterRegistry meterRegistry,
+            @Value("${cart.pricing-snapshot.max-ttl-seconds:3600}") long maxTtlSeconds) {
+        this.pricingResultCache = pricingResultCache;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.maxTtlMillis = Duration.ofSeconds(maxTtlSeconds).toMillis();
+        this.snapshotHit = meterRegistry.counter(METRIC_SNAPSHOT, "outcome", "hit");
+        this.snapshotPartial = meterRegistry.counter(METRIC_SNAPSHOT, "outcome", "partial");
+        this.snapshotMiss = meterRegistry.counter(METRIC_SNAPSHOT, "outcome", "miss");
+    }
+
+    /**
+     * 計算購物車項目的最佳價格；回傳順序與 checkList 一致，失敗時原樣回傳促銷服務的結果。
+     */
+    public Result<List<ProductPriceResultDTO>> calculateBestPrices(Long userId, List<ProductPriceCheckDTO> checkList) {
+        String version = pricingResultCache.currentVersion();
+        return calculate(userId, checkList, version, version != null ? load(userId) : null).result();
+    }
+
+    /**
+     * 以呼叫端已讀出的計價快照計價（結帳凍結腳本會一併讀出，不再讀取 Redis），並回傳結果所屬的計價版本。
+     *
+     * @param snapshotJson 計價快照 JSON；不存在時為 null
+     */
+    public PricingResultCache.Versioned calculateBestPrices(Long userId, List<ProductPriceCheckDTO> checkList,
+            String snapshotJson) {
+        String version = pricingResultCache.currentVersion();
+        return calculate(userId, checkList, version, version != null ? parse(userId, snapshotJson) : null);
+    }
+
+    /**
+     * 上次的計價結果（促銷服務逾時或不可用時的降級來源，不呼叫促銷服務）：
+     * 不論快照版本是否仍有效，回傳計價輸入未變的項目結果。
+     *
+     * @return variantId → 上次計價結果；無快照時為空
+     */
+    public Map<Long, ProductPriceResultDTO> lastKnownPrices(Long userId, List<ProductPriceCheckDTO> checkList) {
+        Snapshot snapshot = load(userId);
+        if (snapshot == null || snapshot.items() == null) {
+            return Map.of();
+        }
+        Map<Long, ProductPriceResultDTO> known = new HashMap<>(checkList.size() * 2);
+        for (ProductPriceCheckDTO check : checkList) {
+            Entry entry = snapshot.items().get(check.getVariantId());
+            if (entry != null && entry.matches(check) && entry.result() != null) {
+                known.put(check.getVariantId(), entry.result());
+            }
+        }
+        return known;
+    }
+
+    /**
+     * 訪客購物車計價：不保存計價快照，僅經由計價結果本地快取。
+     */
+    public Result<List<ProductPriceResultDTO>> calculateGuestPrices(List<ProductPriceCheckDTO> checkList) {
+        return pricingResultCache.calculateBestPrices(checkList);
+    }
+
+    private PricingResultCache.Versioned calculate(Long userId, List<ProductPriceCheckDTO> checkList,
+            String version, Snapshot snapshot) {
+        if (snapshot != null && version.equals(snapshot.version())
+                && snapshot.validUntilMillis() > System.currentTimeMillis()) {
+            ProductPriceResultDTO[] results = new ProductPriceResultDTO[checkList.size()];
+            List<Integer> missIndexes = new ArrayList<>();
+            List<ProductPriceCheckDTO> misses = new ArrayList<>();
+            for (int i = 0; i < checkList.size(); i++) {
+                ProductPriceCheckDTO check = checkList.get(i);
+                Entry entry = snapshot.items().get(check.getVariantId());
+                if (entry != null && entry.matches(check)) {
+                    results[i] = entry.result();
+                } else {
+                    missIndexes.add(i);
+                    misses.add(check);
+                }
+            }
+            if (misses.isEmpty()) {
+                snapshotHit.increment();
+                return new PricingResultCache.Versioned(snapshot.version(), snapshot.validUntilMillis(),
+                        Result.ok(Arrays.asList(results)));
+            }
+
+            PricingResultCache.Versioned priced = pricingResultCache.calculateBestPricesVersioned(misses);
+            List<ProductPriceResultDTO> fetched = data(priced.result(), misses.size());
+            if (fetched != null && snapshot.version().equals(priced.version())) {
+                for (int j = 0; j < fetched.size(); j++) {
+                    results[missIndexes.get(j)] = fetched.get(j);
+                }
+                snapshotPartial.increment();
+                List<ProductPriceResultDTO> merged = Arrays.asList(results);
+                save(userId, priced, checkList, merged);
+                return new PricingResultCache.Versioned(priced.version(), priced.validUntilMillis(), Result.ok(merged));
+            }
+            log.debug("【購物車計價】增量計價期間版本變更或失敗，整車重算: userId={}", userId);
+        }
+
+        snapshotMiss.increment();
+        PricingResultCache.Versioned priced = pricingResultCache.calculateBestPricesVersioned(checkList);
+        List<ProductPriceResultDTO> fetched = data(priced.result(), checkList.size());
+        if (fetched != null && priced.version() != null) {
+            save(userId, priced, checkList, fetched);
+        }
+        return priced;
+    }
+
+    /**
+     * 刪除快照（清空購物車時呼叫）。
+     */
+    public void evict(Long userId) {
+        redisTemplate.delete(PRICED_PREFIX + userId);
+    }
+
+    private Snapshot load(Long userId) {
+        try {
+            return parse(userId, redisTemplate.opsForValue().get(PRICED_PREFIX + userId));
+        } catch (Exception e) {
+            log.warn("【購物車計價】讀取計價快照失敗，改為整車計價: userId={}", userId, e);
+            return null;
+        }
+    }
+
+    private Snapshot parse(Long userId, String json) {
+        try {
+            return json != null ? objectMapper.readValue(json, Snapshot.class) : null;
+        } catch (Exception e) {
+            log.warn("【購物車計價】解析計價快照失敗，改為整車計價: userId={}", userId, e);
+            return null;
+        }
+    }
+
+    private void save(Long userId, PricingResultCache.Versioned priced, List<ProductPriceCheckDTO> checkList,
+            List<ProductPriceResultDTO> results) {
+        long ttl = Math.min(priced.validUntilMillis() - System.currentTimeMillis(), maxTtlMillis);
+        if (ttl <= 0) {
+            return;
+        }
+        Map<Long, Entry> items = new HashMap<>(checkList.size() * 2);
+        for (int i = 0; i < checkList.size(); i++) {
+            ProductPriceCheckDTO check = checkList.get(i);
+            if (results.get(i) != null) {
+                items.put(check.getVariantId(),
+                        new Entry(check.getCategoryId(), check.getOriginalPrice(), results.get(i)));
+            }
+        }
+        try {
+            redisTemplate.opsForValue().set(PRICED_PREFIX + userId,
+                    objectMapper.writeValueAsString(new Snapshot(priced.version(), priced.validUntilMillis(), items)),
+                    Duration.ofMillis(ttl));
+        } catch (Exception e) {
+            // 快照僅為加速，寫入失敗下次整車計價即可
+            log.warn("【購物車計價】寫入計價快照失敗: userId={}", userId, e);
+        }
+    }
+
+    /**
+     * @return 成功且筆數相符時的結果，否則 null
+     */
+    private static List<ProductPriceResultDTO> data(Result<List<ProductPriceResultDTO>> result, int expected) {
+        if (result == null || !result.isSuccess() || result.getData() == null || result.getData().size() != expected) {
+            return null;
+        }
+        return result.getData();
+    }
+}
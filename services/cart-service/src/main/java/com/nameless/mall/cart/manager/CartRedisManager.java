@@ -0,0 +1,420 @@
+package com.nameless.mall.cart.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 購物車 Redis 存取層 - 以 LUA 腳本與 HINCRBY 實現無鎖的原子異動。
+ * <p>
+ * 資料結構（Hash: mall:cart:{userId}）：
+ * <ul>
+ * <li>{variantId}：ID 與價格快照的二進位編碼（見 {@link CartItemCodec}），僅在加入購物車或修復資料時寫入。</li>
+ * <li>{variantId}:qty：數量，以 HINCRBY / HSET 原子更新，並發加入同一商品不會遺失更新。</li>
+ * </ul>
+ * 舊格式為完整的 CartItemDTO JSON（數量也在 JSON 內），讀取時仍可解析，首次異動時由腳本把數量搬移到數量欄位，
+ * 商品資訊回寫時改存為二進位編碼。異動腳本一併回傳 HGETALL，呼叫端不需再讀一次即可組裝購物車。
+ * 回傳的項目不含顯示資料，由 {@link VariantCacheManager} 補上。
+ * </p>
+ * <p>
+ * 新增、修改、移除與讀取同時延長購物車的存活時間；閒置購物車封存至 MySQL 後，
+ * 腳本回報封存狀態，由 {@link CartLifecycleManager} 還原後重試（見該類說明）。
+ * </p>
+ * <p>
+ * 未登入的訪客以裝置識別碼保存購物車（{@link #GUEST_PREFIX}，欄位格式相同），存活時間較短且不封存；
+ * 登入時以 {@link #mergeGuest(Long, String)} 單次 EVAL 併入會員購物車。
+ * </p>
+ * <p>
+ * 結帳時以結帳快照（{@link #CHECKOUT_PREFIX}）凍結勾選項目的數量，下單完成後只扣除凍結的數量，
+ * 結帳期間使用者對購物車的修改不會被一併清掉。
+ * </p>
+ */
+@Slf4j
+@Component
+public class CartRedisManager {
+
+    public static final String CART_PREFIX = "mall:cart:";
+    /** 訪客購物車（Hash: mall:cart:guest:{deviceId}，欄位格式同會員購物車） */
+    public static final String GUEST_PREFIX = "mall:cart:guest:";
+    /** 結帳快照（Hash: mall:cart:checkout:{userId}:{snapshotId}，{variantId} → 凍結數量） */
+    public static final String CHECKOUT_PREFIX = "mall:cart:checkout:";
+    private static final String QTY_SUFFIX = ":qty";
+    /** 腳本回傳的狀態碼：購物車無此商品 */
+    private static final long ABSENT = -1L;
+    /** 腳本回傳的狀態碼：購物車已封存至 MySQL */
+    private static final long ARCHIVED = -2L;
+    private static final byte[] EMPTY = new byte[0];
+    /** 項目值為二進位，腳本參數與回傳值一律以原始位元組傳遞 */
+    private static final RedisSerializer<byte[]> RAW = RedisSerializer.byteArray();
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CartLifecycleManager cartLifecycleManager;
+    private final long guestTtlMillis;
+    private final DefaultRedisScript<List> getScript;
+    private final DefaultRedisScript<List> addScript;
+    private final DefaultRedisScript<List> setQuantityScript;
+    private final DefaultRedisScript<List> removeScript;
+    private final DefaultRedisScript<Long> replaceMetaScript;
+    private final DefaultRedisScript<List> checkoutFreezeScript;
+    private final DefaultRedisScript<Long> checkoutCommitScript;
+    private final DefaultRedisScript<List> mergeGuestScript;
+
+    /**
+     * 凍結結帳快照的結果。
+     *
+     * @param items          勾選且仍在購物車內的項目（數量為凍結時的數量）
+     * @param pricedSnapshot 同一時點的計價快照 JSON（見 {@link CartPricingManager}）；不存在時為 null
+     */
+    public record Frozen(List<CartItemDTO> items, String pricedSnapshot) {
+    }
+
+    /**
+     * 建構子：同時完成依賴注入與 LUA 腳本預載。
+     */
+    public CartRedisManager(StringRedisTemplate redisTemplate, ObjectMapper objectMapper,
+            CartLifecycleManager cartLifecycleManager,
+            @Value("${cart.guest.ttl-hours:72}") long guestTtlHours) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.cartLifecycleManager = cartLifecycleManager;
+        this.guestTtlMillis = Duration.ofHours(guestTtlHours).toMillis();
+        this.getScript = loadScript("lua/cart_get.lua", List.class);
+        this.addScript = loadScript("lua/cart_add.lua", List.class);
+        this.setQuantityScript = loadScript("lua/cart_set_quantity.lua", List.class);
+        this.removeScript = loadScript("lua/cart_remove.lua", List.class);
+        this.replaceMetaScript = loadScript("lua/cart_replace_meta.lua", Long.class);
+        this.checkoutFreezeScript = loadScript("lua/cart_checkout_freeze.lua", List.class);
+        this.checkoutCommitScript = loadScript("lua/cart_checkout_commit.lua", Long.class);
+        this.mergeGuestScript = loadScript("lua/cart_merge_guest.lua", List.class);
+    }
+
+    /**
+     * 原子累加商品數量（單次 EVAL）。
+     *
+     * @param meta 商品資訊；null 代表呼叫端尚未取得，購物車無此商品時回傳 null 由呼叫端查詢後重試
+     * @return 異動後的購物車項目；購物車無此商品且未提供商品資訊時回傳 null
+     */
+    public List<CartItemDTO> add(Long userId, Long variantId, int delta, CartItemDTO meta) {
+        List<?> result = evalTracked(addScript, userId, addArgs(variantId, delta, meta));
+        return itemsOrNull(result);
+    }
+
+    /**
+     * 訪客購物車的 {@link #add(Long, Long, int, CartItemDTO)}。
+     */
+    public List<CartItemDTO> addGuest(String deviceId, Long variantId, int delta, CartItemDTO meta) {
+        return itemsOrNull(evalGuest(addScript, deviceId, addArgs(variantId, delta, meta)));
+    }
+
+    /**
+     * 設定商品數量。
+     *
+     * @return 異動後的購物車項目；購物車無此商品時回傳 null
+     */
+    public List<CartItemDTO> setQuantity(Long userId, Long variantId, int quantity) {
+        List<?> result = evalTracked(setQuantityScript, userId, bytes(variantId), bytes(quantity));
+        return itemsOrNull(result);
+    }
+
+    /**
+     * 訪客購物車的 {@link #setQuantity(Long, Long, int)}。
+     */
+    public List<CartItemDTO> setGuestQuantity(String deviceId, Long variantId, int quantity) {
+        return itemsOrNull(evalGuest(setQuantityScript, deviceId, bytes(variantId), bytes(quantity)));
+    }
+
+    /**
+     * 移除商品（商品資訊與數量欄位一併刪除）。
+     *
+     * @return 異動後的購物車項目
+     */
+    public List<CartItemDTO> remove(Long userId, Long... variantIds) {
+        return entries(evalTracked(removeScript, userId, idArgs(List.of(variantIds))));
+    }
+
+    /**
+     * 訪客購物車的 {@link #remove(Long, Long...)}。
+     */
+    public List<CartItemDTO> removeGuest(String deviceId, Long... variantIds) {
+        return entries(evalGuest(removeScript, deviceId, idArgs(List.of(variantIds))));
+    }
+
+    /**
+     * 清空購物車（含封存狀態與封存資料）。
+     */
+    public void clear(Long userId) {
+        redisTemplate.delete(cartKey(userId));
+        cartLifecycleManager.discard(userId);
+    }
+
+    /**
+     * 讀取整個購物車。
+     */
+    public List<CartItemDTO> getItems(Long userId) {
+        return entries(evalTracked(getScript, userId));
+    }
+
+    /**
+     * 讀取整個訪客購物車並延長存活時間。
+     */
+    public List<CartItemDTO> getGuestItems(String deviceId) {
+        return entries(evalGuest(getScript, deviceId));
+    }
+
+    /**
+     * 讀取指定商品（單次 EVAL 同時取得商品資訊與數量欄位）。
+     */
+    public List<CartItemDTO> getItems(Long userId, List<Long> variantIds) {
+        return entries(evalTracked(getScript, userId, idArgs(variantIds)));
+    }
+
+    /**
+     * 將訪客購物車併入會員購物車（單次 EVAL，與購物車大小無關）：數量相加，商品資訊以訪客購物車的快照為準，
+     * 完成後刪除訪客購物車。
+     *
+     * @return 合併的商品數；訪客購物車不存在或為空時回傳 0
+     */
+    public long mergeGuest(Long userId, String deviceId) {
+        List<?> result = evalTracked(mergeGuestScript, userId, List.of(guestKey(deviceId)));
+        return Math.max(status(result), 0L);
+    }
+
+    /**
+     * 讀取整個購物車但不延長存活時間、不還原封存（封存排程使用）。
+     */
+    public List<CartItemDTO> peekItems(Long userId) {
+        byte[] key = bytes(cartKey(userId));
+        Map<byte[], byte[]> entries = redisTemplate.execute(
+                (RedisCallback<Map<byte[], byte[]>>) connection -> connection.hashCommands().hGetAll(key));
+        if (entries == null) {
+            return List.of();
+        }
+        List<Object> flat = new ArrayList<>(entries.size() * 2);
+        entries.forEach((field, value) -> {
+            flat.add(field);
+            flat.add(value);
+        });
+        return parseEntries(flat);
+    }
+
+    /**
+     * 回寫商品資訊（例如補全 categoryId）；商品已被並發移除時不寫回，數量欄位不受影響。
+     */
+    public void replaceMeta(Long userId, CartItemDTO item) {
+        eval(replaceMetaScript, userId, bytes(item.getVariantId()), CartItemCodec.encode(item),
+                bytes(item.getQuantity() != null ? item.getQuantity() : 0));
+    }
+
+    /**
+     * 凍結結帳快照（單次 EVAL）：讀取勾選的項目與計價快照，並以 snapshotId 記錄各項目當下的數量。
+     * 購物車本身不變動，使用者在結帳期間仍可照常修改。
+     *
+     * @return 勾選且仍在購物車內的項目；皆不在購物車時不建立快照
+     */
+    public Frozen freezeCheckout(Long userId, String snapshotId, List<Long> variantIds, Duration ttl) {
+        Object[] args = new Object[variantIds.size() + 1];
+        args[0] = bytes(ttl.toMillis());
+        for (int i = 0; i < variantIds.size(); i++) {
+            args[i + 1] = bytes(variantIds.get(i));
+        }
+        List<?> result = eval(checkoutFreezeScript,
+                List.of(cartKey(userId), checkoutKey(userId, snapshotId), CartPricingManager.PRICED_PREFIX + userId),
+                args);
+        if (result == null || result.size() < 2) {
+            return new Frozen(List.of(), null);
+        }
+        byte[] priced = (byte[]) result.get(0);
+        return new Frozen(parseEntries((List<?>) result.get(1)),
+                priced != null ? new String(priced, StandardCharsets.UTF_8) : null);
+    }
+
+    /**
+     * 提交結帳快照：自購物車扣除凍結時的數量，扣到 0 的項目移除；凍結後才加入的數量保留。
+     *
+     * @return 扣除的項目數；快照不存在（已提交、已釋放或逾期）時回傳 -1
+     */
+    public long commitCheckout(Long userId, String snapshotId) {
+        Long committed = eval(checkoutCommitScript, List.of(cartKey(userId), checkoutKey(userId, snapshotId)));
+        return committed != null ? committed : ABSENT;
+    }
+
+    /**
+     * 釋放結帳快照（下單失敗）；購物車在凍結期間未被變動，僅刪除快照。
+     */
+    public void releaseCheckout(Long userId, String snapshotId) {
+        redisTemplate.delete(checkoutKey(userId, snapshotId));
+    }
+
+    /**
+     * 執行會延長存活時間的購物車腳本（Key 與前置參數見 lua/cart_get.lua）；購物車已封存時先還原再重試一次。
+     */
+    private List<?> evalTracked(DefaultRedisScript<List> script, Long userId, Object... args) {
+        return evalTracked(script, userId, List.of(), args);
+    }
+
+    /**
+     * @param extraKeys 接在購物車、活躍索引與封存標記之後的 Key
+     */
+    private List<?> evalTracked(DefaultRedisScript<List> script, Long userId, List<String> extraKeys,
+            Object... args) {
+        Object[] fullArgs = scriptArgs(bytes(userId), cartLifecycleManager.ttlMillis(), args);
+        List<String> keys = new ArrayList<>(CartLifecycleManager.trackedKeys(userId));
+        keys.addAll(extraKeys);
+
+        fullArgs[1] = bytes(System.currentTimeMillis());
+        List<?> result = eval(script, keys, fullArgs);
+        if (status(result) == ARCHIVED) {
+            cartLifecycleManager.restore(userId);
+            fullArgs[1] = bytes(System.currentTimeMillis());
+            result = eval(script, keys, fullArgs);
+        }
+        return result;
+    }
+
+    /**
+     * 執行訪客購物車腳本：userId 參數為空字串，腳本不檢查封存標記、不寫入活躍索引。
+     */
+    private List<?> evalGuest(DefaultRedisScript<List> script, String deviceId, Object... args) {
+        Object[] fullArgs = scriptArgs(EMPTY, guestTtlMillis, args);
+        fullArgs[1] = bytes(System.currentTimeMillis());
+        return eval(script, List.of(guestKey(deviceId)), fullArgs);
+    }
+
+    /**
+     * 組裝購物車腳本參數：userId、現在時間（由呼叫端填入）、滑動 TTL，其後為腳本專屬參數。
+     */
+    private static Object[] scriptArgs(byte[] userId, long ttlMillis, Object... args) {
+        Object[] fullArgs = new Object[args.length + 3];
+        fullArgs[0] = userId;
+        fullArgs[2] = bytes(ttlMillis);
+        System.arraycopy(args, 0, fullArgs, 3, args.length);
+        return fullArgs;
+    }
+
+    private static Object[] addArgs(Long variantId, int delta, CartItemDTO meta) {
+        return new Object[] { bytes(variantId), bytes(delta), meta != null ? CartItemCodec.encode(meta) : EMPTY };
+    }
+
+    private static Object[] idArgs(List<Long> variantIds) {
+        Object[] args = new Object[variantIds.size()];
+        for (int i = 0; i < variantIds.size(); i++) {
+            args[i] = bytes(variantIds.get(i));
+        }
+        return args;
+    }
+
+    private <T> T eval(DefaultRedisScript<T> script, Long userId, Object... args) {
+        return eval(script, List.of(cartKey(userId)), args);
+    }
+
+    /**
+     * 以原始位元組傳遞參數與回傳值執行腳本（數值回傳不經序列化器，仍為 Long）。
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <T> T eval(DefaultRedisScript<T> script, List<String> keys, Object... args) {
+        return redisTemplate.execute(script, RAW, (RedisSerializer<T>) (RedisSerializer) RAW, keys, args);
+    }
+
+    private List<CartItemDTO> entries(List<?> result) {
+        return result != null && result.size() > 1 ? parseEntries((List<?>) result.get(1)) : List.of();
+    }
+
+    private List<CartItemDTO> itemsOrNull(List<?> result) {
+        if (result == null || result.size() < 2 || status(result) == ABSENT) {
+            return null;
+        }
+        return parseEntries((List<?>) result.get(1));
+    }
+
+    private static long status(List<?> result) {
+        return result != null && !result.isEmpty() ? ((Number) result.get(0)).longValue() : 0L;
+    }
+
+    /**
+     * 將 HGETALL 形式的欄位/值交錯清單（原始位元組）組裝為購物車項目；數量欄位優先於舊版 JSON 內的數量。
+     */
+    private List<CartItemDTO> parseEntries(List<?> flat) {
+        Map<String, byte[]> metas = new LinkedHashMap<>();
+        Map<String, Integer> quantities = new HashMap<>();
+        for (int i = 0; i + 1 < flat.size(); i += 2) {
+            String field = new String((byte[]) flat.get(i), StandardCharsets.UTF_8);
+            byte[] value = (byte[]) flat.get(i + 1);
+            if (field.endsWith(QTY_SUFFIX)) {
+                quantities.put(field.substring(0, field.length() - QTY_SUFFIX.length()),
+                        Integer.valueOf(new String(value, StandardCharsets.UTF_8)));
+            } else {
+                metas.put(field, value);
+            }
+        }
+
+        List<CartItemDTO> items = new ArrayList<>(metas.size());
+        metas.forEach((field, value) -> {
+            CartItemDTO item = decode(field, value);
+            if (item == null) {
+                return;
+            }
+            Integer quantity = quantities.get(field);
+            if (quantity != null) {
+                item.setQuantity(quantity);
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                log.warn("【購物車診斷】購物車項目缺少數量，該項目將被忽略: variantId={}", field);
+                return;
+            }
+            items.add(item);
+        });
+        return items;
+    }
+
+    private CartItemDTO decode(String field, byte[] value) {
+        try {
+            if (CartItemCodec.isBinary(value)) {
+                return CartItemCodec.decode(Long.parseLong(field), value);
+            }
+            return objectMapper.readValue(value, CartItemDTO.class);
+        } catch (IllegalArgumentException | IOException e) {
+            log.warn("【購物車診斷】購物車項目解碼失敗，該項目將被忽略: variantId={}", field, e);
+            return null;
+        }
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String cartKey(Long userId) {
+        return CART_PREFIX + userId;
+    }
+
+    private static String guestKey(String deviceId) {
+        return GUEST_PREFIX + deviceId;
+    }
+
+    private static String checkoutKey(Long userId, String snapshotId) {
+        return CHECKOUT_PREFIX + userId + ":" + snapshotId;
+    }
+
+    private static <T> DefaultRedisScript<T> loadScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(path));
+        script.setResultType(resultType);
+        return script;
+    }
+}
@@ -0,0 +1,83 @@
+package com.nameless.mall.cart.manager;
+
+import com.nameless.mall.product.api.enums.StockStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 庫存鏡像讀取 - 以單次 MGET 取得購物車所有規格的目前庫存（product:stock:{variantId}，由 product-service 寫入）。
+ * <p>
+ * 鏡像缺失（尚無庫存異動、已逾期）或 Redis 失敗時不呼叫 product-service，由呼叫端改用規格快取的庫存或不標示狀態。
+ * 指標 cart.stock.mirror{outcome=hit|miss|error} 以項目數累計。
+ * </p>
+ */
+@Slf4j
+@Component
+public class StockMirrorManager {
+
+    private static final String METRIC_MIRROR = "cart.stock.mirror";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Counter hit;
+    private final Counter miss;
+    private final Counter error;
+
+    public StockMirrorManager(StringRedisTemplate redisTemplate, MeterRegistry meterRegistry,
+            @Value("${cart.stock-mirror.enabled:true}") boolean enabled) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.hit = meterRegistry.counter(METRIC_MIRROR, "outcome", "hit");
+        this.miss = meterRegistry.counter(METRIC_MIRROR, "outcome", "miss");
+        this.error = meterRegistry.counter(METRIC_MIRROR, "outcome", "error");
+    }
+
+    /**
+     * @return variantId → 鏡像庫存；未鏡像的規格不在結果內，停用或失敗時為空
+     */
+    public Map<Long, Integer> getStocks(List<Long> variantIds) {
+        if (!enabled || variantIds.isEmpty()) {
+            return Map.of();
+        }
+        List<String> keys = new ArrayList<>(variantIds.size());
+        for (Long variantId : variantIds) {
+            keys.add(StockStatus.MIRROR_KEY_PREFIX + variantId);
+        }
+        List<String> values;
+        try {
+            values = redisTemplate.opsForValue().multiGet(keys);
+        } catch (Exception e) {
+            error.increment(variantIds.size());
+            log.warn("【庫存鏡像】讀取失敗，不標示庫存狀態: cause={}", e.getMessage());
+            return Map.of();
+        }
+        if (values == null) {
+            return Map.of();
+        }
+
+        Map<Long, Integer> stocks = new HashMap<>(variantIds.size() * 2);
+        for (int i = 0; i < variantIds.size(); i++) {
+            String value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            try {
+                stocks.put(variantIds.get(i), Integer.valueOf(value));
+            } catch (NumberFormatException e) {
+                log.warn("【庫存鏡像】格式錯誤，略過: variantId={}, value={}", variantIds.get(i), value);
+            }
+        }
+        hit.increment(stocks.size());
+        miss.increment(variantIds.size() - stocks.size());
+        return stocks;
+    }
+}
@@ -0,0 +1,294 @@
+package com.nameless.mall.cart.manager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.feign.ProductFeignClient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 商品規格本地快取 - 購物車顯示資料（名稱、圖片、SKU、規格選項）與加入購物車時商品資訊的來源。
+ * <p>
+ * Redis 購物車僅保存 ID 與價格快照（見 {@link CartItemCodec}），渲染時依 variantId 由此快取補上顯示資料；
+ * 同一規格的顯示資料在所有使用者之間共用一份，不再複製進每個購物車。
+ * </p>
+ * <ul>
+ * <li>未命中：同一批請求的未命中規格以 getVariantsBatch 一次載入。</li>
+ * <li>寫入超過 refresh-after 秒：先回傳現值，同一批過期規格在背景以一次 getVariantsBatch 重載（同一規格不重複排入）。</li>
+ * <li>商品異動：收到 product.sync.* 廣播時依 productId → variantIds 索引移除該商品的所有規格
+ * （見 VariantCacheInvalidationListener）；失效前已發出的載入不會把舊資料寫回快取。</li>
+ * <li>ttl：兜底的最長保存時間，廣播遺失時也不會無限期沿用舊資料。</li>
+ * </ul>
+ * <p>
+ * product-service 不可用時保留已快取的項目，其餘項目沿用 Redis 內的資料（舊版 JSON 項目）或不顯示名稱，
+ * 不影響購物車本身的讀寫。
+ * </p>
+ */
+@Slf4j
+@Component
+public class VariantCacheManager {
+
+    private final ProductFeignClient productFeignClient;
+    private final Executor refreshExecutor;
+    private final long refreshAfterMs;
+    private final Cache<Long, Cached> variants;
+    /** 背景重載中的規格，避免同一規格在重載完成前被重複排入 */
+    private final Set<Long> refreshing = ConcurrentHashMap.newKeySet();
+    /** productId → 已快取的 variantIds，於寫入快取與移除時維護 */
+    private final Map<Long, Set<Long>> variantIdsByProduct = new ConcurrentHashMap<>();
+    /** 失效世代：每次失效遞增，載入開始前記下，寫入時比對 */
+    private final AtomicLong generation = new AtomicLong();
+    /** productId → 最近一次失效的世代；保留 ttl，涵蓋任何進行中的載入 */
+    private final Cache<Long, Long> invalidatedAt;
+    private volatile long invalidatedAllAt;
+
+    private record Cached(VariantDTO variant, long loadedAt) {
+    }
+
+    public VariantCacheManager(ProductFeignClient productFeignClient,
+            @Qualifier("cartFeignExecutor") Executor refreshExecutor,
+            @Value("${cart.variant-cache.max-size:100000}") long maxSize,
+            @Value("${cart.variant-cache.refresh-after-seconds:120}") long refreshAfterSeconds,
+            @Value("${cart.variant-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.productFeignClient = productFeignClient;
+        this.refreshExecutor = refreshExecutor;
+        this.refreshAfterMs = Duration.ofSeconds(refreshAfterSeconds).toMillis();
+        this.variants = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                // 容量淘汰與逾期於同一 Key 的原子操作內同步回呼，索引與快取一致
+                .evictionListener((Long variantId, Cached cached, RemovalCause cause) -> unindex(variantId, cached))
+                .build();
+        this.invalidatedAt = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * 取得單一規格（加入購物車時使用）。
+     *
+     * @return 規格；不存在或 product-service 不可用且未快取時回傳 null
+     */
+    public VariantDTO getVariant(Long variantId) {
+        return getVariants(List.of(variantId)).get(variantId);
+    }
+
+    /**
+     * 批量取得規格；未命中的一次以 getVariantsBatch 載入，載入失敗或不存在的規格不在回傳結果中。
+     */
+    public Map<Long, VariantDTO> getVariants(Collection<Long> variantIds) {
+        Map<Long, Cached> present = variants.getAllPresent(variantIds);
+        Map<Long, VariantDTO> result = new HashMap<>(variantIds.size() * 2);
+        List<Long> missing = new ArrayList<>();
+        List<Long> stale = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Long variantId : variantIds) {
+            Cached cached = present.get(variantId);
+            if (cached == null) {
+                missing.add(variantId);
+                continue;
+            }
+            result.put(variantId, cached.variant());
+            if (now - cached.loadedAt() >= refreshAfterMs && refreshing.add(variantId)) {
+                stale.add(variantId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            try {
+                result.putAll(loadBatch(missing));
+            } catch (RuntimeException e) {
+                log.warn("【規格快取】批量載入失敗，僅使用已快取項目: size={}", missing.size(), e);
+            }
+        }
+        if (!stale.isEmpty()) {
+            refreshAsync(stale);
+        }
+        return result;
+    }
+
+    /**
+     * 僅取得已快取的規格，不呼叫 product-service（載入逾時或失敗時的降級來源）。
+     */
+    public Map<Long, VariantDTO> getCachedVariants(Collection<Long> variantIds) {
+        Map<Long, VariantDTO> result = new HashMap<>(variantIds.size() * 2);
+        variants.getAllPresent(variantIds).forEach((variantId, cached) -> result.put(variantId, cached.variant()));
+        return result;
+    }
+
+    /**
+     * 移除某商品的所有規格（商品異動廣播）；productId 為 null 時整批清空。
+     */
+    public void invalidateProduct(Long productId) {
+        // 先標記世代再移除：並行寫入的載入若未被本次移除涵蓋，寫入後的複查會看到此標記並自行撤回
+        long current = generation.incrementAndGet();
+        if (productId == null) {
+            invalidatedAllAt = current;
+            variants.invalidateAll();
+            variantIdsByProduct.clear();
+            return;
+        }
+        invalidatedAt.put(productId, current);
+        Set<Long> variantIds = variantIdsByProduct.remove(productId);
+        if (variantIds != null) {
+            variants.invalidateAll(variantIds);
+        }
+    }
+
+    /**
+     * 以快取的規格補上購物車項目的顯示資料；productId / categoryId 僅在項目缺少時補上。
+     */
+    public void applyDisplay(List<CartItemDTO> items) {
+        if (items.isEmpty()) {
+            return;
+        }
+        List<Long> variantIds = new ArrayList<>(items.size());
+        for (CartItemDTO item : items) {
+            variantIds.add(item.getVariantId());
+        }
+        applyDisplay(items, getVariants(variantIds));
+    }
+
+    /**
+     * 以呼叫端已取得的規格補上顯示資料（規格可在其他線程載入，套用仍在呼叫端線程進行）。
+     */
+    public void applyDisplay(List<CartItemDTO> items, Map<Long, VariantDTO> loaded) {
+        for (CartItemDTO item : items) {
+            VariantDTO variant = loaded.get(item.getVariantId());
+            if (variant == null) {
+                continue;
+            }
+            item.setProductName(variant.getProductName());
+            item.setProductImage(variant.getImage());
+            item.setSku(variant.getSku());
+            item.setOptions(variant.getOptions() != null ? variant.getOptions() : List.of());
+            if (item.getProductId() == null) {
+                item.setProductId(variant.getProductId());
+            }
+            if (item.getCategoryId() == null) {
+                item.setCategoryId(variant.getCategoryId());
+            }
+        }
+    }
+
+    private void refreshAsync(List<Long> variantIds) {
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Map<Long, VariantDTO> loaded = loadBatch(variantIds);
+                    // 重載結果中不存在的規格（已下架）移除，下次讀取不再顯示舊資料
+                    for (Long variantId : variantIds) {
+                        if (!loaded.containsKey(variantId)) {
+                            variants.asMap().computeIfPresent(variantId, (id, current) -> {
+                                unindex(id, current);
+                                return null;
+                            });
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("【規格快取】背景重載失敗，沿用現值: size={}", variantIds.size(), e);
+                } finally {
+                    variantIds.forEach(refreshing::remove);
+                }
+            });
+        } catch (RuntimeException e) {
+            variantIds.forEach(refreshing::remove);
+            log.warn("【規格快取】背景重載排程失敗: size={}", variantIds.size(), e);
+        }
+    }
+
+    /**
+     * 以一次 getVariantsBatch 載入並寫入快取。
+     */
+    private Map<Long, VariantDTO> loadBatch(List<Long> variantIds) {
+        long loadGeneration = generation.get();
+        Result<List<VariantDTO>> result = productFeignClient.getVariantsBatch(variantIds);
+        if (result == null || !result.isSuccess() || result.getData() == null) {
+            throw new IllegalStateException("product-service 批量查詢規格失敗");
+        }
+        long now = System.currentTimeMillis();
+        Map<Long, VariantDTO> loaded = new HashMap<>(result.getData().size() * 2);
+        for (VariantDTO variant : result.getData()) {
+            loaded.put(variant.getId(), variant);
+            cache(variant, now, loadGeneration);
+        }
+        return loaded;
+    }
+
+    /**
+     * 寫入快取並維護索引；載入開始後該商品已失效時不寫入（結果仍回傳給本次呼叫端）。
+     */
+    private void cache(VariantDTO variant, long now, long loadGeneration) {
+        Long productId = variant.getProductId();
+        if (invalidatedSince(productId, loadGeneration)) {
+            return;
+        }
+        Cached cached = new Cached(variant, now);
+        variants.asMap().compute(variant.getId(), (variantId, previous) -> {
+            if (previous != null && !Objects.equals(previous.variant().getProductId(), productId)) {
+                unindex(variantId, previous);
+            }
+            index(productId, variantId);
+            return cached;
+        });
+        // 與 invalidateProduct 並行時，該次移除可能未看到剛寫入的索引，寫入後再確認一次
+        if (invalidatedSince(productId, loadGeneration)) {
+            variants.asMap().computeIfPresent(variant.getId(), (variantId, current) -> {
+                if (current != cached) {
+                    return current;
+                }
+                unindex(variantId, current);
+                return null;
+            });
+        }
+    }
+
+    private boolean invalidatedSince(Long productId, long loadGeneration) {
+        if (invalidatedAllAt > loadGeneration) {
+            return true;
+        }
+        Long at = productId != null ? invalidatedAt.getIfPresent(productId) : null;
+        return at != null && at > loadGeneration;
+    }
+
+    private void index(Long productId, Long variantId) {
+        if (productId == null) {
+            return;
+        }
+        variantIdsByProduct.compute(productId, (id, variantIds) -> {
+            Set<Long> ids = variantIds != null ? variantIds : ConcurrentHashMap.<Long>newKeySet();
+            ids.add(variantId);
+            return ids;
+        });
+    }
+
+    private void unindex(Long variantId, Cached cached) {
+        Long productId = cached != null ? cached.variant().getProductId() : null;
+        if (productId == null) {
+            return;
+        }
+        variantIdsByProduct.computeIfPresent(productId, (id, variantIds) -> {
+            variantIds.remove(variantId);
+            return variantIds.isEmpty() ? null : variantIds;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.nameless.mall.cart.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.nameless.mall.cart.entity.CartArchive;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+
+/**
+ * 購物車封存表 Mapper
+ */
+@Mapper
+public interface CartArchiveMapper extends BaseMapper<CartArchive> {
+
+    /**
+     * 寫入或覆蓋使用者的封存資料（多個實例重複封存同一購物車時內容相同，覆蓋即可）。
+     */
+    @Insert("INSERT INTO cart_archive (user_id, payload, item_count, last_active_at, archived_at) " +
+            "VALUES (#{userId}, #{payload}, #{itemCount}, #{lastActiveAt}, #{archivedAt}) " +
+            "ON DUPLICATE KEY UPDATE payload = VALUES(payload), item_count = VALUES(item_count), " +
+            "last_active_at = VALUES(last_active_at), archived_at = VALUES(archived_at)")
+    int upsert(CartArchive archive);
+
+    /**
+     * 刪除超過保留期的封存資料（對應的 Redis 封存標記已逾期，資料已無法還原）。
+     */
+    @Delete("DELETE FROM cart_archive WHERE archived_at < #{before} LIMIT #{limit}")
+    int deleteArchivedBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
@@ -0,0 +1,27 @@
+package com.nameless.mall.cart.mq;
+
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 計價快取失效監聽器：收到促銷或分類變更廣播後清空本實例的計價結果快取。
+ * 不解析訊息內容，任何變更皆整批清空。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PricingCacheInvalidationListener {
+
+    private final PricingResultCache pricingResultCache;
+
+    @RabbitListener(queues = "#{pricingCacheInvalidationQueue.name}")
+    public void onPricingSourceChanged(Message message) {
+        log.info("【計價快取】收到變更廣播，清空計價結果快取: routingKey={}",
+                message.getMessageProperties().getReceivedRoutingKey());
+        pricingResultCache.invalidateAll();
+    }
+}
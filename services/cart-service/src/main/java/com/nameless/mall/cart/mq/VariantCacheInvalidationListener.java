@@ -0,0 +1,37 @@
+package com.nameless.mall.cart.mq;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.manager.VariantCacheManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 規格快取失效監聽器：收到 product.sync.* 後移除該商品的所有快取規格。
+ * 訊息無法解析或缺少 productId 時整批清空，寧可多載入一次也不沿用舊資料。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class VariantCacheInvalidationListener {
+
+    private final VariantCacheManager variantCacheManager;
+    private final ObjectMapper objectMapper;
+
+    @RabbitListener(queues = "#{variantCacheInvalidationQueue.name}")
+    public void onProductChanged(Message message) {
+        Long productId = null;
+        try {
+            JsonNode node = objectMapper.readTree(message.getBody()).path("productId");
+            productId = node.canConvertToLong() ? node.asLong() : null;
+        } catch (Exception e) {
+            log.warn("【規格快取】商品同步訊息解析失敗，整批清空: {}", e.getMessage());
+        }
+        log.info("【規格快取】收到商品異動廣播: routingKey={}, productId={}",
+                message.getMessageProperties().getReceivedRoutingKey(), productId);
+        variantCacheManager.invalidateProduct(productId);
+    }
+}
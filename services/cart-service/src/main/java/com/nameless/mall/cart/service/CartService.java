@@ -2,6 +2,7 @@ package com.nameless.mall.cart.service;
 
 import com.nameless.mall.cart.api.dto.CartDTO;
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
 import com.nameless.mall.cart.api.vo.CartVO;
 
 import java.util.List;
@@ -70,4 +71,51 @@ public interface CartService {
      */
     void clearCartItems(Long userId, List<Long> cartItemIds);
 
+    /**
+     * 凍結結帳快照：原子讀取勾選的項目並記錄當下數量，回傳含顯示資料與計價結果的項目。
+     *
+     * @param cartItemIds 勾選的購物車項目 ID (variantId)
+     * @return 結帳快照；勾選項目皆不在購物車時 items 為空、snapshotId 為 null
+     */
+    CheckoutSnapshotDTO freezeCheckout(Long userId, List<Long> cartItemIds);
+
+    /**
+     * 提交結帳快照：自購物車扣除凍結的數量，凍結後才增加的數量保留。
+     */
+    void commitCheckout(Long userId, String snapshotId);
+
+    /**
+     * 釋放結帳快照，購物車內容不變。
+     */
+    void releaseCheckout(Long userId, String snapshotId);
+
+    // --- 訪客購物車（以裝置識別碼區分，登入時併入會員購物車） ---
+
+    /**
+     * 獲取訪客購物車內容（含促銷計價，不保存計價快照）。
+     */
+    CartVO getGuestCart(String deviceId);
+
+    /**
+     * 將商品加入訪客購物車。
+     */
+    CartVO addToGuestCart(String deviceId, Long variantId, Integer quantity);
+
+    /**
+     * 更新訪客購物車中某個商品的數量 (<=0 則移除)。
+     */
+    CartVO updateGuestItemQuantity(String deviceId, Long variantId, Integer quantity);
+
+    /**
+     * 從訪客購物車中移除一個或多個商品項目。
+     */
+    CartVO removeGuestItem(String deviceId, Long... variantIds);
+
+    /**
+     * 登入時將訪客購物車併入會員購物車：數量相加，完成後刪除訪客購物車。
+     *
+     * @return 合併的商品數
+     */
+    int mergeGuestCart(Long userId, String deviceId);
+
 }
@@ -1,64 +1,97 @@
 package com.nameless.mall.cart.service.impl;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nameless.mall.cart.api.dto.CartDTO;
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
+import com.nameless.mall.cart.manager.CartPricingManager;
+import com.nameless.mall.cart.manager.CartRedisManager;
+import com.nameless.mall.cart.manager.StockMirrorManager;
+import com.nameless.mall.cart.manager.VariantCacheManager;
 import com.nameless.mall.cart.service.CartService;
 import com.nameless.mall.cart.api.vo.CartItemVO;
 import com.nameless.mall.cart.api.vo.CartVO;
+import com.nameless.mall.core.domain.Money;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
 import com.nameless.mall.product.api.dto.VariantDTO;
 import com.nameless.mall.product.api.dto.VariantOptionDTO;
-import com.nameless.mall.product.api.feign.ProductFeignClient;
+import com.nameless.mall.product.api.enums.StockStatus;
 import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
 import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
 import com.nameless.mall.promotion.api.enums.PromotionType;
-import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.redisson.api.RLock;
-import org.redisson.api.RedissonClient;
-import org.springframework.data.redis.core.BoundHashOperations;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.util.CollectionUtils;
-import org.springframework.util.StringUtils;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Arrays;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
  * 購物車服務實作，以 Redis Hash 儲存購物車資料。
+ * <p>
+ * 所有異動皆由 {@link CartRedisManager} 的 LUA 腳本在 Redis 端原子完成，不使用分散式鎖。
+ * </p>
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CartServiceImpl implements CartService {
 
-    private static final String CART_PREFIX = "mall:cart:";
     private static final String DEFAULT_SPEC = "預設規格";
-
-    private final RedissonClient redissonClient;
-    private final StringRedisTemplate redisTemplate;
-    private final ProductFeignClient productFeignClient;
-    private final PromotionFeignClient promotionFeignClient;
-    private final ObjectMapper objectMapper;
+    private static final String METRIC_DEGRADED = "cart.enrich.degraded";
+    private static final String STAGE_DISPLAY = "display";
+    private static final String STAGE_PRICING = "pricing";
+    private static final String CAUSE_TIMEOUT = "timeout";
+    private static final String CAUSE_ERROR = "error";
+    private static final String CAUSE_REJECTED = "rejected";
+    /** 計價失敗後的短路期間內直接降級 */
+    private static final String CAUSE_OPEN = "open";
+    /** 訪客裝置識別碼（前端產生的 UUID 等），限制字元與長度以免任意字串成為 Redis Key */
+    private static final Pattern DEVICE_ID = Pattern.compile("[A-Za-z0-9_-]{16,64}");
+
+    private final CartRedisManager cartRedisManager;
+    private final VariantCacheManager variantCacheManager;
+    private final CartPricingManager cartPricingManager;
+    private final StockMirrorManager stockMirrorManager;
     private final Executor cartFeignExecutor;
+    private final MeterRegistry meterRegistry;
+    /** 計價短路截止時間（毫秒）；促銷服務逾時或失敗後，截止前的請求直接沿用上次計價結果 */
+    private final AtomicLong pricingOpenUntil = new AtomicLong();
+
+    @Value("${cart.checkout-snapshot.ttl-seconds:600}")
+    private long checkoutSnapshotTtlSeconds;
+
+    @Value("${cart.enrich.display-timeout-ms:1000}")
+    private long displayTimeoutMs;
+
+    @Value("${cart.enrich.pricing-timeout-ms:1500}")
+    private long pricingTimeoutMs;
+
+    @Value("${cart.enrich.pricing-open-ms:5000}")
+    private long pricingOpenMs;
 
     /**
      * 加入商品至購物車邏輯
-     * 1. 檢查購物車中是否已存在該規格項目
-     * 2. 若存在則累加數量
-     * 3. 若不存在則透過 Feign 獲取商品規格詳情並初始化項目
+     * 1. 以 LUA 腳本原子累加數量；購物車已有該規格時一次往返即完成並取回整個購物車
+     * 2. 若不存在則由規格快取取得商品資訊（未命中才呼叫 product-service），帶上商品資訊再執行一次腳本
+     *    （並發加入同一新商品時，後到者的腳本只會累加數量，不會覆蓋）
      * 
      * @param variantId 商品規格 ID
      * @param quantity  加入數量
@@ -67,65 +100,39 @@ public class CartServiceImpl implements CartService {
     @Override
     public CartVO addToCart(Long userId, Long variantId, Integer quantity) {
         log.info("【購物車服務】處理加入商品請求: userId={}, variantId={}, quantity={}", userId, variantId, quantity);
-        BoundHashOperations<String, Object, Object> cartOps = getCartOps(userId);
-
-        // Phase 1: 鎖外預取 — 冪等讀取，不需要互斥保護
-        String existingJson = (String) cartOps.get(variantId.toString());
-        final VariantDTO prefetchedVariant;
-        if (!StringUtils.hasText(existingJson)) {
-            Result<VariantDTO> variantResult = productFeignClient.getVariantById(variantId);
-            if (variantResult == null || !variantResult.isSuccess() || variantResult.getData() == null) {
-                throw new BusinessException(ResultCodeEnum.VARIANT_NOT_FOUND);
-            }
-            prefetchedVariant = variantResult.getData();
-            if (prefetchedVariant.getStock() == null || prefetchedVariant.getStock() < quantity) {
-                throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT);
-            }
-        } else {
-            prefetchedVariant = null;
-        }
 
-        // Phase 2: 鎖內原子寫入 — 僅保護 Redis 寫操作 (< 50ms)
-        executeWithLock(userId, () -> {
-            try {
-                // Double-Check: 鎖內重新讀取，防止並發窗口期的重複新增
-                String json = (String) cartOps.get(variantId.toString());
-                if (StringUtils.hasText(json)) {
-                    CartItemDTO cartItem = objectMapper.readValue(json, CartItemDTO.class);
-                    cartItem.setQuantity(cartItem.getQuantity() + quantity);
-                    cartOps.put(variantId.toString(), objectMapper.writeValueAsString(cartItem));
-                } else if (prefetchedVariant != null) {
-                    // originalPrice 必須是 MSRP（定價），而非當前售價
-                    BigDecimal msrp = prefetchedVariant.getOriginalPrice() != null
-                            ? prefetchedVariant.getOriginalPrice()
-                            : prefetchedVariant.getPrice();
-                    CartItemDTO cartItem = CartItemDTO.builder()
-                            .productId(prefetchedVariant.getProductId())
-                            .categoryId(prefetchedVariant.getCategoryId())
-                            .productName(prefetchedVariant.getProductName())
-                            .productImage(prefetchedVariant.getImage())
-                            .variantId(variantId)
-                            .sku(prefetchedVariant.getSku())
-                            .options(
-                                    prefetchedVariant.getOptions() != null ? prefetchedVariant.getOptions() : List.of())
-                            .quantity(quantity)
-                            .price(prefetchedVariant.getPrice())
-                            .originalPrice(msrp)
-                            .discountAmount(BigDecimal.ZERO)
-                            .promotionType(PromotionType.NONE.name())
-                            .build();
-                    cartOps.put(variantId.toString(), objectMapper.writeValueAsString(cartItem));
-                }
-            } catch (JsonProcessingException e) {
-                log.error("【購物車錯誤】數據序列化失敗: variantId={}", variantId, e);
-                throw new BusinessException(ResultCodeEnum.INTERNAL_ERROR, "購物車數據處理失敗");
-            }
-            return null;
-        });
+        List<CartItemDTO> items = cartRedisManager.add(userId, variantId, quantity, null);
+        if (items == null) {
+            items = cartRedisManager.add(userId, variantId, quantity, loadItemMeta(variantId, quantity));
+        }
 
-        // Phase 3: 鎖外快速回傳 — 僅讀 Redis，不觸發 Feign 計價
+        // 直接以腳本回傳的購物車組裝結果，不觸發 Feign 計價
         // 前端 mutation onSuccess 會 invalidateQueries 觸發 GET /cart 取得完整促銷價格
-        return getCartQuick(userId);
+        return toQuickVO(items);
+    }
+
+    /**
+     * 由規格快取取得加入購物車所需的商品資訊（ID 與價格快照）。
+     */
+    private CartItemDTO loadItemMeta(Long variantId, Integer quantity) {
+        VariantDTO variant = variantCacheManager.getVariant(variantId);
+        if (variant == null) {
+            throw new BusinessException(ResultCodeEnum.VARIANT_NOT_FOUND);
+        }
+        // 庫存為快取值，僅作加入時的提示性檢查；實際扣減仍以下單時 product-service 的結果為準
+        if (variant.getStock() == null || variant.getStock() < quantity) {
+            throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT);
+        }
+        // originalPrice 必須是 MSRP（定價），而非當前售價
+        BigDecimal msrp = variant.getOriginalPrice() != null ? variant.getOriginalPrice() : variant.getPrice();
+        // Redis 只保存 ID 與價格快照，顯示資料由規格快取提供
+        return CartItemDTO.builder()
+                .productId(variant.getProductId())
+                .categoryId(variant.getCategoryId())
+                .variantId(variantId)
+                .price(variant.getPrice())
+                .originalPrice(msrp)
+                .build();
     }
 
     /**
@@ -137,74 +144,138 @@ public class CartServiceImpl implements CartService {
     }
 
     /**
-     * 快速獲取購物車 — 僅從 Redis 讀取，不觸發任何 Feign 遠端呼叫。
+     * 快速組裝購物車 — 使用 Redis 腳本回傳的項目與本地規格快取，不觸發計價 Feign 呼叫。
      * <p>
      * 用於寫入操作 (addToCart / updateQuantity / removeItem) 的回傳值。
      * 使用 Redis 中已快取的價格，避免每次寫入串行呼叫 product-service + promotion-service。
      * 前端收到後會透過 invalidateQueries 自動 re-fetch GET /cart 取得完整促銷計價。
      */
-    private CartVO getCartQuick(Long userId) {
-        BoundHashOperations<String, Object, Object> cartOps = getCartOps(userId);
-        List<CartItemDTO> items = parseItemsFromRedis(cartOps);
+    private CartVO toQuickVO(List<CartItemDTO> items) {
         if (items.isEmpty()) {
             return toVO(buildEmptyCart());
         }
+        variantCacheManager.applyDisplay(items);
         return toVO(assembleFinalCart(items));
     }
 
     /**
      * 獲取當前用戶的購物車 (DTO)，包含促銷計算與降級邏輯。
      * 
-     * 流程：Redis 讀取 → 資料完整性修復 → 價格計算（含降級）→ 總計聚合
+     * 流程：Redis 讀取 → 顯示資料與價格計算並行（各自逾時、失敗不重試），期間讀取庫存鏡像 → 完整性修復 → 總計聚合
      */
     @Override
     public CartDTO getCartDTO(Long userId) {
-        BoundHashOperations<String, Object, Object> cartOps = getCartOps(userId);
-
         // 1. 從 Redis 解析購物車項目
-        List<CartItemDTO> items = parseItemsFromRedis(cartOps);
+        List<CartItemDTO> items = cartRedisManager.getItems(userId);
         if (items.isEmpty()) {
+            log.debug("【購物車服務】購物車目前為空");
             return buildEmptyCart();
         }
 
-        // 2+3. 並行發射：資料完整性修復 + 價格計算（兩者修改不同欄位，互不衝突）
-        CompletableFuture<Void> categoryFuture = CompletableFuture.runAsync(
-                () -> ensureCategoryIdIntegrity(items, cartOps), cartFeignExecutor);
-        CompletableFuture<Void> pricingFuture = CompletableFuture.runAsync(
-                () -> enrichWithPricing(items), cartFeignExecutor);
+        // 舊版購物車項目可能缺少 categoryId（補全前記錄，補全後才知道哪些需要回寫）
+        List<CartItemDTO> missingCategoryItems = items.stream()
+                .filter(i -> i.getCategoryId() == null)
+                .collect(Collectors.toList());
 
-        try {
-            CompletableFuture.allOf(categoryFuture, pricingFuture).join();
-        } catch (Exception e) {
-            log.error("【購物車服務】並行 Feign 呼叫異常，降級為串行重試", e);
-            // 降級：若並行失敗，重新串行執行確保功能不中斷
-            ensureCategoryIdIntegrity(items, cartOps);
-            enrichWithPricing(items);
-        }
+        // 2+3. 並行發射：顯示資料補全 + 價格計算（計價快照與項目輸入未變時只重算變動的項目）
+        List<ProductPriceCheckDTO> checks = toPriceChecks(items);
+        enrich(items, () -> cartPricingManager.calculateBestPrices(userId, checks),
+                () -> cartPricingManager.lastKnownPrices(userId, checks));
+        repairCategoryIds(userId, missingCategoryItems);
 
         // 4. 聚合總計並返回
         return assembleFinalCart(items);
     }
 
     /**
-     * 從 Redis 解析購物車項目列表。
+     * 並行取得顯示資料與計價結果，各自設有逾時；失敗或逾時不重試同一呼叫，改以已知資料降級：
+     * <ul>
+     * <li>顯示資料：規格快取的現值（不呼叫 product-service），未快取的項目不顯示名稱。</li>
+     * <li>計價：使用者計價快照內的上次結果，不在快照內的項目沿用 Redis 價格並標記 DEGRADED；
+     * 計價失敗後 pricing-open-ms 內直接降級，不再呼叫促銷服務。</li>
+     * </ul>
+     * 線程池滿載時直接降級，不在請求線程同步執行。結果一律在呼叫端線程套用，逾時的背景呼叫完成後不會再修改項目。
+     * 兩個呼叫進行中時，於呼叫端線程以單次 MGET 讀取庫存鏡像並標示各項目的庫存狀態。
      */
-    private List<CartItemDTO> parseItemsFromRedis(BoundHashOperations<String, Object, Object> cartOps) {
-        List<Object> cartItemJsonList = cartOps.values();
+    private void enrich(List<CartItemDTO> items, Supplier<Result<List<ProductPriceResultDTO>>> pricing,
+            Supplier<Map<Long, ProductPriceResultDTO>> lastKnownPricing) {
+        List<Long> variantIds = items.stream().map(CartItemDTO::getVariantId).collect(Collectors.toList());
+        CompletableFuture<Map<Long, VariantDTO>> variantFuture = callAsync(STAGE_DISPLAY,
+                () -> variantCacheManager.getVariants(variantIds), displayTimeoutMs);
+        CompletableFuture<Result<List<ProductPriceResultDTO>>> pricingFuture;
+        if (System.currentTimeMillis() < pricingOpenUntil.get()) {
+            degraded(STAGE_PRICING, CAUSE_OPEN);
+            pricingFuture = CompletableFuture.completedFuture(null);
+        } else {
+            pricingFuture = callAsync(STAGE_PRICING, pricing, pricingTimeoutMs);
+        }
+        Map<Long, Integer> mirroredStocks = stockMirrorManager.getStocks(variantIds);
 
-        if (CollectionUtils.isEmpty(cartItemJsonList)) {
-            log.debug("【購物車服務】購物車目前為空");
-            return List.of();
+        Map<Long, VariantDTO> variants = variantFuture.join();
+        if (variants == null) {
+            variants = variantCacheManager.getCachedVariants(variantIds);
+        }
+        variantCacheManager.applyDisplay(items, variants);
+        applyStockStatus(items, mirroredStocks, variants);
+
+        Result<List<ProductPriceResultDTO>> priceResults = pricingFuture.join();
+        if (priceResults != null && priceResults.isSuccess() && priceResults.getData() != null) {
+            applyPricing(items, priceResults);
+            return;
+        }
+        if (priceResults != null) {
+            // 促銷服務回傳失敗（含 Feign 降級回應）
+            degraded(STAGE_PRICING, CAUSE_ERROR);
+        }
+        applyLastKnownPricing(items, lastKnownPricing.get());
+    }
+
+    /**
+     * 標示庫存狀態：優先採用庫存鏡像，未鏡像的規格改用規格快取的庫存，皆無則不標示。
+     */
+    private static void applyStockStatus(List<CartItemDTO> items, Map<Long, Integer> mirroredStocks,
+            Map<Long, VariantDTO> variants) {
+        for (CartItemDTO item : items) {
+            Integer stock = mirroredStocks.get(item.getVariantId());
+            if (stock == null) {
+                VariantDTO variant = variants.get(item.getVariantId());
+                stock = variant != null ? variant.getStock() : null;
+            }
+            StockStatus status = StockStatus.of(stock, item.getQuantity());
+            item.setStockStatus(status != null ? status.name() : null);
+        }
+    }
+
+    /**
+     * 於 cartFeignExecutor 執行呼叫；逾時、失敗或線程池滿載時記錄降級並回傳 null。
+     */
+    private <T> CompletableFuture<T> callAsync(String stage, Supplier<T> call, long timeoutMs) {
+        try {
+            return CompletableFuture.supplyAsync(call, cartFeignExecutor)
+                    .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                    .exceptionally(e -> {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        degraded(stage, cause instanceof TimeoutException ? CAUSE_TIMEOUT : CAUSE_ERROR);
+                        if (!(cause instanceof TimeoutException)) {
+                            log.warn("【購物車服務】{} 呼叫失敗，改用已知資料", stage, cause);
+                        }
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            degraded(stage, CAUSE_REJECTED);
+            return CompletableFuture.completedFuture(null);
         }
+    }
 
-        return cartItemJsonList.stream().map(json -> {
-            try {
-                return objectMapper.readValue((String) json, CartItemDTO.class);
-            } catch (JsonProcessingException e) {
-                log.warn("【購物車診斷】購物車項目 JSON 反序列化失敗，該項目將被忽略: json={}", json, e);
-                return null;
+    private void degraded(String stage, String cause) {
+        meterRegistry.counter(METRIC_DEGRADED, "stage", stage, "cause", cause).increment();
+        if (STAGE_PRICING.equals(stage) && !CAUSE_OPEN.equals(cause) && !CAUSE_REJECTED.equals(cause)) {
+            long now = System.currentTimeMillis();
+            if (pricingOpenUntil.getAndSet(now + pricingOpenMs) < now) {
+                log.warn("【購物車計價】促銷服務{}，{} ms 內沿用上次計價結果",
+                        CAUSE_TIMEOUT.equals(cause) ? "逾時" : "不可用", pricingOpenMs);
             }
-        }).filter(item -> item != null).collect(Collectors.toList());
+        }
     }
 
     /**
@@ -219,65 +290,40 @@ public class CartServiceImpl implements CartService {
     }
 
     /**
-     * 資料完整性修復：補全缺少 categoryId 的項目。
-     * 
-     * 對於舊版購物車項目可能缺少 categoryId，需透過 Feign 補全並回寫 Redis。
+     * 完整性修復：舊版購物車項目可能缺少 categoryId，由規格快取補全後回寫 Redis。
      */
-    private void ensureCategoryIdIntegrity(List<CartItemDTO> items,
-            BoundHashOperations<String, Object, Object> cartOps) {
-        // 1. 篩選出缺少 categoryId 的購物車項目
-        List<CartItemDTO> missingCategoryItems = items.stream()
-                .filter(i -> i.getCategoryId() == null)
-                .collect(Collectors.toList());
-
-        if (missingCategoryItems.isEmpty()) {
-            return;
-        }
-
-        log.info("【購物車診斷】修復 {} 筆缺少 categoryId 的項目", missingCategoryItems.size());
-
-        try {
-            // 2. 收集需修復項目的 variantId 清單
-            List<Long> variantIds = missingCategoryItems.stream()
-                    .map(CartItemDTO::getVariantId)
-                    .collect(Collectors.toList());
-
-            // 3. 透過 Feign 批量查詢商品規格以取得 categoryId
-            Result<List<VariantDTO>> batchResult = productFeignClient.getVariantsBatch(variantIds);
-            if (batchResult != null && batchResult.isSuccess() && batchResult.getData() != null) {
-                // 4. 建立對照表並逐一回寫修復後的 categoryId 至 Redis
-                Map<Long, VariantDTO> variantMap = batchResult.getData().stream()
-                        .collect(Collectors.toMap(VariantDTO::getId, v -> v, (a, b) -> a));
-
-                for (CartItemDTO item : missingCategoryItems) {
-                    VariantDTO variant = variantMap.get(item.getVariantId());
-                    if (variant != null && variant.getCategoryId() != null) {
-                        item.setCategoryId(variant.getCategoryId());
-                        cartOps.put(item.getVariantId().toString(), objectMapper.writeValueAsString(item));
+    private void repairCategoryIds(Long userId, List<CartItemDTO> missingCategoryItems) {
+        if (!missingCategoryItems.isEmpty()) {
+            log.info("【購物車診斷】修復 {} 筆缺少 categoryId 的項目", missingCategoryItems.size());
+            for (CartItemDTO item : missingCategoryItems) {
+                if (item.getCategoryId() != null) {
+                    try {
+                        cartRedisManager.replaceMeta(userId, item);
+                    } catch (Exception e) {
+                        log.error("【購物車診斷】回寫 categoryId 失敗: variantId={}", item.getVariantId(), e);
                     }
                 }
             }
-        } catch (Exception e) {
-            log.error("【購物車診斷】批量補全 categoryId 失敗", e);
         }
     }
 
     /**
-     * 價格計算：調用促銷服務計算最佳價格，含服務降級邏輯。
+     * 將購物車項目轉換為促銷服務的價格查詢 DTO 清單。
      */
-    private void enrichWithPricing(List<CartItemDTO> items) {
-        // 1. 將購物車項目轉換為促銷服務的價格查詢 DTO 清單
-        List<ProductPriceCheckDTO> checkList = items.stream().map(item -> ProductPriceCheckDTO.builder()
+    private List<ProductPriceCheckDTO> toPriceChecks(List<CartItemDTO> items) {
+        return items.stream().map(item -> ProductPriceCheckDTO.builder()
                 .productId(item.getProductId())
                 .variantId(item.getVariantId())
                 .categoryId(item.getCategoryId())
                 .originalPrice(item.getOriginalPrice())
                 .build()).collect(Collectors.toList());
+    }
 
-        // 2. 呼叫促銷服務批量計算每個商品的最佳價格
-        Result<List<ProductPriceResultDTO>> priceResults = promotionFeignClient.calculateBestPrices(checkList);
-
-        // 3. 根據計價結果更新每個項目的售價、折扣金額與促銷資訊
+    /**
+     * 套用計價結果至購物車項目，促銷服務不可用時降級。
+     */
+    private void applyPricing(List<CartItemDTO> items, Result<List<ProductPriceResultDTO>> priceResults) {
+        // 1. 根據計價結果更新每個項目的售價、折扣金額與促銷資訊
         if (priceResults != null && priceResults.isSuccess() && priceResults.getData() != null) {
             Map<Long, ProductPriceResultDTO> priceMap = priceResults.getData().stream()
                     .collect(Collectors.toMap(ProductPriceResultDTO::getVariantId, p -> p, (a, b) -> a));
@@ -285,15 +331,7 @@ public class CartServiceImpl implements CartService {
             for (CartItemDTO item : items) {
                 ProductPriceResultDTO best = priceMap.get(item.getVariantId());
                 if (best != null && best.getFinalPrice() != null) {
-                    // 用計價引擎回傳的 MSRP 校正 originalPrice，確保折扣基準正確
-                    if (best.getOriginalPrice() != null) {
-                        item.setOriginalPrice(best.getOriginalPrice());
-                    }
-                    item.setPrice(best.getFinalPrice());
-                    item.setDiscountAmount(item.getOriginalPrice().subtract(best.getFinalPrice()));
-                    item.setPromotionName(best.getPromotionName());
-                    item.setPromotionType(best.getPromotionType());
-                    item.setPromotionId(best.getPromotionId());
+                    applyBestPrice(item, best);
                 } else {
                     item.setPrice(item.getOriginalPrice());
                     item.setDiscountAmount(BigDecimal.ZERO);
@@ -302,19 +340,48 @@ public class CartServiceImpl implements CartService {
                 }
             }
         } else {
-            // 4. [降級策略] 促銷服務不可用時保留 Redis 既有價格，僅標記狀態防止價格劇烈跳變
+            // 2. [降級策略] 促銷服務不可用時保留 Redis 既有價格，僅標記狀態防止價格劇烈跳變
             log.warn("【購物車計價】促銷服務不可用，啟動平滑降級");
-            for (CartItemDTO item : items) {
-                item.setPromotionType(PromotionType.DEGRADED.name());
-                // 若原本無價格，才補回原價
-                if (item.getPrice() == null) {
-                    item.setPrice(item.getOriginalPrice());
-                    item.setDiscountAmount(BigDecimal.ZERO);
-                }
+            items.forEach(this::applyDegradedPrice);
+        }
+    }
+
+    /**
+     * 促銷服務逾時或不可用時套用上次計價結果；不在結果內的項目保留 Redis 既有價格並標記 DEGRADED。
+     */
+    private void applyLastKnownPricing(List<CartItemDTO> items, Map<Long, ProductPriceResultDTO> lastKnown) {
+        log.warn("【購物車計價】促銷服務不可用，沿用上次計價結果: known={}/{}", lastKnown.size(), items.size());
+        for (CartItemDTO item : items) {
+            ProductPriceResultDTO best = lastKnown.get(item.getVariantId());
+            if (best != null && best.getFinalPrice() != null) {
+                applyBestPrice(item, best);
+            } else {
+                applyDegradedPrice(item);
             }
         }
     }
 
+    private void applyBestPrice(CartItemDTO item, ProductPriceResultDTO best) {
+        // 用計價引擎回傳的 MSRP 校正 originalPrice，確保折扣基準正確
+        if (best.getOriginalPrice() != null) {
+            item.setOriginalPrice(best.getOriginalPrice());
+        }
+        item.setPrice(best.getFinalPrice());
+        item.setDiscountAmount(item.getOriginalPrice().subtract(best.getFinalPrice()));
+        item.setPromotionName(best.getPromotionName());
+        item.setPromotionType(best.getPromotionType());
+        item.setPromotionId(best.getPromotionId());
+    }
+
+    private void applyDegradedPrice(CartItemDTO item) {
+        item.setPromotionType(PromotionType.DEGRADED.name());
+        // 若原本無價格，才補回原價
+        if (item.getPrice() == null) {
+            item.setPrice(item.getOriginalPrice());
+            item.setDiscountAmount(BigDecimal.ZERO);
+        }
+    }
+
     /**
      * 聚合購物車總計並組裝最終 DTO。
      */
@@ -322,22 +389,19 @@ public class CartServiceImpl implements CartService {
         CartDTO cartDTO = new CartDTO();
         cartDTO.setItems(items);
 
-        // 聚合總計
-        BigDecimal totalPrice = BigDecimal.ZERO;
+        // 聚合總計：以最小貨幣單位累加（單價已為 2 位小數，小計不需再捨入，累加過程不配置物件）
+        long totalMinor = 0L;
         int totalQuantity = 0;
 
         for (CartItemDTO item : items) {
             if (item.getPrice() != null && item.getQuantity() != null) {
-                // 每筆小計皆應標準化精度，防止複利累加偏差
-                BigDecimal itemSubtotal = item.getPrice()
-                        .multiply(new BigDecimal(item.getQuantity()))
-                        .setScale(2, RoundingMode.HALF_UP);
-                totalPrice = totalPrice.add(itemSubtotal);
+                totalMinor = Math.addExact(totalMinor,
+                        Money.round(item.getPrice()).times(item.getQuantity()).minorUnits());
                 totalQuantity += item.getQuantity();
             }
         }
 
-        cartDTO.setTotalPrice(totalPrice.setScale(2, RoundingMode.HALF_UP));
+        cartDTO.setTotalPrice(Money.ofMinor(totalMinor).toBigDecimal());
         cartDTO.setTotalQuantity(totalQuantity);
 
         return cartDTO;
@@ -355,28 +419,13 @@ public class CartServiceImpl implements CartService {
         if (quantity <= 0)
             return removeItem(userId, variantId);
 
-        // 鎖內僅做 Redis 寫入
-        executeWithLock(userId, () -> {
-            BoundHashOperations<String, Object, Object> cartOps = getCartOps(userId);
-            String cartItemJson = (String) cartOps.get(variantId.toString());
-
-            if (!StringUtils.hasText(cartItemJson)) {
-                throw new BusinessException(ResultCodeEnum.CART_ITEM_NOT_FOUND, "商品不在購物車中");
-            }
-
-            try {
-                CartItemDTO cartItem = objectMapper.readValue(cartItemJson, CartItemDTO.class);
-                cartItem.setQuantity(quantity);
-                cartOps.put(variantId.toString(), objectMapper.writeValueAsString(cartItem));
-            } catch (JsonProcessingException e) {
-                throw new BusinessException(ResultCodeEnum.INTERNAL_ERROR, "更新失敗");
-            }
-
-            return null;
-        });
+        List<CartItemDTO> items = cartRedisManager.setQuantity(userId, variantId, quantity);
+        if (items == null) {
+            throw new BusinessException(ResultCodeEnum.CART_ITEM_NOT_FOUND, "商品不在購物車中");
+        }
 
-        // 鎖外快速回傳 — 前端會 invalidateQueries 取得完整計價
-        return getCartQuick(userId);
+        // 快速回傳 — 前端會 invalidateQueries 取得完整計價
+        return toQuickVO(items);
     }
 
     /**
@@ -387,17 +436,8 @@ public class CartServiceImpl implements CartService {
      */
     @Override
     public CartVO removeItem(Long userId, Long... variantIds) {
-        // 鎖內僅做 Redis 刪除
-        executeWithLock(userId, () -> {
-            BoundHashOperations<String, Object, Object> cartOps = getCartOps(userId);
-            Object[] keys = Arrays.stream(variantIds).map(String::valueOf).toArray();
-            if (keys.length > 0)
-                cartOps.delete(keys);
-            return null;
-        });
-
-        // 鎖外快速回傳 — 前端會 invalidateQueries 取得完整計價
-        return getCartQuick(userId);
+        // 快速回傳 — 前端會 invalidateQueries 取得完整計價
+        return toQuickVO(cartRedisManager.remove(userId, variantIds));
     }
 
     /**
@@ -405,36 +445,20 @@ public class CartServiceImpl implements CartService {
      */
     @Override
     public void clearCart(Long userId) {
-        executeWithLock(userId, () -> {
-            String cartKey = CART_PREFIX + userId;
-            redisTemplate.delete(cartKey);
-            return null;
-        });
+        cartRedisManager.clear(userId);
+        cartPricingManager.evict(userId);
     }
 
     @Override
     public List<CartItemDTO> getCartItemsByIds(Long userId, List<Long> variantIds) {
-        BoundHashOperations<String, Object, Object> cartOps = getCartOps(userId);
-        List<Object> cartItemJsonList = cartOps
-                .multiGet(variantIds.stream().map(String::valueOf).collect(Collectors.toList()));
-
-        if (CollectionUtils.isEmpty(cartItemJsonList)) {
+        List<CartItemDTO> items = cartRedisManager.getItems(userId, variantIds);
+        if (items.isEmpty()) {
             log.warn("【購物車診斷】內部查詢查無商品: userId={}, variantIds={}", userId, variantIds);
-            return List.of();
+            return items;
         }
-
-        return cartItemJsonList.stream()
-                .filter(json -> json != null)
-                .map(json -> {
-                    try {
-                        return objectMapper.readValue((String) json, CartItemDTO.class);
-                    } catch (JsonProcessingException e) {
-                        log.warn("【購物車診斷】購物車項目 JSON 反序列化失敗，該項目將被忽略: json={}", json, e);
-                        return null;
-                    }
-                })
-                .filter(item -> item != null)
-                .collect(Collectors.toList());
+        // 訂單明細需要商品名稱與圖片
+        variantCacheManager.applyDisplay(items);
+        return items;
     }
 
     @Override
@@ -442,6 +466,117 @@ public class CartServiceImpl implements CartService {
         removeItem(userId, variantIds.toArray(new Long[0]));
     }
 
+    /**
+     * 凍結結帳快照
+     * 1. 單次 LUA 腳本讀取勾選項目與計價快照，並記錄各項目當下的數量
+     * 2. 由規格快取補上顯示資料（含舊版項目缺少的 categoryId，計價需要）
+     * 3. 以凍結時讀出的計價快照計價，輸入未變時不呼叫促銷服務
+     * 4. 依庫存鏡像標示庫存狀態，供 order-service 在扣減庫存前預先拒絕必定失敗的訂單
+     */
+    @Override
+    public CheckoutSnapshotDTO freezeCheckout(Long userId, List<Long> variantIds) {
+        String snapshotId = UUID.randomUUID().toString().replace("-", "");
+        CartRedisManager.Frozen frozen = cartRedisManager.freezeCheckout(userId, snapshotId, variantIds,
+                Duration.ofSeconds(checkoutSnapshotTtlSeconds));
+        List<CartItemDTO> items = frozen.items();
+        if (items.isEmpty()) {
+            log.warn("【購物車結帳】勾選商品皆不在購物車: userId={}, variantIds={}", userId, variantIds);
+            return CheckoutSnapshotDTO.builder().items(items).build();
+        }
+
+        List<Long> frozenIds = items.stream().map(CartItemDTO::getVariantId).collect(Collectors.toList());
+        variantCacheManager.applyDisplay(items);
+        // 僅採用鏡像：規格快取的庫存可能落後於補貨，不作為拒絕下單的依據
+        applyStockStatus(items, stockMirrorManager.getStocks(frozenIds), Map.of());
+        PricingResultCache.Versioned priced = cartPricingManager.calculateBestPrices(
+                userId, toPriceChecks(items), frozen.pricedSnapshot());
+        applyPricing(items, priced.result());
+
+        log.info("【購物車結帳】凍結結帳快照: userId={}, snapshotId={}, items={}, pricingVersion={}",
+                userId, snapshotId, items.size(), priced.version());
+        return CheckoutSnapshotDTO.builder()
+                .snapshotId(snapshotId)
+                .items(items)
+                .pricingVersion(priced.version())
+                .pricingValidUntil(priced.version() != null ? priced.validUntilMillis() : null)
+                .build();
+    }
+
+    @Override
+    public void commitCheckout(Long userId, String snapshotId) {
+        long committed = cartRedisManager.commitCheckout(userId, snapshotId);
+        if (committed < 0) {
+            log.warn("【購物車結帳】結帳快照不存在（已提交、已釋放或逾期）: userId={}, snapshotId={}", userId, snapshotId);
+            return;
+        }
+        log.info("【購物車結帳】提交結帳快照: userId={}, snapshotId={}, items={}", userId, snapshotId, committed);
+    }
+
+    @Override
+    public void releaseCheckout(Long userId, String snapshotId) {
+        cartRedisManager.releaseCheckout(userId, snapshotId);
+    }
+
+    // --- 訪客購物車 ---
+
+    @Override
+    public CartVO getGuestCart(String deviceId) {
+        List<CartItemDTO> items = cartRedisManager.getGuestItems(requireDeviceId(deviceId));
+        if (items.isEmpty()) {
+            return toVO(buildEmptyCart());
+        }
+        // 訪客項目皆由規格快取寫入（含 categoryId），不需修復回寫；計價不保存快照，降級時無上次結果
+        List<ProductPriceCheckDTO> checks = toPriceChecks(items);
+        enrich(items, () -> cartPricingManager.calculateGuestPrices(checks), Map::of);
+        return toVO(assembleFinalCart(items));
+    }
+
+    @Override
+    public CartVO addToGuestCart(String deviceId, Long variantId, Integer quantity) {
+        requireDeviceId(deviceId);
+        List<CartItemDTO> items = cartRedisManager.addGuest(deviceId, variantId, quantity, null);
+        if (items == null) {
+            items = cartRedisManager.addGuest(deviceId, variantId, quantity, loadItemMeta(variantId, quantity));
+        }
+        return toQuickVO(items);
+    }
+
+    @Override
+    public CartVO updateGuestItemQuantity(String deviceId, Long variantId, Integer quantity) {
+        if (quantity <= 0)
+            return removeGuestItem(deviceId, variantId);
+
+        List<CartItemDTO> items = cartRedisManager.setGuestQuantity(requireDeviceId(deviceId), variantId, quantity);
+        if (items == null) {
+            throw new BusinessException(ResultCodeEnum.CART_ITEM_NOT_FOUND, "商品不在購物車中");
+        }
+        return toQuickVO(items);
+    }
+
+    @Override
+    public CartVO removeGuestItem(String deviceId, Long... variantIds) {
+        return toQuickVO(cartRedisManager.removeGuest(requireDeviceId(deviceId), variantIds));
+    }
+
+    /**
+     * 合併訪客購物車：單次 LUA 腳本完成，不逐項呼叫其他服務（登入流程的關鍵路徑）。
+     */
+    @Override
+    public int mergeGuestCart(Long userId, String deviceId) {
+        int merged = (int) cartRedisManager.mergeGuest(userId, requireDeviceId(deviceId));
+        if (merged > 0) {
+            log.info("【購物車服務】訪客購物車已併入會員購物車: userId={}, items={}", userId, merged);
+        }
+        return merged;
+    }
+
+    private static String requireDeviceId(String deviceId) {
+        if (deviceId == null || !DEVICE_ID.matcher(deviceId).matches()) {
+            throw new BusinessException(ResultCodeEnum.INVALID_ARGUMENT, "裝置識別碼無效");
+        }
+        return deviceId;
+    }
+
     // --- Helper & Mapping Logic ---
 
     private CartVO toVO(CartDTO dto) {
@@ -487,38 +622,7 @@ public class CartServiceImpl implements CartService {
                 .discountAmount(item.getDiscountAmount())
                 .promotionName(item.getPromotionName())
                 .promotionType(item.getPromotionType())
+                .stockStatus(item.getStockStatus())
                 .build();
     }
-
-    private BoundHashOperations<String, Object, Object> getCartOps(Long userId) {
-        String cartKey = CART_PREFIX + userId;
-        return redisTemplate.boundHashOps(cartKey);
-    }
-
-    /**
-     * 使用 Redisson 分散式鎖執行業務邏輯，防止並發修改導致的數據不一致。
-     */
-    private <T> T executeWithLock(Long userId, java.util.function.Supplier<T> logic) {
-        String lockKey = "lock:cart:" + userId;
-        RLock lock = redissonClient.getLock(lockKey);
-
-        try {
-            // 嘗試獲取鎖，等待 2 秒，租約時間 10 秒 (鎖內操作已精簡至 < 50ms，2s 足夠應對極端竞爭)
-            boolean isLocked = lock.tryLock(2000, 10000, java.util.concurrent.TimeUnit.MILLISECONDS);
-            if (isLocked) {
-                try {
-                    return logic.get();
-                } finally {
-                    lock.unlock();
-                }
-            } else {
-                log.warn("【購物車服務】獲取鎖失敗，系統繁忙: userId={}", userId);
-                throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "系統繁忙，請稍後再試");
-            }
-        } catch (InterruptedException e) {
-            log.error("【購物車服務】獲取鎖被中斷: userId={}", userId, e);
-            Thread.currentThread().interrupt();
-            throw new BusinessException(ResultCodeEnum.INTERNAL_ERROR, "系統異常");
-        }
-    }
-}
\ No newline at end of file
+}
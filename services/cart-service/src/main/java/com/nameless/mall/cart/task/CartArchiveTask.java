@@ -0,0 +1,84 @@
+package com.nameless.mall.cart.task;
+
+import com.nameless.mall.cart.manager.CartLifecycleManager;
+import com.nameless.mall.cart.manager.CartRedisManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * 排程封存閒置購物車至 MySQL（cart_archive）。
+ * 搶到短鎖的實例負責本輪：補齊舊購物車 TTL → 分批封存閒置購物車 → 清除超過保留期的封存資料。
+ * 多個實例重複處理同一購物車時結果一致（封存腳本以活躍索引判定），鎖只用來避免重複工作。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartArchiveTask {
+
+    private static final String LOCK_KEY = "mall:cart:lifecycle:lock";
+
+    private final CartLifecycleManager cartLifecycleManager;
+    private final CartRedisManager cartRedisManager;
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${cart.lifecycle.offload.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cart.lifecycle.offload.interval-ms:300000}")
+    private long intervalMs;
+
+    @Value("${cart.lifecycle.offload.batch-size:200}")
+    private int batchSize;
+
+    @Value("${cart.lifecycle.offload.max-batches:50}")
+    private int maxBatches;
+
+    @Scheduled(fixedDelayString = "${cart.lifecycle.offload.interval-ms:300000}", initialDelay = 60_000)
+    public void offloadIdleCarts() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Boolean locked = redisTemplate.opsForValue().setIfAbsent(LOCK_KEY, "1", Duration.ofMillis(intervalMs));
+            if (!Boolean.TRUE.equals(locked)) {
+                return;
+            }
+            cartLifecycleManager.backfill();
+
+            int offloaded = 0;
+            int active = 0;
+            for (int batch = 0; batch < maxBatches; batch++) {
+                Set<ZSetOperations.TypedTuple<String>> candidates = cartLifecycleManager.idleCandidates(batchSize);
+                if (candidates == null || candidates.isEmpty()) {
+                    break;
+                }
+                // 每個候選處理後都會移出閒置範圍（已封存、已不存在或重新活躍）；失敗時中止本輪，避免重複取到同一批
+                for (ZSetOperations.TypedTuple<String> candidate : candidates) {
+                    Long userId = Long.valueOf(candidate.getValue());
+                    long lastActive = candidate.getScore() != null ? candidate.getScore().longValue() : 0L;
+                    switch (cartLifecycleManager.offload(userId, cartRedisManager.peekItems(userId), lastActive)) {
+                        case OFFLOADED -> offloaded++;
+                        case ACTIVE -> active++;
+                        default -> {
+                        }
+                    }
+                }
+            }
+
+            int purged = cartLifecycleManager.purgeExpiredArchives();
+            if (offloaded > 0 || active > 0 || purged > 0) {
+                log.info("【購物車封存】本輪封存 {} 筆，重新活躍 {} 筆，清除過期封存 {} 筆", offloaded, active, purged);
+            }
+        } catch (Exception e) {
+            log.error("【購物車封存】封存排程失敗，下輪重試", e);
+        }
+    }
+}
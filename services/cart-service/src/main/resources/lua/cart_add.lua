@@ -0,0 +1,44 @@
+-- 加入購物車：原子累加數量，購物車無此商品時寫入商品資訊
+-- KEYS[1]: 購物車 Key (mall:cart:{userId}；訪客為 mall:cart:guest:{deviceId})
+-- KEYS[2]: 活躍索引 (mall:cart:active，ZSET userId → 最後存取時間毫秒)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- ARGV[1]: userId；訪客購物車為空字串（不檢查封存標記、不寫入活躍索引，僅傳入 KEYS[1]）
+-- ARGV[2]: 現在時間（毫秒）
+-- ARGV[3]: 滑動 TTL（毫秒）
+-- ARGV[4]: variantId（商品資訊欄位；數量存於 {variantId}:qty）
+-- ARGV[5]: 增加數量
+-- ARGV[6]: 商品資訊（CartItemCodec 二進位編碼）；空字串代表呼叫端尚未取得
+-- 回傳: {新數量, HGETALL 結果}；{-1} 購物車無此商品且未提供商品資訊；{-2} 購物車已封存，需先還原
+local key = KEYS[1]
+local field = ARGV[4]
+local qtyField = field .. ':qty'
+
+local tracked = ARGV[1] ~= ''
+
+if tracked and redis.call('exists', key) == 0 and redis.call('exists', KEYS[3]) == 1 then
+    return {-2}
+end
+
+if redis.call('hexists', key, field) == 0 then
+    if ARGV[6] == '' then
+        return {-1}
+    end
+    redis.call('hset', key, field, ARGV[6])
+    -- 清除可能殘留的孤立數量欄位，新商品數量從 0 起算
+    redis.call('hdel', key, qtyField)
+elseif redis.call('hexists', key, qtyField) == 0 then
+    -- 舊格式：數量存於 JSON 內，先搬到獨立欄位再累加
+    local ok, item = pcall(cjson.decode, redis.call('hget', key, field))
+    local legacy = ok and tonumber(item['quantity']) or nil
+    if legacy and legacy > 0 then
+        redis.call('hset', key, qtyField, legacy)
+    end
+end
+
+local qty = redis.call('hincrby', key, qtyField, ARGV[5])
+-- 滑動 TTL 與活躍索引
+redis.call('pexpire', key, ARGV[3])
+if tracked then
+    redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+end
+return {qty, redis.call('hgetall', key)}
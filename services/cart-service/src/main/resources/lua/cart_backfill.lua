@@ -0,0 +1,16 @@
+-- 為尚無存活時間的舊購物車補上滑動 TTL 並納入活躍索引（以現在時間作為最後存取時間）
+-- KEYS[1]: 活躍索引 (mall:cart:active)
+-- KEYS[2..]: 購物車 Key (mall:cart:{userId})
+-- ARGV[1]: 現在時間（毫秒）
+-- ARGV[2]: 滑動 TTL（毫秒）
+-- ARGV[3..]: 與 KEYS[2..] 對應的 userId
+-- 回傳: 補上 TTL 的購物車數
+local count = 0
+for i = 2, #KEYS do
+    if redis.call('pttl', KEYS[i]) == -1 and redis.call('type', KEYS[i])['ok'] == 'hash' then
+        redis.call('zadd', KEYS[1], 'NX', ARGV[1], ARGV[i + 1])
+        redis.call('pexpire', KEYS[i], ARGV[2])
+        count = count + 1
+    end
+end
+return count
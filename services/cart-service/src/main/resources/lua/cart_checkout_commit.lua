@@ -0,0 +1,30 @@
+-- 提交結帳快照：自購物車扣除凍結時的數量，凍結後才增加的數量保留在購物車
+-- KEYS[1]: 購物車 Key (mall:cart:{userId})
+-- KEYS[2]: 結帳快照 Key (mall:cart:checkout:{userId}:{snapshotId})
+-- 回傳: 扣除的商品數；快照不存在（已提交、已釋放或逾期）時回傳 -1
+local cart = KEYS[1]
+local frozen = redis.call('hgetall', KEYS[2])
+if #frozen == 0 then
+    return -1
+end
+
+local committed = 0
+for i = 1, #frozen, 2 do
+    local field = frozen[i]
+    local qtyField = field .. ':qty'
+    if redis.call('hexists', cart, field) == 1 then
+        if redis.call('hexists', cart, qtyField) == 1 then
+            local left = redis.call('hincrby', cart, qtyField, -tonumber(frozen[i + 1]))
+            if left <= 0 then
+                redis.call('hdel', cart, field, qtyField)
+            end
+        else
+            -- 舊格式且凍結後未被異動（任何異動都會搬出數量欄位），整筆移除
+            redis.call('hdel', cart, field)
+        end
+        committed = committed + 1
+    end
+end
+
+redis.call('del', KEYS[2])
+return committed
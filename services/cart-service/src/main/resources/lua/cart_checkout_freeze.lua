@@ -0,0 +1,37 @@
+-- 凍結結帳快照：原子讀取勾選的商品，並記錄下單當下的數量
+-- KEYS[1]: 購物車 Key (mall:cart:{userId})
+-- KEYS[2]: 結帳快照 Key (mall:cart:checkout:{userId}:{snapshotId})
+-- KEYS[3]: 計價快照 Key (mall:cart:priced:{userId})
+-- ARGV[1]: 結帳快照存活毫秒數
+-- ARGV[2..]: variantId
+-- 回傳: {計價快照 JSON（不存在為 false）, 勾選商品的欄位/值交錯清單（同 HGETALL 格式）}
+local cart = KEYS[1]
+local entries = {}
+local frozen = {}
+
+for i = 2, #ARGV do
+    local field = ARGV[i]
+    local meta = redis.call('hget', cart, field)
+    if meta then
+        local qty = tonumber(redis.call('hget', cart, field .. ':qty'))
+        if not qty then
+            -- 舊格式：數量存於 JSON 內
+            local ok, item = pcall(cjson.decode, meta)
+            qty = ok and tonumber(item['quantity']) or nil
+        end
+        if qty and qty > 0 then
+            table.insert(entries, field)
+            table.insert(entries, meta)
+            table.insert(entries, field .. ':qty')
+            table.insert(entries, tostring(qty))
+            table.insert(frozen, field)
+            table.insert(frozen, qty)
+        end
+    end
+end
+
+if #frozen > 0 then
+    redis.call('hset', KEYS[2], unpack(frozen))
+    redis.call('pexpire', KEYS[2], ARGV[1])
+end
+return {redis.call('get', KEYS[3]), entries}
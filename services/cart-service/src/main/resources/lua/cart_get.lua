@@ -0,0 +1,38 @@
+-- 讀取購物車並延長存活時間
+-- KEYS[1]: 購物車 Key (mall:cart:{userId}；訪客為 mall:cart:guest:{deviceId})
+-- KEYS[2]: 活躍索引 (mall:cart:active，ZSET userId → 最後存取時間毫秒)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- ARGV[1]: userId；訪客購物車為空字串（不檢查封存標記、不寫入活躍索引，僅傳入 KEYS[1]）
+-- ARGV[2]: 現在時間（毫秒）
+-- ARGV[3]: 滑動 TTL（毫秒）
+-- ARGV[4..]: variantId（可省略；省略時讀取整個購物車）
+-- 回傳: {1, 欄位/值交錯清單（同 HGETALL 格式）}；{-2} 購物車已封存，需先還原
+local key = KEYS[1]
+
+local tracked = ARGV[1] ~= ''
+
+if redis.call('pexpire', key, ARGV[3]) == 0 then
+    if tracked and redis.call('exists', KEYS[3]) == 1 then
+        return {-2}
+    end
+    return {1, {}}
+end
+if tracked then
+    redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+end
+
+if #ARGV < 4 then
+    return {1, redis.call('hgetall', key)}
+end
+local entries = {}
+for i = 4, #ARGV do
+    local fields = {ARGV[i], ARGV[i] .. ':qty'}
+    local values = redis.call('hmget', key, fields[1], fields[2])
+    for j = 1, 2 do
+        if values[j] then
+            table.insert(entries, fields[j])
+            table.insert(entries, values[j])
+        end
+    end
+end
+return {1, entries}
@@ -0,0 +1,61 @@
+-- 登入時合併訪客購物車：數量相加，商品資訊以訪客購物車的快照為準，完成後刪除訪客購物車
+-- KEYS[1]: 會員購物車 Key (mall:cart:{userId})
+-- KEYS[2]: 活躍索引 (mall:cart:active，ZSET userId → 最後存取時間毫秒)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- KEYS[4]: 訪客購物車 Key (mall:cart:guest:{deviceId})
+-- ARGV[1]: userId
+-- ARGV[2]: 現在時間（毫秒）
+-- ARGV[3]: 滑動 TTL（毫秒）
+-- 回傳: {合併的商品數}；{-2} 會員購物車已封存，需先還原（訪客購物車保留）
+local key = KEYS[1]
+local guestKey = KEYS[4]
+
+local guest = redis.call('hgetall', guestKey)
+if #guest == 0 then
+    return {0}
+end
+if redis.call('exists', key) == 0 and redis.call('exists', KEYS[3]) == 1 then
+    return {-2}
+end
+
+local metas = {}
+local quantities = {}
+for i = 1, #guest, 2 do
+    local field = guest[i]
+    if string.sub(field, -4) == ':qty' then
+        quantities[string.sub(field, 1, -5)] = tonumber(guest[i + 1])
+    else
+        metas[field] = guest[i + 1]
+    end
+end
+
+local merged = 0
+for field, meta in pairs(metas) do
+    local qty = quantities[field]
+    if qty and qty > 0 then
+        local qtyField = field .. ':qty'
+        if redis.call('hexists', key, field) == 1 and redis.call('hexists', key, qtyField) == 0 then
+            -- 會員購物車為舊格式：數量存於 JSON 內，先搬到獨立欄位再累加
+            local ok, item = pcall(cjson.decode, redis.call('hget', key, field))
+            local legacy = ok and tonumber(item['quantity']) or nil
+            if legacy and legacy > 0 then
+                redis.call('hset', key, qtyField, legacy)
+            end
+        elseif redis.call('hexists', key, field) == 0 then
+            -- 清除可能殘留的孤立數量欄位，新商品數量從 0 起算
+            redis.call('hdel', key, qtyField)
+        end
+        -- 項目未記錄寫入時間；訪客購物車存活時間短，其快照為登入前最新擷取，會員購物車內的快照可能已存放數週
+        redis.call('hset', key, field, meta)
+        redis.call('hincrby', key, qtyField, qty)
+        merged = merged + 1
+    end
+end
+
+redis.call('del', guestKey)
+if merged > 0 then
+    -- 滑動 TTL 與活躍索引
+    redis.call('pexpire', key, ARGV[3])
+    redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+end
+return {merged}
@@ -0,0 +1,30 @@
+-- 封存閒置購物車：確認封存資料寫入 MySQL 後，自 Redis 移除購物車並留下封存標記
+-- KEYS[1]: 購物車 Key (mall:cart:{userId})
+-- KEYS[2]: 活躍索引 (mall:cart:active)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- KEYS[4]: 計價快照 Key (mall:cart:priced:{userId})
+-- ARGV[1]: userId
+-- ARGV[2]: 閒置判定時間點（毫秒）；最後存取晚於此值代表讀取封存資料後又被存取過
+-- ARGV[3]: 封存標記存活時間（毫秒，與 MySQL 封存資料的保留期一致）
+-- 回傳: {1, 釋放的 Redis 記憶體位元組}；{0} 封存期間購物車又被存取；{-1} 購物車已不存在（逾期或已由其他實例封存）
+local key = KEYS[1]
+
+if redis.call('exists', key) == 0 then
+    redis.call('zrem', KEYS[2], ARGV[1])
+    return {-1}
+end
+local lastAccess = tonumber(redis.call('zscore', KEYS[2], ARGV[1]))
+if not lastAccess or lastAccess > tonumber(ARGV[2]) then
+    return {0}
+end
+
+local freed = redis.call('memory', 'usage', key, 'samples', '0') or 0
+local priced = redis.call('memory', 'usage', KEYS[4], 'samples', '0')
+if priced then
+    freed = freed + priced
+end
+redis.call('del', key, KEYS[4])
+redis.call('zrem', KEYS[2], ARGV[1])
+redis.call('set', KEYS[3], '1', 'px', ARGV[3])
+freed = freed - (redis.call('memory', 'usage', KEYS[3], 'samples', '0') or 0)
+return {1, freed}
@@ -0,0 +1,28 @@
+-- 還原封存的購物車（由 MySQL 讀回後寫入 Redis）
+-- KEYS[1]: 購物車 Key (mall:cart:{userId})
+-- KEYS[2]: 活躍索引 (mall:cart:active)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- ARGV[1]: userId
+-- ARGV[2]: 現在時間（毫秒）
+-- ARGV[3]: 滑動 TTL（毫秒）
+-- ARGV[4..]: 欄位/值交錯清單（{variantId} → 商品資訊，{variantId}:qty → 數量）
+-- 回傳: 1 已還原；0 封存標記已不存在（其他請求已還原）
+local key = KEYS[1]
+
+if redis.call('exists', KEYS[3]) == 0 then
+    return 0
+end
+for i = 4, #ARGV, 2 do
+    local field = ARGV[i]
+    if string.sub(field, -4) == ':qty' then
+        -- 封存期間不應有新增，保險起見與現有數量合併
+        redis.call('hincrby', key, field, ARGV[i + 1])
+    else
+        redis.call('hsetnx', key, field, ARGV[i + 1])
+    end
+end
+redis.call('del', KEYS[3])
+if redis.call('pexpire', key, ARGV[3]) == 1 then
+    redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+end
+return 1
@@ -0,0 +1,32 @@
+-- 移除購物車商品（商品資訊與數量欄位一併刪除）
+-- KEYS[1]: 購物車 Key (mall:cart:{userId}；訪客為 mall:cart:guest:{deviceId})
+-- KEYS[2]: 活躍索引 (mall:cart:active，ZSET userId → 最後存取時間毫秒)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- ARGV[1]: userId；訪客購物車為空字串（不檢查封存標記、不寫入活躍索引，僅傳入 KEYS[1]）
+-- ARGV[2]: 現在時間（毫秒）
+-- ARGV[3]: 滑動 TTL（毫秒）
+-- ARGV[4..]: variantId
+-- 回傳: {移除的商品數, HGETALL 結果}；{-2} 購物車已封存，需先還原
+local key = KEYS[1]
+
+local tracked = ARGV[1] ~= ''
+
+if tracked and redis.call('exists', key) == 0 and redis.call('exists', KEYS[3]) == 1 then
+    return {-2}
+end
+
+local removed = 0
+for i = 4, #ARGV do
+    removed = removed + redis.call('hdel', key, ARGV[i])
+    redis.call('hdel', key, ARGV[i] .. ':qty')
+end
+
+-- 滑動 TTL 與活躍索引；購物車已清空（Key 已不存在）時移出活躍索引
+if redis.call('pexpire', key, ARGV[3]) == 1 then
+    if tracked then
+        redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+    end
+elseif tracked then
+    redis.call('zrem', KEYS[2], ARGV[1])
+end
+return {removed, redis.call('hgetall', key)}
@@ -0,0 +1,18 @@
+-- 更新購物車商品資訊（僅在商品仍在購物車時寫入，避免把已移除的商品寫回）
+-- KEYS[1]: 購物車 Key (mall:cart:{userId})
+-- ARGV[1]: variantId
+-- ARGV[2]: 商品資訊（CartItemCodec 二進位編碼）
+-- ARGV[3]: 呼叫端讀到的數量；舊格式尚無數量欄位時以此補上
+-- 回傳: 1 已更新；0 商品已不在購物車
+local key = KEYS[1]
+local field = ARGV[1]
+local qtyField = field .. ':qty'
+
+if redis.call('hexists', key, field) == 0 then
+    return 0
+end
+if redis.call('hexists', key, qtyField) == 0 and tonumber(ARGV[3]) and tonumber(ARGV[3]) > 0 then
+    redis.call('hset', key, qtyField, ARGV[3])
+end
+redis.call('hset', key, field, ARGV[2])
+return 1
@@ -0,0 +1,28 @@
+-- 設定購物車商品數量
+-- KEYS[1]: 購物車 Key (mall:cart:{userId}；訪客為 mall:cart:guest:{deviceId})
+-- KEYS[2]: 活躍索引 (mall:cart:active，ZSET userId → 最後存取時間毫秒)
+-- KEYS[3]: 封存標記 (mall:cart:archived:{userId})
+-- ARGV[1]: userId；訪客購物車為空字串（不檢查封存標記、不寫入活躍索引，僅傳入 KEYS[1]）
+-- ARGV[2]: 現在時間（毫秒）
+-- ARGV[3]: 滑動 TTL（毫秒）
+-- ARGV[4]: variantId
+-- ARGV[5]: 新數量 (> 0)
+-- 回傳: {新數量, HGETALL 結果}；{-1} 購物車無此商品；{-2} 購物車已封存，需先還原
+local key = KEYS[1]
+local field = ARGV[4]
+
+local tracked = ARGV[1] ~= ''
+
+if tracked and redis.call('exists', key) == 0 and redis.call('exists', KEYS[3]) == 1 then
+    return {-2}
+end
+if redis.call('hexists', key, field) == 0 then
+    return {-1}
+end
+redis.call('hset', key, field .. ':qty', ARGV[5])
+-- 滑動 TTL 與活躍索引
+redis.call('pexpire', key, ARGV[3])
+if tracked then
+    redis.call('zadd', KEYS[2], ARGV[2], ARGV[1])
+end
+return {tonumber(ARGV[5]), redis.call('hgetall', key)}
@@ -0,0 +1,96 @@
+package com.nameless.mall.cart.config;
+
+import com.nameless.mall.cart.api.vo.CartVO;
+import com.nameless.mall.cart.controller.CartController;
+import com.nameless.mall.cart.service.CartService;
+import jakarta.servlet.Filter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@link SecurityConfig} 測試：訪客購物車端點不需 JWT，會員購物車仍需認證。
+ * <p>
+ * 僅載入 Spring MVC、安全配置與 {@link CartController}（CartService 為 Mock），不連線 Nacos 或 JWK 端點。
+ * </p>
+ */
+@SpringJUnitWebConfig(SecurityConfigTest.TestConfig.class)
+@TestPropertySource(properties = "spring.security.oauth2.resourceserver.jwt.jwk-set-uri=http://localhost/oauth2/jwks")
+class SecurityConfigTest {
+
+    private static final String DEVICE_ID = "test-device-0123456789";
+
+    @Configuration
+    @EnableWebMvc
+    @Import(SecurityConfig.class)
+    static class TestConfig {
+
+        @Bean
+        CartService cartService() {
+            return Mockito.mock(CartService.class);
+        }
+
+        @Bean
+        CartController cartController(CartService cartService) {
+            return new CartController(cartService);
+        }
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private CartService cartService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context)
+                .addFilters(context.getBean("springSecurityFilterChain", Filter.class))
+                .build();
+        CartVO empty = CartVO.builder().items(List.of()).totalQuantity(0).totalAmount(BigDecimal.ZERO).build();
+        when(cartService.getGuestCart(anyString())).thenReturn(empty);
+        when(cartService.addToGuestCart(anyString(), anyLong(), anyInt())).thenReturn(empty);
+        when(cartService.getCart(any())).thenReturn(empty);
+    }
+
+    @Test
+    void guestCartShouldNotRequireToken() throws Exception {
+        mockMvc.perform(get("/cart/guest").header("X-Device-Id", DEVICE_ID))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/cart/guest/items").header("X-Device-Id", DEVICE_ID)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"variantId\":1,\"quantity\":1}"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void memberCartShouldRequireToken() throws Exception {
+        mockMvc.perform(get("/cart").header("X-User-Id", "1"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,165 @@
+package com.nameless.mall.cart.manager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.entity.CartArchive;
+import com.nameless.mall.cart.mapper.CartArchiveMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link CartLifecycleManager} 測試：閒置購物車封存後自 Redis 移除，下次存取時透明還原。
+ * <p>
+ * 需要可連線的 Redis（REDIS_HOST / REDIS_PORT，預設 localhost:6379），連線失敗時略過；
+ * cart_archive 以記憶體實作的 Mapper 代替。
+ * </p>
+ */
+class CartLifecycleManagerTest {
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+    private static boolean redisAvailable;
+
+    private final Map<Long, CartArchive> archives = new ConcurrentHashMap<>();
+    private SimpleMeterRegistry meterRegistry;
+    private CartLifecycleManager lifecycle;
+    private CartRedisManager manager;
+    private Long userId;
+
+    @BeforeAll
+    static void connect() {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        try {
+            redisAvailable = "PONG".equals(redisTemplate.execute(c -> c.ping(), true));
+        } catch (Exception e) {
+            redisAvailable = false;
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(redisAvailable, "Redis 無法連線，略過封存測試");
+        meterRegistry = new SimpleMeterRegistry();
+        lifecycle = new CartLifecycleManager(redisTemplate, inMemoryMapper(), meterRegistry, 30, 7, 180);
+        manager = new CartRedisManager(redisTemplate, new ObjectMapper(), lifecycle, 72);
+        userId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.clear(userId);
+        }
+    }
+
+    @Test
+    void idleCartShouldBeOffloadedAndRestoredOnAccess() {
+        manager.add(userId, 1L, 2, meta(1L));
+        manager.add(userId, 2L, 5, meta(2L));
+        assertTrue(redisTemplate.getExpire(CartRedisManager.CART_PREFIX + userId) > Duration.ofDays(29).toSeconds());
+
+        markIdle();
+        assertEquals(CartLifecycleManager.Outcome.OFFLOADED,
+                lifecycle.offload(userId, manager.peekItems(userId), 0L));
+        assertFalse(redisTemplate.hasKey(CartRedisManager.CART_PREFIX + userId));
+        assertTrue(archives.containsKey(userId));
+        assertTrue(meterRegistry.counter("cart.lifecycle.memory.saved.bytes").count() > 0);
+
+        // 存取時還原，數量與價格快照不變，封存資料刪除
+        assertEquals(Map.of(1L, 2, 2L, 5), quantities(manager.getItems(userId)));
+        assertEquals(new BigDecimal("10.00"), manager.getItems(userId, List.of(1L)).get(0).getPrice());
+        assertFalse(archives.containsKey(userId));
+        assertEquals(Map.of(1L, 3, 2L, 5), quantities(manager.add(userId, 1L, 1, null)));
+    }
+
+    @Test
+    void cartAccessedDuringOffloadShouldStayInRedis() {
+        manager.add(userId, 1L, 2, meta(1L));
+        markIdle();
+        List<CartItemDTO> items = manager.peekItems(userId);
+
+        // 讀取封存資料後、移除前又被存取
+        manager.getItems(userId);
+
+        assertEquals(CartLifecycleManager.Outcome.ACTIVE, lifecycle.offload(userId, items, 0L));
+        assertTrue(redisTemplate.hasKey(CartRedisManager.CART_PREFIX + userId));
+        assertFalse(archives.containsKey(userId));
+    }
+
+    @Test
+    void guestMergeIntoArchivedCartShouldRestoreFirst() {
+        String deviceId = "test-device-" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+        manager.add(userId, 1L, 2, meta(1L));
+        markIdle();
+        lifecycle.offload(userId, manager.peekItems(userId), 0L);
+        manager.addGuest(deviceId, 1L, 3, meta(1L));
+
+        assertEquals(1, manager.mergeGuest(userId, deviceId));
+        assertEquals(Map.of(1L, 5), quantities(manager.getItems(userId)));
+        assertFalse(archives.containsKey(userId));
+    }
+
+    private void markIdle() {
+        redisTemplate.opsForZSet().add(CartLifecycleManager.ACTIVE_KEY, String.valueOf(userId),
+                System.currentTimeMillis() - Duration.ofDays(8).toMillis());
+    }
+
+    private CartArchiveMapper inMemoryMapper() {
+        return (CartArchiveMapper) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { CartArchiveMapper.class }, (proxy, method, args) -> switch (method.getName()) {
+                    case "upsert" -> {
+                        CartArchive archive = (CartArchive) args[0];
+                        archives.put(archive.getUserId(), archive);
+                        yield 1;
+                    }
+                    case "selectById" -> archives.get((Long) args[0]);
+                    case "deleteById" -> archives.remove((Long) args[0]) != null ? 1 : 0;
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static CartItemDTO meta(long variantId) {
+        return CartItemDTO.builder()
+                .productId(variantId)
+                .variantId(variantId)
+                .categoryId(1L)
+                .price(BigDecimal.TEN)
+                .originalPrice(BigDecimal.TEN)
+                .build();
+    }
+
+    private static Map<Long, Integer> quantities(List<CartItemDTO> items) {
+        return items.stream().collect(Collectors.toMap(CartItemDTO::getVariantId, CartItemDTO::getQuantity));
+    }
+}
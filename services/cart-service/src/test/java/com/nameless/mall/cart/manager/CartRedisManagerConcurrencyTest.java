@@ -0,0 +1,243 @@
+package com.nameless.mall.cart.manager;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.cart.api.dto.CartItemDTO;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link CartRedisManager} 並發測試：多執行緒同時加入、修改同一購物車，驗證沒有遺失更新。
+ * <p>
+ * 需要可連線的 Redis（REDIS_HOST / REDIS_PORT，預設 localhost:6379），連線失敗時略過。
+ * 測試使用隨機 userId，結束後刪除該購物車。
+ * </p>
+ */
+class CartRedisManagerConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 200;
+    private static final int VARIANTS = 8;
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+    private static boolean redisAvailable;
+
+    private CartRedisManager manager;
+    private Long userId;
+
+    @BeforeAll
+    static void connect() {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        try {
+            redisAvailable = "PONG".equals(redisTemplate.execute(c -> c.ping(), true));
+        } catch (Exception e) {
+            redisAvailable = false;
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(redisAvailable, "Redis 無法連線，略過並發測試");
+        ObjectMapper objectMapper = new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        manager = new CartRedisManager(redisTemplate, objectMapper,
+                new CartLifecycleManager(redisTemplate, null, new SimpleMeterRegistry(), 30, 7, 180), 72);
+        userId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (manager != null) {
+            manager.clear(userId);
+        }
+    }
+
+    @Test
+    void concurrentAddsShouldNotLoseUpdates() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        long variantId = i % VARIANTS + 1;
+                        // 與 CartServiceImpl 相同流程：先不帶商品資訊，購物車無此商品時再帶上
+                        if (manager.add(userId, variantId, 1, null) == null) {
+                            manager.add(userId, variantId, 1, meta(variantId));
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<Long, Integer> quantities = quantities(manager.getItems(userId));
+        assertEquals(VARIANTS, quantities.size());
+        int expectedPerVariant = THREADS * ADDS_PER_THREAD / VARIANTS;
+        quantities.forEach((variantId, qty) -> assertEquals(expectedPerVariant, qty, "variantId=" + variantId));
+    }
+
+    @Test
+    void concurrentAddsAndMetaRewritesShouldNotLoseUpdates() throws Exception {
+        manager.add(userId, 1L, 1, meta(1L));
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                boolean writer = t % 4 == 0;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                        if (writer) {
+                            // 模擬 categoryId 修復回寫：帶著過期的數量也不得覆蓋數量欄位
+                            CartItemDTO stale = meta(1L);
+                            stale.setQuantity(1);
+                            manager.replaceMeta(userId, stale);
+                        } else {
+                            manager.add(userId, 1L, 1, null);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        int adders = THREADS - THREADS / 4;
+        assertEquals(1 + adders * ADDS_PER_THREAD, quantities(manager.getItems(userId)).get(1L));
+    }
+
+    @Test
+    void legacyJsonQuantityShouldBeMigratedOnFirstAdd() {
+        redisTemplate.opsForHash().put(CartRedisManager.CART_PREFIX + userId, "7",
+                "{\"variantId\":7,\"productName\":\"legacy\",\"quantity\":3,\"price\":10}");
+
+        assertEquals(3, quantities(manager.getItems(userId)).get(7L));
+        assertEquals(5, quantities(manager.add(userId, 7L, 2, null)).get(7L));
+        assertEquals(5, quantities(manager.getItems(userId, List.of(7L))).get(7L));
+    }
+
+    @Test
+    void mutationsOnAbsentItemShouldReportAbsence() {
+        assertNull(manager.add(userId, 9L, 1, null));
+        assertNull(manager.setQuantity(userId, 9L, 3));
+
+        manager.add(userId, 9L, 2, meta(9L));
+        manager.remove(userId, 9L);
+        // 移除後重新加入，數量從 0 起算
+        assertEquals(1, quantities(manager.add(userId, 9L, 1, meta(9L))).get(9L));
+        assertEquals(4, quantities(manager.setQuantity(userId, 9L, 4)).get(9L));
+    }
+
+    @Test
+    void checkoutCommitShouldOnlyRemoveFrozenQuantity() throws Exception {
+        manager.add(userId, 1L, 2, meta(1L));
+        manager.add(userId, 2L, 1, meta(2L));
+        manager.add(userId, 3L, 5, meta(3L));
+
+        CartRedisManager.Frozen frozen = manager.freezeCheckout(userId, "s1", List.of(1L, 2L, 4L),
+                Duration.ofMinutes(1));
+        assertEquals(Map.of(1L, 2, 2L, 1), quantities(frozen.items()));
+
+        // 結帳期間並發加入同一商品，提交時只扣除凍結的數量
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> manager.add(userId, 1L, 1, null)));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(2, manager.commitCheckout(userId, "s1"));
+        assertEquals(-1, manager.commitCheckout(userId, "s1"));
+        assertEquals(Map.of(1L, THREADS, 3L, 5), quantities(manager.getItems(userId)));
+    }
+
+    @Test
+    void guestCartShouldBeMergedOnLogin() {
+        String deviceId = "test-device-" + ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+        manager.add(userId, 1L, 2, meta(1L));
+        redisTemplate.opsForHash().put(CartRedisManager.CART_PREFIX + userId, "7",
+                "{\"variantId\":7,\"productName\":\"legacy\",\"quantity\":3,\"price\":10}");
+        manager.addGuest(deviceId, 1L, 1, meta(1L));
+        manager.addGuest(deviceId, 7L, 2, meta(7L));
+        manager.addGuest(deviceId, 8L, 4, meta(8L));
+        // 訪客購物車不寫入活躍索引
+        assertNull(redisTemplate.opsForZSet().score(CartLifecycleManager.ACTIVE_KEY, deviceId));
+
+        assertEquals(3, manager.mergeGuest(userId, deviceId));
+        assertEquals(Map.of(1L, 3, 7L, 5, 8L, 4), quantities(manager.getItems(userId)));
+        assertTrue(manager.getGuestItems(deviceId).isEmpty());
+        // 重複合併（例如重送登入請求）無副作用
+        assertEquals(0, manager.mergeGuest(userId, deviceId));
+    }
+
+    private static CartItemDTO meta(long variantId) {
+        return CartItemDTO.builder()
+                .productId(variantId)
+                .variantId(variantId)
+                .categoryId(1L)
+                .productName("item-" + variantId)
+                .price(BigDecimal.TEN)
+                .originalPrice(BigDecimal.TEN)
+                .discountAmount(BigDecimal.ZERO)
+                .build();
+    }
+
+    private static Map<Long, Integer> quantities(List<CartItemDTO> items) {
+        return items.stream().collect(Collectors.toMap(CartItemDTO::getVariantId, CartItemDTO::getQuantity));
+    }
+}
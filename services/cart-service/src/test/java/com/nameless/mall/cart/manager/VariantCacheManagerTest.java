@@ -0,0 +1,96 @@
+package com.nameless.mall.cart.manager;
+
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.feign.ProductFeignClient;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link VariantCacheManager} 測試：商品異動時依索引移除該商品的規格，且失效前發出的載入不會寫回舊資料。
+ * product-service 以動態代理代替（規格 ID / 10 即為商品 ID）。
+ */
+class VariantCacheManagerTest {
+
+    private final AtomicInteger calls = new AtomicInteger();
+    private volatile CountDownLatch loading = new CountDownLatch(0);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    private final VariantCacheManager cache = new VariantCacheManager(productClient(), Runnable::run,
+            1_000, 120, 600);
+
+    @Test
+    void invalidateProductShouldOnlyRemoveItsVariants() {
+        cache.getVariants(List.of(11L, 12L, 21L));
+
+        cache.invalidateProduct(1L);
+
+        assertEquals(Set.of(21L), cache.getCachedVariants(List.of(11L, 12L, 21L)).keySet());
+        cache.getVariants(List.of(11L));
+        assertEquals(Set.of(11L, 21L), cache.getCachedVariants(List.of(11L, 12L, 21L)).keySet());
+    }
+
+    @Test
+    void invalidateAllShouldClearEveryProduct() {
+        cache.getVariants(List.of(11L, 21L));
+
+        cache.invalidateProduct(null);
+
+        assertTrue(cache.getCachedVariants(List.of(11L, 21L)).isEmpty());
+    }
+
+    @Test
+    void loadStartedBeforeInvalidationShouldNotBeCached() throws Exception {
+        loading = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        CompletableFuture<Map<Long, VariantDTO>> inFlight =
+                CompletableFuture.supplyAsync(() -> cache.getVariants(List.of(11L)));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        // 載入已讀到舊資料後才收到商品異動
+        cache.invalidateProduct(1L);
+        release.countDown();
+
+        // 本次呼叫端仍取得結果，但不寫入快取；下次讀取重新載入
+        assertEquals(Set.of(11L), inFlight.get(5, TimeUnit.SECONDS).keySet());
+        assertTrue(cache.getCachedVariants(List.of(11L)).isEmpty());
+        int before = calls.get();
+        cache.getVariants(List.of(11L));
+        assertEquals(before + 1, calls.get());
+        assertEquals(Set.of(11L), cache.getCachedVariants(List.of(11L)).keySet());
+    }
+
+    private ProductFeignClient productClient() {
+        return (ProductFeignClient) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductFeignClient.class }, (proxy, method, args) -> {
+                    if (!"getVariantsBatch".equals(method.getName())) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    calls.incrementAndGet();
+                    @SuppressWarnings("unchecked")
+                    List<VariantDTO> variants = ((List<Long>) args[0]).stream().map(this::variant).toList();
+                    loading.countDown();
+                    release.await(5, TimeUnit.SECONDS);
+                    return Result.ok(variants);
+                });
+    }
+
+    private VariantDTO variant(Long variantId) {
+        VariantDTO variant = new VariantDTO();
+        variant.setId(variantId);
+        variant.setProductId(variantId / 10);
+        variant.setProductName("商品 " + variantId);
+        return variant;
+    }
+}
@@ -3,6 +3,7 @@ package com.nameless.mall.coupon.service.impl;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.nameless.mall.core.domain.Money;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
 import com.nameless.mall.coupon.api.dto.CouponTemplateDTO;
@@ -24,7 +25,6 @@ import com.nameless.mall.coupon.api.dto.CouponCalculationResult;
 import com.nameless.mall.coupon.api.vo.ApplicableCouponVO;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -289,8 +289,8 @@ public class CouponServiceImpl extends ServiceImpl<UserCouponMapper, UserCoupon>
         if (template.getType() == 3) {
             result.setFinalAmount(dto.getOrderTotalAmount());
         } else {
-            BigDecimal finalAmount = dto.getOrderTotalAmount().subtract(discountAmount);
-            result.setFinalAmount(finalAmount.compareTo(BigDecimal.ZERO) > 0 ? finalAmount : BigDecimal.ZERO);
+            Money finalAmount = Money.round(dto.getOrderTotalAmount()).minus(Money.round(discountAmount));
+            result.setFinalAmount(finalAmount.isPositive() ? finalAmount.toBigDecimal() : BigDecimal.ZERO);
         }
 
         return result;
@@ -369,43 +369,48 @@ public class CouponServiceImpl extends ServiceImpl<UserCouponMapper, UserCoupon>
 
     /**
      * 內部核心算式
+     * <p>
+     * 以定點數 {@link Money} 計算。折扣率的乘積先捨入至 2 位小數再封頂：
+     * 封頂值與訂單金額皆為 2 位小數，捨入具單調性，結果與「先封頂再捨入」相同。
+     * </p>
      */
     private BigDecimal calculateDiscountInternal(CouponTemplateDTO template, BigDecimal orderTotal,
             BigDecimal shippingFee) {
-        BigDecimal discount = BigDecimal.ZERO;
+        Money total = Money.round(orderTotal);
+        Money discount = Money.ZERO;
 
         if (template.getType() == 1) {
             // 滿減 (Cash)
-            discount = template.getDiscount(); // e.g. 100
+            discount = Money.round(template.getDiscount()); // e.g. 100
         } else if (template.getType() == 2) {
             // 折扣 (Discount Rate)
             // 假設 template.discount 是 0.9 (9折)
             // 折扣金額 = total * (1 - 0.9) = total * 0.1
             BigDecimal rate = template.getDiscount();
             if (rate != null && rate.compareTo(BigDecimal.ONE) < 0) {
-                discount = orderTotal.multiply(BigDecimal.ONE.subtract(rate));
+                discount = total.times(BigDecimal.ONE.subtract(rate));
             }
         } else if (template.getType() == 3) {
             // 免運 (Free Shipping)
-            discount = shippingFee;
+            discount = Money.round(shippingFee);
         }
 
         // maxDiscount 封頂：防止折扣券/滿減券折扣金額超過上限
         // 例如：9 折券 maxDiscount=200，應用於 $10,000 訂單時折扣封頂為 $200 而非 $1,000
-        if (template.getMaxDiscount() != null
-                && template.getMaxDiscount().compareTo(BigDecimal.ZERO) > 0
-                && discount.compareTo(template.getMaxDiscount()) > 0) {
-            log.debug("【優惠券】折扣封頂生效, 原始折扣={}, maxDiscount={}", discount, template.getMaxDiscount());
-            discount = template.getMaxDiscount();
+        if (template.getMaxDiscount() != null && template.getMaxDiscount().compareTo(BigDecimal.ZERO) > 0) {
+            Money maxDiscount = Money.round(template.getMaxDiscount());
+            if (discount.compareTo(maxDiscount) > 0) {
+                log.debug("【優惠券】折扣封頂生效, 原始折扣={}, maxDiscount={}", discount, maxDiscount);
+                discount = maxDiscount;
+            }
         }
 
         // 防禦：折扣不能超過訂單金額 (Type=3 除外，因它抵運費)
-        if (template.getType() != 3 && discount.compareTo(orderTotal) > 0) {
-            discount = orderTotal;
+        if (template.getType() != 3) {
+            discount = discount.min(total);
         }
 
-        // 精度處理 (四捨五入到小數點後2位)
-        return discount.setScale(2, RoundingMode.HALF_UP);
+        return discount.toBigDecimal();
     }
 
     /**
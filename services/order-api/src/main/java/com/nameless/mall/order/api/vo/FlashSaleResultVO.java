@@ -0,0 +1,20 @@
+package com.nameless.mall.order.api.vo;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 特賣排隊結果的視圖對象 (VO)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FlashSaleResultVO implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private String status; // PENDING / SUCCESS / FAILED / NOT_FOUND
+    private String orderSn; // 僅 SUCCESS 時有值
+}
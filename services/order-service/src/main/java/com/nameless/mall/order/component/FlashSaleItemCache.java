@@ -0,0 +1,201 @@
+package com.nameless.mall.order.component;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.core.enums.ResultCodeEnum;
+import com.nameless.mall.core.exception.BusinessException;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.feign.ProductFeignClient;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.util.CollectionUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 特賣商品本地快取（場次級）。
+ * <p>
+ * 一個場次僅數十個 SKU，消費者卻對每則訊息各呼叫一次商品查詢與計價 Feign。
+ * 此快取以活動 ID 為單位，一次批量載入整個場次的規格資訊與特賣價（2 次 RPC），
+ * 之後建單熱路徑零 RPC。場次清單取自 promotion-service 預熱寫入的 flash_sale:product:{promoId}。
+ * </p>
+ * <p>
+ * 收到 promotion.topic 場次變更事件時非同步重載（重載期間沿用舊值），TTL 僅作兜底。
+ * </p>
+ * <p>
+ * 僅快取計價結果為特賣價（FLASH_SALE）的 SKU：場次開始前（預熱通知、管理端刷新、提早到達的訊息）
+ * 促銷服務仍回傳原價，此時的結果只回給當次呼叫端、不寫入快取，避免開賽後仍以原價成交；
+ * 整個場次都不是特賣價時不保留場次項目，下次讀取重新載入。
+ * </p>
+ */
+@Slf4j
+@Component
+public class FlashSaleItemCache {
+
+    private static final String PRODUCT_PREFIX = "flash_sale:product:"; // 與 promotion-service 預熱 Key 一致
+
+    private final ProductFeignClient productFeignClient;
+    private final PromotionFeignClient promotionFeignClient;
+    private final StringRedisTemplate redisTemplate;
+    private final LoadingCache<Long, Map<Long, FlashSaleItem>> sessions;
+
+    public FlashSaleItemCache(ProductFeignClient productFeignClient,
+            PromotionFeignClient promotionFeignClient,
+            StringRedisTemplate redisTemplate,
+            @Value("${flash-sale.item-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.productFeignClient = productFeignClient;
+        this.promotionFeignClient = promotionFeignClient;
+        this.redisTemplate = redisTemplate;
+        this.sessions = Caffeine.newBuilder()
+                .maximumSize(64)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build(this::loadSession);
+    }
+
+    /**
+     * 取得特賣商品資訊。場次未載入時單飛載入整個場次；SKU 不在快取時補載單一 SKU，
+     * 為特賣價才併入快取。
+     */
+    public FlashSaleItem get(Long promotionId, Long skuId) {
+        Map<Long, FlashSaleItem> items = sessions.get(promotionId);
+        FlashSaleItem item = items != null ? items.get(skuId) : null;
+        if (item == null) {
+            item = loadItems(Collections.singletonList(skuId)).get(skuId);
+            if (item != null && item.isFlashSale() && items != null) {
+                items.put(skuId, item);
+            }
+        }
+        if (item == null) {
+            throw new BusinessException(ResultCodeEnum.PRODUCT_NOT_FOUND, "商品不存在");
+        }
+        return item;
+    }
+
+    /**
+     * 場次變更時非同步重載；promotionId 為 null 代表全量變更，清空所有場次。
+     */
+    public void refresh(Long promotionId) {
+        if (promotionId == null) {
+            sessions.invalidateAll();
+            log.info("【特賣快取】收到全量變更，已清空所有場次快取");
+            return;
+        }
+        sessions.refresh(promotionId);
+        log.info("【特賣快取】場次變更，非同步重載: promotionId={}", promotionId);
+    }
+
+    /**
+     * @return 場次內為特賣價的 SKU；一個都沒有（未開賽或已結束）時回傳 null，Caffeine 不保留該場次
+     */
+    private Map<Long, FlashSaleItem> loadSession(Long promotionId) {
+        Set<Object> fields = redisTemplate.opsForHash().keys(PRODUCT_PREFIX + promotionId);
+        List<Long> skuIds = fields.stream().map(f -> Long.valueOf(f.toString())).collect(Collectors.toList());
+
+        Map<Long, FlashSaleItem> items = new ConcurrentHashMap<>();
+        loadItems(skuIds).forEach((skuId, item) -> {
+            if (item.isFlashSale()) {
+                items.put(skuId, item);
+            }
+        });
+        if (items.isEmpty()) {
+            log.info("【特賣快取】場次尚無特賣價（未開賽或已結束），不快取: promotionId={}, SKU 數量={}",
+                    promotionId, skuIds.size());
+            return null;
+        }
+        log.info("【特賣快取】場次載入完成: promotionId={}, SKU 數量={}", promotionId, items.size());
+        return items;
+    }
+
+    /**
+     * 批量查詢規格與特賣價（各一次 Feign），任一服務異常則拋出，與原逐筆查詢的失敗語意一致。
+     */
+    private Map<Long, FlashSaleItem> loadItems(Collection<Long> skuIds) {
+        if (skuIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // 1. 批量查詢商品資訊
+        List<VariantDTO> variants;
+        try {
+            Result<List<VariantDTO>> variantResult = productFeignClient.getVariantsBatch(new ArrayList<>(skuIds));
+            variants = (variantResult != null && variantResult.isSuccess()
+                    && !CollectionUtils.isEmpty(variantResult.getData()))
+                            ? variantResult.getData()
+                            : Collections.emptyList();
+        } catch (Exception e) {
+            log.error("【特賣快取】查詢商品失敗: {}", e.getMessage());
+            throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "無法獲取商品資訊");
+        }
+        if (variants.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        // 2. 批量查特賣價
+        List<ProductPriceCheckDTO> checks = variants.stream()
+                .map(v -> ProductPriceCheckDTO.builder()
+                        .productId(v.getProductId())
+                        .variantId(v.getId())
+                        .categoryId(v.getCategoryId())
+                        .originalPrice(v.getPrice())
+                        .build())
+                .collect(Collectors.toList());
+        Map<Long, ProductPriceResultDTO> prices;
+        try {
+            Result<List<ProductPriceResultDTO>> priceResult = promotionFeignClient.calculateBestPrices(checks);
+            prices = (priceResult != null && priceResult.isSuccess() && priceResult.getData() != null)
+                    ? priceResult.getData().stream().collect(Collectors.toMap(
+                            ProductPriceResultDTO::getVariantId, Function.identity(), (a, b) -> a))
+                    : Collections.emptyMap();
+        } catch (Exception e) {
+            log.error("【特賣快取】特賣計價服務異常，無法確認價格: {}", e.getMessage());
+            throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "特賣價格計算失敗，請稍後重試");
+        }
+
+        // 3. 組裝：非特賣價結果沿用原價（標記為非特賣，不寫入快取）
+        Map<Long, FlashSaleItem> items = new ConcurrentHashMap<>();
+        for (VariantDTO variant : variants) {
+            ProductPriceResultDTO price = prices.get(variant.getId());
+            boolean flashSale = price != null && "FLASH_SALE".equals(price.getPromotionType());
+            items.put(variant.getId(), new FlashSaleItem(variant,
+                    flashSale ? price.getFinalPrice() : variant.getPrice(),
+                    flashSale ? price.getPromotionName() : null, flashSale));
+        }
+        return items;
+    }
+
+    /**
+     * 特賣商品快取項：規格資訊 + 成交單價。
+     */
+    @Getter
+    public static class FlashSaleItem {
+        private final VariantDTO variant;
+        private final BigDecimal finalPrice;
+        private final String promotionName;
+        /** 計價結果是否為特賣價；否則為原價，僅供當次使用 */
+        private final boolean flashSale;
+
+        FlashSaleItem(VariantDTO variant, BigDecimal finalPrice, String promotionName, boolean flashSale) {
+            this.variant = variant;
+            this.finalPrice = finalPrice;
+            this.promotionName = promotionName;
+            this.flashSale = flashSale;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.nameless.mall.order.component;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 特賣死信重放任務進度 (執行中即時更新，供後台輪詢)。
+ */
+@Getter
+public class FlashSaleReplayJob {
+
+    private final String jobId = UUID.randomUUID().toString().replace("-", "");
+    private final int limit;
+    private final int ratePerSecond;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private volatile LocalDateTime finishedAt;
+    private volatile boolean running = true;
+
+    /** 已從暫存隊列取出的訊息數 */
+    private final AtomicLong processed = new AtomicLong();
+    /** 重放建單成功 */
+    private final AtomicLong succeeded = new AtomicLong();
+    /** 仍為暫時性失敗，放回暫存隊列等待下一輪 */
+    private final AtomicLong requeued = new AtomicLong();
+    /** 業務失敗或重試次數耗盡，已回補庫存並標記失敗 */
+    private final AtomicLong released = new AtomicLong();
+    /** 已處理過 (結果已為成功)，直接略過 */
+    private final AtomicLong skipped = new AtomicLong();
+
+    public FlashSaleReplayJob(int limit, int ratePerSecond) {
+        this.limit = limit;
+        this.ratePerSecond = ratePerSecond;
+    }
+
+    public void finish() {
+        this.finishedAt = LocalDateTime.now();
+        this.running = false;
+    }
+}
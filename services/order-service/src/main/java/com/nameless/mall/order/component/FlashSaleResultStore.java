@@ -0,0 +1,127 @@
+package com.nameless.mall.order.component;
+
+import com.nameless.mall.order.constant.FlashSaleConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 特賣排隊結果存取元件。
+ * <p>
+ * 以活動 + SKU + 用戶分桶的 Hash 取代每位用戶一個 String Key：
+ * Key = flash_sale:result:{promotionId}:{skuId}:{userId/100}，欄位 = userId%100。
+ * 每桶最多 100 個欄位，Redis 以 listpack 緊湊編碼儲存，百萬用戶場次約萬級 Key。
+ * </p>
+ * <p>
+ * 成功與失敗狀態皆於確認訊息前同步寫入（HSET + EXPIRE 單次 pipeline 往返），
+ * 程序崩潰時不會遺失已建單的結果，用戶不會對已成立的訂單持續查到 PENDING。
+ * </p>
+ */
+@Slf4j
+@Component
+public class FlashSaleResultStore {
+
+    private final StringRedisTemplate redisTemplate;
+    private final long pendingTimeoutSeconds;
+    private final long ttlSeconds;
+
+    public FlashSaleResultStore(StringRedisTemplate redisTemplate,
+            @Value("${flash-sale.result.pending-timeout-seconds:600}") long pendingTimeoutSeconds,
+            @Value("${flash-sale.result.ttl-seconds:86400}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.pendingTimeoutSeconds = pendingTimeoutSeconds;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public String hashKey(Long promotionId, Long skuId, Long userId) {
+        return FlashSaleConstants.CACHE_RESULT_PREFIX + promotionId + ":" + skuId + ":"
+                + (userId / FlashSaleConstants.RESULT_BUCKET_SIZE);
+    }
+
+    public String field(Long userId) {
+        return String.valueOf(userId % FlashSaleConstants.RESULT_BUCKET_SIZE);
+    }
+
+    public long getPendingTimeoutSeconds() {
+        return pendingTimeoutSeconds;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    /**
+     * 查詢單筆原始狀態。逾時的 PENDING 視為不存在。
+     *
+     * @return "P:{ts}" / "F" / orderSn，無紀錄時為 null
+     */
+    public String get(Long promotionId, Long skuId, Long userId) {
+        Object raw = redisTemplate.opsForHash().get(hashKey(promotionId, skuId, userId), field(userId));
+        return normalize(raw != null ? raw.toString() : null);
+    }
+
+    /**
+     * 批量查詢同一用戶多個 SKU 的原始狀態 (單次 pipeline)。
+     *
+     * @param targets 每筆為 {promotionId, skuId}
+     * @return 與 targets 順序一致的原始狀態，無紀錄時為 null
+     */
+    public List<String> getBatch(Long userId, List<long[]> targets) {
+        String field = field(userId);
+        List<Object> values = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            targets.forEach(t -> conn.hGet(hashKey(t[0], t[1], userId), field));
+            return null;
+        });
+
+        List<String> results = new ArrayList<>(targets.size());
+        values.forEach(v -> results.add(normalize(v != null ? v.toString() : null)));
+        return results;
+    }
+
+    /**
+     * 記錄建單成功。呼叫時訂單已提交，寫入失敗僅記錄錯誤、不拋出，
+     * 避免呼叫端將已成立的訂單當成建單失敗轉送死信並回補庫存。
+     */
+    public void markSuccess(Long promotionId, Long skuId, Long userId, String orderSn) {
+        try {
+            write(hashKey(promotionId, skuId, userId), field(userId), orderSn);
+        } catch (RuntimeException e) {
+            log.error("【特賣結果】訂單已成立但結果寫入失敗: orderSn={}, userId={}, error={}",
+                    orderSn, userId, e.getMessage());
+        }
+    }
+
+    /**
+     * 記錄搶購失敗。
+     */
+    public void markFailed(Long promotionId, Long skuId, Long userId) {
+        write(hashKey(promotionId, skuId, userId), field(userId), FlashSaleConstants.RAW_FAILED);
+    }
+
+    /** HSET + EXPIRE（單次 pipeline 往返） */
+    private void write(String key, String field, String value) {
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.hSet(key, field, value);
+            conn.expire(key, ttlSeconds);
+            return null;
+        });
+    }
+
+    private String normalize(String raw) {
+        if (raw != null && raw.startsWith(FlashSaleConstants.RAW_PENDING_PREFIX)) {
+            long queuedAt = Long.parseLong(raw.substring(FlashSaleConstants.RAW_PENDING_PREFIX.length()));
+            if (System.currentTimeMillis() / 1000 - queuedAt >= pendingTimeoutSeconds) {
+                return null;
+            }
+        }
+        return raw;
+    }
+}
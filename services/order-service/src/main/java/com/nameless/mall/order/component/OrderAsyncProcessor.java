@@ -12,7 +12,9 @@ import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
 import com.nameless.mall.cart.api.feign.CartFeignClient;
+import com.nameless.mall.core.domain.Money;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
@@ -32,7 +34,7 @@ import com.nameless.mall.product.api.dto.DecreaseStockInputDTO;
 import com.nameless.mall.product.api.feign.ProductFeignClient;
 import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
 import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
-import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -64,7 +66,7 @@ public class OrderAsyncProcessor {
     private final ShippingProperties shippingProperties;
     private final OrderTransactionManager orderTransactionManager;
     private final CartFeignClient cartFeignClient;
-    private final PromotionFeignClient promotionFeignClient;
+    private final PricingResultCache pricingResultCache;
     private final Executor feignCallExecutor;
 
     public OrderAsyncProcessor(
@@ -76,7 +78,7 @@ public class OrderAsyncProcessor {
             ShippingProperties shippingProperties,
             OrderTransactionManager orderTransactionManager,
             CartFeignClient cartFeignClient,
-            PromotionFeignClient promotionFeignClient,
+            PricingResultCache pricingResultCache,
             @Qualifier("feignCallExecutor") Executor feignCallExecutor) {
         this.orderMapper = orderMapper;
         this.orderItemService = orderItemService;
@@ -86,21 +88,25 @@ public class OrderAsyncProcessor {
         this.shippingProperties = shippingProperties;
         this.orderTransactionManager = orderTransactionManager;
         this.cartFeignClient = cartFeignClient;
-        this.promotionFeignClient = promotionFeignClient;
+        this.pricingResultCache = pricingResultCache;
         this.feignCallExecutor = feignCallExecutor;
     }
 
-    /** 異步處理訂單核心流程。userId 由呼叫方傳入（異步線程無 SecurityContext）。 */
+    /**
+     * 異步處理訂單核心流程。userId 由呼叫方傳入（異步線程無 SecurityContext）。
+     * 完成時提交結帳快照（自購物車扣除凍結數量），失敗時釋放。
+     */
     @Async("orderAsyncExecutor")
     public void processOrderAsync(Long orderId, String orderSn, Long userId,
-            OrderSubmitDTO submitDTO, List<CartItemDTO> cartItems) {
+            OrderSubmitDTO submitDTO, CheckoutSnapshotDTO checkout) {
+        List<CartItemDTO> cartItems = checkout.getItems();
         List<DecreaseStockInputDTO> regularStockList = Collections.emptyList();
         boolean flashSaleDeducted = false;
 
         try {
             log.info("【異步下單】開始: orderSn={}, userId={}, items={}", orderSn, userId, cartItems.size());
 
-            Map<Long, ProductPriceResultDTO> pricingMap = buildPricingMapFromCart(cartItems);
+            Map<Long, ProductPriceResultDTO> pricingMap = buildPricingMapFromCart(checkout);
 
             Order order = orderMapper.selectById(orderId);
             recalculateOrderAmounts(order, cartItems, pricingMap);
@@ -138,9 +144,9 @@ public class OrderAsyncProcessor {
             orderTransactionManager.completeAsyncOrder(
                     order, orderItems, shipment, cartItems, pricingMap, submitDTO.getUserCouponId());
 
-            // 清購物車（容錯執行）
+            // 提交結帳快照，自購物車扣除已下單的數量（容錯執行）
             try {
-                cartFeignClient.clearCartItems(submitDTO.getCartItemIds());
+                cartFeignClient.commitCheckout(userId, checkout.getSnapshotId());
             } catch (Exception e) {
                 log.warn("【異步下單】購物車清理失敗（不影響訂單）: orderSn={}", orderSn, e);
             }
@@ -151,9 +157,20 @@ public class OrderAsyncProcessor {
             Throwable cause = ce.getCause() != null ? ce.getCause() : ce;
             log.error("【異步下單】並行階段失敗，執行補償: orderSn={}", orderSn, cause);
             compensate(orderId, orderSn, regularStockList, flashSaleDeducted, cause);
+            releaseCheckout(userId, orderSn, checkout);
         } catch (Exception e) {
             log.error("【異步下單】失敗，執行補償: orderSn={}", orderSn, e);
             compensate(orderId, orderSn, regularStockList, flashSaleDeducted, e);
+            releaseCheckout(userId, orderSn, checkout);
+        }
+    }
+
+    /** 下單失敗時釋放結帳快照（容錯執行，未釋放的快照會自動逾期，購物車內容不受影響）。 */
+    private void releaseCheckout(Long userId, String orderSn, CheckoutSnapshotDTO checkout) {
+        try {
+            cartFeignClient.releaseCheckout(userId, checkout.getSnapshotId());
+        } catch (Exception e) {
+            log.warn("【異步下單】結帳快照釋放失敗（將自動逾期）: orderSn={}", orderSn, e);
         }
     }
 
@@ -224,8 +241,15 @@ public class OrderAsyncProcessor {
         orderTransactionManager.markOrderFailed(orderId, reason);
     }
 
-    /** 從購物車快照建立計價 Map（信任 enrichWithPricing 已填好價格，零 RPC）。 */
-    private Map<Long, ProductPriceResultDTO> buildPricingMapFromCart(List<CartItemDTO> cartItems) {
+    /**
+     * 從結帳快照建立計價 Map。
+     * <p>
+     * 快照帶有計價版本且仍在有效期內時直接採用購物車的計價結果（零 RPC）；
+     * 購物車計價降級或版本已過期時，向 promotion-service 重算。
+     * </p>
+     */
+    private Map<Long, ProductPriceResultDTO> buildPricingMapFromCart(CheckoutSnapshotDTO checkout) {
+        List<CartItemDTO> cartItems = checkout.getItems();
         Map<Long, ProductPriceResultDTO> fallbackMap = new HashMap<>();
         for (CartItemDTO item : cartItems) {
             ProductPriceResultDTO dto = ProductPriceResultDTO.builder()
@@ -240,7 +264,13 @@ public class OrderAsyncProcessor {
             fallbackMap.put(item.getVariantId(), dto);
         }
 
-        // 向 promotion-service 重算最新價格
+        if (checkout.getPricingVersion() != null && checkout.getPricingValidUntil() != null
+                && checkout.getPricingValidUntil() > System.currentTimeMillis()) {
+            log.debug("【異步下單】採用結帳快照計價: pricingVersion={}", checkout.getPricingVersion());
+            return fallbackMap;
+        }
+
+        // 向 promotion-service 重算最新價格（計價版本未變的項目由本地快取回傳）
         try {
             List<ProductPriceCheckDTO> checks = cartItems.stream()
                     .map(item -> ProductPriceCheckDTO.builder()
@@ -251,7 +281,7 @@ public class OrderAsyncProcessor {
                             .build())
                     .collect(Collectors.toList());
 
-            Result<List<ProductPriceResultDTO>> priceResult = promotionFeignClient.calculateBestPrices(checks);
+            Result<List<ProductPriceResultDTO>> priceResult = pricingResultCache.calculateBestPrices(checks);
             if (priceResult != null && priceResult.isSuccess() && priceResult.getData() != null) {
                 Map<Long, ProductPriceResultDTO> dynamicMap = priceResult.getData().stream()
                         .filter(p -> p.getVariantId() != null)
@@ -286,8 +316,9 @@ public class OrderAsyncProcessor {
     /** 重算訂單金額。 */
     private void recalculateOrderAmounts(Order order, List<CartItemDTO> cartItems,
             Map<Long, ProductPriceResultDTO> pricingMap) {
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        BigDecimal totalDiscount = BigDecimal.ZERO;
+        // 以最小貨幣單位累加，捨入規則與 setScale(2, HALF_UP) 一致
+        long totalMinor = 0L;
+        long discountMinor = 0L;
 
         for (CartItemDTO item : cartItems) {
             ProductPriceResultDTO priceResult = pricingMap != null ? pricingMap.get(item.getVariantId()) : null;
@@ -299,22 +330,22 @@ public class OrderAsyncProcessor {
             BigDecimal originalPrice = (priceResult != null && priceResult.getOriginalPrice() != null)
                     ? priceResult.getOriginalPrice()
                     : (item.getOriginalPrice() != null ? item.getOriginalPrice() : item.getPrice());
-            BigDecimal qty = new BigDecimal(item.getQuantity());
+            Money unitPrice = Money.round(price);
 
             // 累加實際售價 × 數量
-            totalAmount = totalAmount.add(price.multiply(qty).setScale(2, java.math.RoundingMode.HALF_UP));
+            totalMinor = Math.addExact(totalMinor, unitPrice.times(item.getQuantity()).minorUnits());
 
             // 累加折扣額 = (原價 - 售價) × 數量，只統計正數差額
-            BigDecimal discount = originalPrice.subtract(price);
-            if (discount.compareTo(BigDecimal.ZERO) > 0) {
-                totalDiscount = totalDiscount.add(discount.multiply(qty).setScale(2, java.math.RoundingMode.HALF_UP));
+            Money discount = Money.round(originalPrice).minus(unitPrice);
+            if (discount.isPositive()) {
+                discountMinor = Math.addExact(discountMinor, discount.times(item.getQuantity()).minorUnits());
             }
         }
 
-        order.setTotalAmount(totalAmount);
-        order.setDiscountAmount(totalDiscount);
+        order.setTotalAmount(Money.ofMinor(totalMinor).toBigDecimal());
+        order.setDiscountAmount(Money.ofMinor(discountMinor).toBigDecimal());
         // payAmount 暫時等於 totalAmount，後續 calculateShipping / applyCoupon 會再調整
-        order.setPayAmount(totalAmount);
+        order.setPayAmount(order.getTotalAmount());
     }
 
     private void calculateShipping(Order order, Integer shippingMethod) {
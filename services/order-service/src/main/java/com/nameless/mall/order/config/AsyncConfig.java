@@ -73,4 +73,22 @@ public class AsyncConfig {
                 feignQueueCapacity);
         return executor;
     }
+
+    /**
+     * 特賣死信重放池：單線程且不排隊，確保同一實例同時只有一個重放任務，
+     * 重放速率由任務本身控制，避免事故恢復時對 MySQL 造成瞬間壓力。
+     */
+    @Bean("flashSaleReplayExecutor")
+    public Executor flashSaleReplayExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("flash-replay-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
 }
@@ -33,8 +33,9 @@ public class FeignClientConfiguration {
                     template.header("Authorization", authorization);
                 }
 
+                // 方法已明確帶入 X-User-Id（例如購物車結帳快照）時不重複透傳
                 String userId = request.getHeader("X-User-Id");
-                if (userId != null) {
+                if (userId != null && !template.headers().containsKey("X-User-Id")) {
                     log.debug("【Feign】透傳 X-User-Id 表頭: {}", userId);
                     template.header("X-User-Id", userId);
                 }
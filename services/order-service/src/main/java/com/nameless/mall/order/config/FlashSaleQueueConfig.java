@@ -1,9 +1,11 @@
 package com.nameless.mall.order.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.DirectExchange;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -29,6 +31,13 @@ public class FlashSaleQueueConfig {
     public static final String DLQ_FLASH_SALE = "order.flash.dlq";
     public static final String KEY_FLASH_SALE_DEAD = "flash.sale.dead";
 
+    // 暫存隊列常數：暫時性失敗的死信暫存於此，由限速重放任務消化 (無常駐消費者)
+    public static final String QUEUE_FLASH_SALE_PARKING = "order.flash.parking";
+
+    // 促銷變更廣播 (與 promotion-service 側一致)
+    public static final String EXCHANGE_PROMOTION_TOPIC = "promotion.topic";
+    public static final String KEY_FLASH_SALE_CHANGED = "promotion.flash_sale.changed";
+
     /**
      * 特賣專用直連交換機
      */
@@ -87,4 +96,39 @@ public class FlashSaleQueueConfig {
                 .to(flashSaleDLX())
                 .with(KEY_FLASH_SALE_DEAD);
     }
+
+    /**
+     * 暫存隊列
+     * <p>
+     * 不綁定交換機，由 FlashSaleDlqService 以預設交換機直接投遞並以 basicGet 拉取重放
+     */
+    @Bean
+    public Queue flashSaleParkingQueue() {
+        return new Queue(QUEUE_FLASH_SALE_PARKING, true);
+    }
+
+    /**
+     * 促銷變更主題交換機 (由 promotion-service 發布)
+     */
+    @Bean
+    public TopicExchange promotionTopicExchange() {
+        return new TopicExchange(EXCHANGE_PROMOTION_TOPIC, true, false);
+    }
+
+    /**
+     * 場次變更廣播隊列
+     * <p>
+     * 每個實例各自一條匿名、自動刪除的隊列，確保所有實例都能收到變更並重載本地快取
+     */
+    @Bean
+    public Queue flashSaleChangedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding flashSaleChangedBinding() {
+        return BindingBuilder.bind(flashSaleChangedQueue())
+                .to(promotionTopicExchange())
+                .with(KEY_FLASH_SALE_CHANGED);
+    }
 }
@@ -0,0 +1,73 @@
+package com.nameless.mall.order.config;
+
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 計價結果快取配置。
+ * <p>
+ * 下單重算價格時以 {@link PricingResultCache} 本地快取，與購物車共用同一套計價版本規則。
+ * 促銷（場次、行銷活動）或分類樹變更時，由各實例的匿名隊列收到廣播後整批清空。
+ * 促銷主題交換機沿用 {@link FlashSaleQueueConfig#promotionTopicExchange()}。
+ * </p>
+ */
+@Configuration
+public class PricingCacheConfig {
+
+    public static final String KEY_CAMPAIGN_CHANGED = "promotion.campaign.changed";
+    // 分類變更廣播 (與 product-service 側一致)
+    public static final String EXCHANGE_PRODUCT_TOPIC = "product.topic";
+    public static final String KEY_CATEGORY_CHANGED = "product.category.changed";
+
+    @Bean
+    public PricingResultCache pricingResultCache(PromotionFeignClient promotionFeignClient,
+            @Value("${order.pricing-cache.enabled:true}") boolean enabled,
+            @Value("${order.pricing-cache.max-entries:50000}") int maxEntries,
+            @Value("${order.pricing-cache.max-age-ms:60000}") long maxAgeMs,
+            @Value("${order.pricing-cache.settle-ms:3000}") long settleMs) {
+        return new PricingResultCache(promotionFeignClient, enabled, maxEntries, maxAgeMs, settleMs);
+    }
+
+    @Bean
+    public TopicExchange productTopicExchange() {
+        return new TopicExchange(EXCHANGE_PRODUCT_TOPIC, true, false);
+    }
+
+    /**
+     * 計價快取失效隊列：每個實例各自一條匿名、自動刪除的隊列，確保所有實例都清空本地快取
+     */
+    @Bean
+    public Queue pricingCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding pricingCacheFlashSaleBinding(@Qualifier("promotionTopicExchange") TopicExchange promotionTopicExchange) {
+        return BindingBuilder.bind(pricingCacheInvalidationQueue())
+                .to(promotionTopicExchange)
+                .with(FlashSaleQueueConfig.KEY_FLASH_SALE_CHANGED);
+    }
+
+    @Bean
+    public Binding pricingCacheCampaignBinding(@Qualifier("promotionTopicExchange") TopicExchange promotionTopicExchange) {
+        return BindingBuilder.bind(pricingCacheInvalidationQueue())
+                .to(promotionTopicExchange)
+                .with(KEY_CAMPAIGN_CHANGED);
+    }
+
+    @Bean
+    public Binding pricingCacheCategoryBinding() {
+        return BindingBuilder.bind(pricingCacheInvalidationQueue())
+                .to(productTopicExchange())
+                .with(KEY_CATEGORY_CHANGED);
+    }
+}
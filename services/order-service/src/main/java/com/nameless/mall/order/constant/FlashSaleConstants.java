@@ -7,9 +7,17 @@ public class FlashSaleConstants {
 
     // Redis 鍵前綴
     public static final String CACHE_STOCK_PREFIX = "flash_sale:stock:"; // 格式: {promotionId}:{skuId}
-    public static final String CACHE_ORDER_PREFIX = "flash_sale:order:"; // 格式: {userId}:{skuId}
+    public static final String CACHE_RESULT_PREFIX = "flash_sale:result:"; // 格式: {promotionId}:{skuId}:{userId/100}，Hash 欄位為 userId%100
+    public static final String CACHE_DEDUCTED_PREFIX = "flash_sale:deducted:"; // 格式: {promotionId}:{skuId}，供庫存對帳
 
-    // Redis 訂單狀態
+    // 排隊結果分桶：每個 Hash 最多 100 位用戶，維持 listpack 緊湊編碼
+    public static final int RESULT_BUCKET_SIZE = 100;
+
+    // Redis 訂單狀態 (Hash 內以 "P:{epoch秒}" 表示排隊中，"F" 表示失敗，其餘為 orderSn)
     public static final String STATUS_PENDING = "PENDING";
     public static final String STATUS_FAILED = "FAILED";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_NOT_FOUND = "NOT_FOUND";
+    public static final String RAW_PENDING_PREFIX = "P:";
+    public static final String RAW_FAILED = "F";
 }
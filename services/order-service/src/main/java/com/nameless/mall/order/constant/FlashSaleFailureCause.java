@@ -0,0 +1,72 @@
+package com.nameless.mall.order.constant;
+
+import com.nameless.mall.core.enums.ResultCodeEnum;
+import com.nameless.mall.core.exception.BusinessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 特賣建單失敗原因分類，寫入死信訊息標頭 (x-failure-cause) 供 DLQ 分流。
+ */
+public enum FlashSaleFailureCause {
+
+    /** 暫時性故障 (DB 抖動、Feign 逾時、下游不可用)：暫存至 Parking 隊列，限速重放 */
+    TRANSIENT,
+    /** 業務性失敗 (重複購買、商品不存在)：重放無意義，直接回補庫存並標記失敗 */
+    BUSINESS,
+    /** 無法判定 (如訊息反序列化失敗、舊版訊息無標頭)：視同業務失敗處理 */
+    UNKNOWN;
+
+    public static final String HEADER = "x-failure-cause";
+    public static final String HEADER_MESSAGE = "x-failure-message";
+    public static final String HEADER_REPLAY_COUNT = "x-replay-count";
+
+    /**
+     * 依例外類型與錯誤碼分類，沿 cause 鏈尋找最具體的判定依據。
+     */
+    public static FlashSaleFailureCause classify(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof BusinessException be) {
+                ResultCodeEnum code = be.getResultCode();
+                // INTERNAL_ERROR 為建單時 DB 寫入失敗的包裝，視為可重試
+                return (code == ResultCodeEnum.SERVICE_UNAVAILABLE || code == ResultCodeEnum.INTERNAL_ERROR)
+                        ? TRANSIENT
+                        : BUSINESS;
+            }
+            if (t instanceof DuplicateKeyException) {
+                return BUSINESS;
+            }
+            // 取不到連線等資源故障在 Spring 分類中屬 NonTransient，但實務上多為短暫抖動
+            if (t instanceof TransientDataAccessException || t instanceof RecoverableDataAccessException
+                    || t instanceof DataAccessResourceFailureException
+                    || t instanceof SocketTimeoutException || t instanceof TimeoutException
+                    || t.getClass().getName().startsWith("feign.")) {
+                return TRANSIENT;
+            }
+            if (t instanceof NonTransientDataAccessException) {
+                return BUSINESS;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    /**
+     * 從訊息標頭解析分類，缺少或無法識別時為 UNKNOWN。
+     */
+    public static FlashSaleFailureCause fromHeader(Object value) {
+        if (value == null) {
+            return UNKNOWN;
+        }
+        try {
+            return valueOf(value.toString());
+        } catch (IllegalArgumentException e) {
+            return UNKNOWN;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.nameless.mall.order.controller;
+
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.order.component.FlashSaleReplayJob;
+import com.nameless.mall.order.service.FlashSaleDlqService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/** 特賣死信後台 API：死信分類統計與限速重放。 */
+@RestController
+@RequestMapping("/orders/admin/flash-sale/dlq")
+@RequiredArgsConstructor
+public class FlashSaleDlqAdminController {
+
+    /** 手動重放的速率上限，避免誤操作壓垮 MySQL */
+    private static final int MAX_RATE_PER_SECOND = 200;
+
+    private final FlashSaleDlqService flashSaleDlqService;
+
+    /** 死信分類統計與暫存隊列深度 */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/stats")
+    public Result<Map<String, Object>> stats() {
+        return Result.ok(flashSaleDlqService.stats());
+    }
+
+    /** 啟動限速重放任務（已有任務執行中時回傳該任務） */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/replay")
+    public Result<FlashSaleReplayJob> replay(@RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "50") int ratePerSecond) {
+        if (limit <= 0 || ratePerSecond <= 0 || ratePerSecond > MAX_RATE_PER_SECOND) {
+            return Result.fail("limit 需大於 0，ratePerSecond 需介於 1 ~ " + MAX_RATE_PER_SECOND);
+        }
+        return Result.ok(flashSaleDlqService.startReplay(limit, ratePerSecond));
+    }
+
+    /** 查詢最近一次重放任務進度 */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/replay")
+    public Result<FlashSaleReplayJob> lastJob() {
+        return Result.ok(flashSaleDlqService.getLastJob());
+    }
+}
@@ -2,6 +2,7 @@ package com.nameless.mall.order.controller;
 
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.order.api.dto.FlashSaleSubmitDTO;
+import com.nameless.mall.order.api.vo.FlashSaleResultVO;
 import com.nameless.mall.order.service.FlashSaleOrderService;
 
 import jakarta.validation.Valid;
@@ -11,6 +12,9 @@ import com.alibaba.csp.sentinel.annotation.SentinelResource;
 import com.alibaba.csp.sentinel.slots.block.BlockException;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 /** 限時特賣下單 API，接收前端搶購請求。 */
 @Slf4j
 @RestController
@@ -44,8 +48,22 @@ public class FlashSaleOrderController {
         return Result.fail("系統繁忙，搶購人數過多，請稍後再試");
     }
 
+    /** 單次批量查詢的權杖上限 */
+    private static final int MAX_BATCH_TOKENS = 50;
+
     @GetMapping("/result")
-    public Result<Object> checkResult(@RequestParam String orderToken) {
-        return flashSaleOrderService.checkOrderResult(orderToken);
+    public Result<Object> checkResult(@RequestParam String orderToken,
+            @RequestHeader(value = "X-User-Id", required = true) Long userId) {
+        return flashSaleOrderService.checkOrderResult(userId, orderToken);
+    }
+
+    /** 批量查詢多個 SKU 的排隊結果，供前端一次輪詢 */
+    @PostMapping("/results")
+    public Result<Map<String, FlashSaleResultVO>> checkResults(@RequestBody List<String> orderTokens,
+            @RequestHeader(value = "X-User-Id", required = true) Long userId) {
+        if (orderTokens == null || orderTokens.isEmpty() || orderTokens.size() > MAX_BATCH_TOKENS) {
+            return Result.fail("權杖數量需介於 1 ~ " + MAX_BATCH_TOKENS);
+        }
+        return Result.ok(flashSaleOrderService.checkOrderResults(userId, orderTokens));
     }
 }
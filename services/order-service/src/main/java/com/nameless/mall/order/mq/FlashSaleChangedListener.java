@@ -0,0 +1,31 @@
+package com.nameless.mall.order.mq;
+
+import com.nameless.mall.order.component.FlashSaleItemCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 特賣場次變更監聽器：收到 promotion-service 廣播後重載本實例的特賣商品快取。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashSaleChangedListener {
+
+    private final FlashSaleItemCache flashSaleItemCache;
+
+    @RabbitListener(queues = "#{flashSaleChangedQueue.name}")
+    public void onFlashSaleChanged(Map<String, Object> message) {
+        try {
+            Object promotionId = message.get("promotionId");
+            flashSaleItemCache.refresh(promotionId != null ? Long.valueOf(promotionId.toString()) : null);
+        } catch (Exception e) {
+            // 廣播訊息僅影響快取新鮮度，失敗不重試（TTL 兜底）
+            log.warn("【特賣快取】處理場次變更訊息失敗: msg={}, error={}", message, e.getMessage());
+        }
+    }
+}
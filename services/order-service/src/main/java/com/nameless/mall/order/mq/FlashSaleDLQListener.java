@@ -2,13 +2,13 @@ package com.nameless.mall.order.mq;
 
 import com.nameless.mall.order.api.dto.FlashSaleMessage;
 import com.nameless.mall.order.config.FlashSaleQueueConfig;
-import com.nameless.mall.order.constant.FlashSaleConstants;
+import com.nameless.mall.order.constant.FlashSaleFailureCause;
+import com.nameless.mall.order.service.FlashSaleDlqService;
 import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
@@ -17,41 +17,37 @@ import java.io.IOException;
  * 特賣活動死信隊列消費者
  * <p>
  * 職責：
- * 1. 回補 Redis 庫存
- * 2. 更新 Redis 訂單狀態為 FAILED
- * 3. 記錄異常日誌供人工排查
+ * 1. 依訊息標頭 x-failure-cause 分類死信
+ * 2. 暫時性失敗 → 暫存至 Parking 隊列，由限速重放任務重新建單
+ * 3. 業務失敗 / 無法判定 → 回補 Redis 庫存並更新訂單狀態為 FAILED
+ * 4. 記錄異常日誌供人工排查
  */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class FlashSaleDLQListener {
 
-    private final StringRedisTemplate redisTemplate;
+    private final FlashSaleDlqService flashSaleDlqService;
 
     /**
      * 監聽特賣死信隊列，處理消費失敗的訊息
      */
-    @RabbitListener(queues = FlashSaleQueueConfig.DLQ_FLASH_SALE)
+    @RabbitListener(queues = FlashSaleQueueConfig.DLQ_FLASH_SALE, ackMode = "MANUAL")
     public void handleDeadLetter(FlashSaleMessage deadMessage, Message message, Channel channel)
             throws IOException {
         long deliveryTag = message.getMessageProperties().getDeliveryTag();
+        FlashSaleFailureCause cause = FlashSaleFailureCause.fromHeader(
+                message.getMessageProperties().getHeader(FlashSaleFailureCause.HEADER));
+        Object failureMessage = message.getMessageProperties().getHeader(FlashSaleFailureCause.HEADER_MESSAGE);
 
         try {
-            log.warn("【特賣 DLQ】收到死信訊息: userId={}, skuId={}, promotionId={}",
-                    deadMessage.getUserId(), deadMessage.getSkuId(), deadMessage.getPromotionId());
+            log.warn("【特賣 DLQ】收到死信訊息: userId={}, skuId={}, promotionId={}, cause={}",
+                    deadMessage.getUserId(), deadMessage.getSkuId(), deadMessage.getPromotionId(), cause);
 
-            // 1. 更新 Redis 訂單狀態為 FAILED (讓前端知道搶購失敗)
-            String orderStatusKey = FlashSaleConstants.CACHE_ORDER_PREFIX
-                    + deadMessage.getUserId() + ":" + deadMessage.getSkuId();
-            redisTemplate.opsForValue().set(orderStatusKey, FlashSaleConstants.STATUS_FAILED);
+            flashSaleDlqService.handleDeadLetter(deadMessage, cause,
+                    failureMessage != null ? failureMessage.toString() : null);
 
-            // 2. 回補 Redis 庫存
-            String stockKey = FlashSaleConstants.CACHE_STOCK_PREFIX
-                    + deadMessage.getPromotionId() + ":" + deadMessage.getSkuId();
-            redisTemplate.opsForValue().increment(stockKey, deadMessage.getQuantity());
-            log.info("【特賣 DLQ】已回補 Redis 庫存: key={}, quantity={}", stockKey, deadMessage.getQuantity());
-
-            // 3. 確認消息 (處理完畢)
+            // 確認消息 (處理完畢)
             channel.basicAck(deliveryTag, false);
             log.info("【特賣 DLQ】死信處理完成: userId={}, skuId={}", deadMessage.getUserId(), deadMessage.getSkuId());
 
@@ -3,22 +3,24 @@ package com.nameless.mall.order.mq;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
 import com.nameless.mall.order.api.dto.FlashSaleMessage;
+import com.nameless.mall.order.component.FlashSaleResultStore;
 import com.nameless.mall.order.config.FlashSaleQueueConfig;
 import com.nameless.mall.order.constant.FlashSaleConstants;
+import com.nameless.mall.order.constant.FlashSaleFailureCause;
 import com.nameless.mall.order.service.OrderService;
 import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
-import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
 
 /**
  * 特賣訂單 MQ 消費者：監聽特賣隊列，異步建立 DB 訂單。
- * 消費失敗自動轉入 DLQ，由 FlashSaleDLQListener 回補庫存。
+ * 消費失敗時附帶失敗分類轉入 DLQ，由 FlashSaleDLQListener 回補庫存或暫存待重放。
  */
 @Slf4j
 @Component
@@ -26,26 +28,26 @@ import java.io.IOException;
 public class FlashSaleOrderListener {
 
     private final OrderService orderService;
-    private final StringRedisTemplate redisTemplate;
+    private final FlashSaleResultStore resultStore;
+    private final RabbitTemplate rabbitTemplate;
 
     /**
      * 監聽特賣活動隊列，異步建立訂單
      */
-    @RabbitListener(queues = FlashSaleQueueConfig.QUEUE_FLASH_SALE_ORDER)
+    @RabbitListener(queues = FlashSaleQueueConfig.QUEUE_FLASH_SALE_ORDER, ackMode = "MANUAL")
     public void receiveFlashSaleOrder(FlashSaleMessage flashSaleMessage, Message message, Channel channel)
             throws IOException {
         long deliveryTag = message.getMessageProperties().getDeliveryTag();
-        String orderStatusKey = FlashSaleConstants.CACHE_ORDER_PREFIX + flashSaleMessage.getUserId() + ":"
-                + flashSaleMessage.getSkuId();
 
         try {
             log.info("【特賣消費者】收到下單請求: {}", flashSaleMessage);
 
             // 1. 冪等性檢查: 再次確認 Redis 狀態
             // 如果狀態已經是 OrderSn，代表處理過了
-            String status = redisTemplate.opsForValue().get(orderStatusKey);
-            if (status != null && !FlashSaleConstants.STATUS_PENDING.equals(status)
-                    && !FlashSaleConstants.STATUS_FAILED.equals(status)) {
+            String status = resultStore.get(flashSaleMessage.getPromotionId(), flashSaleMessage.getSkuId(),
+                    flashSaleMessage.getUserId());
+            if (status != null && !status.startsWith(FlashSaleConstants.RAW_PENDING_PREFIX)
+                    && !FlashSaleConstants.RAW_FAILED.equals(status)) {
                 log.info("【特賣消費者】訂單已處理過: status={}, Ack", status);
                 channel.basicAck(deliveryTag, false);
                 return;
@@ -54,9 +56,10 @@ public class FlashSaleOrderListener {
             // 2. 執行建單 (DB 事務)
             String orderSn = orderService.createFlashSaleOrder(flashSaleMessage);
 
-            // 3. 更新 Redis 狀態 (通知前端成功)
+            // 3. 更新 Redis 狀態 (通知前端成功，確認訊息前同步寫入)
             if (orderSn != null) {
-                redisTemplate.opsForValue().set(orderStatusKey, orderSn);
+                resultStore.markSuccess(flashSaleMessage.getPromotionId(), flashSaleMessage.getSkuId(),
+                        flashSaleMessage.getUserId(), orderSn);
 
                 // 確認消息
                 channel.basicAck(deliveryTag, false);
@@ -66,11 +69,29 @@ public class FlashSaleOrderListener {
             }
 
         } catch (Exception e) {
-            log.error("【特賣消費者】建單失敗: msg={}, error={}", flashSaleMessage, e.getMessage(), e);
+            FlashSaleFailureCause cause = FlashSaleFailureCause.classify(e);
+            log.error("【特賣消費者】建單失敗: cause={}, msg={}, error={}", cause, flashSaleMessage, e.getMessage(), e);
 
             // 失敗處理策略：
-            // 拒絕消息，不重回隊列 -> 自動轉入 DLQ (由 FlashSaleDLQListener 處理回補)
-            channel.basicNack(deliveryTag, false, false);
+            // 附帶失敗分類標頭轉送死信交換機後 Ack，由 FlashSaleDLQListener 依分類回補或暫存重放；
+            // 轉送失敗時退回原生 DLX (拒絕且不重回隊列)，DLQ 端視為 UNKNOWN
+            try {
+                deadLetter(flashSaleMessage, cause, e);
+                channel.basicAck(deliveryTag, false);
+            } catch (Exception republishError) {
+                log.error("【特賣消費者】轉送死信失敗，改走原生 DLX: {}", republishError.getMessage());
+                channel.basicNack(deliveryTag, false, false);
+            }
         }
     }
+
+    private void deadLetter(FlashSaleMessage flashSaleMessage, FlashSaleFailureCause cause, Exception error) {
+        rabbitTemplate.convertAndSend(FlashSaleQueueConfig.DLX_FLASH_SALE, FlashSaleQueueConfig.KEY_FLASH_SALE_DEAD,
+                flashSaleMessage, m -> {
+                    m.getMessageProperties().setHeader(FlashSaleFailureCause.HEADER, cause.name());
+                    m.getMessageProperties().setHeader(FlashSaleFailureCause.HEADER_MESSAGE,
+                            String.valueOf(error.getMessage()));
+                    return m;
+                });
+    }
 }
@@ -0,0 +1,47 @@
+package com.nameless.mall.order.service;
+
+import com.nameless.mall.order.api.dto.FlashSaleMessage;
+import com.nameless.mall.order.component.FlashSaleReplayJob;
+import com.nameless.mall.order.constant.FlashSaleFailureCause;
+
+import java.util.Map;
+
+/**
+ * 特賣死信管理服務：分類分流、暫存、限速重放。
+ */
+public interface FlashSaleDlqService {
+
+    /**
+     * 依失敗分類處理死信：暫時性失敗暫存待重放，其餘回補庫存並標記失敗。
+     */
+    void handleDeadLetter(FlashSaleMessage message, FlashSaleFailureCause cause, String failureMessage);
+
+    /**
+     * 回補 Redis 庫存並將排隊結果標記為失敗 (終局處理)。
+     */
+    void releaseAndFail(FlashSaleMessage message);
+
+    /**
+     * 啟動限速重放任務 (同一時間僅一個任務執行)。
+     *
+     * @param limit         本次最多處理的訊息數
+     * @param ratePerSecond 每秒最多重放的訊息數
+     * @return 新任務；已有任務執行中時回傳該任務
+     */
+    FlashSaleReplayJob startReplay(int limit, int ratePerSecond);
+
+    /**
+     * 查詢最近一次重放任務 (可能仍在執行中)。
+     */
+    FlashSaleReplayJob getLastJob();
+
+    /**
+     * 死信統計：各分類累計數與暫存隊列深度。
+     */
+    Map<String, Object> stats();
+
+    /**
+     * 暫存隊列目前的訊息數。
+     */
+    long parkingDepth();
+}
@@ -2,6 +2,10 @@ package com.nameless.mall.order.service;
 
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.order.api.dto.FlashSaleSubmitDTO;
+import com.nameless.mall.order.api.vo.FlashSaleResultVO;
+
+import java.util.List;
+import java.util.Map;
 
 /**
  * 特賣異步下單服務介面
@@ -13,15 +17,25 @@ public interface FlashSaleOrderService {
      *
      * @param userId 當前用戶 ID
      * @param dto    提交參數 (SKU, PromotionId)
-     * @return OrderToken 排隊權杖
+     * @return OrderToken 排隊權杖 ({promotionId}:{skuId})
      */
     String submitFlashSale(Long userId, FlashSaleSubmitDTO dto);
 
     /**
      * 查詢訂單處理結果
      *
+     * @param userId     當前用戶 ID
      * @param orderToken 排隊權杖
      * @return 處理狀態 (PENDING / SUCCESS / FAILED)
      */
-    Result<Object> checkOrderResult(String orderToken);
+    Result<Object> checkOrderResult(Long userId, String orderToken);
+
+    /**
+     * 批量查詢訂單處理結果 (單次 Redis 往返)
+     *
+     * @param userId      當前用戶 ID
+     * @param orderTokens 排隊權杖列表
+     * @return 權杖 → 處理狀態
+     */
+    Map<String, FlashSaleResultVO> checkOrderResults(Long userId, List<String> orderTokens);
 }
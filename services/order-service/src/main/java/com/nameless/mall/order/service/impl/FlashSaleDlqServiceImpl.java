@@ -0,0 +1,254 @@
+package com.nameless.mall.order.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.order.api.dto.FlashSaleMessage;
+import com.nameless.mall.order.component.FlashSaleReplayJob;
+import com.nameless.mall.order.component.FlashSaleResultStore;
+import com.nameless.mall.order.config.FlashSaleQueueConfig;
+import com.nameless.mall.order.constant.FlashSaleConstants;
+import com.nameless.mall.order.constant.FlashSaleFailureCause;
+import com.nameless.mall.order.service.FlashSaleDlqService;
+import com.nameless.mall.order.service.OrderService;
+import com.rabbitmq.client.GetResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 特賣死信管理服務實作。
+ * <p>
+ * 暫時性失敗 (DB 抖動、Feign 逾時) 不再直接釋放庫存，而是暫存至 Parking 隊列；
+ * 重放任務以固定速率逐筆 basicGet → 重新建單 → Ack，避免事故恢復時瞬間湧入 MySQL。
+ * 重試次數耗盡或轉為業務失敗者，才回補庫存並標記失敗。
+ * </p>
+ */
+@Slf4j
+@Service
+public class FlashSaleDlqServiceImpl implements FlashSaleDlqService {
+
+    private static final String METRIC_DEAD_LETTER = "flash_sale.dlq.dead_letters";
+    private static final String METRIC_REPLAY = "flash_sale.dlq.replay";
+
+    private final OrderService orderService;
+    private final FlashSaleResultStore resultStore;
+    private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final Executor replayExecutor;
+    private final int maxAttempts;
+
+    private DefaultRedisScript<Long> recoverScript;
+    private volatile FlashSaleReplayJob lastJob;
+
+    public FlashSaleDlqServiceImpl(OrderService orderService,
+            FlashSaleResultStore resultStore,
+            RabbitTemplate rabbitTemplate,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            MeterRegistry meterRegistry,
+            @Qualifier("flashSaleReplayExecutor") Executor replayExecutor,
+            @Value("${flash-sale.dlq.replay.max-attempts:3}") int maxAttempts) {
+        this.orderService = orderService;
+        this.resultStore = resultStore;
+        this.rabbitTemplate = rabbitTemplate;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.replayExecutor = replayExecutor;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @PostConstruct
+    public void init() {
+        recoverScript = new DefaultRedisScript<>();
+        recoverScript.setLocation(new ClassPathResource("lua/flash_sale_recover.lua"));
+        recoverScript.setResultType(Long.class);
+    }
+
+    @Override
+    public void handleDeadLetter(FlashSaleMessage message, FlashSaleFailureCause cause, String failureMessage) {
+        meterRegistry.counter(METRIC_DEAD_LETTER, "cause", cause.name()).increment();
+
+        if (cause == FlashSaleFailureCause.TRANSIENT) {
+            // 暫時性失敗：保留庫存與排隊狀態，暫存待重放
+            park(message, 0, failureMessage);
+            log.warn("【特賣 DLQ】暫時性失敗，已暫存待重放: userId={}, skuId={}, reason={}",
+                    message.getUserId(), message.getSkuId(), failureMessage);
+            return;
+        }
+        releaseAndFail(message);
+    }
+
+    @Override
+    public void releaseAndFail(FlashSaleMessage message) {
+        // 1. 更新 Redis 訂單狀態為 FAILED (讓前端知道搶購失敗)
+        resultStore.markFailed(message.getPromotionId(), message.getSkuId(), message.getUserId());
+
+        // 2. 回補 Redis 庫存（同步沖銷已扣減計數）
+        String stockKey = FlashSaleConstants.CACHE_STOCK_PREFIX
+                + message.getPromotionId() + ":" + message.getSkuId();
+        String deductedKey = FlashSaleConstants.CACHE_DEDUCTED_PREFIX
+                + message.getPromotionId() + ":" + message.getSkuId();
+        redisTemplate.execute(recoverScript, Arrays.asList(stockKey, deductedKey),
+                String.valueOf(message.getQuantity()));
+        log.info("【特賣 DLQ】已回補 Redis 庫存: key={}, quantity={}", stockKey, message.getQuantity());
+    }
+
+    @Override
+    public synchronized FlashSaleReplayJob startReplay(int limit, int ratePerSecond) {
+        if (lastJob != null && lastJob.isRunning()) {
+            return lastJob;
+        }
+        FlashSaleReplayJob job = new FlashSaleReplayJob(limit, ratePerSecond);
+        try {
+            replayExecutor.execute(() -> runReplay(job));
+        } catch (RejectedExecutionException e) {
+            log.warn("【特賣重放】重放線程忙碌中，略過本次啟動");
+            return lastJob;
+        }
+        lastJob = job;
+        log.info("【特賣重放】任務啟動: jobId={}, limit={}, rate={}/s", job.getJobId(), limit, ratePerSecond);
+        return job;
+    }
+
+    @Override
+    public FlashSaleReplayJob getLastJob() {
+        return lastJob;
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        for (FlashSaleFailureCause cause : FlashSaleFailureCause.values()) {
+            stats.put(cause.name(), (long) meterRegistry.counter(METRIC_DEAD_LETTER, "cause", cause.name()).count());
+        }
+        stats.put("parkingDepth", parkingDepth());
+        stats.put("lastJob", lastJob);
+        return stats;
+    }
+
+    @Override
+    public long parkingDepth() {
+        Long depth = rabbitTemplate.execute(channel -> channel.messageCount(FlashSaleQueueConfig.QUEUE_FLASH_SALE_PARKING));
+        return depth != null ? depth : 0L;
+    }
+
+    /**
+     * 重放主迴圈：固定間隔拉取，處理完一筆才 Ack，程序中斷時未 Ack 的訊息會回到暫存隊列。
+     */
+    private void runReplay(FlashSaleReplayJob job) {
+        long intervalNanos = 1_000_000_000L / Math.max(1, job.getRatePerSecond());
+        long next = System.nanoTime();
+        try {
+            while (job.getProcessed().get() < job.getLimit()) {
+                // 1. 限速：未到下一個時間槽前等待
+                long wait = next - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                next += intervalNanos;
+
+                // 2. 拉取並處理一筆
+                Boolean handled = rabbitTemplate.execute(channel -> {
+                    GetResponse response = channel.basicGet(FlashSaleQueueConfig.QUEUE_FLASH_SALE_PARKING, false);
+                    if (response == null) {
+                        return false;
+                    }
+                    replayOne(job, response);
+                    channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+                    return true;
+                });
+                if (!Boolean.TRUE.equals(handled)) {
+                    break; // 暫存隊列已清空
+                }
+                job.getProcessed().incrementAndGet();
+            }
+        } catch (Exception e) {
+            log.error("【特賣重放】任務異常中止: jobId={}", job.getJobId(), e);
+        } finally {
+            job.finish();
+            log.info("【特賣重放】任務結束: jobId={}, processed={}, succeeded={}, requeued={}, released={}, skipped={}",
+                    job.getJobId(), job.getProcessed(), job.getSucceeded(), job.getRequeued(),
+                    job.getReleased(), job.getSkipped());
+        }
+    }
+
+    private void replayOne(FlashSaleReplayJob job, GetResponse response) {
+        FlashSaleMessage message;
+        try {
+            message = objectMapper.readValue(response.getBody(), FlashSaleMessage.class);
+        } catch (Exception e) {
+            // 無法解析的訊息無從回補，僅記錄供人工排查
+            log.error("【特賣重放】訊息解析失敗，丟棄: body={}", new String(response.getBody()), e);
+            record("discarded");
+            return;
+        }
+
+        // 1. 已成功建單者略過
+        String status = resultStore.get(message.getPromotionId(), message.getSkuId(), message.getUserId());
+        if (status != null && !status.startsWith(FlashSaleConstants.RAW_PENDING_PREFIX)
+                && !FlashSaleConstants.RAW_FAILED.equals(status)) {
+            job.getSkipped().incrementAndGet();
+            record("skipped");
+            return;
+        }
+
+        // 2. 重新建單
+        int attempts = replayCount(response) + 1;
+        try {
+            String orderSn = orderService.createFlashSaleOrder(message);
+            resultStore.markSuccess(message.getPromotionId(), message.getSkuId(), message.getUserId(), orderSn);
+            job.getSucceeded().incrementAndGet();
+            record("succeeded");
+            log.info("【特賣重放】重放建單成功: orderSn={}, attempts={}", orderSn, attempts);
+        } catch (Exception e) {
+            // 3. 仍為暫時性失敗且未達上限 → 放回暫存；否則終局回補
+            FlashSaleFailureCause cause = FlashSaleFailureCause.classify(e);
+            if (cause == FlashSaleFailureCause.TRANSIENT && attempts < maxAttempts) {
+                park(message, attempts, e.getMessage());
+                job.getRequeued().incrementAndGet();
+                record("requeued");
+            } else {
+                releaseAndFail(message);
+                job.getReleased().incrementAndGet();
+                record("released");
+                log.warn("【特賣重放】放棄重放並回補庫存: userId={}, skuId={}, cause={}, attempts={}",
+                        message.getUserId(), message.getSkuId(), cause, attempts);
+            }
+        }
+    }
+
+    private void park(FlashSaleMessage message, int replayCount, String failureMessage) {
+        rabbitTemplate.convertAndSend("", FlashSaleQueueConfig.QUEUE_FLASH_SALE_PARKING, message, m -> {
+            m.getMessageProperties().setHeader(FlashSaleFailureCause.HEADER, FlashSaleFailureCause.TRANSIENT.name());
+            m.getMessageProperties().setHeader(FlashSaleFailureCause.HEADER_MESSAGE, String.valueOf(failureMessage));
+            m.getMessageProperties().setHeader(FlashSaleFailureCause.HEADER_REPLAY_COUNT, replayCount);
+            return m;
+        });
+    }
+
+    private static int replayCount(GetResponse response) {
+        Map<String, Object> headers = response.getProps().getHeaders();
+        Object count = headers != null ? headers.get(FlashSaleFailureCause.HEADER_REPLAY_COUNT) : null;
+        return count instanceof Number ? ((Number) count).intValue() : 0;
+    }
+
+    private void record(String outcome) {
+        meterRegistry.counter(METRIC_REPLAY, "outcome", outcome).increment();
+    }
+}
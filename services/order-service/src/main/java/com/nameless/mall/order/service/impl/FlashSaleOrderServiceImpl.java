@@ -5,6 +5,8 @@ import com.nameless.mall.core.exception.BusinessException;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.order.api.dto.FlashSaleSubmitDTO;
 import com.nameless.mall.order.api.dto.FlashSaleMessage;
+import com.nameless.mall.order.api.vo.FlashSaleResultVO;
+import com.nameless.mall.order.component.FlashSaleResultStore;
 import com.nameless.mall.order.config.FlashSaleQueueConfig;
 import com.nameless.mall.order.service.FlashSaleOrderService;
 import com.nameless.mall.order.constant.FlashSaleConstants;
@@ -17,6 +19,10 @@ import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
 import jakarta.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /** 限時特賣下單服務實作，負責 Redis Lua 扣減庫存與 MQ 消息投遞。 */
@@ -27,6 +33,7 @@ public class FlashSaleOrderServiceImpl implements FlashSaleOrderService {
 
     private final RabbitTemplate rabbitTemplate;
     private final StringRedisTemplate redisTemplate;
+    private final FlashSaleResultStore resultStore;
 
     private DefaultRedisScript<Long> stockScript;
 
@@ -40,25 +47,30 @@ public class FlashSaleOrderServiceImpl implements FlashSaleOrderService {
     @Override
     public String submitFlashSale(Long userId, FlashSaleSubmitDTO dto) {
         String stockKey = FlashSaleConstants.CACHE_STOCK_PREFIX + dto.getPromotionId() + ":" + dto.getSkuId();
+        String deductedKey = FlashSaleConstants.CACHE_DEDUCTED_PREFIX + dto.getPromotionId() + ":" + dto.getSkuId();
         String orderToken = dto.getOrderToken() != null ? dto.getOrderToken() : UUID.randomUUID().toString();
 
-        // 冪等 Key: 用於 Consumer 防止重複消費，也用於前端查詢狀態
-        // 格式: flash_sale:order:{userId}:{skuId}
-        String orderStatusKey = FlashSaleConstants.CACHE_ORDER_PREFIX + userId + ":" + dto.getSkuId();
+        // 排隊權杖: {promotionId}:{skuId}，查詢時搭配 X-User-Id 定位分桶 Hash
+        String resultToken = dto.getPromotionId() + ":" + dto.getSkuId();
+        String resultKey = resultStore.hashKey(dto.getPromotionId(), dto.getSkuId(), userId);
 
         // 1. 檢查是否重複排隊
-        String status = redisTemplate.opsForValue().get(orderStatusKey);
-        if (status != null) {
+        if (resultStore.get(dto.getPromotionId(), dto.getSkuId(), userId) != null) {
             // 已有紀錄 (可能是 PENDING 或 SUCCESS)
-            return orderStatusKey; // 返回相同的 Key 供查詢
+            return resultToken; // 返回相同的權杖供查詢
         }
 
         // 2. 執行 LUA 原子性扣減庫存 + 搶占 PENDING 狀態
         // KEYS[1]: Stock Key
-        // KEYS[2]: Order Status Key
+        // KEYS[2]: Result Bucket Hash
+        // KEYS[3]: Deducted Counter Key
         Long result = redisTemplate.execute(stockScript,
-                java.util.Arrays.asList(stockKey, orderStatusKey),
-                String.valueOf(dto.getQuantity()));
+                java.util.Arrays.asList(stockKey, resultKey, deductedKey),
+                String.valueOf(dto.getQuantity()),
+                resultStore.field(userId),
+                String.valueOf(System.currentTimeMillis() / 1000),
+                String.valueOf(resultStore.getPendingTimeoutSeconds()),
+                String.valueOf(resultStore.getTtlSeconds()));
 
         if (result == null || result == -2) {
             throw new BusinessException(ResultCodeEnum.INTERNAL_ERROR, "特賣活動未開啟或庫存未預熱");
@@ -67,7 +79,7 @@ public class FlashSaleOrderServiceImpl implements FlashSaleOrderService {
             throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT, "特賣庫存已售罄");
         }
         if (result == -3) {
-            return orderStatusKey; // 已經排隊中，直接返回
+            return resultToken; // 已經排隊中，直接返回
         }
 
         // 3. 發送異步消息
@@ -89,28 +101,88 @@ public class FlashSaleOrderServiceImpl implements FlashSaleOrderService {
                 FlashSaleQueueConfig.KEY_FLASH_SALE,
                 message);
 
-        return orderStatusKey;
+        return resultToken;
     }
 
     @Override
-    public Result<Object> checkOrderResult(String orderToken) {
-        // 1. 從 Redis 取得訂單處理狀態（orderToken 即 Redis Key）
-        String status = redisTemplate.opsForValue().get(orderToken);
+    public Result<Object> checkOrderResult(Long userId, String orderToken) {
+        long[] target = parseToken(orderToken);
+        if (target == null) {
+            return Result.fail("無效的排隊權杖");
+        }
+
+        // 1. 從分桶 Hash 取得訂單處理狀態
+        FlashSaleResultVO vo = toResultVO(resultStore.get(target[0], target[1], userId));
 
         // 2. 依狀態值分支回傳結果
-        if (status == null) {
-            return Result.fail("查無訂單紀錄 (可能已過期或被取消)");
+        switch (vo.getStatus()) {
+            case FlashSaleConstants.STATUS_NOT_FOUND:
+                return Result.fail("查無訂單紀錄 (可能已過期或被取消)");
+            case FlashSaleConstants.STATUS_PENDING:
+                // PENDING → 仍在排隊處理中
+                return Result.ok(null, "排隊中...");
+            case FlashSaleConstants.STATUS_FAILED:
+                // FAILED → 搶購失敗
+                return Result.fail("搶購失敗");
+            default:
+                // SUCCESS → 回傳 OrderSn
+                return Result.ok(vo.getOrderSn());
+        }
+    }
+
+    @Override
+    public Map<String, FlashSaleResultVO> checkOrderResults(Long userId, List<String> orderTokens) {
+        // 1. 解析權杖，無效者直接標記為查無紀錄
+        Map<String, FlashSaleResultVO> results = new LinkedHashMap<>();
+        List<String> validTokens = new ArrayList<>();
+        List<long[]> targets = new ArrayList<>();
+        for (String token : orderTokens) {
+            long[] target = parseToken(token);
+            if (target == null) {
+                results.put(token, new FlashSaleResultVO(FlashSaleConstants.STATUS_NOT_FOUND, null));
+            } else {
+                validTokens.add(token);
+                targets.add(target);
+            }
+        }
+        if (targets.isEmpty()) {
+            return results;
+        }
+
+        // 2. 單次 pipeline 查詢所有 SKU 狀態
+        List<String> statuses = resultStore.getBatch(userId, targets);
+        for (int i = 0; i < validTokens.size(); i++) {
+            results.put(validTokens.get(i), toResultVO(statuses.get(i)));
+        }
+        return results;
+    }
+
+    /** 權杖格式: {promotionId}:{skuId} */
+    private static long[] parseToken(String orderToken) {
+        if (orderToken == null) {
+            return null;
         }
-        if (FlashSaleConstants.STATUS_PENDING.equals(status)) {
-            // PENDING → 仍在排隊處理中
-            return Result.ok(null, "排隊中...");
+        String[] parts = orderToken.split(":");
+        if (parts.length != 2) {
+            return null;
         }
-        if (FlashSaleConstants.STATUS_FAILED.equals(status)) {
-            // FAILED → 搶購失敗
-            return Result.fail("搶購失敗");
+        try {
+            return new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+        } catch (NumberFormatException e) {
+            return null;
         }
+    }
 
-        // SUCCESS → 回傳 OrderSn
-        return Result.ok(status);
+    private static FlashSaleResultVO toResultVO(String raw) {
+        if (raw == null) {
+            return new FlashSaleResultVO(FlashSaleConstants.STATUS_NOT_FOUND, null);
+        }
+        if (raw.startsWith(FlashSaleConstants.RAW_PENDING_PREFIX)) {
+            return new FlashSaleResultVO(FlashSaleConstants.STATUS_PENDING, null);
+        }
+        if (FlashSaleConstants.RAW_FAILED.equals(raw)) {
+            return new FlashSaleResultVO(FlashSaleConstants.STATUS_FAILED, null);
+        }
+        return new FlashSaleResultVO(FlashSaleConstants.STATUS_SUCCESS, raw);
     }
 }
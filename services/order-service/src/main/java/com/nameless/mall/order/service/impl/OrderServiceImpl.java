@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.core.conditions.update.LambdaUpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.nameless.mall.cart.api.dto.CartItemDTO;
+import com.nameless.mall.cart.api.dto.CheckoutSnapshotDTO;
 import com.nameless.mall.cart.api.feign.CartFeignClient;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
@@ -30,14 +31,14 @@ import com.nameless.mall.core.domain.Result;
 import org.springframework.beans.BeanUtils;
 import com.nameless.mall.product.api.dto.DecreaseStockInputDTO;
 import com.nameless.mall.product.api.feign.ProductFeignClient;
-import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
-import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
 
 import com.nameless.mall.product.api.dto.VariantDTO;
-import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import com.nameless.mall.product.api.enums.StockStatus;
+import com.nameless.mall.promotion.api.enums.PromotionType;
 import com.nameless.mall.payment.api.feign.PaymentFeignClient;
 import org.springframework.beans.factory.annotation.Qualifier;
 import lombok.extern.slf4j.Slf4j;
+import com.nameless.mall.order.component.FlashSaleItemCache;
 import com.nameless.mall.order.component.OrderAsyncProcessor;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
@@ -47,7 +48,6 @@ import org.springframework.util.CollectionUtils;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
@@ -73,12 +73,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
     private final ProductFeignClient productFeignClient;
     private final OrderMessageProducer orderMessageProducer;
     private final CouponFeignClient couponFeignClient;
-    private final PromotionFeignClient promotionFeignClient;
     private final TransactionTemplate transactionTemplate;
     private final ReliableMessageService reliableMessageService;
     private final CartFeignClient cartFeignClient;
     private final OrderAsyncProcessor orderAsyncProcessor;
     private final Executor feignCallExecutor;
+    private final FlashSaleItemCache flashSaleItemCache;
 
     public OrderServiceImpl(
             OrderItemService orderItemService,
@@ -88,12 +88,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
             ProductFeignClient productFeignClient,
             OrderMessageProducer orderMessageProducer,
             CouponFeignClient couponFeignClient,
-            PromotionFeignClient promotionFeignClient,
             TransactionTemplate transactionTemplate,
             ReliableMessageService reliableMessageService,
             CartFeignClient cartFeignClient,
             OrderAsyncProcessor orderAsyncProcessor,
-            @Qualifier("feignCallExecutor") Executor feignCallExecutor) {
+            @Qualifier("feignCallExecutor") Executor feignCallExecutor,
+            FlashSaleItemCache flashSaleItemCache) {
         this.orderItemService = orderItemService;
         this.orderShipmentService = orderShipmentService;
         this.paymentFeignClient = paymentFeignClient;
@@ -101,12 +101,12 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         this.productFeignClient = productFeignClient;
         this.orderMessageProducer = orderMessageProducer;
         this.couponFeignClient = couponFeignClient;
-        this.promotionFeignClient = promotionFeignClient;
         this.transactionTemplate = transactionTemplate;
         this.reliableMessageService = reliableMessageService;
         this.cartFeignClient = cartFeignClient;
         this.orderAsyncProcessor = orderAsyncProcessor;
         this.feignCallExecutor = feignCallExecutor;
+        this.flashSaleItemCache = flashSaleItemCache;
     }
 
     private static final String ORDER_TOKEN_PREFIX = "mall:order:token:";
@@ -119,25 +119,31 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         String orderSn = UUID.randomUUID().toString().replace("-", "");
 
         verifyOrderToken(userId, submitDTO.getOrderToken());
-        List<CartItemDTO> cartItems = fetchCheckedCartItems(submitDTO.getCartItemIds());
+        CheckoutSnapshotDTO checkout = freezeCheckedCartItems(userId, submitDTO.getCartItemIds());
 
-        // 防重複下單：5 分鐘內有 CREATING 訂單則復用
-        Order existingCreating = this.getOne(new LambdaQueryWrapper<Order>()
-                .eq(Order::getUserId, userId)
-                .eq(Order::getStatus, OrderStatus.CREATING.getCode())
-                .gt(Order::getCreatedAt, LocalDateTime.now().minusMinutes(5)));
-        if (existingCreating != null) {
-            log.info("【下單】偵測到進行中訂單，復用: orderSn={}", existingCreating.getOrderSn());
-            return buildOrderVO(existingCreating);
-        }
+        try {
+            // 防重複下單：5 分鐘內有 CREATING 訂單則復用
+            Order existingCreating = this.getOne(new LambdaQueryWrapper<Order>()
+                    .eq(Order::getUserId, userId)
+                    .eq(Order::getStatus, OrderStatus.CREATING.getCode())
+                    .gt(Order::getCreatedAt, LocalDateTime.now().minusMinutes(5)));
+            if (existingCreating != null) {
+                log.info("【下單】偵測到進行中訂單，復用: orderSn={}", existingCreating.getOrderSn());
+                releaseCheckout(userId, checkout.getSnapshotId());
+                return buildOrderVO(existingCreating);
+            }
 
-        Order order = buildOrder(userId, submitDTO, cartItems, orderSn);
-        this.save(order);
+            Order order = buildOrder(userId, submitDTO, checkout.getItems(), orderSn);
+            this.save(order);
 
-        orderAsyncProcessor.processOrderAsync(
-                order.getId(), orderSn, userId, submitDTO, cartItems);
+            orderAsyncProcessor.processOrderAsync(
+                    order.getId(), orderSn, userId, submitDTO, checkout);
 
-        return buildOrderVO(order);
+            return buildOrderVO(order);
+        } catch (RuntimeException e) {
+            releaseCheckout(userId, checkout.getSnapshotId());
+            throw e;
+        }
     }
 
     /** 驗證並消費 Token（Redis DEL 原子防重）。 */
@@ -149,22 +155,59 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
         }
     }
 
-    private List<CartItemDTO> cartItemsFromIds(List<Long> ids) {
-        Result<List<CartItemDTO>> cartResult = cartFeignClient.getCartItemsByIds(ids);
+    /**
+     * 凍結購物車已勾選的商品：單次 Feign 取得含凍結數量與計價結果的結帳快照，
+     * 訂單完成時以快照 ID 提交，結帳期間使用者對購物車的修改不受影響。
+     * 庫存鏡像已顯示不足的一般商品直接拒絕，不建立必定失敗而需回補庫存的異步訂單。
+     */
+    private CheckoutSnapshotDTO freezeCheckedCartItems(Long userId, List<Long> ids) {
+        Result<CheckoutSnapshotDTO> cartResult = cartFeignClient.freezeCheckout(userId, ids);
         if (cartResult == null || !cartResult.isSuccess() || cartResult.getData() == null) {
             throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "購物車服務暫時不可用");
         }
+        // 空車防禦：沒有勾選任何商品則拒絕下單
+        if (CollectionUtils.isEmpty(cartResult.getData().getItems())) {
+            throw new BusinessException(ResultCodeEnum.CART_EMPTY, "沒有找到要結帳的商品");
+        }
+        CartItemDTO shortItem = findOutOfStockItem(cartResult.getData().getItems());
+        if (shortItem != null) {
+            releaseCheckout(userId, cartResult.getData().getSnapshotId());
+            log.info("【下單】庫存鏡像顯示不足，拒絕下單: userId={}, variantId={}, stockStatus={}",
+                    userId, shortItem.getVariantId(), shortItem.getStockStatus());
+            throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT,
+                    "商品 " + (shortItem.getProductName() != null ? shortItem.getProductName() : shortItem.getSku())
+                            + " 庫存不足");
+        }
         return cartResult.getData();
     }
 
-    private List<CartItemDTO> fetchCheckedCartItems(List<Long> ids) {
-        // 透過 Feign 拉取購物車已勾選的商品項目
-        List<CartItemDTO> items = cartItemsFromIds(ids);
-        // 空車防禦：沒有勾選任何商品則拒絕下單
-        if (CollectionUtils.isEmpty(items)) {
-            throw new BusinessException(ResultCodeEnum.CART_EMPTY, "沒有找到要結帳的商品");
+    /**
+     * 僅預檢確定扣主庫存的項目（計價結果為原價或行銷活動）。特賣品的庫存由 flash_sale_skus 管理；
+     * 計價降級（DEGRADED）或未帶計價類型時無法判斷是否為特賣，交由 OrderAsyncProcessor 以即時計價決定扣減來源。
+     * 狀態未知（無鏡像）的項目照常下單。
+     */
+    private static CartItemDTO findOutOfStockItem(List<CartItemDTO> items) {
+        for (CartItemDTO item : items) {
+            boolean shortOfStock = StockStatus.INSUFFICIENT.name().equals(item.getStockStatus())
+                    || StockStatus.OUT_OF_STOCK.name().equals(item.getStockStatus());
+            if (shortOfStock && isRegularStock(item.getPromotionType())) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRegularStock(String promotionType) {
+        return PromotionType.NONE.name().equals(promotionType) || PromotionType.CAMPAIGN.name().equals(promotionType);
+    }
+
+    /** 釋放結帳快照（容錯執行，未釋放的快照會自動逾期）。 */
+    private void releaseCheckout(Long userId, String snapshotId) {
+        try {
+            cartFeignClient.releaseCheckout(userId, snapshotId);
+        } catch (Exception e) {
+            log.warn("【下單】結帳快照釋放失敗（將自動逾期）: snapshotId={}", snapshotId, e);
         }
-        return items;
     }
 
     @Override
@@ -582,49 +625,11 @@ public class OrderServiceImpl extends ServiceImpl<OrderMapper, Order> implements
 
         String orderSn = UUID.randomUUID().toString().replace("-", "");
 
-        // 1. 查詢商品資訊
-        VariantDTO variant = null;
-        try {
-            Result<List<VariantDTO>> variantResult = productFeignClient
-                    .getVariantsBatch(Collections.singletonList(message.getSkuId()));
-            if (variantResult != null && variantResult.isSuccess()
-                    && !CollectionUtils.isEmpty(variantResult.getData())) {
-                variant = variantResult.getData().get(0);
-            }
-        } catch (Exception e) {
-            log.error("【異步下單】查詢商品失敗: {}", e.getMessage());
-            throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "無法獲取商品資訊");
-        }
-
-        if (variant == null) {
-            throw new BusinessException(ResultCodeEnum.PRODUCT_NOT_FOUND, "商品不存在");
-        }
-
-        // 2. 查特賣價
-        ProductPriceCheckDTO check = ProductPriceCheckDTO.builder()
-                .productId(variant.getProductId())
-                .variantId(variant.getId())
-                .categoryId(variant.getCategoryId())
-                .originalPrice(variant.getPrice())
-                .build();
-
-        BigDecimal finalPrice = variant.getPrice();
-        String promotionName = null;
-
-        try {
-            Result<List<ProductPriceResultDTO>> priceResult = promotionFeignClient
-                    .calculateBestPrices(Collections.singletonList(check));
-            if (priceResult != null && priceResult.isSuccess() && !CollectionUtils.isEmpty(priceResult.getData())) {
-                ProductPriceResultDTO priceData = priceResult.getData().get(0);
-                if ("FLASH_SALE".equals(priceData.getPromotionType())) {
-                    finalPrice = priceData.getFinalPrice();
-                    promotionName = priceData.getPromotionName();
-                }
-            }
-        } catch (Exception e) {
-            log.error("【異步下單】特賣計價服務異常，無法確認價格: {}", e.getMessage());
-            throw new BusinessException(ResultCodeEnum.SERVICE_UNAVAILABLE, "特賣價格計算失敗，請稍後重試");
-        }
+        // 1. 從場次級本地快取取得商品資訊與特賣價（熱路徑零 RPC）
+        FlashSaleItemCache.FlashSaleItem item = flashSaleItemCache.get(message.getPromotionId(), message.getSkuId());
+        VariantDTO variant = item.getVariant();
+        BigDecimal finalPrice = item.getFinalPrice();
+        String promotionName = item.getPromotionName();
 
         // 3. 構建 Order 對象
         Order order = new Order();
@@ -0,0 +1,46 @@
+package com.nameless.mall.order.task;
+
+import com.nameless.mall.order.service.FlashSaleDlqService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 排程消化特賣暫存隊列（暫時性失敗的兜底機制）。
+ * 暫存訊息仍佔用庫存與排隊名額，定期以低速自動重放，避免無人處理時名額被永久卡住。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashSaleDlqDrainTask {
+
+    private final FlashSaleDlqService flashSaleDlqService;
+
+    @Value("${flash-sale.dlq.auto-drain.enabled:true}")
+    private boolean enabled;
+
+    @Value("${flash-sale.dlq.auto-drain.batch-limit:500}")
+    private int batchLimit;
+
+    @Value("${flash-sale.dlq.auto-drain.rate-per-second:20}")
+    private int ratePerSecond;
+
+    @Scheduled(fixedDelayString = "${flash-sale.dlq.auto-drain.interval-ms:60000}", initialDelay = 60_000)
+    public void drainParkingQueue() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long depth = flashSaleDlqService.parkingDepth();
+            if (depth == 0) {
+                return;
+            }
+            log.info("【特賣重放】暫存隊列待處理 {} 筆，啟動自動重放", depth);
+            flashSaleDlqService.startReplay(batchLimit, ratePerSecond);
+        } catch (Exception e) {
+            log.error("【特賣重放】自動重放啟動失敗", e);
+        }
+    }
+}
@@ -1,15 +1,27 @@
 -- KEYS[1]: 庫存 Key (flash_sale:stock:{promotionId}:{skuId})
--- KEYS[2]: 用戶排隊 Key (flash_sale:order:{userId}:{skuId})
+-- KEYS[2]: 排隊結果分桶 Hash (flash_sale:result:{promotionId}:{skuId}:{userId/100})
+-- KEYS[3]: 已扣減計數 Key (flash_sale:deducted:{promotionId}:{skuId})，供 promotion-service 庫存對帳
 -- ARGV[1]: 扣減數量 (quantity)
+-- ARGV[2]: Hash 欄位 (userId % 100)
+-- ARGV[3]: 當前時間 (epoch 秒)
+-- ARGV[4]: 排隊逾時秒數 (PENDING 超過此時間視為失效，可重新排隊)
+-- ARGV[5]: 結果 Hash TTL 秒數
 
 local stockKey = KEYS[1]
-local orderStatusKey = KEYS[2]
+local resultKey = KEYS[2]
+local deductedKey = KEYS[3]
 local quantity = tonumber(ARGV[1])
+local field = ARGV[2]
+local now = tonumber(ARGV[3])
 
--- 1. 檢查是否重複排隊 (使用 setnx 原子性搶占)
--- 如果 Key 已存在，代表已經排隊或購買過，直接返回重複
-if redis.call('exists', orderStatusKey) == 1 then
-    return -3 -- 重複排隊
+-- 1. 檢查是否重複排隊
+-- 已有結果 (排隊中 / 成功 / 失敗) 直接返回重複；逾時的 PENDING 視同不存在
+local status = redis.call('hget', resultKey, field)
+if status then
+    local isPending = string.sub(status, 1, 2) == 'P:'
+    if not isPending or now - tonumber(string.sub(status, 3)) < tonumber(ARGV[4]) then
+        return -3 -- 重複排隊
+    end
 end
 
 -- 2. 檢查庫存 Key 是否存在 (預熱檢查)
@@ -25,7 +37,9 @@ end
 
 -- 4. 執行扣減與佔位 (原子操作)
 redis.call('decrby', stockKey, quantity)
--- 預先設置為 PENDING，TTL 10分鐘防止死鎖
-redis.call('setex', orderStatusKey, 600, "PENDING")
+redis.call('incrby', deductedKey, quantity)
+-- 預先設置為 PENDING (附時間戳，逾時後可重新排隊，取代原本每位用戶一個 Key 的 TTL)
+redis.call('hset', resultKey, field, 'P:' .. now)
+redis.call('expire', resultKey, tonumber(ARGV[5]))
 
 return 1 -- 成功
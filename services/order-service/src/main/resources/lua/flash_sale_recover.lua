@@ -0,0 +1,13 @@
+-- KEYS[1]: 庫存 Key (flash_sale:stock:{promotionId}:{skuId})
+-- KEYS[2]: 已扣減計數 Key (flash_sale:deducted:{promotionId}:{skuId})
+-- ARGV[1]: 回補數量 (quantity)
+
+local quantity = tonumber(ARGV[1])
+
+-- 1. 同步沖銷已扣減計數，避免對帳時誤判為待落帳扣減
+if redis.call('exists', KEYS[2]) == 1 then
+    redis.call('decrby', KEYS[2], quantity)
+end
+
+-- 2. 回補庫存
+return redis.call('incrby', KEYS[1], quantity)
@@ -0,0 +1,96 @@
+package com.nameless.mall.order.component;
+
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.product.api.dto.VariantDTO;
+import com.nameless.mall.product.api.feign.ProductFeignClient;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.feign.PromotionFeignClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * {@link FlashSaleItemCache} 測試：開賽前載入的原價結果不得沿用到開賽後。
+ * 促銷服務以 Mock 模擬「開賽前回傳 NONE、開賽後回傳 FLASH_SALE」。
+ */
+class FlashSaleItemCacheTest {
+
+    private static final Long PROMOTION_ID = 1L;
+    private static final Long SKU_ID = 100L;
+    private static final BigDecimal ORIGINAL = new BigDecimal("1000.00");
+    private static final BigDecimal FLASH = new BigDecimal("599.00");
+
+    private final ProductFeignClient productFeignClient = mock(ProductFeignClient.class);
+    private final PromotionFeignClient promotionFeignClient = mock(PromotionFeignClient.class);
+    private FlashSaleItemCache cache;
+    private volatile boolean started;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        HashOperations<String, Object, Object> hashOps = mock(HashOperations.class);
+        when(redisTemplate.<Object, Object>opsForHash()).thenReturn(hashOps);
+        when(hashOps.keys("flash_sale:product:" + PROMOTION_ID)).thenReturn(Set.of(String.valueOf(SKU_ID)));
+
+        VariantDTO variant = new VariantDTO();
+        variant.setId(SKU_ID);
+        variant.setProductId(10L);
+        variant.setPrice(ORIGINAL);
+        when(productFeignClient.getVariantsBatch(anyList())).thenReturn(Result.ok(List.of(variant)));
+        when(promotionFeignClient.calculateBestPrices(anyList())).thenAnswer(invocation -> {
+            List<ProductPriceCheckDTO> checks = invocation.getArgument(0);
+            return Result.ok(checks.stream().map(c -> started
+                    ? new ProductPriceResultDTO(c.getVariantId(), ORIGINAL, FLASH, ORIGINAL.subtract(FLASH),
+                            "FLASH_SALE", PROMOTION_ID, "雙十一")
+                    : new ProductPriceResultDTO(c.getVariantId(), ORIGINAL, ORIGINAL, BigDecimal.ZERO,
+                            "NONE", null, null))
+                    .toList());
+        });
+
+        cache = new FlashSaleItemCache(productFeignClient, promotionFeignClient, redisTemplate, 300);
+    }
+
+    @Test
+    void loadBeforeStartShouldNotBeServedAfterStart() {
+        // 開賽前：預熱通知觸發重載，接著有一筆提早到達的查詢
+        cache.refresh(PROMOTION_ID);
+        FlashSaleItemCache.FlashSaleItem early = cache.get(PROMOTION_ID, SKU_ID);
+        assertEquals(ORIGINAL, early.getFinalPrice());
+        assertNull(early.getPromotionName());
+        assertFalse(early.isFlashSale());
+
+        // 開賽後：不得沿用開賽前的原價
+        started = true;
+        FlashSaleItemCache.FlashSaleItem live = cache.get(PROMOTION_ID, SKU_ID);
+        assertEquals(FLASH, live.getFinalPrice());
+        assertEquals("雙十一", live.getPromotionName());
+        assertTrue(live.isFlashSale());
+    }
+
+    @Test
+    void flashSalePriceShouldBeCachedForTheSession() {
+        started = true;
+        cache.get(PROMOTION_ID, SKU_ID);
+        cache.get(PROMOTION_ID, SKU_ID);
+        cache.get(PROMOTION_ID, SKU_ID);
+
+        verify(promotionFeignClient, times(1)).calculateBestPrices(anyList());
+    }
+}
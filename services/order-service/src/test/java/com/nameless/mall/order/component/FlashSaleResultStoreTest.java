@@ -0,0 +1,88 @@
+package com.nameless.mall.order.component;
+
+import com.nameless.mall.order.constant.FlashSaleConstants;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * {@link FlashSaleResultStore} 測試：建單成功與失敗狀態在方法返回時即已寫入 Redis（不經本地緩衝）。
+ * <p>
+ * 需要可連線的 Redis（REDIS_HOST / REDIS_PORT，預設 localhost:6379），連線失敗時略過。
+ * </p>
+ */
+class FlashSaleResultStoreTest {
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+    private static boolean redisAvailable;
+
+    private FlashSaleResultStore store;
+    private Long promotionId;
+
+    @BeforeAll
+    static void connect() {
+        String host = System.getenv().getOrDefault("REDIS_HOST", "localhost");
+        int port = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
+        connectionFactory = new LettuceConnectionFactory(new RedisStandaloneConfiguration(host, port));
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+        try {
+            redisAvailable = "PONG".equals(redisTemplate.execute(c -> c.ping(), true));
+        } catch (Exception e) {
+            redisAvailable = false;
+        }
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(redisAvailable, "Redis 無法連線，略過結果寫入測試");
+        store = new FlashSaleResultStore(redisTemplate, 600, 86400);
+        promotionId = -ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (store != null) {
+            redisTemplate.delete(store.hashKey(promotionId, 1L, 42L));
+        }
+    }
+
+    @Test
+    void successShouldBeVisibleImmediately() {
+        store.markSuccess(promotionId, 1L, 42L, "FS202610190001");
+
+        assertEquals("FS202610190001", store.get(promotionId, 1L, 42L));
+        long ttl = redisTemplate.getExpire(store.hashKey(promotionId, 1L, 42L));
+        assertTrue(ttl > 0 && ttl <= 86400);
+    }
+
+    @Test
+    void failureShouldOverwritePending() {
+        String key = store.hashKey(promotionId, 1L, 42L);
+        redisTemplate.opsForHash().put(key, store.field(42L),
+                FlashSaleConstants.RAW_PENDING_PREFIX + System.currentTimeMillis() / 1000);
+
+        store.markFailed(promotionId, 1L, 42L);
+
+        assertEquals(FlashSaleConstants.RAW_FAILED, store.get(promotionId, 1L, 42L));
+        assertTrue(redisTemplate.getExpire(key) > 0);
+    }
+}
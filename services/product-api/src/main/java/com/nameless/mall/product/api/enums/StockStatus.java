@@ -0,0 +1,37 @@
+package com.nameless.mall.product.api.enums;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 購物車項目的庫存狀態（依庫存鏡像判斷，僅供提示與下單前預檢，實際扣減以 product-service 為準）
+ */
+@Getter
+@RequiredArgsConstructor
+public enum StockStatus {
+    IN_STOCK("有庫存"),
+    INSUFFICIENT("庫存不足"),
+    OUT_OF_STOCK("已售完");
+
+    /**
+     * 庫存鏡像的 Redis Key 前綴（值為規格目前的庫存數），由 product-service 於庫存異動提交後寫入。
+     */
+    public static final String MIRROR_KEY_PREFIX = "product:stock:";
+
+    private final String description;
+
+    /**
+     * @param stock    目前庫存；未知時為 null
+     * @param quantity 欲購買數量
+     * @return 庫存未知時回傳 null
+     */
+    public static StockStatus of(Integer stock, Integer quantity) {
+        if (stock == null) {
+            return null;
+        }
+        if (stock <= 0) {
+            return OUT_OF_STOCK;
+        }
+        return quantity != null && stock < quantity ? INSUFFICIENT : IN_STOCK;
+    }
+}
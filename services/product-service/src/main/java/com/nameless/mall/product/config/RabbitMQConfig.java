@@ -15,6 +15,9 @@ public class RabbitMQConfig {
     /** 商品主題交換機名稱 */
     public static final String EXCHANGE_PRODUCT_TOPIC = "product.topic";
 
+    /** 分類變更路由鍵 */
+    public static final String ROUTING_KEY_CATEGORY_CHANGED = "product.category.changed";
+
     @Bean
     public TopicExchange productTopicExchange() {
         return new TopicExchange(EXCHANGE_PRODUCT_TOPIC, true, false);
@@ -10,6 +10,7 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -44,6 +45,16 @@ public class CategoryController {
         return Result.ok(categoryService.listWithTree());
     }
 
+    /**
+     * 分類資料目前由後台直接維護資料表，異動後經此清除快取並通知下游服務
+     */
+    @Operation(summary = "Internal: 清除分類樹快取並廣播變更", hidden = true)
+    @PostMapping("/internal/cache/evict")
+    public Result<Void> evictTreeCache() {
+        categoryService.evictTreeCache();
+        return Result.ok();
+    }
+
     private List<CategoryVO> toVOs(List<CategoryDTO> dtos) {
         if (dtos == null)
             return null;
@@ -0,0 +1,13 @@
+package com.nameless.mall.product.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 分類變更事件，觸發 MQ 訊息發送，供下游服務（如 promotion-service）重載分類樹快取。
+ */
+public class CategoryChangedEvent extends ApplicationEvent {
+
+    public CategoryChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,20 @@
+package com.nameless.mall.product.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * 規格庫存異動事件，事務提交後更新庫存鏡像。
+ */
+@Getter
+public class StockChangedEvent extends ApplicationEvent {
+
+    private final List<Long> variantIds;
+
+    public StockChangedEvent(Object source, List<Long> variantIds) {
+        super(source);
+        this.variantIds = variantIds;
+    }
+}
@@ -0,0 +1,110 @@
+package com.nameless.mall.product.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.nameless.mall.product.api.enums.StockStatus;
+import com.nameless.mall.product.entity.Variant;
+import com.nameless.mall.product.event.ProductSyncEvent;
+import com.nameless.mall.product.event.StockChangedEvent;
+import com.nameless.mall.product.mapper.VariantMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 庫存鏡像 - 將 variants.stock 同步到 Redis（product:stock:{variantId}），供購物車以單次 MGET 標示庫存狀態。
+ * <p>
+ * 庫存扣減、返還或商品更新的事務提交後，以一次查詢讀出受影響規格的最新庫存，再以 pipeline 一次寫入絕對值
+ * （不在 Redis 端加減，鏡像不會因重送或失敗而累積誤差）。並發提交時後寫入者可能帶著較舊的值，
+ * 以 TTL 限制偏差存續時間；鏡像僅作提示與下單前預檢，實際扣減仍以資料庫的條件更新為準。
+ * 寫入失敗只記錄警告，購物車在鏡像缺失時改用規格快取的庫存。
+ * </p>
+ */
+@Slf4j
+@Component
+public class StockMirrorManager {
+
+    private static final String ACTION_UPDATE = "UPDATE";
+
+    private final VariantMapper variantMapper;
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlSeconds;
+
+    public StockMirrorManager(VariantMapper variantMapper, StringRedisTemplate redisTemplate,
+            @Value("${product.stock-mirror.ttl-minutes:30}") long ttlMinutes) {
+        this.variantMapper = variantMapper;
+        this.redisTemplate = redisTemplate;
+        this.ttlSeconds = Duration.ofMinutes(ttlMinutes).toSeconds();
+    }
+
+    /** 庫存扣減／返還提交後更新鏡像；回滾時不觸發，鏡像維持原值。 */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleStockChanged(StockChangedEvent event) {
+        refresh(event.getVariantIds());
+    }
+
+    /** 後台編輯商品（含規格庫存）提交後更新該商品所有規格的鏡像；刪除的商品待 TTL 逾期。 */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleProductSync(ProductSyncEvent event) {
+        if (!ACTION_UPDATE.equals(event.getAction())) {
+            return;
+        }
+        try {
+            write(variantMapper.selectList(new LambdaQueryWrapper<Variant>()
+                    .select(Variant::getId, Variant::getStock)
+                    .eq(Variant::getProductId, event.getProductId())), Set.of());
+        } catch (Exception e) {
+            log.warn("【庫存鏡像】更新失敗（將於逾期後由規格快取兜底）: productId={}, cause={}",
+                    event.getProductId(), e.getMessage());
+        }
+    }
+
+    /**
+     * 以一次查詢讀出規格的最新庫存並寫入鏡像；查無的規格（已刪除）移除鏡像。
+     */
+    public void refresh(List<Long> variantIds) {
+        if (CollectionUtils.isEmpty(variantIds)) {
+            return;
+        }
+        try {
+            Set<Long> missing = new HashSet<>(variantIds);
+            List<Variant> variants = variantMapper.selectList(new LambdaQueryWrapper<Variant>()
+                    .select(Variant::getId, Variant::getStock)
+                    .in(Variant::getId, missing));
+            variants.forEach(v -> missing.remove(v.getId()));
+            write(variants, missing);
+        } catch (Exception e) {
+            log.warn("【庫存鏡像】更新失敗（將於逾期後由規格快取兜底）: variantIds={}, cause={}", variantIds,
+                    e.getMessage());
+        }
+    }
+
+    private void write(List<Variant> variants, Set<Long> removed) {
+        if (variants.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            for (Variant variant : variants) {
+                if (variant.getStock() != null) {
+                    conn.setEx(StockStatus.MIRROR_KEY_PREFIX + variant.getId(), ttlSeconds,
+                            String.valueOf(variant.getStock()));
+                }
+            }
+            for (Long variantId : removed) {
+                conn.del(StockStatus.MIRROR_KEY_PREFIX + variantId);
+            }
+            return null;
+        });
+    }
+}
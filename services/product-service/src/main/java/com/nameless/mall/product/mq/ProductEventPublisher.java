@@ -1,10 +1,12 @@
 package com.nameless.mall.product.mq;
 
 import com.nameless.mall.product.config.RabbitMQConfig;
+import com.nameless.mall.product.event.CategoryChangedEvent;
 import com.nameless.mall.product.event.ProductSyncEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.event.TransactionPhase;
 import org.springframework.transaction.event.TransactionalEventListener;
@@ -22,7 +24,11 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class ProductEventPublisher {
 
+    /** 分類版本號：每次變更 INCR，接收端據此略過重複或亂序的訊息 */
+    private static final String CATEGORY_VERSION_KEY = "product:category:version";
+
     private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate redisTemplate;
 
     /** 事務提交後發送消息，避免回滾後消息已發出的不一致問題。 */
     @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
@@ -44,4 +50,34 @@ public class ProductEventPublisher {
 
         }
     }
+
+    /**
+     * 分類變更廣播。fallbackExecution：非事務內觸發（如手動清除快取）時亦立即發送。
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleCategoryChanged(CategoryChangedEvent event) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("version", nextCategoryVersion());
+        message.put("timestamp", System.currentTimeMillis());
+
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_PRODUCT_TOPIC,
+                    RabbitMQConfig.ROUTING_KEY_CATEGORY_CHANGED, message);
+            log.info("【MQ】分類變更廣播成功: version={}", message.get("version"));
+        } catch (Exception e) {
+            // 廣播失敗僅影響下游快取新鮮度（TTL 兜底），不阻斷主流程
+            log.error("【MQ】分類變更廣播失敗", e);
+        }
+    }
+
+    /** Redis 不可用時回傳 0（接收端視為未帶版本，一律重載） */
+    private long nextCategoryVersion() {
+        try {
+            Long version = redisTemplate.opsForValue().increment(CATEGORY_VERSION_KEY);
+            return version != null ? version : 0L;
+        } catch (Exception e) {
+            log.warn("【MQ】取得分類版本號失敗，改送未帶版本的失效訊息: {}", e.getMessage());
+            return 0L;
+        }
+    }
 }
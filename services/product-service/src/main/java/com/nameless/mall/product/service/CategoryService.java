@@ -31,4 +31,9 @@ public interface CategoryService extends IService<Category> {
      */
     List<Long> getCategoryPath(Long categoryId);
 
+    /**
+     * 清除分類樹快取，並廣播分類變更通知下游服務重載
+     */
+    void evictTreeCache();
+
 }
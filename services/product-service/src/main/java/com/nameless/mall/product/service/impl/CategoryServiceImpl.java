@@ -3,10 +3,13 @@ package com.nameless.mall.product.service.impl;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import com.nameless.mall.product.api.dto.CategoryDTO;
 import com.nameless.mall.product.entity.Category;
+import com.nameless.mall.product.event.CategoryChangedEvent;
 import com.nameless.mall.product.mapper.CategoryMapper;
 import com.nameless.mall.product.service.CategoryService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -21,6 +24,7 @@ import java.util.stream.Collectors;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> implements CategoryService {
 
     private static final Long ROOT_PARENT_ID = 0L;
@@ -32,6 +36,8 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
     /** ID→ParentID 映射，供 getCategoryPath 使用（隨 tree 快取一起更新） */
     private volatile Map<Long, Long> categoryParentMap;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * 獲取完整的分類樹狀結構
      * 
@@ -84,11 +90,13 @@ public class CategoryServiceImpl extends ServiceImpl<CategoryMapper, Category> i
         return level1Categories;
     }
 
-    /** 清除分類樹快取（分類變更時呼叫） */
+    /** 清除分類樹快取並廣播分類變更（分類變更時呼叫） */
+    @Override
     public void evictTreeCache() {
         this.cachedTree = null;
         this.categoryParentMap = null;
         this.treeCacheTimestamp = 0;
+        eventPublisher.publishEvent(new CategoryChangedEvent(this));
     }
 
     /**
@@ -10,6 +10,7 @@ import com.nameless.mall.product.api.dto.VariantOptionDTO;
 import com.nameless.mall.product.entity.Product;
 import com.nameless.mall.product.entity.Variant;
 import com.nameless.mall.product.entity.VariantOption;
+import com.nameless.mall.product.event.StockChangedEvent;
 import com.nameless.mall.product.mapper.ProductMapper;
 import com.nameless.mall.product.mapper.VariantMapper;
 import com.nameless.mall.product.mapper.VariantOptionMapper;
@@ -19,6 +20,7 @@ import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -32,7 +34,7 @@ import java.util.stream.Collectors;
  * <p>
  * 負責處理與 Variant (SKU) 相關的業務邏輯，包括：
  * - 規格資訊查詢與聚合
- * - 庫存扣減與返還 (Atomic Update)
+ * - 庫存扣減與返還 (Atomic Update)，提交後更新庫存鏡像
  */
 @Service
 @RequiredArgsConstructor
@@ -43,6 +45,7 @@ public class VariantServiceImpl extends ServiceImpl<VariantMapper, Variant> impl
     private final ProductMapper productMapper;
     private final VariantOptionMapper variantOptionMapper;
     private final ProductImageService productImageService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     public VariantDTO getVariantForCart(Long variantId) {
@@ -111,6 +114,7 @@ public class VariantServiceImpl extends ServiceImpl<VariantMapper, Variant> impl
                 throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT, "商品 " + variant.getSku() + " 庫存不足");
             }
         }
+        publishStockChanged(dtoList);
     }
 
     @Transactional(rollbackFor = Exception.class)
@@ -123,6 +127,13 @@ public class VariantServiceImpl extends ServiceImpl<VariantMapper, Variant> impl
         for (DecreaseStockInputDTO input : dtoList) {
             baseMapper.increaseStock(input.getVariantId(), input.getQuantity());
         }
+        publishStockChanged(dtoList);
+    }
+
+    /** 事務提交後由 StockMirrorManager 寫入最新庫存（回滾則不觸發）。 */
+    private void publishStockChanged(List<DecreaseStockInputDTO> dtoList) {
+        eventPublisher.publishEvent(new StockChangedEvent(this,
+                dtoList.stream().map(DecreaseStockInputDTO::getVariantId).distinct().collect(Collectors.toList())));
     }
 
     @Override
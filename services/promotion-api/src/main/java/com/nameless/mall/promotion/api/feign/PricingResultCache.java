@@ -0,0 +1,228 @@
+package com.nameless.mall.promotion.api.feign;
+
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 呼叫端的計價結果快取，包裝 {@link PromotionFeignClient#calculateBestPrices}。
+ * <p>
+ * 計價結果只取決於 (variantId, categoryId, originalPrice) 與 promotion-service 的計價索引內容。
+ * promotion-service 於回應標頭帶回索引內容指紋（{@link #HEADER_VERSION}，各實例一致）與
+ * 下一次排程變更時間（{@link #HEADER_VALID_UNTIL}，活動起訖、場次開始或結束）。
+ * 快取以「世代」保存同一版本的結果：回應版本與目前世代不同即整批捨棄，
+ * 已命中的項目與新版本混用時整批重查，確保一次回傳的價格來自同一版本。
+ * </p>
+ * <p>
+ * 世代於排程變更時間或 maxAge（安全網）到期；管理端變更由呼叫端收到變更訊息後呼叫
+ * {@link #invalidateAll()}，其後一小段時間（settle）不寫入快取，避免各 promotion-service 實例
+ * 尚未重載時把舊價格再寫回。
+ * </p>
+ * <p>
+ * 快取的物件不外流：寫入與讀出皆複製，呼叫端可自由修改回傳結果。
+ * </p>
+ */
+public class PricingResultCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingResultCache.class);
+
+    /** 計價索引內容指紋 */
+    public static final String HEADER_VERSION = "X-Pricing-Version";
+    /** 結果在無管理端變更的前提下保持有效的時間點（epoch 毫秒） */
+    public static final String HEADER_VALID_UNTIL = "X-Pricing-Valid-Until";
+
+    private final PromotionFeignClient promotionFeignClient;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxAgeMillis;
+    private final long settleMillis;
+
+    private volatile Generation generation = Generation.NONE;
+    private volatile long noCacheUntil;
+
+    /**
+     * @param maxEntries   單一世代最多保存的結果數，超過後不再寫入
+     * @param maxAgeMillis 世代最長存活時間，漏接變更訊息時的安全網
+     * @param settleMillis {@link #invalidateAll()} 後暫停寫入的時間
+     */
+    public PricingResultCache(PromotionFeignClient promotionFeignClient, boolean enabled,
+            int maxEntries, long maxAgeMillis, long settleMillis) {
+        this.promotionFeignClient = promotionFeignClient;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+        this.settleMillis = settleMillis;
+    }
+
+    /**
+     * 一次計價的結果與其所屬的計價版本。
+     *
+     * @param version         結果所屬的計價版本；結果不可快取（停用、settle 期間、未帶版本）時為 null
+     * @param validUntilMillis 版本在無管理端變更的前提下保持有效的時間點
+     * @param result          計價結果，回傳順序與 checkList 一致
+     */
+    public record Versioned(String version, long validUntilMillis, Result<List<ProductPriceResultDTO>> result) {
+    }
+
+    /**
+     * 計算商品最佳價格，全部命中時不發出 RPC；回傳順序與 checkList 一致。
+     */
+    public Result<List<ProductPriceResultDTO>> calculateBestPrices(List<ProductPriceCheckDTO> checkList) {
+        return calculateBestPricesVersioned(checkList).result();
+    }
+
+    /**
+     * 同 {@link #calculateBestPrices}，並回傳結果所屬的計價版本，供呼叫端自行保存結果（例如每位使用者的購物車計價快照）。
+     */
+    public Versioned calculateBestPricesVersioned(List<ProductPriceCheckDTO> checkList) {
+        if (!enabled || checkList == null || checkList.isEmpty()) {
+            return new Versioned(null, 0L, promotionFeignClient.calculateBestPrices(checkList));
+        }
+
+        Generation g = current();
+        ProductPriceResultDTO[] results = new ProductPriceResultDTO[checkList.size()];
+        List<Integer> missIndexes = new ArrayList<>();
+        List<ProductPriceCheckDTO> misses = new ArrayList<>();
+        for (int i = 0; i < checkList.size(); i++) {
+            ProductPriceResultDTO cached = g.results.get(Key.of(checkList.get(i)));
+            if (cached != null) {
+                results[i] = copy(cached);
+            } else {
+                missIndexes.add(i);
+                misses.add(checkList.get(i));
+            }
+        }
+        if (misses.isEmpty()) {
+            return new Versioned(g.version, g.expiresAtMillis, Result.ok(Arrays.asList(results)));
+        }
+
+        ResponseEntity<Result<List<ProductPriceResultDTO>>> response =
+                promotionFeignClient.calculateBestPricesWithVersion(misses);
+        Generation target = adopt(response);
+        if (target != g && missIndexes.size() < checkList.size()) {
+            // 版本已變更：先前命中的結果屬於舊版本，整批重查
+            log.debug("【計價快取】計價版本變更，整批重查: {} -> {}", g.version, target != null ? target.version : null);
+            response = promotionFeignClient.calculateBestPricesWithVersion(checkList);
+            target = adopt(response);
+            missIndexes = null;
+        }
+
+        Result<List<ProductPriceResultDTO>> body = response.getBody();
+        int expected = missIndexes != null ? missIndexes.size() : checkList.size();
+        if (body == null || !body.isSuccess() || body.getData() == null || body.getData().size() != expected) {
+            // 失敗或筆數不符時原樣回傳，由呼叫端既有的降級邏輯處理
+            return new Versioned(null, 0L, body);
+        }
+
+        List<ProductPriceResultDTO> fetched = body.getData();
+        for (int j = 0; j < fetched.size(); j++) {
+            int i = missIndexes != null ? missIndexes.get(j) : j;
+            results[i] = fetched.get(j);
+            if (target != null && fetched.get(j) != null && target.results.size() < maxEntries) {
+                target.results.put(Key.of(checkList.get(i)), copy(fetched.get(j)));
+            }
+        }
+        return target != null
+                ? new Versioned(target.version, target.expiresAtMillis, Result.ok(Arrays.asList(results)))
+                : new Versioned(null, 0L, Result.ok(Arrays.asList(results)));
+    }
+
+    /**
+     * 目前仍有效的計價版本；尚未取得版本、已過期或剛被 {@link #invalidateAll()} 清空時回傳 null。
+     * 呼叫端保存的結果僅在其版本等於此值時可沿用。
+     */
+    public String currentVersion() {
+        Generation g = current();
+        return g != Generation.NONE ? g.version : null;
+    }
+
+    /**
+     * 捨棄所有快取結果，並於 settle 期間暫停寫入。收到促銷或分類變更訊息時呼叫。
+     */
+    public void invalidateAll() {
+        noCacheUntil = System.currentTimeMillis() + settleMillis;
+        generation = Generation.NONE;
+        log.debug("【計價快取】已清空，{} ms 內不寫入快取", settleMillis);
+    }
+
+    private Generation current() {
+        Generation g = generation;
+        return g.expiresAtMillis > System.currentTimeMillis() ? g : Generation.NONE;
+    }
+
+    /**
+     * 依回應標頭取得結果應寫入的世代；回應不可快取時回傳 null。
+     */
+    private Generation adopt(ResponseEntity<Result<List<ProductPriceResultDTO>>> response) {
+        HttpHeaders headers = response.getHeaders();
+        String version = headers.getFirst(HEADER_VERSION);
+        long now = System.currentTimeMillis();
+        if (version == null || now < noCacheUntil) {
+            return null;
+        }
+        long expiresAt = now + maxAgeMillis;
+        String validUntil = headers.getFirst(HEADER_VALID_UNTIL);
+        if (validUntil != null) {
+            try {
+                expiresAt = Math.min(expiresAt, Long.parseLong(validUntil));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        if (expiresAt <= now) {
+            return null;
+        }
+
+        Generation g = generation;
+        if (g.version.equals(version) && g.expiresAtMillis > now) {
+            return g;
+        }
+        Generation next = new Generation(version, expiresAt);
+        generation = next;
+        log.debug("【計價快取】切換計價版本: {} -> {}, 有效至 {}", g.version, version, expiresAt);
+        return next;
+    }
+
+    private static ProductPriceResultDTO copy(ProductPriceResultDTO r) {
+        return new ProductPriceResultDTO(r.getVariantId(), r.getOriginalPrice(), r.getFinalPrice(),
+                r.getDiscountAmount(), r.getPromotionType(), r.getPromotionId(), r.getPromotionName());
+    }
+
+    /**
+     * 同一計價版本的結果集合。
+     */
+    private static final class Generation {
+
+        static final Generation NONE = new Generation("", 0L);
+
+        final String version;
+        final long expiresAtMillis;
+        final Map<Key, ProductPriceResultDTO> results = new ConcurrentHashMap<>();
+
+        Generation(String version, long expiresAtMillis) {
+            this.version = version;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    /**
+     * 影響計價結果的輸入欄位；originalPrice 依 BigDecimal#equals 比對（含 scale），與回傳的原價一致。
+     */
+    private record Key(Long variantId, Long categoryId, BigDecimal originalPrice) {
+
+        static Key of(ProductPriceCheckDTO check) {
+            return new Key(check.getVariantId(), check.getCategoryId(), check.getOriginalPrice());
+        }
+    }
+}
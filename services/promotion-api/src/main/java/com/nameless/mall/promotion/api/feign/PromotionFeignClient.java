@@ -7,6 +7,7 @@ import com.nameless.mall.promotion.api.vo.FlashSaleSkuVO;
 import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
 import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -55,4 +56,12 @@ public interface PromotionFeignClient {
         @PostMapping("/price/calculate")
         Result<List<ProductPriceResultDTO>> calculateBestPrices(
                         @RequestBody List<ProductPriceCheckDTO> checkList);
+
+        /**
+         * 同 {@link #calculateBestPrices}，但保留回應標頭（計價版本與有效期限）
+         * 供 {@link PricingResultCache} 判定結果可快取多久
+         */
+        @PostMapping("/price/calculate")
+        ResponseEntity<Result<List<ProductPriceResultDTO>>> calculateBestPricesWithVersion(
+                        @RequestBody List<ProductPriceCheckDTO> checkList);
 }
@@ -10,6 +10,8 @@ import com.nameless.mall.promotion.api.vo.FlashSaleSkuVO;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -60,6 +62,15 @@ public class PromotionFeignFallback implements FallbackFactory<PromotionFeignCli
                         checkList != null ? checkList.size() : 0, cause.getMessage(), cause);
                 return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "計價引擎目前離線");
             }
+
+            @Override
+            public ResponseEntity<Result<List<ProductPriceResultDTO>>> calculateBestPricesWithVersion(
+                    List<ProductPriceCheckDTO> checkList) {
+                log.error("降級 | PromotionFeignClient.calculateBestPricesWithVersion 失敗, 數量: {}, cause: {}",
+                        checkList != null ? checkList.size() : 0, cause.getMessage(), cause);
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body(Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "計價引擎目前離線"));
+            }
         };
     }
 }
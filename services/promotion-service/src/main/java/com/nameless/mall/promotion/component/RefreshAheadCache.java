@@ -0,0 +1,239 @@
+package com.nameless.mall.promotion.component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 預先刷新（refresh-ahead）、單飛載入並可由版本號失效的單值本地快取。
+ * <p>
+ * 讀取路徑：
+ * <ul>
+ * <li>有效期內超過刷新點（預設有效期的 80%）時，照常回傳目前值並於背景重載，請求執行緒不等待。</li>
+ * <li>已過期但有舊值時，僅一個執行緒同步重載，其餘執行緒直接回傳舊值（stale-while-revalidate）。</li>
+ * <li>從未載入成功時，請求執行緒排隊等待同一次載入，不重複打來源。</li>
+ * </ul>
+ * 資料來源變更時由訊息驅動 {@link #invalidate(long)} 於背景重載；版本號由發送端遞增，
+ * 版本不大於已載入版本的訊息（重複或亂序）直接略過。
+ * </p>
+ * <p>
+ * 載入失敗時保留舊值並於短暫退避後於背景再試，避免來源故障時清空快取或每個請求都重打來源。
+ * 載入耗時、失敗次數與舊值回傳次數記錄於 Micrometer。
+ * </p>
+ *
+ * @param <V> 快取值型別
+ */
+@Slf4j
+public final class RefreshAheadCache<V> {
+
+    private static final String METRIC_LOAD = "promotion.pricing_cache.load";
+    private static final String METRIC_STALE_SERVED = "promotion.pricing_cache.stale_served";
+    private static final String METRIC_REFRESH_AHEAD = "promotion.pricing_cache.refresh_ahead";
+
+    /** 有效期短於此值時不預先刷新（例如緊貼活動結束時間的到期點），避免臨界點前反覆重載 */
+    private static final long MIN_REFRESH_AHEAD_WINDOW_MS = 1_000L;
+
+    /**
+     * 載入結果與其到期時間（epoch 毫秒）。到期時間可由值本身決定，例如場次結束時間。
+     */
+    public record Loaded<V>(V value, long expiresAtMillis) {
+    }
+
+    /**
+     * @param loaded 是否曾載入成功（值本身可能為 null，例如目前沒有場次）
+     * @param stale  是否為載入失敗後沿用的過期舊值
+     */
+    private record Entry<V>(V value, long refreshAtMillis, long expiresAtMillis, long version,
+            boolean loaded, boolean stale) {
+    }
+
+    private final String name;
+    private final Supplier<Loaded<V>> loader;
+    private final Executor refreshExecutor;
+    private final long failureBackoffMillis;
+    private final double refreshAheadRatio;
+
+    private final Timer loadSuccessTimer;
+    private final Timer loadFailureTimer;
+    private final Counter staleServedCounter;
+    private final Counter refreshAheadCounter;
+
+    private volatile Entry<V> entry;
+    private final ReentrantLock loadLock = new ReentrantLock();
+    private final AtomicLong requestedVersion = new AtomicLong();
+    /** 每次失效遞增；與 refreshedSeq 比對即可得知重載期間是否又有新訊息（含未帶版本的訊息） */
+    private final AtomicLong invalidationSeq = new AtomicLong();
+    private volatile long refreshedSeq;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    /**
+     * @param refreshAheadRatio 經過有效期的此比例後開始背景重載，例如 0.8
+     */
+    public RefreshAheadCache(String name, Supplier<Loaded<V>> loader, Executor refreshExecutor,
+            long failureBackoffMillis, double refreshAheadRatio, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.loader = loader;
+        this.refreshExecutor = refreshExecutor;
+        this.failureBackoffMillis = failureBackoffMillis;
+        this.refreshAheadRatio = refreshAheadRatio;
+        this.loadSuccessTimer = meterRegistry.timer(METRIC_LOAD, "cache", name, "outcome", "success");
+        this.loadFailureTimer = meterRegistry.timer(METRIC_LOAD, "cache", name, "outcome", "failure");
+        this.staleServedCounter = meterRegistry.counter(METRIC_STALE_SERVED, "cache", name);
+        this.refreshAheadCounter = meterRegistry.counter(METRIC_REFRESH_AHEAD, "cache", name);
+    }
+
+    /**
+     * 取得快取值，見類別說明的讀取路徑。
+     */
+    public V get() {
+        Entry<V> e = entry;
+        long now = System.currentTimeMillis();
+        if (e != null && now < e.expiresAtMillis()) {
+            if (now >= e.refreshAtMillis() && scheduleRefresh()) {
+                refreshAheadCounter.increment();
+            }
+            if (e.stale()) {
+                staleServedCounter.increment();
+            }
+            return e.value();
+        }
+
+        if (e != null && e.loaded()) {
+            // 已過期但有舊值：搶到鎖的執行緒負責重載，其餘執行緒不排隊，直接回傳舊值
+            if (!loadLock.tryLock()) {
+                staleServedCounter.increment();
+                return e.value();
+            }
+        } else {
+            loadLock.lock();
+        }
+        try {
+            e = entry;
+            if (e != null && System.currentTimeMillis() < e.expiresAtMillis()) {
+                return e.value();
+            }
+            Entry<V> next = load();
+            if (next.stale()) {
+                staleServedCounter.increment();
+            }
+            return next.value();
+        } finally {
+            loadLock.unlock();
+        }
+    }
+
+    /**
+     * 來源已變更：版本較新時於背景重載。
+     *
+     * @param version 發送端版本號；0 代表未帶版本，一律重載
+     */
+    public void invalidate(long version) {
+        Entry<V> e = entry;
+        if (version > 0 && e != null && version <= e.version()) {
+            log.debug("【本地快取】{} 忽略過期的失效訊息: version={}, loaded={}", name, version, e.version());
+            return;
+        }
+        requestedVersion.accumulateAndGet(version, Math::max);
+        invalidationSeq.incrementAndGet();
+        scheduleRefresh();
+    }
+
+    /**
+     * @return 是否由本次呼叫排入背景重載
+     */
+    private boolean scheduleRefresh() {
+        // 單飛：已有重載進行中時，由該次重載在結束前重新檢查是否有新的失效訊息
+        if (!refreshing.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            refreshExecutor.execute(this::refresh);
+            return true;
+        } catch (RejectedExecutionException ex) {
+            refreshing.set(false);
+            log.warn("【本地快取】{} 背景重載被拒絕，改於下次讀取時同步載入", name);
+            expireNow();
+            return false;
+        }
+    }
+
+    private void refresh() {
+        try {
+            long seq;
+            do {
+                seq = invalidationSeq.get();
+                loadLock.lock();
+                try {
+                    load();
+                } finally {
+                    loadLock.unlock();
+                }
+                refreshedSeq = seq;
+            } while (invalidationSeq.get() != seq);
+        } finally {
+            refreshing.set(false);
+        }
+        // 重載結束與釋放旗標之間若有新訊息到達，補排一次
+        if (invalidationSeq.get() != refreshedSeq) {
+            scheduleRefresh();
+        }
+    }
+
+    /**
+     * 呼叫端須持有 loadLock。
+     */
+    private Entry<V> load() {
+        Entry<V> previous = entry;
+        long version = requestedVersion.get();
+        long start = System.nanoTime();
+        try {
+            Loaded<V> loaded = loader.get();
+            long elapsed = System.nanoTime() - start;
+            loadSuccessTimer.record(elapsed, TimeUnit.NANOSECONDS);
+
+            long now = System.currentTimeMillis();
+            long window = loaded.expiresAtMillis() - now;
+            long refreshAt = window >= MIN_REFRESH_AHEAD_WINDOW_MS
+                    ? now + (long) (window * refreshAheadRatio)
+                    : loaded.expiresAtMillis();
+            Entry<V> next = new Entry<>(loaded.value(), refreshAt, loaded.expiresAtMillis(), version, true, false);
+            entry = next;
+            log.debug("【本地快取】{} 已載入: version={}, 耗時={}ms", name, version,
+                    TimeUnit.NANOSECONDS.toMillis(elapsed));
+            return next;
+        } catch (Exception ex) {
+            loadFailureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            log.warn("【本地快取】{} 載入失敗，沿用舊值並於 {} ms 後重試: {}", name, failureBackoffMillis, ex.getMessage());
+            // 保留舊值與舊版本，退避後於背景重試；舊值仍在有效期內時不縮短其有效期
+            long now = System.currentTimeMillis();
+            long retryAt = now + failureBackoffMillis;
+            Entry<V> next;
+            if (previous != null && previous.expiresAtMillis() > retryAt) {
+                next = new Entry<>(previous.value(), retryAt, previous.expiresAtMillis(), previous.version(),
+                        previous.loaded(), previous.stale());
+            } else {
+                next = new Entry<>(previous != null ? previous.value() : null, retryAt, retryAt,
+                        previous != null ? previous.version() : 0L,
+                        previous != null && previous.loaded(), previous != null && previous.loaded());
+            }
+            entry = next;
+            return next;
+        }
+    }
+
+    private void expireNow() {
+        Entry<V> e = entry;
+        if (e != null) {
+            entry = new Entry<>(e.value(), 0L, 0L, e.version(), e.loaded(), e.stale());
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.nameless.mall.promotion.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 促銷服務異步配置。
+ * <p>
+ * 提供 promotionCacheRefreshExecutor 線程池，供計價快取收到失效訊息後於背景重載，
+ * 不佔用 MQ 監聽線程。每種快取同一時間至多一個重載任務，線程數與快取種類相同即可。
+ * 使用 AbortPolicy：過載時拒絕而非在 MQ 監聽線程同步重載，由 RefreshAheadCache 捕捉拒絕後
+ * 繼續回傳舊值，並於下次讀取時重新載入（不會丟失重載）。
+ * </p>
+ * <p>
+ * 另提供 bulkPricingPool 供串流批次計價平行查價，與 commonPool 隔離，避免全目錄重新計價影響其他平行任務。
+ * </p>
+ */
+@Slf4j
+@Configuration
+public class AsyncConfig {
+
+    @Bean("promotionCacheRefreshExecutor")
+    public Executor promotionCacheRefreshExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(3);
+        executor.setMaxPoolSize(3);
+        executor.setQueueCapacity(16);
+        executor.setThreadNamePrefix("promo-cache-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+        log.info("【Promotion 異步配置】計價快取重載線程池: core=3, max=3, queue=16");
+        return executor;
+    }
+
+    @Bean(name = "bulkPricingPool", destroyMethod = "shutdown")
+    public ForkJoinPool bulkPricingPool(@Value("${promotion.bulk-pricing.parallelism:0}") int parallelism) {
+        int size = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        log.info("【Promotion 異步配置】串流計價平行度: parallelism={}", size);
+        return new ForkJoinPool(size);
+    }
+}
@@ -12,7 +12,6 @@ import java.util.concurrent.TimeUnit;
 @Configuration
 public class CacheConfig {
 
-    public static final String CACHE_CATEGORY_TREE = "categoryTree";
     public static final String CACHE_FLASH_SALE_SESSIONS = "flashSaleSessions";
 
     @Bean
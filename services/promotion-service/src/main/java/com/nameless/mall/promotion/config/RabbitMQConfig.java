@@ -1,5 +1,6 @@
 package com.nameless.mall.promotion.config;
 
+import org.springframework.amqp.core.AnonymousQueue;
 import org.springframework.amqp.core.Binding;
 import org.springframework.amqp.core.BindingBuilder;
 import org.springframework.amqp.core.Queue;
@@ -10,7 +11,7 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 /**
- * RabbitMQ 配置 - 監聽訂單事件以釋放特賣庫存
+ * RabbitMQ 配置 - 監聽訂單事件以釋放特賣庫存，廣播促銷變更事件，並訂閱促銷/分類變更以失效本地計價快取
  */
 @Configuration
 public class RabbitMQConfig {
@@ -19,6 +20,15 @@ public class RabbitMQConfig {
     public static final String EXCHANGE_ORDER_EVENT = "order.event.exchange";
     public static final String ROUTING_KEY_ORDER_CANCELLED = "order.cancelled.key";
 
+    /** 促銷變更廣播：各服務以自有佇列綁定，用於本地快取失效/重載 */
+    public static final String EXCHANGE_PROMOTION_TOPIC = "promotion.topic";
+    public static final String ROUTING_KEY_FLASH_SALE_CHANGED = "promotion.flash_sale.changed";
+    public static final String ROUTING_KEY_CAMPAIGN_CHANGED = "promotion.campaign.changed";
+
+    /** 商品主題交換機 (由 product-service 發布)，訂閱分類變更以重載分類樹 */
+    public static final String EXCHANGE_PRODUCT_TOPIC = "product.topic";
+    public static final String ROUTING_KEY_CATEGORY_CHANGED = "product.category.changed";
+
     @Bean
     public Queue stockReleaseQueue() {
         // 設定 durable=true, exclusive=false, autoDelete=false
@@ -38,6 +48,48 @@ public class RabbitMQConfig {
                 .with(ROUTING_KEY_ORDER_CANCELLED);
     }
 
+    @Bean
+    public TopicExchange promotionTopicExchange() {
+        return new TopicExchange(EXCHANGE_PROMOTION_TOPIC, true, false);
+    }
+
+    @Bean
+    public TopicExchange productTopicExchange() {
+        // 需與 Product Service 中定義的 Exchange 屬性一致 (durable=true, autoDelete=false)
+        return new TopicExchange(EXCHANGE_PRODUCT_TOPIC, true, false);
+    }
+
+    /**
+     * 計價快取失效隊列
+     * <p>
+     * 每個實例各自一條匿名、自動刪除的隊列，確保所有實例都能收到變更並重載本地計價快取
+     */
+    @Bean
+    public Queue promotionCacheInvalidationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding flashSaleChangedInvalidationBinding() {
+        return BindingBuilder.bind(promotionCacheInvalidationQueue())
+                .to(promotionTopicExchange())
+                .with(ROUTING_KEY_FLASH_SALE_CHANGED);
+    }
+
+    @Bean
+    public Binding campaignChangedInvalidationBinding() {
+        return BindingBuilder.bind(promotionCacheInvalidationQueue())
+                .to(promotionTopicExchange())
+                .with(ROUTING_KEY_CAMPAIGN_CHANGED);
+    }
+
+    @Bean
+    public Binding categoryChangedInvalidationBinding() {
+        return BindingBuilder.bind(promotionCacheInvalidationQueue())
+                .to(productTopicExchange())
+                .with(ROUTING_KEY_CATEGORY_CHANGED);
+    }
+
     @Bean
     public MessageConverter jsonMessageConverter() {
         return new Jackson2JsonMessageConverter();
@@ -31,7 +31,7 @@ import java.util.List;
  * <li>{@code deductStock} — 50 QPS（秒殺高峰下游呼叫，需嚴格限制）</li>
  * <li>{@code recoverStock} — 100 QPS（補償呼叫，峰值相對分散）</li>
  * <li>{@code syncStock} — 5 QPS（管理員操作，極低頻）</li>
- * <li>{@code getCurrentSession} — 500 QPS（讀取操作，允許較高流量）</li>
+ * <li>{@code getCurrentSession} — 5000 QPS（讀取預渲染快照，僅一次 Redis MGET）</li>
  * </ul>
  * </p>
  */
@@ -56,7 +56,7 @@ public class SentinelRulesConfig {
         rules.add(buildQpsRule("syncStock", 5));
 
         // --- 讀取端點（中等風險）---
-        rules.add(buildQpsRule("getCurrentSession", 500));
+        rules.add(buildQpsRule("getCurrentSession", 5000));
 
         FlowRuleManager.loadRules(rules);
         log.info("[Sentinel] Flow Rules 初始載入完成，共 {} 條規則（Dashboard 推送可動態覆蓋）", rules.size());
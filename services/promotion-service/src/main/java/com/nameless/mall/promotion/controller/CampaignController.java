@@ -5,14 +5,18 @@ import com.nameless.mall.core.enums.ResultCodeEnum;
 import com.nameless.mall.core.exception.BusinessException;
 import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
 import com.nameless.mall.promotion.api.vo.MarketingCampaignVO;
+import com.nameless.mall.promotion.enums.CampaignStatus;
 import com.nameless.mall.promotion.service.MarketingCampaignService;
+import com.nameless.mall.promotion.service.PromotionCacheManager;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -26,6 +30,7 @@ import java.util.stream.Collectors;
 public class CampaignController {
 
     private final MarketingCampaignService marketingCampaignService;
+    private final PromotionCacheManager promotionCacheManager;
 
     /**
      * 獲取所有有效活動列表。
@@ -39,6 +44,22 @@ public class CampaignController {
         return Result.ok(vos);
     }
 
+    /**
+     * 獲取分類當下適用的最優活動（含上層分類與全站活動），無適用活動時 data 為 null。
+     * 快取內的活動跨越起訖時間仍沿用，狀態於請求時依當下時間重新判定。
+     */
+    @GetMapping("/best")
+    public Result<MarketingCampaignVO> getBestCampaign(@RequestParam(required = false) Long categoryId) {
+        MarketingCampaignDTO campaign = promotionCacheManager.getBestCampaign(categoryId);
+        if (campaign == null) {
+            return Result.ok(null);
+        }
+        MarketingCampaignVO vo = convertToVO(campaign);
+        vo.setStatus(CampaignStatus.resolve(campaign.getStatus(), campaign.getStartTime(), campaign.getEndTime(),
+                LocalDateTime.now()));
+        return Result.ok(vo);
+    }
+
     /**
      * 根據代碼獲取活動詳情。
      * 找不到活動會 throw NOT_FOUND exception。
@@ -8,13 +8,14 @@ import com.nameless.mall.promotion.api.dto.FlashSaleDeductionDTO;
 import com.nameless.mall.promotion.api.dto.FlashSalePromotionDTO;
 import com.nameless.mall.promotion.api.dto.FlashSaleSkuDTO;
 import com.nameless.mall.promotion.api.vo.FlashSalePromotionVO;
-import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
 import com.nameless.mall.promotion.api.vo.FlashSaleSkuVO;
 import com.nameless.mall.promotion.exception.SentinelBlockHandler;
-import com.nameless.mall.promotion.service.FlashSalePromotionService;
 import com.nameless.mall.promotion.service.FlashSaleService;
+import com.nameless.mall.promotion.service.FlashSaleSessionSnapshotService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.BeanUtils;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -30,7 +31,7 @@ import java.util.stream.Collectors;
 public class FlashSaleController {
 
     private final FlashSaleService flashSaleService;
-    private final FlashSalePromotionService flashSalePromotionService;
+    private final FlashSaleSessionSnapshotService sessionSnapshotService;
 
     /**
      * 獲取當前進行中的限時特賣活動列表。
@@ -78,11 +79,16 @@ public class FlashSaleController {
 
     /**
      * 獲取當前秒殺場次（首頁展示用）。
+     * <p>
+     * 直接回傳快照中預先序列化的 {@code Result<FlashSaleSessionVO>} JSON，
+     * 僅即時庫存狀態需一次 Redis MGET。
      */
     @GetMapping("/current")
     @SentinelResource(value = "getCurrentSession", blockHandler = "handleGetCurrentSessionBlock", blockHandlerClass = SentinelBlockHandler.class)
-    public Result<FlashSaleSessionVO> getCurrentSession() {
-        return Result.ok(flashSalePromotionService.getCurrentSession());
+    public ResponseEntity<byte[]> getCurrentSession() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(sessionSnapshotService.getCurrentSessionJson());
     }
 
     /**
@@ -3,13 +3,21 @@ package com.nameless.mall.promotion.controller;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
 import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.feign.PricingResultCache;
+import com.nameless.mall.promotion.manager.PricingIndex;
+import com.nameless.mall.promotion.service.BulkPricingService;
 import com.nameless.mall.promotion.service.PriceCalculationService;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -21,14 +29,39 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PricingController {
 
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
     private final PriceCalculationService priceCalculationService;
+    private final BulkPricingService bulkPricingService;
 
     /**
      * 計算商品最佳價格
+     * <p>
+     * 回應標頭帶回計價索引的內容指紋與下一次排程變更時間，供呼叫端的 {@link PricingResultCache} 判定可快取多久。
+     * 先取排程變更時間再取索引：兩者之間若跨過邊界，有效期限只會偏早，不會讓呼叫端把舊價格快取到邊界之後。
+     * </p>
      */
     @PostMapping("/calculate")
-    public Result<List<ProductPriceResultDTO>> calculateBestPrices(@RequestBody List<ProductPriceCheckDTO> checkList) {
-        List<ProductPriceResultDTO> dtos = priceCalculationService.calculateBestPrices(checkList);
-        return Result.ok(dtos);
+    public ResponseEntity<Result<List<ProductPriceResultDTO>>> calculateBestPrices(
+            @RequestBody List<ProductPriceCheckDTO> checkList) {
+        long validUntil = priceCalculationService.nextScheduledChangeAt();
+        PricingIndex index = priceCalculationService.currentIndex();
+        List<ProductPriceResultDTO> dtos = priceCalculationService.calculateBestPrices(index, checkList);
+        return ResponseEntity.ok()
+                .header(PricingResultCache.HEADER_VERSION, Long.toHexString(index.getFingerprint()))
+                .header(PricingResultCache.HEADER_VALID_UNTIL, Long.toString(validUntil))
+                .body(Result.ok(dtos));
+    }
+
+    /**
+     * 串流批次計價（NDJSON 進、NDJSON 出），供全目錄重新計價使用。
+     * 結果依輸入順序逐批寫出，呼叫端可邊送邊收，不需組裝大型請求或回應。
+     */
+    @Operation(summary = "Internal: 串流批次計價", hidden = true)
+    @PostMapping(value = "/internal/stream", consumes = APPLICATION_NDJSON)
+    public void streamBestPrices(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType(APPLICATION_NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        bulkPricingService.priceStream(request.getInputStream(), response.getOutputStream());
     }
 }
@@ -0,0 +1,43 @@
+package com.nameless.mall.promotion.controller;
+
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.promotion.event.CampaignChangedEvent;
+import com.nameless.mall.promotion.event.FlashSaleSessionChangedEvent;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 促銷快取維運 Controller。
+ * 行銷活動目前由後台直接維護資料表，異動後經此廣播失效訊息，各實例立即重載計價快取。
+ */
+@Tag(name = "促銷服務後台", description = "快取維運等私有 API")
+@RestController
+@RequestMapping("/promotions/admin/cache")
+@RequiredArgsConstructor
+public class PromotionCacheAdminController {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Operation(summary = "廣播行銷活動變更，重載所有實例的活動快取")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/campaigns")
+    public Result<Void> campaignsChanged(@RequestParam(required = false) Long campaignId) {
+        eventPublisher.publishEvent(new CampaignChangedEvent(this, campaignId));
+        return Result.ok();
+    }
+
+    @Operation(summary = "廣播特賣場次變更，重建場次快照並重載所有實例的場次快取")
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/flash-sales")
+    public Result<Void> flashSalesChanged(@RequestParam(required = false) Long promotionId) {
+        eventPublisher.publishEvent(new FlashSaleSessionChangedEvent(this, promotionId));
+        return Result.ok();
+    }
+}
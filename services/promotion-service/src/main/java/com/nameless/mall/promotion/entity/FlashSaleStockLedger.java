@@ -0,0 +1,26 @@
+package com.nameless.mall.promotion.entity;
+
+import lombok.Data;
+
+/**
+ * 特賣庫存帳本（對帳查詢結果，非資料表）。
+ * 由 flash_sale_skus 與 flash_sale_logs 於同一查詢彙總，確保兩者來自一致快照。
+ */
+@Data
+public class FlashSaleStockLedger {
+
+    /**
+     * 商品規格 SKU ID
+     */
+    private Long variantId;
+
+    /**
+     * DB 剩餘特賣庫存
+     */
+    private Integer flashSaleStock;
+
+    /**
+     * 已落帳扣減數量 (flash_sale_logs 加總)
+     */
+    private Integer loggedQuantity;
+}
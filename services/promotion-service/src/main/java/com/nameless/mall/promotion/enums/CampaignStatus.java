@@ -2,6 +2,8 @@ package com.nameless.mall.promotion.enums;
 
 import lombok.Getter;
 
+import java.time.LocalDateTime;
+
 /**
  * 行銷活動狀態枚舉。
  */
@@ -19,4 +21,22 @@ public enum CampaignStatus {
     CampaignStatus(String description) {
         this.description = description;
     }
+
+    /**
+     * 根據指定時間與活動起訖時間判定狀態；缺少時間欄位時保留原始狀態。
+     */
+    public static String resolve(String current, LocalDateTime startTime, LocalDateTime endTime, LocalDateTime now) {
+        // 1. 缺少時間欄位時保留原始狀態
+        if (startTime == null || endTime == null)
+            return current;
+
+        // 2. 根據當前時間判定活動所處階段
+        if (now.isBefore(startTime))
+            return UPCOMING.name();
+        if (now.isAfter(endTime))
+            return ENDED.name();
+
+        // 3. 倒數 24 小時內標記為即將結束，否則為進行中
+        return endTime.minusHours(24).isBefore(now) ? ENDING_SOON.name() : ONGOING.name();
+    }
 }
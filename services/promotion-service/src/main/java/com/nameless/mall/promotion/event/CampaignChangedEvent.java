@@ -0,0 +1,18 @@
+package com.nameless.mall.promotion.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 行銷活動變更事件，觸發各實例重載行銷活動快取。
+ */
+@Getter
+public class CampaignChangedEvent extends ApplicationEvent {
+
+    private final Long campaignId; // null 代表全部活動
+
+    public CampaignChangedEvent(Object source, Long campaignId) {
+        super(source);
+        this.campaignId = campaignId;
+    }
+}
@@ -0,0 +1,18 @@
+package com.nameless.mall.promotion.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 特賣場次變更事件，觸發場次快照重建與下游服務本地快取重載。
+ */
+@Getter
+public class FlashSaleSessionChangedEvent extends ApplicationEvent {
+
+    private final Long promotionId; // null 代表全部場次
+
+    public FlashSaleSessionChangedEvent(Object source, Long promotionId) {
+        super(source);
+        this.promotionId = promotionId;
+    }
+}
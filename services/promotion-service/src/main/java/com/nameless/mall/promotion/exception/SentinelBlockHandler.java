@@ -1,9 +1,14 @@
 package com.nameless.mall.promotion.exception;
 
 import com.alibaba.csp.sentinel.slots.block.BlockException;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.nameless.mall.core.domain.Result;
 import com.nameless.mall.core.enums.ResultCodeEnum;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 
 /**
  * Sentinel 全域阻斷處理器。
@@ -16,6 +21,10 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class SentinelBlockHandler {
 
+    /** getCurrentSession 回傳預先序列化的 bytes，阻斷回應同樣預先渲染 */
+    private static final byte[] CURRENT_SESSION_BLOCKED_BODY = renderStatic(
+            Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "活動太熱烈了，請稍後再試"));
+
     /**
      * 處理 getCurrentSession 端點的限流與熔斷請求。
      * <p>
@@ -23,12 +32,13 @@ public class SentinelBlockHandler {
      * </p>
      *
      * @param ex Sentinel 阻斷異常資訊
-     * @return 封裝 503 業務碼的 Result，提示使用者稍後重試。不會拋出異常。
+     * @return 封裝 503 業務碼的 Result JSON，提示使用者稍後重試。不會拋出異常。
      */
-    public static Result<com.nameless.mall.promotion.api.vo.FlashSaleSessionVO> handleGetCurrentSessionBlock(
-            BlockException ex) {
+    public static ResponseEntity<byte[]> handleGetCurrentSessionBlock(BlockException ex) {
         log.warn("Sentinel 限流/熔斷觸發 (getCurrentSession): {}", ex.getClass().getSimpleName());
-        return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "活動太熱烈了，請稍後再試");
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(CURRENT_SESSION_BLOCKED_BODY);
     }
 
     /**
@@ -76,4 +86,14 @@ public class SentinelBlockHandler {
         log.warn("Sentinel 限流/熔斷觸發 (syncStock): {}", ex.getClass().getSimpleName());
         return Result.fail(ResultCodeEnum.SERVICE_UNAVAILABLE, "系統繁忙，暫時無法同步特賣庫存");
     }
+
+    private static byte[] renderStatic(Result<?> result) {
+        try {
+            return new ObjectMapper()
+                    .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                    .writeValueAsBytes(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
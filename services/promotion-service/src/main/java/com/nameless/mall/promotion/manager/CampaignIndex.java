@@ -0,0 +1,255 @@
+package com.nameless.mall.promotion.manager;
+
+import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
+import com.nameless.mall.promotion.enums.CampaignStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 不可變的行銷活動時間索引。
+ * <p>
+ * 收錄所有已排程（非草稿、非暫停）的活動，以起訖時間建立區間樹：
+ * 活動依開始時間排序後視為隱式平衡二元樹，每個節點記錄子樹內最晚的結束時間，
+ * 「時間 t 進行中的活動」為 O(log n + k) 的區間刺穿查詢，不需逐一比對。
+ * </p>
+ * <p>
+ * 進行中的活動集合只在某個活動開始或結束時改變，這些時間點預先排序為「邊界」。
+ * 同一段邊界區間內的查詢回傳同一個 List 實例，下游（{@link PricingIndexManager}）以參照比對即可沿用；
+ * 跨過邊界時集合自動切換，即將開始的活動準時生效，不需重新查詢資料庫。
+ * </p>
+ */
+public final class CampaignIndex {
+
+    private static final CampaignIndex EMPTY = build(List.of());
+
+    /** 依開始時間排序的活動；開始時間相同時保留原始順序 */
+    private final MarketingCampaignDTO[] campaigns;
+    /** 原始順序，折扣相同時先出現者勝出（與 {@link PricingIndex} 一致） */
+    private final int[] order;
+    /** 開始 / 結束時間 (epoch 毫秒，含端點)；缺少時以極值表示不設限 */
+    private final long[] starts;
+    private final long[] ends;
+    /** 隱式樹節點 mid 所代表子樹 [lo, hi) 內的最大結束時間 */
+    private final long[] maxEnd;
+    /** 進行中集合可能改變的時間點（開始時間、結束時間 + 1ms），已排序去重 */
+    private final long[] boundaries;
+
+    private volatile Epoch current;
+
+    private CampaignIndex(MarketingCampaignDTO[] campaigns, int[] order, long[] starts, long[] ends) {
+        this.campaigns = campaigns;
+        this.order = order;
+        this.starts = starts;
+        this.ends = ends;
+        this.maxEnd = new long[campaigns.length];
+        buildMaxEnd(0, campaigns.length);
+        this.boundaries = collectBoundaries(starts, ends);
+    }
+
+    public static CampaignIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 建立索引。
+     *
+     * @param scheduled 已排程的活動（可含尚未開始與已結束者），順序即折扣相同時的優先順序
+     */
+    public static CampaignIndex build(List<MarketingCampaignDTO> scheduled) {
+        List<Integer> eligible = new ArrayList<>(scheduled.size());
+        for (int i = 0; i < scheduled.size(); i++) {
+            MarketingCampaignDTO c = scheduled.get(i);
+            if (c != null && !CampaignStatus.DRAFT.name().equals(c.getStatus())
+                    && !CampaignStatus.SUSPENDED.name().equals(c.getStatus())) {
+                eligible.add(i);
+            }
+        }
+        eligible.sort(Comparator.comparingLong((Integer i) -> toStartMillis(scheduled.get(i).getStartTime()))
+                .thenComparingInt(i -> i));
+
+        int n = eligible.size();
+        MarketingCampaignDTO[] campaigns = new MarketingCampaignDTO[n];
+        int[] order = new int[n];
+        long[] starts = new long[n];
+        long[] ends = new long[n];
+        for (int j = 0; j < n; j++) {
+            int i = eligible.get(j);
+            campaigns[j] = scheduled.get(i);
+            order[j] = i;
+            starts[j] = toStartMillis(campaigns[j].getStartTime());
+            ends[j] = toEndMillis(campaigns[j].getEndTime());
+        }
+        return new CampaignIndex(campaigns, order, starts, ends);
+    }
+
+    /** 已收錄的活動數 */
+    public int size() {
+        return campaigns.length;
+    }
+
+    /**
+     * 時間 t 進行中的活動（依原始順序）。同一段邊界區間內回傳同一個不可變 List 實例。
+     */
+    public List<MarketingCampaignDTO> activeAt(long epochMillis) {
+        int epoch = epochOf(epochMillis);
+        Epoch e = current;
+        if (e != null && e.id() == epoch) {
+            return e.active();
+        }
+        List<MarketingCampaignDTO> active = collect(stab(epochMillis));
+        current = new Epoch(epoch, active);
+        return active;
+    }
+
+    /**
+     * 時間 t 之後進行中集合下一次可能改變的時間點（epoch 毫秒）；之後不再改變時回傳 Long.MAX_VALUE。
+     */
+    public long nextChangeAfter(long epochMillis) {
+        int epoch = epochOf(epochMillis);
+        return epoch < boundaries.length ? boundaries[epoch] : Long.MAX_VALUE;
+    }
+
+    /**
+     * 時間 t 對分類適用的最優活動（折扣率最低），含全站活動。
+     * <p>
+     * 先以區間樹取出進行中的活動，再以分類樹的 Euler tour 區間 O(1) 判定活動分類是否為目標分類的祖先（或自身）。
+     * 適用範圍與平手規則與 {@link PricingIndex} 一致：向上最多 {@link PricingIndex#MAX_CATEGORY_DEPTH} 層；
+     * 折扣相同時全站活動優先，其次為層級較近的分類，同一分類內先出現者勝出。
+     * 不在分類樹中的分類僅適用指定該分類本身的活動。
+     * </p>
+     *
+     * @return 無適用活動時回傳 null
+     */
+    public MarketingCampaignDTO bestFor(Long categoryId, long epochMillis, CategoryTreeIndex tree) {
+        MarketingCampaignDTO best = null;
+        int bestRank = Integer.MAX_VALUE;
+        for (MarketingCampaignDTO c : activeAt(epochMillis)) {
+            if (!isDiscountValid(c)) {
+                continue;
+            }
+            // 平手時 rank 較小者勝出：全站 -1，其餘為與目標分類相差的層數
+            int rank;
+            if (c.getCategoryId() == null) {
+                rank = -1;
+            } else {
+                if (categoryId == null) {
+                    continue;
+                }
+                rank = tree.distance(c.getCategoryId(), categoryId);
+                if (rank < 0 || rank >= PricingIndex.MAX_CATEGORY_DEPTH) {
+                    continue;
+                }
+            }
+            int cmp = best == null ? -1 : c.getDiscountRate().compareTo(best.getDiscountRate());
+            if (cmp < 0 || (cmp == 0 && rank < bestRank)) {
+                best = c;
+                bestRank = rank;
+            }
+        }
+        return best;
+    }
+
+    // --- 區間樹 ---
+
+    private long buildMaxEnd(int lo, int hi) {
+        if (lo >= hi) {
+            return Long.MIN_VALUE;
+        }
+        int mid = (lo + hi) >>> 1;
+        long max = Math.max(ends[mid], Math.max(buildMaxEnd(lo, mid), buildMaxEnd(mid + 1, hi)));
+        maxEnd[mid] = max;
+        return max;
+    }
+
+    private List<Integer> stab(long t) {
+        List<Integer> hits = new ArrayList<>();
+        stab(t, 0, campaigns.length, hits);
+        return hits;
+    }
+
+    private void stab(long t, int lo, int hi, List<Integer> hits) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        // 子樹內所有活動都在 t 之前結束
+        if (maxEnd[mid] < t) {
+            return;
+        }
+        stab(t, lo, mid, hits);
+        // 依開始時間排序：mid 尚未開始時，右子樹也都尚未開始
+        if (starts[mid] > t) {
+            return;
+        }
+        if (ends[mid] >= t) {
+            hits.add(mid);
+        }
+        stab(t, mid + 1, hi, hits);
+    }
+
+    private List<MarketingCampaignDTO> collect(List<Integer> hits) {
+        if (hits.isEmpty()) {
+            return List.of();
+        }
+        hits.sort(Comparator.comparingInt(i -> order[i]));
+        List<MarketingCampaignDTO> active = new ArrayList<>(hits.size());
+        for (int i : hits) {
+            active.add(campaigns[i]);
+        }
+        return Collections.unmodifiableList(active);
+    }
+
+    // --- 邊界 ---
+
+    private int epochOf(long t) {
+        // 小於等於 t 的邊界數即為區間編號
+        int i = Arrays.binarySearch(boundaries, t);
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    private static long[] collectBoundaries(long[] starts, long[] ends) {
+        long[] all = new long[starts.length * 2];
+        int n = 0;
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] != Long.MIN_VALUE) {
+                all[n++] = starts[i];
+            }
+            if (ends[i] != Long.MAX_VALUE) {
+                all[n++] = ends[i] + 1;
+            }
+        }
+        long[] sorted = Arrays.copyOf(all, n);
+        Arrays.sort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || sorted[i] != sorted[distinct - 1]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        return Arrays.copyOf(sorted, distinct);
+    }
+
+    private static long toStartMillis(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long toEndMillis(LocalDateTime time) {
+        return time == null ? Long.MAX_VALUE : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean isDiscountValid(MarketingCampaignDTO c) {
+        return c.getDiscountRate() != null
+                && c.getDiscountRate().compareTo(BigDecimal.ONE) < 0
+                && c.getDiscountRate().compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    private record Epoch(int id, List<MarketingCampaignDTO> active) {
+    }
+}
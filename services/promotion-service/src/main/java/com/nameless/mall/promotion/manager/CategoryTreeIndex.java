@@ -0,0 +1,118 @@
+package com.nameless.mall.promotion.manager;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 不可變的分類樹 Euler tour 索引。
+ * <p>
+ * 自根分類深度優先走訪，為每個分類記錄進入序 tin 與離開序 tout，
+ * 子樹內的分類恰好落在連續區間 [tin, tout)。「A 是否為 C 的祖先（或自身）」因此為兩次比較，
+ * 不需沿父分類逐層向上查找；兩者層級差由各自深度相減取得。
+ * </p>
+ * <p>
+ * 同時保留原始的 子分類 → 父分類 映射，供 {@link PricingIndex} 編譯使用。
+ * 無法自根分類走訪到的節點（資料異常形成環）不收錄，僅與自身相符。
+ * </p>
+ */
+public final class CategoryTreeIndex {
+
+    private static final CategoryTreeIndex EMPTY = build(Map.of());
+
+    private final Map<Long, Long> parents;
+    private final PricingIndex.LongIndexMap slots;
+    private final int[] tin;
+    private final int[] tout;
+    private final int[] depth;
+
+    private CategoryTreeIndex(Map<Long, Long> parents, PricingIndex.LongIndexMap slots,
+            int[] tin, int[] tout, int[] depth) {
+        this.parents = parents;
+        this.slots = slots;
+        this.tin = tin;
+        this.tout = tout;
+        this.depth = depth;
+    }
+
+    public static CategoryTreeIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * @param parents 分類 ID → 父分類 ID（根分類不在 key 中）
+     */
+    public static CategoryTreeIndex build(Map<Long, Long> parents) {
+        Map<Long, List<Long>> children = new HashMap<>();
+        Set<Long> roots = new LinkedHashSet<>();
+        for (Map.Entry<Long, Long> e : parents.entrySet()) {
+            if (e.getKey() == null || e.getValue() == null) {
+                continue;
+            }
+            children.computeIfAbsent(e.getValue(), k -> new ArrayList<>()).add(e.getKey());
+            if (!parents.containsKey(e.getValue())) {
+                roots.add(e.getValue());
+            }
+        }
+
+        int capacity = children.size() + parents.size();
+        PricingIndex.LongIndexMap slots = new PricingIndex.LongIndexMap(capacity);
+        int[] tin = new int[capacity];
+        int[] tout = new int[capacity];
+        int[] depth = new int[capacity];
+        int count = 0;
+        int clock = 0;
+
+        // 迭代式 DFS：frame = {分類 ID, 槽位, 下一個子分類索引}，避免深層遞迴
+        ArrayDeque<long[]> stack = new ArrayDeque<>();
+        for (Long root : roots) {
+            slots.put(root, count);
+            tin[count] = clock++;
+            stack.push(new long[] { root, count++, 0 });
+            while (!stack.isEmpty()) {
+                long[] frame = stack.peek();
+                List<Long> kids = children.getOrDefault(frame[0], List.of());
+                if (frame[2] < kids.size()) {
+                    Long child = kids.get((int) frame[2]++);
+                    if (slots.get(child) >= 0) {
+                        continue;
+                    }
+                    slots.put(child, count);
+                    tin[count] = clock++;
+                    depth[count] = depth[(int) frame[1]] + 1;
+                    stack.push(new long[] { child, count++, 0 });
+                } else {
+                    tout[(int) frame[1]] = clock;
+                    stack.pop();
+                }
+            }
+        }
+        return new CategoryTreeIndex(parents, slots, tin, tout, depth);
+    }
+
+    /**
+     * 分類 ID → 父分類 ID
+     */
+    public Map<Long, Long> parents() {
+        return parents;
+    }
+
+    /**
+     * ancestor 為 categoryId 的祖先（或其本身）時回傳相差的層數，否則回傳 -1。
+     */
+    public int distance(long ancestor, long categoryId) {
+        if (ancestor == categoryId) {
+            return 0;
+        }
+        int a = slots.get(ancestor);
+        int c = slots.get(categoryId);
+        if (a < 0 || c < 0 || tin[c] < tin[a] || tin[c] >= tout[a]) {
+            return -1;
+        }
+        return depth[c] - depth[a];
+    }
+}
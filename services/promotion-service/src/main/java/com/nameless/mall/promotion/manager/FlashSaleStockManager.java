@@ -12,14 +12,25 @@ import com.nameless.mall.promotion.mapper.FlashSaleSkuMapper;
 import com.nameless.mall.promotion.mapper.FlashSaleUserStatMapper;
 import com.nameless.mall.promotion.service.RedisStockService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 限時特賣庫存扣減管理器。
- * 負責原子扣減庫存、限購檢查、日誌寫入。
+ * 負責多 SKU 原子扣減庫存、限購檢查、日誌寫入。
  */
 @Slf4j
 @Component
@@ -41,113 +52,120 @@ public class FlashSaleStockManager {
     }
 
     /**
-     * 庫存預熱：將 DB 庫存同步至 Redis。
-     */
-    public void prepare(Long promotionId, Long skuId, Integer stock) {
-        redisStockService.prepareStock(promotionId, skuId, stock);
-    }
-
-    /**
-     * 原子扣減單個 SKU 庫存。
-     * 
-     * 流程：冪等檢查 → Redis 預扣 → DB 事務（查詢 + 限購 + 扣減 + 日誌）
-     * 補償：DB 失敗時回滾 Redis（DB 由 @Transactional 自動回滾）
+     * 多 SKU 原子批量扣減。
+     *
+     * 流程：冪等過濾 → Redis 單次 Lua 全有全無預扣 → DB 事務（單次查詢 + 批量限購 + 單一 UPDATE + 批量日誌）
+     * 補償：DB 失敗時以單次 Lua 整批回滾 Redis（DB 由 @Transactional 自動回滾）
      */
     @Transactional(rollbackFor = Exception.class)
-    public void deduct(FlashSaleDeductionDTO req) {
-        // 1. 冪等檢查
-        if (isAlreadyDeducted(req)) {
+    public void deductBatch(List<FlashSaleDeductionDTO> deductionList) {
+        // 1. 冪等過濾：合併重複 SKU，剔除已扣減過的訂單 + SKU
+        List<FlashSaleDeductionDTO> pending = filterNotDeducted(mergeBySku(deductionList));
+        if (pending.isEmpty()) {
             return;
         }
 
-        // 2. Redis Lua 優先扣減
-        deductRedisStockOrThrow(req);
+        // 2. Redis Lua 整批扣減（單次往返，任一 SKU 不足則整批不扣）
+        if (!redisStockService.deductBatch(pending)) {
+            throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT, "特賣商品已售罄 (Redis)");
+        }
 
         // 3. DB 事務處理 (含補償)
         try {
-            FlashSaleSku sku = findSkuOrThrow(req);
-            checkPurchaseLimit(req, sku);
-            deductDbStockAndLog(req, sku);
+            Map<String, FlashSaleSku> skuMap = findSkusOrThrow(pending);
+            checkPurchaseLimitBatch(pending, skuMap);
+            deductDbStockAndLogBatch(pending, skuMap);
         } catch (Exception e) {
-            recoverRedisStock(req);
+            log.warn("【高併發補償】交易失敗，整批退回 Redis 庫存: SKU 數量={}", pending.size());
+            redisStockService.recoverBatch(pending);
             throw e;
         }
 
-        log.info("【原子扣減完畢】orderSn={}, qty={}", req.getOrderSn(), req.getQuantity());
+        log.info("【原子扣減完畢】orderSn={}, SKU 數量={}", pending.get(0).getOrderSn(), pending.size());
     }
 
     /**
-     * 冪等檢查：若該訂單+SKU 已扣減過，則跳過。
+     * 合併同一訂單內重複的活動 + SKU，確保批量 Lua 與 CASE UPDATE 逐 SKU 僅出現一次。
      */
-    private boolean isAlreadyDeducted(FlashSaleDeductionDTO req) {
-        if (logMapper.countByOrderAndSku(req.getOrderSn(), req.getSkuId()) > 0) {
-            log.debug("【冪等】扣減已完成，跳過: orderSn={}", req.getOrderSn());
-            return true;
+    private List<FlashSaleDeductionDTO> mergeBySku(List<FlashSaleDeductionDTO> deductionList) {
+        Map<String, FlashSaleDeductionDTO> merged = new LinkedHashMap<>();
+        for (FlashSaleDeductionDTO req : deductionList) {
+            merged.merge(key(req.getOrderSn(), req.getPromotionId(), req.getSkuId()), req, (a, b) -> {
+                FlashSaleDeductionDTO sum = new FlashSaleDeductionDTO();
+                BeanUtils.copyProperties(a, sum);
+                sum.setQuantity(a.getQuantity() + b.getQuantity());
+                return sum;
+            });
         }
-        return false;
+        return new ArrayList<>(merged.values());
     }
 
     /**
-     * Redis Lua 原子扣減，失敗則拋出異常。
+     * 冪等檢查：每張訂單單次查詢已扣減的 SKU，已扣減者跳過。
      */
-    private void deductRedisStockOrThrow(FlashSaleDeductionDTO req) {
-        if (!redisStockService.deduct(req.getPromotionId(), req.getSkuId(), req.getQuantity())) {
-            throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT, "特賣商品已售罄 (Redis)");
+    private List<FlashSaleDeductionDTO> filterNotDeducted(List<FlashSaleDeductionDTO> deductionList) {
+        Map<String, Set<Long>> deductedByOrder = new HashMap<>();
+        List<FlashSaleDeductionDTO> pending = new ArrayList<>(deductionList.size());
+        for (FlashSaleDeductionDTO req : deductionList) {
+            Set<Long> deducted = deductedByOrder.computeIfAbsent(req.getOrderSn(),
+                    sn -> new HashSet<>(logMapper.selectSkuIdsByOrderSn(sn)));
+            if (deducted.contains(req.getSkuId())) {
+                log.debug("【冪等】扣減已完成，跳過: orderSn={}, skuId={}", req.getOrderSn(), req.getSkuId());
+            } else {
+                pending.add(req);
+            }
         }
+        return pending;
     }
 
     /**
-     * 查詢特賣 SKU，不存在則拋出異常。
+     * 單次查詢所有特賣 SKU，任一不存在則拋出異常。
+     *
+     * @return 活動 ID:SKU ID → 特賣 SKU
      */
-    private FlashSaleSku findSkuOrThrow(FlashSaleDeductionDTO req) {
-        FlashSaleSku sku = skuMapper.selectOne(new LambdaQueryWrapper<FlashSaleSku>()
-                .eq(FlashSaleSku::getPromotionId, req.getPromotionId())
-                .eq(FlashSaleSku::getVariantId, req.getSkuId()));
+    private Map<String, FlashSaleSku> findSkusOrThrow(List<FlashSaleDeductionDTO> pending) {
+        Set<Long> promotionIds = pending.stream().map(FlashSaleDeductionDTO::getPromotionId).collect(Collectors.toSet());
+        Set<Long> variantIds = pending.stream().map(FlashSaleDeductionDTO::getSkuId).collect(Collectors.toSet());
+        Map<String, FlashSaleSku> skuMap = skuMapper.selectList(new LambdaQueryWrapper<FlashSaleSku>()
+                .in(FlashSaleSku::getPromotionId, promotionIds)
+                .in(FlashSaleSku::getVariantId, variantIds))
+                .stream()
+                .collect(Collectors.toMap(sku -> key(sku.getPromotionId(), sku.getVariantId()),
+                        Function.identity(), (a, b) -> a));
 
-        if (sku == null) {
-            throw new BusinessException(ResultCodeEnum.PRODUCT_NOT_FOUND, "特賣商品不存在");
+        for (FlashSaleDeductionDTO req : pending) {
+            if (!skuMap.containsKey(key(req.getPromotionId(), req.getSkuId()))) {
+                throw new BusinessException(ResultCodeEnum.PRODUCT_NOT_FOUND, "特賣商品不存在");
+            }
         }
-        return sku;
+        return skuMap;
     }
 
     /**
-     * DB 原子扣減庫存並記錄日誌。
+     * DB 單一 UPDATE 扣減所有 SKU 庫存，並以單一 INSERT 記錄日誌。
      */
-    private void deductDbStockAndLog(FlashSaleDeductionDTO req, FlashSaleSku sku) {
-        // DB 原子更新
-        if (skuMapper.decreaseStock(sku.getId(), req.getQuantity()) == 0) {
+    private void deductDbStockAndLogBatch(List<FlashSaleDeductionDTO> pending, Map<String, FlashSaleSku> skuMap) {
+        // DB 原子更新（依主鍵排序，降低死鎖機率）
+        Map<Long, Integer> quantities = new TreeMap<>();
+        pending.forEach(req -> quantities.merge(
+                skuMap.get(key(req.getPromotionId(), req.getSkuId())).getId(), req.getQuantity(), Integer::sum));
+        if (skuMapper.decreaseStockBatch(quantities) < quantities.size()) {
             throw new BusinessException(ResultCodeEnum.STOCK_INSUFFICIENT, "系統繁忙，請稍後再試");
         }
 
         // 記錄扣減日誌
-        FlashSaleLog logEntry = FlashSaleLog.builder()
-                .promotionId(req.getPromotionId())
-                .skuId(req.getSkuId())
-                .userId(req.getUserId())
-                .orderSn(req.getOrderSn())
-                .quantity(req.getQuantity())
-                .deductedAt(LocalDateTime.now())
-                .build();
-        logMapper.insert(logEntry);
-    }
-
-    /**
-     * 補償：回滾 Redis 庫存（用於 DB 事務失敗時）。
-     */
-    private void recoverRedisStock(FlashSaleDeductionDTO req) {
-        log.warn("【高併發補償】交易失敗，退回 Redis 庫存: promoId={}, skuId={}",
-                req.getPromotionId(), req.getSkuId());
-        redisStockService.recoverStock(req.getPromotionId(), req.getSkuId(), req.getQuantity());
-    }
-
-    /**
-     * 僅 rollback Redis 庫存，不涉及 DB。
-     * 用於批量扣減過程中，局部 SKU 失敗時的全量補償。
-     */
-    public void rollbackRedisOnly(FlashSaleDeductionDTO req) {
-        log.warn("【補償】僅 rollback Redis 庫存: promoId={}, skuId={}, qty={}",
-                req.getPromotionId(), req.getSkuId(), req.getQuantity());
-        redisStockService.recoverStock(req.getPromotionId(), req.getSkuId(), req.getQuantity());
+        LocalDateTime now = LocalDateTime.now();
+        List<FlashSaleLog> logs = pending.stream()
+                .map(req -> FlashSaleLog.builder()
+                        .promotionId(req.getPromotionId())
+                        .skuId(req.getSkuId())
+                        .userId(req.getUserId())
+                        .orderSn(req.getOrderSn())
+                        .quantity(req.getQuantity())
+                        .deductedAt(now)
+                        .build())
+                .collect(Collectors.toList());
+        logMapper.insertBatch(logs);
     }
 
     /**
@@ -203,39 +221,71 @@ public class FlashSaleStockManager {
     }
 
     /**
-     * 限購檢查與用戶統計更新。
+     * 批量限購檢查與用戶統計更新。
      */
-    private void checkPurchaseLimit(FlashSaleDeductionDTO req, FlashSaleSku sku) {
-        // 1. 若未設定限購，直接跳過
-        if (sku.getLimitPerUser() == null || sku.getLimitPerUser() <= 0) {
+    private void checkPurchaseLimitBatch(List<FlashSaleDeductionDTO> pending, Map<String, FlashSaleSku> skuMap) {
+        // 1. 僅處理設有限購的 SKU
+        List<FlashSaleDeductionDTO> limited = pending.stream()
+                .filter(req -> {
+                    Integer limit = skuMap.get(key(req.getPromotionId(), req.getSkuId())).getLimitPerUser();
+                    return limit != null && limit > 0;
+                })
+                .collect(Collectors.toList());
+        if (limited.isEmpty()) {
             return;
         }
 
-        // 2. 行鎖查詢用戶已購數量（SELECT FOR UPDATE）
-        FlashSaleUserStat stat = userStatMapper.selectForUpdate(
-                req.getPromotionId(), req.getSkuId(), req.getUserId());
-        int current = (stat != null) ? stat.getPurchasedCount() : 0;
+        // 2. 依用戶分組，單次行鎖查詢已購數量（SELECT FOR UPDATE）
+        LocalDateTime now = LocalDateTime.now();
+        List<FlashSaleUserStat> newStats = new ArrayList<>();
+        Map<Long, Integer> increments = new TreeMap<>();
+        limited.stream().collect(Collectors.groupingBy(FlashSaleDeductionDTO::getUserId)).forEach((userId, items) -> {
+            Map<String, FlashSaleUserStat> statMap = userStatMapper.selectForUpdateBatch(userId, items).stream()
+                    .collect(Collectors.toMap(stat -> key(stat.getPromotionId(), stat.getSkuId()),
+                            Function.identity(), (a, b) -> a));
 
-        // 3. 校驗是否超過每人限購上限
-        if (current + req.getQuantity() > sku.getLimitPerUser()) {
-            throw new BusinessException(ResultCodeEnum.FORBIDDEN,
-                    "超過每人限購數量 (" + sku.getLimitPerUser() + " 件)");
+            for (FlashSaleDeductionDTO req : items) {
+                // 3. 校驗是否超過每人限購上限
+                int limit = skuMap.get(key(req.getPromotionId(), req.getSkuId())).getLimitPerUser();
+                FlashSaleUserStat stat = statMap.get(key(req.getPromotionId(), req.getSkuId()));
+                int current = (stat != null) ? stat.getPurchasedCount() : 0;
+                if (current + req.getQuantity() > limit) {
+                    throw new BusinessException(ResultCodeEnum.FORBIDDEN,
+                            "超過每人限購數量 (" + limit + " 件)");
+                }
+
+                // 4. 收集待新增與待累加的用戶購買統計
+                if (stat == null) {
+                    newStats.add(FlashSaleUserStat.builder()
+                            .promotionId(req.getPromotionId())
+                            .skuId(req.getSkuId())
+                            .userId(userId)
+                            .purchasedCount(req.getQuantity())
+                            .updatedAt(now)
+                            .build());
+                } else {
+                    increments.put(stat.getId(), req.getQuantity());
+                }
+            }
+        });
+
+        // 5. 批量寫回
+        if (!newStats.isEmpty()) {
+            userStatMapper.insertBatch(newStats);
+        }
+        if (!increments.isEmpty()) {
+            userStatMapper.increasePurchasedBatch(increments);
         }
+    }
 
-        // 4. 更新或新增用戶購買統計
-        if (stat == null) {
-            FlashSaleUserStat newStat = FlashSaleUserStat.builder()
-                    .promotionId(req.getPromotionId())
-                    .skuId(req.getSkuId())
-                    .userId(req.getUserId())
-                    .purchasedCount(req.getQuantity())
-                    .updatedAt(LocalDateTime.now())
-                    .build();
-            userStatMapper.insert(newStat);
-        } else {
-            stat.setPurchasedCount(current + req.getQuantity());
-            stat.setUpdatedAt(LocalDateTime.now());
-            userStatMapper.updateById(stat);
+    private static String key(Object... parts) {
+        StringBuilder sb = new StringBuilder();
+        for (Object part : parts) {
+            if (sb.length() > 0) {
+                sb.append(':');
+            }
+            sb.append(part);
         }
+        return sb.toString();
     }
 }
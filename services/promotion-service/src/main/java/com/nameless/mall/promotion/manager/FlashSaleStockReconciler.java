@@ -0,0 +1,122 @@
+package com.nameless.mall.promotion.manager;
+
+import com.nameless.mall.promotion.entity.FlashSaleStockLedger;
+import com.nameless.mall.promotion.mapper.FlashSaleSkuMapper;
+import com.nameless.mall.promotion.service.RedisStockService;
+import com.nameless.mall.promotion.service.RedisStockService.StockCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 特賣庫存對帳器。
+ * <p>
+ * 取代「以 DB 庫存直接 SET 覆蓋 Redis」的預熱方式：活動進行中 Redis 可能已有尚未落帳的扣減，
+ * 直接覆蓋會把這些扣減抹掉。對帳以 Redis 已扣減計數與 flash_sale_logs 的差值估算待落帳扣減，
+ * 期望庫存 = DB 剩餘庫存 − 待落帳扣減，僅對偏差的 SKU 套用修正量。
+ * </p>
+ * <p>
+ * 流程：單次查詢讀 DB 帳本 → 單次 MGET 讀 Redis 計數 → 計算偏差並記錄指標 →
+ * 對偏差 SKU 以 pipeline Lua 原子修正（Lua 內以最新計數重算，避免覆蓋 MGET 之後的扣減）。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashSaleStockReconciler {
+
+    private static final String METRIC_DRIFT = "flash_sale.stock.drift";
+    private static final String METRIC_CORRECTIONS = "flash_sale.stock.reconcile.corrections";
+
+    private final FlashSaleSkuMapper skuMapper;
+    private final RedisStockService redisStockService;
+    private final MeterRegistry meterRegistry;
+
+    /** 每個 SKU 最近一次觀測到的偏差（Gauge 持有強參照） */
+    private final Map<String, AtomicLong> driftGauges = new ConcurrentHashMap<>();
+
+    /**
+     * 對帳單一活動的所有 SKU。
+     *
+     * @return 實際修正的 SKU 數量
+     */
+    public int reconcile(Long promotionId) {
+        // 1. 單次查詢讀取 DB 剩餘庫存與已落帳扣減
+        List<FlashSaleStockLedger> ledgers = skuMapper.selectStockLedger(promotionId);
+        if (ledgers.isEmpty()) {
+            return 0;
+        }
+
+        // 2. 單次 MGET 讀取 Redis 庫存與已扣減計數
+        List<Long> skuIds = ledgers.stream().map(FlashSaleStockLedger::getVariantId).collect(Collectors.toList());
+        List<StockCounter> counters = redisStockService.multiGetCounters(promotionId, skuIds);
+
+        // 3. 計算偏差並記錄每個 SKU 的指標
+        List<FlashSaleStockLedger> drifted = new ArrayList<>();
+        for (int i = 0; i < ledgers.size(); i++) {
+            FlashSaleStockLedger ledger = ledgers.get(i);
+            StockCounter counter = counters.get(i);
+            long drift = computeDrift(ledger, counter);
+            recordDrift(promotionId, ledger.getVariantId(), drift);
+            if (counter.getStock() == null || counter.getDeducted() == null || drift != 0) {
+                drifted.add(ledger);
+            }
+        }
+        if (drifted.isEmpty()) {
+            log.debug("【庫存對帳】活動 ID={} 無偏差，SKU 數量={}", promotionId, ledgers.size());
+            return 0;
+        }
+
+        // 4. 僅對偏差 SKU 以 pipeline Lua 套用修正量
+        List<Long> deltas = redisStockService.reconcileBatch(promotionId, drifted);
+        int corrected = 0;
+        for (int i = 0; i < drifted.size(); i++) {
+            long delta = deltas.get(i);
+            if (delta != 0) {
+                corrected++;
+                log.warn("【庫存對帳】修正 Redis 庫存: promotionId={}, skuId={}, delta={}",
+                        promotionId, drifted.get(i).getVariantId(), delta);
+            }
+        }
+        meterRegistry.counter(METRIC_CORRECTIONS, "promotionId", String.valueOf(promotionId))
+                .increment(corrected);
+        log.info("【庫存對帳】活動 ID={}, SKU 數量={}, 修正數={}", promotionId, ledgers.size(), corrected);
+        return corrected;
+    }
+
+    /**
+     * 偏差 = Redis 庫存 − 期望庫存（正值代表 Redis 多出庫存，有超賣風險）。
+     * 與 stock_reconcile.lua 的判定一致；Key 缺失時以 0 計。
+     */
+    private long computeDrift(FlashSaleStockLedger ledger, StockCounter counter) {
+        int dbStock = ledger.getFlashSaleStock();
+        if (counter.getStock() == null) {
+            return -dbStock;
+        }
+        int stock = counter.getStock();
+        if (counter.getDeducted() == null) {
+            return Math.max(0, stock - dbStock);
+        }
+        long pending = (long) counter.getDeducted() - ledger.getLoggedQuantity();
+        long expected = Math.max(0, dbStock - pending);
+        return stock - expected;
+    }
+
+    private void recordDrift(Long promotionId, Long skuId, long drift) {
+        String key = promotionId + ":" + skuId;
+        driftGauges.computeIfAbsent(key, k -> meterRegistry.gauge(METRIC_DRIFT,
+                Tags.of("promotionId", String.valueOf(promotionId),
+                        "skuId", String.valueOf(skuId)),
+                new AtomicLong()))
+                .set(drift);
+    }
+}
@@ -0,0 +1,133 @@
+package com.nameless.mall.promotion.manager;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.promotion.api.vo.FlashSaleProductVO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
+import com.nameless.mall.promotion.entity.FlashSalePromotion;
+import com.nameless.mall.promotion.entity.FlashSaleSku;
+import com.nameless.mall.promotion.mapper.FlashSaleSkuMapper;
+import com.nameless.mall.promotion.service.FlashSalePromotionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 特賣場次預熱管理器。
+ * 負責在場次開始前將庫存與商品資訊寫入 Redis。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashSaleWarmupManager {
+
+    public static final String PRODUCT_PREFIX = "flash_sale:product:"; // Hash: variantId → FlashSaleProductVO JSON
+    private static final String WARMED_PREFIX = "flash_sale:warmed:";
+
+    /** 預熱資料在場次結束後多保留的時間，供延遲的訂單與補償流程讀取 */
+    private static final Duration RETENTION_AFTER_END = Duration.ofHours(1);
+
+    private final FlashSaleSkuMapper skuMapper;
+    private final FlashSalePromotionService promotionService;
+    private final FlashSaleStockReconciler stockReconciler;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 搶占場次預熱權（SETNX），多實例下同一場次僅預熱一次。
+     *
+     * @return true 代表由本實例負責預熱
+     */
+    public boolean tryMarkWarming(FlashSalePromotion promotion, LocalDateTime now) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue()
+                .setIfAbsent(WARMED_PREFIX + promotion.getId(), "1", retention(promotion, now)));
+    }
+
+    /**
+     * 預熱失敗時釋放預熱權，讓下一輪排程重試。
+     */
+    public void unmarkWarming(Long promotionId) {
+        redisTemplate.delete(WARMED_PREFIX + promotionId);
+    }
+
+    /**
+     * 預熱單一場次。
+     * 庫存經由對帳器寫入，已開始的場次不會被 DB 庫存覆蓋掉進行中的扣減。
+     *
+     * @return 預熱的 SKU 數量
+     */
+    public int warmUp(FlashSalePromotion promotion, LocalDateTime now) {
+        List<FlashSaleSku> skus = findSkus(promotion.getId());
+        if (skus.isEmpty()) {
+            return 0;
+        }
+
+        // 1. 庫存 Key：以對帳寫入（未開始的場次即為 DB 庫存；已開始的場次保留進行中的扣減）
+        boolean started = !now.isBefore(promotion.getStartTime());
+        stockReconciler.reconcile(promotion.getId());
+
+        // 2. 商品資訊（單次 pipeline）
+        writeProducts(promotion.getId(), fetchProductJson(promotion.getId()), retention(promotion, now));
+
+        log.info("【場次預熱】活動 ID={}, SKU 數量={}, 已開始={}", promotion.getId(), skus.size(), started);
+        return skus.size();
+    }
+
+    private List<FlashSaleSku> findSkus(Long promotionId) {
+        return skuMapper.selectList(
+                new LambdaQueryWrapper<FlashSaleSku>().eq(FlashSaleSku::getPromotionId, promotionId));
+    }
+
+    /**
+     * 組裝場次商品資訊並序列化（variantId → JSON）。Product Service 不可用時略過，不阻斷庫存預熱。
+     */
+    private Map<String, String> fetchProductJson(Long promotionId) {
+        Map<String, String> productJson = new HashMap<>();
+        try {
+            FlashSaleSessionVO session = promotionService.getSessionById(promotionId);
+            if (session == null || session.getProducts() == null) {
+                return productJson;
+            }
+            for (FlashSaleProductVO product : session.getProducts()) {
+                productJson.put(String.valueOf(product.getVariantId()), objectMapper.writeValueAsString(product));
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("【場次預熱】商品資訊序列化失敗: promotionId={}", promotionId, e);
+        } catch (Exception e) {
+            log.warn("【場次預熱】商品資訊載入失敗，僅預熱庫存: promotionId={}, error={}", promotionId, e.getMessage());
+        }
+        return productJson;
+    }
+
+    /**
+     * 寫入場次商品資訊（單次 pipeline）。
+     * 售罄判斷以庫存 Key 為準（扣減 Lua 讀到 0 即拒絕），每人限購於 DB 行鎖內檢查，皆不另存 Redis 副本。
+     */
+    private void writeProducts(Long promotionId, Map<String, String> productJson, Duration ttl) {
+        if (productJson.isEmpty()) {
+            return;
+        }
+        String productKey = PRODUCT_PREFIX + promotionId;
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            conn.hMSet(productKey, productJson);
+            conn.pExpire(productKey, ttl.toMillis());
+            return null;
+        });
+    }
+
+    private Duration retention(FlashSalePromotion promotion, LocalDateTime now) {
+        Duration untilEnd = Duration.between(now, promotion.getEndTime());
+        return untilEnd.isNegative() ? RETENTION_AFTER_END : untilEnd.plus(RETENTION_AFTER_END);
+    }
+}
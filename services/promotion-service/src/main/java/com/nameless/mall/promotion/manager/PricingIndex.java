@@ -0,0 +1,301 @@
+package com.nameless.mall.promotion.manager;
+
+import com.nameless.mall.core.domain.Money;
+import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.enums.PromotionType;
+import com.nameless.mall.promotion.api.vo.FlashSaleProductVO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 不可變的計價索引。
+ * <p>
+ * 由閃購場次、行銷活動與分類樹預先編譯而成：閃購價以 long 為鍵的開放定址表存放；
+ * 行銷活動已沿分類祖先鏈解析為「每個分類的最優活動」（含全站活動）。
+ * 單次查價僅需一次雜湊探測（以原生 long 為鍵，不裝箱）；閃購折扣額於建立時算好，
+ * 行銷活動折扣率預先拆解為定點數係數，以 {@link Money} 計算折後價。
+ * 查價仍會配置回傳的 {@link ProductPriceResultDTO}，行銷活動另配置 Money 與折後價 / 折扣額 BigDecimal
+ * （PriceCalculationBenchmark 以 GC profiler 量測約 110 B/op），皆為短命物件。
+ * </p>
+ * <p>
+ * 索引建立後不再修改，可被多執行緒無鎖共用；輸入變更時由 {@link PricingIndexManager} 整份替換。
+ * </p>
+ */
+public final class PricingIndex {
+
+    /** 與原計價邏輯一致：沿分類路徑最多向上查找 10 層 */
+    static final int MAX_CATEGORY_DEPTH = 10;
+
+    private static final PricingIndex EMPTY = new PricingIndex(0L, 0L, null, null,
+            new LongIndexMap(0), new BigDecimal[0], new BigDecimal[0], new BigDecimal[0],
+            new LongIndexMap(0), new CampaignRate[0], null);
+
+    private final long version;
+    /** 輸入內容指紋；同樣的輸入在任何實例上皆相同，可對外作為計價版本標記 */
+    private final long fingerprint;
+
+    private final Long sessionId;
+    private final String sessionName;
+    private final LongIndexMap flashSlots;
+    private final BigDecimal[] flashPrices;
+    private final BigDecimal[] flashOriginalPrices;
+    /** 閃購原價存在時預先算好的折扣額；原價缺失時為 null，查價時以商品原價計算 */
+    private final BigDecimal[] flashDiscounts;
+
+    private final LongIndexMap categorySlots;
+    private final CampaignRate[] categoryBest;
+    private final CampaignRate globalBest;
+
+    private PricingIndex(long version, long fingerprint, Long sessionId, String sessionName,
+            LongIndexMap flashSlots, BigDecimal[] flashPrices, BigDecimal[] flashOriginalPrices,
+            BigDecimal[] flashDiscounts, LongIndexMap categorySlots, CampaignRate[] categoryBest,
+            CampaignRate globalBest) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.sessionId = sessionId;
+        this.sessionName = sessionName;
+        this.flashSlots = flashSlots;
+        this.flashPrices = flashPrices;
+        this.flashOriginalPrices = flashOriginalPrices;
+        this.flashDiscounts = flashDiscounts;
+        this.categorySlots = categorySlots;
+        this.categoryBest = categoryBest;
+        this.globalBest = globalBest;
+    }
+
+    public static PricingIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 編譯計價索引。
+     *
+     * @param version     索引版本（僅在輸入內容變更時遞增）
+     * @param fingerprint 輸入內容指紋
+     * @param session   當前有效的閃購場次，可為 null
+     * @param campaigns 當前有效的行銷活動
+     * @param parents   分類 ID → 父分類 ID
+     */
+    public static PricingIndex build(long version, long fingerprint, FlashSaleSessionVO session,
+            List<MarketingCampaignDTO> campaigns, Map<Long, Long> parents) {
+
+        // 1. 閃購：variantId → 槽位（重複的 variantId 保留第一筆，與原 toMap 行為一致）
+        List<FlashSaleProductVO> products = session != null && session.getProducts() != null
+                ? session.getProducts()
+                : List.of();
+        LongIndexMap flashSlots = new LongIndexMap(products.size());
+        BigDecimal[] flashPrices = new BigDecimal[products.size()];
+        BigDecimal[] flashOriginalPrices = new BigDecimal[products.size()];
+        BigDecimal[] flashDiscounts = new BigDecimal[products.size()];
+        int flashCount = 0;
+        for (FlashSaleProductVO p : products) {
+            if (p.getVariantId() == null || flashSlots.get(p.getVariantId()) >= 0) {
+                continue;
+            }
+            flashSlots.put(p.getVariantId(), flashCount);
+            flashPrices[flashCount] = p.getFlashPrice();
+            flashOriginalPrices[flashCount] = p.getOriginalPrice();
+            if (p.getFlashPrice() != null && p.getOriginalPrice() != null) {
+                flashDiscounts[flashCount] = p.getOriginalPrice().subtract(p.getFlashPrice());
+            }
+            flashCount++;
+        }
+
+        // 2. 行銷活動：過濾無效折扣後按分類分組（保留原始順序，折扣相同時先出現者勝出）
+        MarketingCampaignDTO globalBest = null;
+        Map<Long, List<MarketingCampaignDTO>> byCategory = new HashMap<>();
+        for (MarketingCampaignDTO c : campaigns) {
+            if (!isDiscountValid(c)) {
+                continue;
+            }
+            if (c.getCategoryId() == null) {
+                globalBest = better(globalBest, c);
+            } else {
+                byCategory.computeIfAbsent(c.getCategoryId(), k -> new ArrayList<>()).add(c);
+            }
+        }
+
+        // 3. 對每個已知分類沿祖先鏈解析最優活動，僅保存優於全站活動的分類
+        Set<Long> categoryIds = new LinkedHashSet<>(parents.keySet());
+        categoryIds.addAll(parents.values());
+        categoryIds.addAll(byCategory.keySet());
+        categoryIds.remove(null);
+
+        LongIndexMap categorySlots = new LongIndexMap(categoryIds.size());
+        CampaignRate[] categoryBest = new CampaignRate[categoryIds.size()];
+        int categoryCount = 0;
+        if (!byCategory.isEmpty()) {
+            for (Long categoryId : categoryIds) {
+                MarketingCampaignDTO best = globalBest;
+                Long cur = categoryId;
+                int depth = 0;
+                while (cur != null && depth++ < MAX_CATEGORY_DEPTH) {
+                    for (MarketingCampaignDTO c : byCategory.getOrDefault(cur, List.of())) {
+                        best = better(best, c);
+                    }
+                    cur = parents.get(cur);
+                }
+                if (best != globalBest) {
+                    categorySlots.put(categoryId, categoryCount);
+                    categoryBest[categoryCount++] = CampaignRate.of(best);
+                }
+            }
+        }
+
+        return new PricingIndex(version, fingerprint,
+                session != null ? session.getId() : null,
+                session != null ? session.getName() : null,
+                flashSlots, flashPrices, flashOriginalPrices, flashDiscounts,
+                categorySlots, categoryBest, globalBest != null ? CampaignRate.of(globalBest) : null);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * 計算單一商品的最優價格（閃購 > 行銷活動 > 原價）。
+     */
+    public ProductPriceResultDTO price(ProductPriceCheckDTO item) {
+        Long variantId = item.getVariantId();
+
+        // 1. 閃購（不可與其他活動疊加）
+        int slot = variantId != null ? flashSlots.get(variantId) : -1;
+        if (slot >= 0 && flashPrices[slot] != null) {
+            if (flashOriginalPrices[slot] != null) {
+                return buildResult(variantId, flashOriginalPrices[slot], flashPrices[slot], flashDiscounts[slot],
+                        PromotionType.FLASH_SALE.name(), sessionId, sessionName);
+            }
+            BigDecimal base = item.getOriginalPrice();
+            return buildResult(variantId, base, flashPrices[slot], base.subtract(flashPrices[slot]),
+                    PromotionType.FLASH_SALE.name(), sessionId, sessionName);
+        }
+
+        // 2. 行銷活動（已預先沿分類祖先解析）
+        BigDecimal originalPrice = item.getOriginalPrice();
+        if (originalPrice == null) {
+            return buildNoneResult(variantId, BigDecimal.ZERO);
+        }
+        CampaignRate campaign = bestCampaign(item.getCategoryId());
+        if (campaign == null) {
+            return buildNoneResult(variantId, originalPrice);
+        }
+        Money original = Money.round(originalPrice);
+        Money finalPrice = original.times(campaign.rateUnscaled(), campaign.rateScale());
+        return buildResult(variantId, originalPrice, finalPrice.toBigDecimal(),
+                original.minus(finalPrice).toBigDecimal(),
+                PromotionType.CAMPAIGN.name(), campaign.id(), campaign.title());
+    }
+
+    /**
+     * 取得分類適用的最優行銷活動；未收錄的分類（或 null）僅適用全站活動。
+     */
+    private CampaignRate bestCampaign(Long categoryId) {
+        if (categoryId == null) {
+            return globalBest;
+        }
+        int slot = categorySlots.get(categoryId);
+        return slot >= 0 ? categoryBest[slot] : globalBest;
+    }
+
+    private static MarketingCampaignDTO better(MarketingCampaignDTO current, MarketingCampaignDTO candidate) {
+        return current == null || candidate.getDiscountRate().compareTo(current.getDiscountRate()) < 0
+                ? candidate
+                : current;
+    }
+
+    private static boolean isDiscountValid(MarketingCampaignDTO c) {
+        return c.getDiscountRate() != null
+                && c.getDiscountRate().compareTo(BigDecimal.ONE) < 0
+                && c.getDiscountRate().compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    private static ProductPriceResultDTO buildResult(Long variantId, BigDecimal original, BigDecimal finalPrice,
+            BigDecimal discount, String type, Long id, String name) {
+        return ProductPriceResultDTO.builder()
+                .variantId(variantId)
+                .originalPrice(original)
+                .finalPrice(finalPrice)
+                .discountAmount(discount)
+                .promotionType(type)
+                .promotionId(id)
+                .promotionName(name)
+                .build();
+    }
+
+    private static ProductPriceResultDTO buildNoneResult(Long variantId, BigDecimal price) {
+        return buildResult(variantId, price, price, price.subtract(price), PromotionType.NONE.name(), null, null);
+    }
+
+    /**
+     * 預先拆解的活動折扣率（未縮放值 × 10^-scale），查價時不需再從 BigDecimal 取值。
+     */
+    private record CampaignRate(Long id, String title, long rateUnscaled, int rateScale) {
+
+        static CampaignRate of(MarketingCampaignDTO c) {
+            BigDecimal rate = c.getDiscountRate();
+            return new CampaignRate(c.getId(), c.getTitle(), rate.unscaledValue().longValueExact(), rate.scale());
+        }
+    }
+
+    /**
+     * long → 陣列槽位的開放定址雜湊表（線性探測，負載因子 ≤ 0.5）。
+     * 以原生型別存放鍵值，查找時不需裝箱。
+     */
+    static final class LongIndexMap {
+
+        private final long[] keys;
+        /** 槽位 + 1，0 代表空位 */
+        private final int[] slots;
+        private final int shift;
+        private final int mask;
+
+        LongIndexMap(int expected) {
+            int capacity = Integer.highestOneBit(Math.max(1, expected) * 2 - 1) << 1;
+            this.keys = new long[capacity];
+            this.slots = new int[capacity];
+            this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void put(long key, int slot) {
+            int i = indexFor(key);
+            while (slots[i] != 0 && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            slots[i] = slot + 1;
+        }
+
+        /**
+         * @return 槽位，不存在時回傳 -1
+         */
+        int get(long key) {
+            int i = indexFor(key);
+            while (slots[i] != 0) {
+                if (keys[i] == key) {
+                    return slots[i] - 1;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        private int indexFor(long key) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.nameless.mall.promotion.manager;
+
+import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
+import com.nameless.mall.promotion.api.vo.FlashSaleProductVO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 計價索引管理器。
+ * <p>
+ * 持有當前的 {@link PricingIndex}，僅在閃購場次、行銷活動或分類樹變更時重建。
+ * 判定分兩層：來源物件參照相同直接沿用（熱路徑無額外成本）；參照不同時再比對內容指紋，
+ * 內容未變（例如場次快取到期重新查詢）只更新參照，不重建也不遞增版本。
+ * </p>
+ */
+@Slf4j
+@Component
+public class PricingIndexManager {
+
+    private volatile Snapshot snapshot = new Snapshot(PricingIndex.empty(), null, null, null, 0L);
+
+    /**
+     * 取得與輸入一致的計價索引，必要時重建。
+     */
+    public PricingIndex resolve(FlashSaleSessionVO session, List<MarketingCampaignDTO> campaigns,
+            Map<Long, Long> parents) {
+        Snapshot s = snapshot;
+        if (s.session == session && s.campaigns == campaigns && s.parents == parents) {
+            return s.index;
+        }
+        return refresh(session, campaigns, parents);
+    }
+
+    /**
+     * 當前索引版本，供快取鍵與監控使用。
+     */
+    public long currentVersion() {
+        return snapshot.index.getVersion();
+    }
+
+    private synchronized PricingIndex refresh(FlashSaleSessionVO session, List<MarketingCampaignDTO> campaigns,
+            Map<Long, Long> parents) {
+        Snapshot s = snapshot;
+        if (s.session == session && s.campaigns == campaigns && s.parents == parents) {
+            return s.index;
+        }
+
+        long fingerprint = fingerprint(session, campaigns, parents);
+        PricingIndex index = s.index;
+        if (fingerprint != s.fingerprint || index == PricingIndex.empty()) {
+            index = PricingIndex.build(index.getVersion() + 1, fingerprint, session, campaigns, parents);
+            log.info("【計價引擎】計價索引已重建: version={}, 活動數={}, 分類數={}",
+                    index.getVersion(), campaigns.size(), parents.size());
+        }
+        snapshot = new Snapshot(index, session, campaigns, parents, fingerprint);
+        return index;
+    }
+
+    /**
+     * 計算影響定價的欄位指紋（分類樹以順序無關的方式累加）。
+     */
+    private static long fingerprint(FlashSaleSessionVO session, List<MarketingCampaignDTO> campaigns,
+            Map<Long, Long> parents) {
+        long h = 1L;
+        if (session != null) {
+            h = mix(h, Objects.hashCode(session.getId()));
+            h = mix(h, Objects.hashCode(session.getName()));
+            if (session.getProducts() != null) {
+                for (FlashSaleProductVO p : session.getProducts()) {
+                    h = mix(h, Objects.hashCode(p.getVariantId()));
+                    h = mix(h, Objects.hashCode(p.getFlashPrice()));
+                    h = mix(h, Objects.hashCode(p.getOriginalPrice()));
+                }
+            }
+        }
+        for (MarketingCampaignDTO c : campaigns) {
+            h = mix(h, Objects.hashCode(c.getId()));
+            h = mix(h, Objects.hashCode(c.getTitle()));
+            h = mix(h, Objects.hashCode(c.getCategoryId()));
+            h = mix(h, Objects.hashCode(c.getDiscountRate()));
+        }
+        long tree = 0L;
+        for (Map.Entry<Long, Long> e : parents.entrySet()) {
+            tree += mix(Objects.hashCode(e.getKey()), Objects.hashCode(e.getValue()));
+        }
+        return mix(h, Long.hashCode(tree));
+    }
+
+    private static long mix(long h, int value) {
+        return (h ^ value) * 0x100000001B3L;
+    }
+
+    private record Snapshot(PricingIndex index, FlashSaleSessionVO session,
+            List<MarketingCampaignDTO> campaigns, Map<Long, Long> parents, long fingerprint) {
+    }
+}
@@ -2,10 +2,13 @@ package com.nameless.mall.promotion.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.nameless.mall.promotion.entity.FlashSaleLog;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 /** 特賣扣減日誌 Mapper */
 @Mapper
 public interface FlashSaleLogMapper extends BaseMapper<FlashSaleLog> {
@@ -16,4 +19,21 @@ public interface FlashSaleLogMapper extends BaseMapper<FlashSaleLog> {
     @Select("SELECT COUNT(*) FROM flash_sale_logs WHERE order_sn = #{orderSn} AND sku_id = #{skuId}")
     int countByOrderAndSku(@Param("orderSn") String orderSn, @Param("skuId") Long skuId);
 
+    /**
+     * 查詢該訂單已扣減過的 SKU (批量冪等檢查)
+     */
+    @Select("SELECT sku_id FROM flash_sale_logs WHERE order_sn = #{orderSn}")
+    List<Long> selectSkuIdsByOrderSn(@Param("orderSn") String orderSn);
+
+    /**
+     * 批量寫入扣減日誌 (單一 INSERT)
+     */
+    @Insert("<script>" +
+            "INSERT INTO flash_sale_logs (promotion_id, sku_id, user_id, order_sn, quantity, deducted_at) VALUES " +
+            "<foreach collection='logs' item='l' separator=','>" +
+            "(#{l.promotionId}, #{l.skuId}, #{l.userId}, #{l.orderSn}, #{l.quantity}, #{l.deductedAt})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("logs") List<FlashSaleLog> logs);
+
 }
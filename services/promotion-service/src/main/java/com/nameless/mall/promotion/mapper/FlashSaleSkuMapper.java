@@ -2,10 +2,15 @@ package com.nameless.mall.promotion.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.nameless.mall.promotion.entity.FlashSaleSku;
+import com.nameless.mall.promotion.entity.FlashSaleStockLedger;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * 限時特賣商品 Mapper
  */
@@ -24,6 +29,25 @@ public interface FlashSaleSkuMapper extends BaseMapper<FlashSaleSku> {
                         "WHERE id = #{id} AND flash_sale_stock >= #{quantity}")
         int decreaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
 
+        /**
+         * 批量扣減庫存並增加銷量（單一 UPDATE，逐列校驗庫存）
+         * 影響行數小於 SKU 數代表有 SKU 庫存不足，呼叫端需拋例外觸發整批回滾
+         *
+         * @param quantities SKU ID → 扣減數量
+         * @return 影響行數
+         */
+        @Update("<script>" +
+                        "UPDATE flash_sale_skus SET " +
+                        "flash_sale_stock = flash_sale_stock - CASE id " +
+                        "<foreach collection='quantities' index='id' item='qty'>WHEN #{id} THEN #{qty} </foreach>END, " +
+                        "sold_count = sold_count + CASE id " +
+                        "<foreach collection='quantities' index='id' item='qty'>WHEN #{id} THEN #{qty} </foreach>END " +
+                        "WHERE id IN <foreach collection='quantities' index='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+                        "AND flash_sale_stock &gt;= CASE id " +
+                        "<foreach collection='quantities' index='id' item='qty'>WHEN #{id} THEN #{qty} </foreach>END" +
+                        "</script>")
+        int decreaseStockBatch(@Param("quantities") Map<Long, Integer> quantities);
+
         /**
          * 增加庫存並減少銷量 (用於退款/取消)
          */
@@ -31,4 +55,15 @@ public interface FlashSaleSkuMapper extends BaseMapper<FlashSaleSku> {
                         "sold_count = sold_count - #{quantity} " +
                         "WHERE id = #{id}")
         int increaseStock(@Param("id") Long id, @Param("quantity") Integer quantity);
+
+        /**
+         * 查詢活動下所有 SKU 的剩餘庫存與已落帳扣減數 (對帳用)
+         * 單一語句彙總，確保庫存與日誌來自同一致性快照
+         */
+        @Select("SELECT s.variant_id, s.flash_sale_stock, COALESCE(SUM(l.quantity), 0) AS logged_quantity " +
+                        "FROM flash_sale_skus s LEFT JOIN flash_sale_logs l " +
+                        "ON l.promotion_id = s.promotion_id AND l.sku_id = s.variant_id " +
+                        "WHERE s.promotion_id = #{promotionId} " +
+                        "GROUP BY s.id, s.variant_id, s.flash_sale_stock")
+        List<FlashSaleStockLedger> selectStockLedger(@Param("promotionId") Long promotionId);
 }
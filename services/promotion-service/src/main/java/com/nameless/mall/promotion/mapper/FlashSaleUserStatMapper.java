@@ -1,10 +1,16 @@
 package com.nameless.mall.promotion.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.nameless.mall.promotion.api.dto.FlashSaleDeductionDTO;
 import com.nameless.mall.promotion.entity.FlashSaleUserStat;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+import java.util.Map;
 
 /** 特賣用戶限購統計 Mapper */
 @Mapper
@@ -21,4 +27,39 @@ public interface FlashSaleUserStatMapper extends BaseMapper<FlashSaleUserStat> {
         FlashSaleUserStat selectForUpdate(@Param("promotionId") Long promotionId,
                         @Param("skuId") Long skuId,
                         @Param("userId") Long userId);
+
+        /**
+         * 批量悲觀鎖查詢（同一用戶的多個活動 SKU，單次 SELECT FOR UPDATE）
+         */
+        @Select("<script>" +
+                        "SELECT * FROM flash_sale_user_stats WHERE user_id = #{userId} AND (promotion_id, sku_id) IN " +
+                        "<foreach collection='items' item='i' open='(' separator=',' close=')'>(#{i.promotionId}, #{i.skuId})</foreach> " +
+                        "FOR UPDATE" +
+                        "</script>")
+        List<FlashSaleUserStat> selectForUpdateBatch(@Param("userId") Long userId,
+                        @Param("items") List<FlashSaleDeductionDTO> items);
+
+        /**
+         * 批量新增用戶購買統計 (單一 INSERT)
+         */
+        @Insert("<script>" +
+                        "INSERT INTO flash_sale_user_stats (promotion_id, sku_id, user_id, purchased_count, updated_at) VALUES " +
+                        "<foreach collection='stats' item='s' separator=','>" +
+                        "(#{s.promotionId}, #{s.skuId}, #{s.userId}, #{s.purchasedCount}, #{s.updatedAt})" +
+                        "</foreach>" +
+                        "</script>")
+        int insertBatch(@Param("stats") List<FlashSaleUserStat> stats);
+
+        /**
+         * 批量累加已購數量 (單一 UPDATE)
+         *
+         * @param increments 統計 ID → 增加數量
+         */
+        @Update("<script>" +
+                        "UPDATE flash_sale_user_stats SET updated_at = NOW(), " +
+                        "purchased_count = purchased_count + CASE id " +
+                        "<foreach collection='increments' index='id' item='qty'>WHEN #{id} THEN #{qty} </foreach>END " +
+                        "WHERE id IN <foreach collection='increments' index='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+                        "</script>")
+        int increasePurchasedBatch(@Param("increments") Map<Long, Integer> increments);
 }
@@ -0,0 +1,45 @@
+package com.nameless.mall.promotion.mq;
+
+import com.nameless.mall.promotion.config.RabbitMQConfig;
+import com.nameless.mall.promotion.service.PromotionCacheManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * 計價快取失效監聽器：收到特賣場次、行銷活動或分類變更廣播後，於背景重載本實例的對應快取。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromotionCacheInvalidationListener {
+
+    private final PromotionCacheManager cacheManager;
+
+    @RabbitListener(queues = "#{promotionCacheInvalidationQueue.name}")
+    public void onChanged(Map<String, Object> message,
+            @Header(AmqpHeaders.RECEIVED_ROUTING_KEY) String routingKey) {
+        try {
+            long version = parseVersion(message.get("version"));
+            switch (routingKey) {
+                case RabbitMQConfig.ROUTING_KEY_FLASH_SALE_CHANGED -> cacheManager.invalidateFlashSale(version);
+                case RabbitMQConfig.ROUTING_KEY_CAMPAIGN_CHANGED -> cacheManager.invalidateCampaigns(version);
+                case RabbitMQConfig.ROUTING_KEY_CATEGORY_CHANGED -> cacheManager.invalidateCategoryTree(version);
+                default -> log.warn("【計價快取】未知的失效訊息: routingKey={}", routingKey);
+            }
+        } catch (Exception e) {
+            // 廣播訊息僅影響快取新鮮度，失敗不重試（TTL 兜底）
+            log.warn("【計價快取】處理失效訊息失敗: routingKey={}, msg={}, error={}", routingKey, message, e.getMessage());
+        }
+    }
+
+    /** 舊版發送端未帶版本號時回傳 0，一律重載 */
+    private long parseVersion(Object version) {
+        return version != null ? Long.parseLong(version.toString()) : 0L;
+    }
+}
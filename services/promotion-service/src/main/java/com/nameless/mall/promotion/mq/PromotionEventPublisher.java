@@ -0,0 +1,81 @@
+package com.nameless.mall.promotion.mq;
+
+import com.nameless.mall.promotion.config.RabbitMQConfig;
+import com.nameless.mall.promotion.event.CampaignChangedEvent;
+import com.nameless.mall.promotion.event.FlashSaleSessionChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 促銷變更訊息發送者
+ * 監聽特賣場次與行銷活動變更事件並廣播至 promotion.topic，
+ * 供下游服務（如 order-service）與各 promotion-service 實例重載本地快取。
+ * <p>
+ * 每則訊息帶有以 Redis INCR 產生的單調遞增版本號，接收端據此略過重複或亂序的訊息。
+ * </p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PromotionEventPublisher {
+
+    private static final String VERSION_KEY_PREFIX = "promotion:cache:version:";
+
+    private final RabbitTemplate rabbitTemplate;
+    private final StringRedisTemplate redisTemplate;
+
+    /** promotionId 為 null 代表全量變更，下游應清空所有場次快取。 */
+    @EventListener
+    public void handleSessionChanged(FlashSaleSessionChangedEvent event) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("promotionId", event.getPromotionId());
+        message.put("version", nextVersion("flash_sale"));
+        message.put("timestamp", System.currentTimeMillis());
+
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_PROMOTION_TOPIC,
+                    RabbitMQConfig.ROUTING_KEY_FLASH_SALE_CHANGED, message);
+            log.info("【MQ】特賣場次變更廣播成功: promotionId={}", event.getPromotionId());
+        } catch (Exception e) {
+            // 廣播失敗僅影響下游快取新鮮度（TTL 兜底），不阻斷主流程
+            log.error("【MQ】特賣場次變更廣播失敗: promotionId={}", event.getPromotionId(), e);
+        }
+    }
+
+    /** campaignId 為 null 代表全量變更。 */
+    @EventListener
+    public void handleCampaignChanged(CampaignChangedEvent event) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("campaignId", event.getCampaignId());
+        message.put("version", nextVersion("campaign"));
+        message.put("timestamp", System.currentTimeMillis());
+
+        try {
+            rabbitTemplate.convertAndSend(RabbitMQConfig.EXCHANGE_PROMOTION_TOPIC,
+                    RabbitMQConfig.ROUTING_KEY_CAMPAIGN_CHANGED, message);
+            log.info("【MQ】行銷活動變更廣播成功: campaignId={}", event.getCampaignId());
+        } catch (Exception e) {
+            log.error("【MQ】行銷活動變更廣播失敗: campaignId={}", event.getCampaignId(), e);
+        }
+    }
+
+    /**
+     * 取得下一個版本號；Redis 不可用時回傳 0（接收端視為未帶版本，一律重載）。
+     */
+    private long nextVersion(String scope) {
+        try {
+            Long version = redisTemplate.opsForValue().increment(VERSION_KEY_PREFIX + scope);
+            return version != null ? version : 0L;
+        } catch (Exception e) {
+            log.warn("【MQ】取得快取版本號失敗，改送未帶版本的失效訊息: scope={}, error={}", scope, e.getMessage());
+            return 0L;
+        }
+    }
+}
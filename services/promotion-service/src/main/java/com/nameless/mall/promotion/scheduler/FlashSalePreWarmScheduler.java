@@ -0,0 +1,74 @@
+package com.nameless.mall.promotion.scheduler;
+
+import com.nameless.mall.promotion.entity.FlashSalePromotion;
+import com.nameless.mall.promotion.event.FlashSaleSessionChangedEvent;
+import com.nameless.mall.promotion.manager.FlashSaleWarmupManager;
+import com.nameless.mall.promotion.service.FlashSalePromotionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 特賣場次預熱排程器。
+ * <p>
+ * 啟動時預熱只涵蓋當下已存在的活動；此排程定期找出將於 N 分鐘內開始（或已開始但尚未預熱）的場次，
+ * 在開賽前將庫存與商品資訊寫入 Redis，避免新建場次冷啟動。
+ * </p>
+ */
+@Slf4j
+@Component
+public class FlashSalePreWarmScheduler {
+
+    private final FlashSalePromotionService flashSalePromotionService;
+    private final FlashSaleWarmupManager warmupManager;
+    private final ApplicationEventPublisher eventPublisher;
+    private final long leadMinutes;
+
+    public FlashSalePreWarmScheduler(FlashSalePromotionService flashSalePromotionService,
+            FlashSaleWarmupManager warmupManager,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${flash-sale.warmup.lead-minutes:10}") long leadMinutes) {
+        this.flashSalePromotionService = flashSalePromotionService;
+        this.warmupManager = warmupManager;
+        this.eventPublisher = eventPublisher;
+        this.leadMinutes = leadMinutes;
+    }
+
+    /**
+     * 預熱 T-N 分鐘內即將開始的場次。已預熱過的場次由 Redis 標記略過。
+     */
+    @Scheduled(fixedDelayString = "${flash-sale.warmup.check-interval-ms:30000}", initialDelay = 30_000)
+    public void preWarmUpcomingSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        List<FlashSalePromotion> candidates;
+        try {
+            candidates = flashSalePromotionService.listActiveOrStartingBefore(now.plusMinutes(leadMinutes));
+        } catch (Exception e) {
+            log.error("【場次預熱】查詢待預熱場次失敗", e);
+            return;
+        }
+
+        List<Long> warmedIds = new ArrayList<>();
+        for (FlashSalePromotion promotion : candidates) {
+            if (!warmupManager.tryMarkWarming(promotion, now)) {
+                continue;
+            }
+            try {
+                warmupManager.warmUp(promotion, now);
+                warmedIds.add(promotion.getId());
+            } catch (Exception e) {
+                log.error("【場次預熱】預熱失敗，下一輪重試: promotionId={}", promotion.getId(), e);
+                warmupManager.unmarkWarming(promotion.getId());
+            }
+        }
+
+        // 逐場次通知快照重建；order-service 於開賽前收到時僅重新載入，特賣價生效後才快取場次商品
+        warmedIds.forEach(id -> eventPublisher.publishEvent(new FlashSaleSessionChangedEvent(this, id)));
+    }
+}
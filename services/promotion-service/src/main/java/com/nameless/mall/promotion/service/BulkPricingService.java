@@ -0,0 +1,22 @@
+package com.nameless.mall.promotion.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 串流批次計價服務介面。
+ * 供全目錄重新計價（搜尋索引、商品 Feed、每日價格快照）使用，輸入與輸出皆為 NDJSON。
+ */
+public interface BulkPricingService {
+
+    /**
+     * 逐行讀取 ProductPriceCheckDTO，依輸入順序逐行輸出 ProductPriceResultDTO。
+     * 整個串流使用同一份計價索引；記憶體用量僅與批次大小 × 在途批次數相關，與總筆數無關。
+     * 最後一行固定為終止紀錄（{@code count} / {@code skipped}，失敗時另帶 {@code error}），缺少即代表串流被截斷。
+     *
+     * @return 已輸出的結果筆數（不含終止紀錄）
+     * @throws com.nameless.mall.core.exception.BusinessException 並發串流數已達上限 (RATE_LIMITED)
+     */
+    long priceStream(InputStream in, OutputStream out) throws IOException;
+}
@@ -6,6 +6,7 @@ import com.nameless.mall.promotion.api.dto.FlashSalePromotionDTO;
 import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
 import com.nameless.mall.promotion.entity.FlashSalePromotion;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -25,10 +26,21 @@ public interface FlashSalePromotionService extends IService<FlashSalePromotion>
     FlashSalePromotionDTO getPromotionById(Long id);
 
     /**
-     * 獲取當前秒殺場次（首頁展示用）。
+     * 組裝當前秒殺場次（直接查詢 DB 與 Product Service，不經快取）。
+     * 首頁展示請走 {@link FlashSaleSessionSnapshotService}。
      */
     FlashSaleSessionVO getCurrentSession();
 
+    /**
+     * 查詢尚未結束且在指定時間前開始的活動（含進行中），供預熱排程使用。
+     */
+    List<FlashSalePromotion> listActiveOrStartingBefore(LocalDateTime deadline);
+
+    /**
+     * 組裝指定活動的場次資訊（含商品資訊，預熱用）。
+     */
+    FlashSaleSessionVO getSessionById(Long promotionId);
+
     /**
      * 扣減特賣庫存（事務性操作）。
      */
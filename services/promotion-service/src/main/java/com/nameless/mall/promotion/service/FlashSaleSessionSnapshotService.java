@@ -0,0 +1,269 @@
+package com.nameless.mall.promotion.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nameless.mall.core.domain.Result;
+import com.nameless.mall.core.enums.ResultCodeEnum;
+import com.nameless.mall.core.exception.BusinessException;
+import com.nameless.mall.promotion.api.vo.FlashSaleProductVO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
+import com.nameless.mall.promotion.event.FlashSaleSessionChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 特賣場次快照服務。
+ * <p>
+ * 場次 VO 僅在活動 / SKU 變更或排程到期時重建一次，序列化後同時寫入 Redis 與本地，
+ * {@code /promotions/flash-sales/current} 直接回傳預先渲染的 JSON bytes，
+ * 請求路徑上不再有 DB 查詢與 Feign 呼叫。
+ * </p>
+ * <p>
+ * 即時庫存狀態以單次 MGET 讀取 Redis 計數器覆寫；同一快照下依「售罄組合」快取渲染結果，
+ * 庫存狀態未變動時直接回傳基準 bytes。
+ * 多實例下透過 SETNX 短鎖協調，每個週期僅一個實例重建，其餘實例從 Redis 載入。
+ * </p>
+ */
+@Slf4j
+@Service
+public class FlashSaleSessionSnapshotService {
+
+    private static final String SNAPSHOT_KEY = "flash_sale:snapshot:session";
+    private static final String REBUILD_LOCK_KEY = "flash_sale:snapshot:lock";
+
+    /** 同一快照下依售罄組合快取的渲染結果上限 */
+    private static final int MAX_RENDERED_VARIANTS = 64;
+
+    private static final String STOCK_AVAILABLE = "有貨";
+    private static final String STOCK_SOLD_OUT = "售罄";
+
+    private final FlashSalePromotionService flashSalePromotionService;
+    private final RedisStockService redisStockService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final long refreshIntervalMs;
+
+    private volatile Snapshot current;
+
+    public FlashSaleSessionSnapshotService(FlashSalePromotionService flashSalePromotionService,
+            RedisStockService redisStockService,
+            StringRedisTemplate redisTemplate,
+            ObjectMapper objectMapper,
+            @Value("${flash-sale.snapshot.refresh-ms:5000}") long refreshIntervalMs) {
+        this.flashSalePromotionService = flashSalePromotionService;
+        this.redisStockService = redisStockService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.refreshIntervalMs = refreshIntervalMs;
+    }
+
+    /**
+     * 取得當前場次的 {@code Result} JSON bytes（已覆寫即時庫存狀態）。
+     */
+    public byte[] getCurrentSessionJson() {
+        Snapshot snapshot = current;
+        if (snapshot == null) {
+            snapshot = loadOrRebuild();
+        }
+        if (snapshot.session == null || snapshot.products.isEmpty()) {
+            return snapshot.baseline;
+        }
+
+        // 1. 單次 MGET 讀取所有 SKU 的 Redis 庫存
+        List<Integer> stocks;
+        try {
+            stocks = redisStockService.multiGetStock(snapshot.session.getId(), snapshot.variantIds);
+        } catch (Exception e) {
+            log.warn("【場次快照】讀取即時庫存失敗，回傳快照狀態: {}", e.getMessage());
+            return snapshot.baseline;
+        }
+
+        // 2. 計算售罄組合，與基準一致時直接回傳
+        BitSet soldOut = new BitSet(snapshot.products.size());
+        for (int i = 0; i < snapshot.products.size(); i++) {
+            Integer stock = stocks.get(i);
+            boolean out = (stock != null)
+                    ? stock <= 0
+                    : STOCK_SOLD_OUT.equals(snapshot.products.get(i).getStockStatus());
+            if (out) {
+                soldOut.set(i);
+            }
+        }
+        if (soldOut.equals(snapshot.baselineSoldOut)) {
+            return snapshot.baseline;
+        }
+
+        // 3. 依售罄組合取用或渲染覆寫後的結果
+        byte[] rendered = snapshot.rendered.get(soldOut);
+        if (rendered == null) {
+            rendered = render(overlayStockStatus(snapshot.session, soldOut));
+            if (snapshot.rendered.size() < MAX_RENDERED_VARIANTS) {
+                snapshot.rendered.putIfAbsent(soldOut, rendered);
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * 取得當前快照中的場次 VO（未覆寫即時庫存）。
+     */
+    public FlashSaleSessionVO getCurrentSession() {
+        Snapshot snapshot = current;
+        return (snapshot != null ? snapshot : loadOrRebuild()).session;
+    }
+
+    /**
+     * 定時刷新：搶到短鎖的實例負責重建，其餘實例從 Redis 載入最新快照。
+     */
+    @Scheduled(fixedDelayString = "${flash-sale.snapshot.refresh-ms:5000}", initialDelay = 5_000)
+    public void scheduledRefresh() {
+        try {
+            Boolean locked = redisTemplate.opsForValue()
+                    .setIfAbsent(REBUILD_LOCK_KEY, "1", Duration.ofMillis(refreshIntervalMs));
+            if (Boolean.TRUE.equals(locked) || !loadFromRedis()) {
+                rebuild();
+            }
+        } catch (Exception e) {
+            log.error("【場次快照】定時刷新失敗，沿用舊快照", e);
+        }
+    }
+
+    /**
+     * 活動或 SKU 變更時立即重建。
+     */
+    @EventListener
+    public void onSessionChanged(FlashSaleSessionChangedEvent event) {
+        try {
+            rebuild();
+            log.info("【場次快照】收到場次變更事件，快照已重建: promotionId={}", event.getPromotionId());
+        } catch (Exception e) {
+            log.error("【場次快照】場次變更後重建失敗，等待排程重試", e);
+        }
+    }
+
+    /**
+     * 重建快照：組裝場次 VO → 寫入 Redis → 替換本地快照。
+     */
+    public synchronized void rebuild() {
+        FlashSaleSessionVO session = flashSalePromotionService.getCurrentSession();
+        String json = toJson(session);
+        redisTemplate.opsForValue().set(SNAPSHOT_KEY, json, snapshotTtl());
+        install(json, session);
+    }
+
+    private synchronized Snapshot loadOrRebuild() {
+        // 雙重檢查：同一時間僅一個執行緒負責首次載入
+        if (current == null && !loadFromRedis()) {
+            rebuild();
+        }
+        return current;
+    }
+
+    /**
+     * 從 Redis 載入快照，內容未變動時不重新解析。
+     *
+     * @return Redis 中是否存在快照
+     */
+    private boolean loadFromRedis() {
+        String json = redisTemplate.opsForValue().get(SNAPSHOT_KEY);
+        if (json == null) {
+            return false;
+        }
+        Snapshot snapshot = current;
+        if (snapshot == null || !json.equals(snapshot.json)) {
+            try {
+                install(json, objectMapper.readValue(json, FlashSaleSessionVO.class));
+            } catch (JsonProcessingException e) {
+                log.warn("【場次快照】Redis 快照解析失敗，改為本地重建: {}", e.getOriginalMessage());
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void install(String json, FlashSaleSessionVO session) {
+        List<FlashSaleProductVO> products = (session != null && session.getProducts() != null)
+                ? session.getProducts()
+                : Collections.emptyList();
+
+        List<Long> variantIds = new ArrayList<>(products.size());
+        BitSet soldOut = new BitSet(products.size());
+        for (int i = 0; i < products.size(); i++) {
+            variantIds.add(products.get(i).getVariantId());
+            if (STOCK_SOLD_OUT.equals(products.get(i).getStockStatus())) {
+                soldOut.set(i);
+            }
+        }
+        current = new Snapshot(json, session, products, variantIds, soldOut, render(session));
+    }
+
+    private FlashSaleSessionVO overlayStockStatus(FlashSaleSessionVO session, BitSet soldOut) {
+        List<FlashSaleProductVO> products = new ArrayList<>(session.getProducts().size());
+        for (int i = 0; i < session.getProducts().size(); i++) {
+            FlashSaleProductVO copy = new FlashSaleProductVO();
+            BeanUtils.copyProperties(session.getProducts().get(i), copy);
+            copy.setStockStatus(soldOut.get(i) ? STOCK_SOLD_OUT : STOCK_AVAILABLE);
+            products.add(copy);
+        }
+        FlashSaleSessionVO copy = new FlashSaleSessionVO();
+        BeanUtils.copyProperties(session, copy);
+        return copy.setProducts(products);
+    }
+
+    private byte[] render(FlashSaleSessionVO session) {
+        try {
+            return objectMapper.writeValueAsBytes(Result.ok(session));
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ResultCodeEnum.INTERNAL_ERROR, "特賣場次序列化失敗");
+        }
+    }
+
+    private String toJson(FlashSaleSessionVO session) {
+        try {
+            return objectMapper.writeValueAsString(session);
+        } catch (JsonProcessingException e) {
+            throw new BusinessException(ResultCodeEnum.INTERNAL_ERROR, "特賣場次序列化失敗");
+        }
+    }
+
+    /** Redis 快照保留數個刷新週期，避免重建實例短暫失聯時其他實例取不到 */
+    private Duration snapshotTtl() {
+        return Duration.ofMillis(Math.max(refreshIntervalMs * 6, 30_000L));
+    }
+
+    /**
+     * 不可變快照：原始 JSON（比對用）、場次 VO、基準渲染結果與售罄組合快取。
+     */
+    private static final class Snapshot {
+        private final String json;
+        private final FlashSaleSessionVO session;
+        private final List<FlashSaleProductVO> products;
+        private final List<Long> variantIds;
+        private final BitSet baselineSoldOut;
+        private final byte[] baseline;
+        private final Map<BitSet, byte[]> rendered = new ConcurrentHashMap<>();
+
+        private Snapshot(String json, FlashSaleSessionVO session, List<FlashSaleProductVO> products,
+                List<Long> variantIds, BitSet baselineSoldOut, byte[] baseline) {
+            this.json = json;
+            this.session = session;
+            this.products = products;
+            this.variantIds = variantIds;
+            this.baselineSoldOut = baselineSoldOut;
+            this.baseline = baseline;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.nameless.mall.promotion.service;
 
 import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
 import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.manager.PricingIndex;
 
 import java.util.List;
 
@@ -15,4 +16,21 @@ public interface PriceCalculationService {
      * 計算商品列表的最佳價格。
      */
     List<ProductPriceResultDTO> calculateBestPrices(List<ProductPriceCheckDTO> checkList);
+
+    /**
+     * 以指定的計價索引計算商品列表的最佳價格，供需要同時回報索引版本的呼叫端使用。
+     */
+    List<ProductPriceResultDTO> calculateBestPrices(PricingIndex index, List<ProductPriceCheckDTO> checkList);
+
+    /**
+     * 取得與當前場次、行銷活動、分類樹一致的計價索引。
+     * 批次計價時整批使用同一份索引，確保同一次請求的價格來自同一版本。
+     */
+    PricingIndex currentIndex();
+
+    /**
+     * 計價結果下一次可能因排程（活動起訖、場次開始或結束）而改變的時間點（epoch 毫秒），
+     * 不會改變時回傳 Long.MAX_VALUE。
+     */
+    long nextScheduledChangeAt();
 }
@@ -1,47 +1,197 @@
 package com.nameless.mall.promotion.service;
 
 import com.nameless.mall.product.api.dto.CategoryDTO;
+import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
 import com.nameless.mall.promotion.client.ProductClient;
-import com.nameless.mall.promotion.config.CacheConfig;
+import com.nameless.mall.promotion.component.RefreshAheadCache;
+import com.nameless.mall.promotion.component.RefreshAheadCache.Loaded;
+import com.nameless.mall.promotion.manager.CampaignIndex;
+import com.nameless.mall.promotion.manager.CategoryTreeIndex;
 import com.nameless.mall.core.domain.Result;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
- * 分類層級快取管理服務
- * 職責：管理分類樹的攤平映射，支持快速的父子級判定
+ * 計價來源快取管理服務
+ * 職責：快取當前閃購場次、有效行銷活動與攤平的分類樹，供計價引擎查價。
+ * <p>
+ * 三者皆由變更訊息驅動失效（見 PromotionCacheInvalidationListener），背景單飛重載，
+ * 重載期間沿用舊值；TTL 僅為漏接訊息時的安全網，且於到期前（預設 80%）即在背景預先刷新，
+ * 併發請求不會在到期瞬間同時打 DB 與 product-service。場次另以其起訖時間作為到期點，
+ * 時間邊界到達時立即重載；行銷活動則整批載入已排程的活動並建立時間索引，
+ * 活動於起訖時間準時生效 / 失效，不需重新查詢。
+ * </p>
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class PromotionCacheManager {
 
+    private final FlashSalePromotionService flashSaleService;
+    private final MarketingCampaignService campaignService;
     private final ProductClient productClient;
 
+    private final RefreshAheadCache<FlashSaleSessionVO> sessionCache;
+    private final RefreshAheadCache<CampaignIndex> campaignCache;
+    private final RefreshAheadCache<CategoryTreeIndex> categoryCache;
+
+    private final long sessionSafetyTtlMs;
+    private final long campaignSafetyTtlMs;
+    private final long categorySafetyTtlMs;
+
+    public PromotionCacheManager(FlashSalePromotionService flashSaleService,
+            MarketingCampaignService campaignService,
+            ProductClient productClient,
+            @Qualifier("promotionCacheRefreshExecutor") Executor refreshExecutor,
+            @Value("${promotion.pricing-cache.session-safety-ttl-ms:300000}") long sessionSafetyTtlMs,
+            @Value("${promotion.pricing-cache.campaign-safety-ttl-ms:600000}") long campaignSafetyTtlMs,
+            @Value("${promotion.pricing-cache.category-safety-ttl-ms:3600000}") long categorySafetyTtlMs,
+            @Value("${promotion.pricing-cache.failure-backoff-ms:5000}") long failureBackoffMs,
+            @Value("${promotion.pricing-cache.refresh-ahead-ratio:0.8}") double refreshAheadRatio,
+            MeterRegistry meterRegistry) {
+        this.flashSaleService = flashSaleService;
+        this.campaignService = campaignService;
+        this.productClient = productClient;
+        this.sessionSafetyTtlMs = sessionSafetyTtlMs;
+        this.campaignSafetyTtlMs = campaignSafetyTtlMs;
+        this.categorySafetyTtlMs = categorySafetyTtlMs;
+        this.sessionCache = new RefreshAheadCache<>("flashSaleSession", this::loadSession,
+                refreshExecutor, failureBackoffMs, refreshAheadRatio, meterRegistry);
+        this.campaignCache = new RefreshAheadCache<>("campaigns", this::loadCampaignIndex,
+                refreshExecutor, failureBackoffMs, refreshAheadRatio, meterRegistry);
+        this.categoryCache = new RefreshAheadCache<>("categoryTree", this::loadCategoryTree,
+                refreshExecutor, failureBackoffMs, refreshAheadRatio, meterRegistry);
+    }
+
+    /**
+     * 獲取當前進行中的閃購場次（時間窗口外回傳 null）
+     */
+    public FlashSaleSessionVO getActiveFlashSaleSession() {
+        FlashSaleSessionVO session = sessionCache.get();
+        // 快取可能是即將開始的場次，以使用當下時間判定窗口
+        LocalDateTime now = LocalDateTime.now();
+        if (session != null
+                && session.getProducts() != null
+                && now.isAfter(session.getStartTime())
+                && now.isBefore(session.getEndTime())) {
+            return session;
+        }
+        return null;
+    }
+
+    /**
+     * 獲取目前進行中的行銷活動（已排除草稿、暫停與時間窗口外的活動）。
+     * 進行中集合未改變時回傳同一個 List 實例。
+     */
+    public List<MarketingCampaignDTO> getActiveCampaigns() {
+        return getCampaignIndex().activeAt(System.currentTimeMillis());
+    }
+
+    /**
+     * 獲取分類適用的最優行銷活動（含全站活動），無適用活動時回傳 null
+     */
+    public MarketingCampaignDTO getBestCampaign(Long categoryId) {
+        return getCampaignIndex().bestFor(categoryId, System.currentTimeMillis(), getCategoryTree());
+    }
+
+    /**
+     * 計價結果下一次可能因排程而改變的時間點（epoch 毫秒）：行銷活動起訖、閃購場次開始或結束，取最早者。
+     * 不含管理端變更，該類變更由變更訊息通知。
+     */
+    public long nextScheduledChangeAt() {
+        long now = System.currentTimeMillis();
+        long next = getCampaignIndex().nextChangeAfter(now);
+        FlashSaleSessionVO session = sessionCache.get();
+        if (session != null) {
+            next = earliest(next, session.getStartTime(), now);
+            next = earliest(next, session.getEndTime(), now);
+        }
+        return next;
+    }
+
     /**
      * 獲取分類 ID 及其父 ID 的映射 Map
      * k: 分類ID, v: 父ID
-     * 使用 Caffeine 緩存，sync=true 防止大併發下的緩存擊穿
      */
-    @Cacheable(value = CacheConfig.CACHE_CATEGORY_TREE, sync = true)
     public Map<Long, Long> getCategoryParentMap() {
-        log.info("【計價引擎】緩存未命中，正在重新加載分類樹資料...");
+        return getCategoryTree().parents();
+    }
+
+    private CampaignIndex getCampaignIndex() {
+        CampaignIndex index = campaignCache.get();
+        return index != null ? index : CampaignIndex.empty();
+    }
+
+    private CategoryTreeIndex getCategoryTree() {
+        CategoryTreeIndex tree = categoryCache.get();
+        return tree != null ? tree : CategoryTreeIndex.empty();
+    }
+
+    public void invalidateFlashSale(long version) {
+        sessionCache.invalidate(version);
+    }
+
+    public void invalidateCampaigns(long version) {
+        campaignCache.invalidate(version);
+    }
+
+    public void invalidateCategoryTree(long version) {
+        categoryCache.invalidate(version);
+    }
+
+    private Loaded<FlashSaleSessionVO> loadSession() {
+        long now = System.currentTimeMillis();
+        FlashSaleSessionVO session = flashSaleService.getCurrentSession();
+        long expiresAt = now + sessionSafetyTtlMs;
+        if (session != null) {
+            // 尚未開始的場次於開始時重載一次（取得開賣後的最新資料），進行中的場次於結束時切換至下一場
+            LocalDateTime boundary = session.getStartTime() != null && LocalDateTime.now().isBefore(session.getStartTime())
+                    ? session.getStartTime()
+                    : session.getEndTime();
+            expiresAt = earliest(expiresAt, boundary, now);
+        }
+        return new Loaded<>(session, expiresAt);
+    }
+
+    private Loaded<CampaignIndex> loadCampaignIndex() {
+        // 載入所有已排程的活動（含尚未開始者），起訖時間由索引於查詢時判定
+        List<MarketingCampaignDTO> campaigns = campaignService.getActiveCampaigns();
+        CampaignIndex index = CampaignIndex.build(campaigns != null ? campaigns : List.of());
+        log.info("【計價引擎】行銷活動索引已重建: 已排程活動數={}", index.size());
+        return new Loaded<>(index, System.currentTimeMillis() + campaignSafetyTtlMs);
+    }
+
+    private Loaded<CategoryTreeIndex> loadCategoryTree() {
+        log.info("【計價引擎】正在重新加載分類樹資料...");
+        Result<List<CategoryDTO>> result = productClient.getCategoryTree();
+        // 遠端失敗時拋出例外，由快取沿用舊分類樹並退避重試，避免以空樹覆蓋
+        if (result == null || !result.isSuccess() || result.getData() == null) {
+            throw new IllegalStateException("遠端加載分類樹失敗: "
+                    + (result != null ? result.getMessage() : "empty response"));
+        }
         Map<Long, Long> map = new HashMap<>();
-        try {
-            Result<List<CategoryDTO>> result = productClient.getCategoryTree();
-            if (result != null && result.getData() != null) {
-                flattenCategoryTree(result.getData(), null, map);
-            }
-        } catch (Exception e) {
-            log.error("【計價引擎】遠端加載分類樹失敗", e);
+        flattenCategoryTree(result.getData(), null, map);
+        return new Loaded<>(CategoryTreeIndex.build(Collections.unmodifiableMap(map)),
+                System.currentTimeMillis() + categorySafetyTtlMs);
+    }
+
+    private static long earliest(long expiresAt, LocalDateTime boundary, long now) {
+        if (boundary == null) {
+            return expiresAt;
         }
-        return map;
+        long boundaryMillis = boundary.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        return boundaryMillis > now ? Math.min(expiresAt, boundaryMillis) : expiresAt;
     }
 
     private void flattenCategoryTree(List<CategoryDTO> nodes, Long parentId, Map<Long, Long> map) {
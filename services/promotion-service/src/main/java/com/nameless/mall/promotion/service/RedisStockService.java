@@ -1,12 +1,21 @@
 package com.nameless.mall.promotion.service;
 
+import com.nameless.mall.promotion.api.dto.FlashSaleDeductionDTO;
+import com.nameless.mall.promotion.entity.FlashSaleStockLedger;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Redis 庫存管理服務 - 基於 LUA 腳本實現原子扣減。
@@ -19,7 +28,10 @@ import java.util.Collections;
 public class RedisStockService {
 
     private final StringRedisTemplate redisTemplate;
-    private final DefaultRedisScript<Long> deductScript;
+    private final DefaultRedisScript<Long> recoverScript;
+    private final DefaultRedisScript<Long> reconcileScript;
+    private final DefaultRedisScript<List> deductBatchScript;
+    private final DefaultRedisScript<Long> recoverBatchScript;
 
     /**
      * 建構子：同時完成依賴注入與 LUA 腳本預載。
@@ -29,57 +41,163 @@ public class RedisStockService {
     public RedisStockService(StringRedisTemplate redisTemplate) {
         this.redisTemplate = redisTemplate;
         // 在建構子中預載腳本，提高執行效能（避免每次請求重複解析）
-        this.deductScript = new DefaultRedisScript<>();
-        this.deductScript.setLocation(new ClassPathResource("lua/stock_deduct.lua"));
-        this.deductScript.setResultType(Long.class);
+        this.recoverScript = loadScript("lua/stock_recover.lua");
+        this.reconcileScript = loadScript("lua/stock_reconcile.lua");
+        this.deductBatchScript = new DefaultRedisScript<>();
+        this.deductBatchScript.setLocation(new ClassPathResource("lua/stock_deduct_batch.lua"));
+        this.deductBatchScript.setResultType(List.class);
+        this.recoverBatchScript = loadScript("lua/stock_recover_batch.lua");
     }
 
     /**
-     * 預熱庫存到 Redis
+     * 原子返還庫存 (用於 DB 事務回滾補償)
      */
-    public void prepareStock(Long promotionId, Long skuId, Integer stock) {
+    public void recoverStock(Long promotionId, Long skuId, int quantity) {
         String key = getStockKey(promotionId, skuId);
-        redisTemplate.opsForValue().set(key, String.valueOf(stock));
-        log.info("【Redis 預熱】Key={}, Stock={}", key, stock);
+        redisTemplate.execute(recoverScript,
+                Arrays.asList(key, getDeductedKey(promotionId, skuId)),
+                String.valueOf(quantity));
+        log.info("【Redis 補償】Key={}, 返還數量={}", key, quantity);
     }
 
     /**
-     * 原子扣減庫存
-     * 
-     * @return true: 扣減成功, false: 庫存不足或未預熱
+     * 多 SKU 原子扣減（單次 EVAL，All-or-Nothing）。
+     * 任一 SKU 未預熱或庫存不足時整批不扣減。
+     *
+     * @return true: 全部扣減成功, false: 任一 SKU 失敗（Redis 未變動）
      */
-    public boolean deduct(Long promotionId, Long skuId, int quantity) {
-        String key = getStockKey(promotionId, skuId);
+    public boolean deductBatch(List<FlashSaleDeductionDTO> items) {
+        List<?> result = redisTemplate.execute(deductBatchScript, batchKeys(items), batchArgs(items));
 
-        // 呼叫預加載的 LUA 腳本
-        Long result = redisTemplate.execute(deductScript,
-                Collections.singletonList(key),
-                String.valueOf(quantity));
+        long code = (result != null && !result.isEmpty()) ? ((Number) result.get(0)).longValue() : -2L;
+        if (code == 1) {
+            log.info("【Redis 批量扣減成功】SKU 數量={}", items.size());
+            return true;
+        }
 
-        if (result == null || result == -2) {
-            log.warn("【Redis 扣減失敗】Key 不存在，請檢查預熱流程: {}", key);
-            return false;
+        // Lua 回傳的失敗位置為 1-based
+        int index = (result != null && result.size() > 1) ? ((Number) result.get(1)).intValue() - 1 : -1;
+        FlashSaleDeductionDTO failed = (index >= 0 && index < items.size()) ? items.get(index) : null;
+        String key = failed != null ? getStockKey(failed.getPromotionId(), failed.getSkuId()) : "unknown";
+        if (code == -2) {
+            log.warn("【Redis 批量扣減失敗】Key 不存在，請檢查預熱流程: {}", key);
+        } else {
+            log.warn("【Redis 批量扣減失敗】庫存不足: {}", key);
         }
+        return false;
+    }
+
+    /**
+     * 多 SKU 原子返還 (批量扣減後 DB 失敗的補償，單次 EVAL)
+     */
+    public void recoverBatch(List<FlashSaleDeductionDTO> items) {
+        redisTemplate.execute(recoverBatchScript, batchKeys(items), batchArgs(items));
+        log.info("【Redis 批量補償】SKU 數量={}", items.size());
+    }
+
+    /**
+     * 批量讀取庫存 (單次 MGET)。
+     *
+     * @return 與 skuIds 順序一致的剩餘庫存，Key 不存在時為 null
+     */
+    public List<Integer> multiGetStock(Long promotionId, List<Long> skuIds) {
+        List<String> keys = new ArrayList<>(skuIds.size());
+        skuIds.forEach(skuId -> keys.add(getStockKey(promotionId, skuId)));
 
-        if (result == -1) {
-            log.warn("【Redis 扣減失敗】庫存不足: {}", key);
-            return false;
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        List<Integer> stocks = new ArrayList<>(skuIds.size());
+        for (int i = 0; i < skuIds.size(); i++) {
+            stocks.add(parseOrNull(values, i));
         }
+        return stocks;
+    }
+
+    /**
+     * 批量讀取庫存與已扣減計數 (單次 MGET)。
+     *
+     * @return 與 skuIds 順序一致的計數，Key 不存在的欄位為 null
+     */
+    public List<StockCounter> multiGetCounters(Long promotionId, List<Long> skuIds) {
+        List<String> keys = new ArrayList<>(skuIds.size() * 2);
+        skuIds.forEach(skuId -> {
+            keys.add(getStockKey(promotionId, skuId));
+            keys.add(getDeductedKey(promotionId, skuId));
+        });
 
-        log.info("【Redis 扣減成功】Key={}, 剩餘庫存={}", key, result);
-        return true;
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        List<StockCounter> counters = new ArrayList<>(skuIds.size());
+        for (int i = 0; i < skuIds.size(); i++) {
+            counters.add(new StockCounter(
+                    parseOrNull(values, i * 2),
+                    parseOrNull(values, i * 2 + 1)));
+        }
+        return counters;
     }
 
     /**
-     * 原子返還庫存 (用於 DB 事務回滾補償)
+     * 以 pipeline 批量執行對帳 Lua，Lua 內以最新計數重算並套用修正量。
+     *
+     * @return 與 ledgers 順序一致的實際修正量
      */
-    public void recoverStock(Long promotionId, Long skuId, int quantity) {
-        String key = getStockKey(promotionId, skuId);
-        redisTemplate.opsForValue().increment(key, (long) quantity);
-        log.info("【Redis 補償】Key={}, 返還數量={}", key, quantity);
+    public List<Long> reconcileBatch(Long promotionId, List<FlashSaleStockLedger> ledgers) {
+        String script = reconcileScript.getScriptAsString();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            StringRedisConnection conn = (StringRedisConnection) connection;
+            ledgers.forEach(ledger -> conn.eval(script, ReturnType.INTEGER, 2,
+                    getStockKey(promotionId, ledger.getVariantId()),
+                    getDeductedKey(promotionId, ledger.getVariantId()),
+                    String.valueOf(ledger.getFlashSaleStock()),
+                    String.valueOf(ledger.getLoggedQuantity())));
+            return null;
+        });
+
+        List<Long> deltas = new ArrayList<>(results.size());
+        results.forEach(r -> deltas.add(r != null ? ((Number) r).longValue() : 0L));
+        return deltas;
+    }
+
+    /** 批量腳本的 KEYS：每個 SKU 依序放入庫存 Key 與已扣減 Key */
+    private List<String> batchKeys(List<FlashSaleDeductionDTO> items) {
+        List<String> keys = new ArrayList<>(items.size() * 2);
+        items.forEach(item -> {
+            keys.add(getStockKey(item.getPromotionId(), item.getSkuId()));
+            keys.add(getDeductedKey(item.getPromotionId(), item.getSkuId()));
+        });
+        return keys;
+    }
+
+    private static Object[] batchArgs(List<FlashSaleDeductionDTO> items) {
+        return items.stream().map(item -> String.valueOf(item.getQuantity())).toArray();
+    }
+
+    private static Integer parseOrNull(List<String> values, int index) {
+        String v = (values != null) ? values.get(index) : null;
+        return v != null ? Integer.valueOf(v) : null;
+    }
+
+    private static DefaultRedisScript<Long> loadScript(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setLocation(new ClassPathResource(path));
+        script.setResultType(Long.class);
+        return script;
     }
 
     private String getStockKey(Long promotionId, Long skuId) {
         return "flash_sale:stock:" + promotionId + ":" + skuId;
     }
+
+    /** 已扣減計數：Redis 端累計扣減量，與 flash_sale_logs 相減即為尚未落帳的扣減 */
+    private String getDeductedKey(Long promotionId, Long skuId) {
+        return "flash_sale:deducted:" + promotionId + ":" + skuId;
+    }
+
+    /**
+     * Redis 端庫存計數快照。
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class StockCounter {
+        private final Integer stock;
+        private final Integer deducted;
+    }
 }
@@ -0,0 +1,197 @@
+package com.nameless.mall.promotion.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.nameless.mall.core.enums.ResultCodeEnum;
+import com.nameless.mall.core.exception.BusinessException;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.manager.PricingIndex;
+import com.nameless.mall.promotion.service.BulkPricingService;
+import com.nameless.mall.promotion.service.PriceCalculationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 串流批次計價服務實作。
+ * <p>
+ * 讀取端每累積一批即提交至專用 ForkJoinPool 平行查價，寫出端依提交順序等待並寫出結果：
+ * <ul>
+ * <li>在途批次數有上限，達上限時讀取端先寫出最舊的一批才繼續讀取。</li>
+ * <li>下游讀取過慢時寫出阻塞、讀取隨之停止，背壓經 TCP 流量控制傳回呼叫端。</li>
+ * </ul>
+ * 整個串流僅在開始時取一次計價索引，索引不可變，各批次無鎖共用。
+ * </p>
+ * <p>
+ * 回應狀態在第一批寫出時即已送出，中途失敗無法再改為錯誤狀態碼，因此串流一律以終止紀錄結尾：
+ * 成功為 {@code {"count":N,"skipped":K}}，失敗為 {@code {"error":代碼,"message":...,"count":N,"skipped":K}}
+ * （輸入格式錯誤另帶 {@code line}）。count 為終止紀錄前已輸出的結果行數，缺少終止紀錄即代表串流被截斷。
+ * 輸入中的 {@code null} 行略過並計入 skipped，空白行直接忽略。
+ * </p>
+ */
+@Slf4j
+@Service
+public class BulkPricingServiceImpl implements BulkPricingService {
+
+    private final PriceCalculationService priceCalculationService;
+    private final ForkJoinPool pool;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+    private final int batchSize;
+    private final int maxInFlightBatches;
+    private final Semaphore streamPermits;
+
+    public BulkPricingServiceImpl(PriceCalculationService priceCalculationService,
+            @Qualifier("bulkPricingPool") ForkJoinPool pool,
+            ObjectMapper objectMapper,
+            @Value("${promotion.bulk-pricing.batch-size:512}") int batchSize,
+            @Value("${promotion.bulk-pricing.max-in-flight-batches:0}") int maxInFlightBatches,
+            @Value("${promotion.bulk-pricing.max-concurrent-streams:2}") int maxConcurrentStreams) {
+        this.priceCalculationService = priceCalculationService;
+        this.pool = pool;
+        this.reader = objectMapper.readerFor(ProductPriceCheckDTO.class)
+                .without(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        // 由本服務決定何時 flush（每批一次），避免每筆結果都觸發一次網路寫出
+        this.writer = objectMapper.writerFor(ProductPriceResultDTO.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.batchSize = batchSize;
+        this.maxInFlightBatches = maxInFlightBatches > 0 ? maxInFlightBatches : pool.getParallelism() * 2;
+        this.streamPermits = new Semaphore(maxConcurrentStreams);
+    }
+
+    @Override
+    public long priceStream(InputStream in, OutputStream out) throws IOException {
+        if (!streamPermits.tryAcquire()) {
+            throw new BusinessException(ResultCodeEnum.RATE_LIMITED, "串流計價並發數已達上限，請稍後重試");
+        }
+        long start = System.currentTimeMillis();
+        PricingIndex index = priceCalculationService.currentIndex();
+        ArrayDeque<ForkJoinTask<List<ProductPriceResultDTO>>> inFlight = new ArrayDeque<>(maxInFlightBatches);
+        long written = 0;
+        long skipped = 0;
+        try (JsonParser parser = reader.createParser(in);
+                JsonGenerator gen = writer.createGenerator(out)) {
+            // NDJSON：每筆結果自成一行，行尾換行由下方 writeRaw 補上
+            gen.setRootValueSeparator(null);
+
+            JsonProcessingException badInput = null;
+            try {
+                List<ProductPriceCheckDTO> batch = new ArrayList<>(batchSize);
+                while (true) {
+                    ProductPriceCheckDTO item;
+                    try {
+                        if (parser.nextToken() == null) {
+                            break;
+                        }
+                        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+                            skipped++;
+                            continue;
+                        }
+                        item = reader.readValue(parser);
+                    } catch (JsonProcessingException e) {
+                        // 輸入格式錯誤：先前的輸入照常輸出，再以錯誤終止紀錄標示行號
+                        badInput = e;
+                        break;
+                    }
+                    batch.add(item);
+                    if (batch.size() == batchSize) {
+                        inFlight.add(pool.submit(priceTask(index, batch)));
+                        batch = new ArrayList<>(batchSize);
+                        if (inFlight.size() >= maxInFlightBatches) {
+                            written += writeBatch(gen, inFlight.poll().join());
+                        }
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    inFlight.add(pool.submit(priceTask(index, batch)));
+                }
+                while (!inFlight.isEmpty()) {
+                    written += writeBatch(gen, inFlight.poll().join());
+                }
+            } catch (IOException | RuntimeException e) {
+                // 已輸出的結果保留，以錯誤終止紀錄告知呼叫端串流不完整；呼叫端已斷線時寫出失敗，例外照常拋出
+                log.warn("【串流計價】中途失敗: 已輸出={}, 略過={}, error={}", written, skipped, e.toString());
+                writeTrailer(gen, written, skipped, null, e);
+                return written;
+            }
+            if (badInput != null) {
+                log.warn("【串流計價】輸入格式錯誤: 已輸出={}, 行號={}, error={}", written,
+                        badInput.getLocation() != null ? badInput.getLocation().getLineNr() : -1,
+                        badInput.getOriginalMessage());
+                writeTrailer(gen, written, skipped, badInput, badInput);
+                return written;
+            }
+            writeTrailer(gen, written, skipped, null, null);
+        } finally {
+            // 中途失敗或呼叫端中斷時取消尚未完成的批次
+            inFlight.forEach(task -> task.cancel(false));
+            streamPermits.release();
+        }
+        log.info("【串流計價】完成: 筆數={}, 略過={}, 索引版本={}, 耗時={}ms",
+                written, skipped, index.getVersion(), System.currentTimeMillis() - start);
+        return written;
+    }
+
+    private static ForkJoinTask<List<ProductPriceResultDTO>> priceTask(PricingIndex index,
+            List<ProductPriceCheckDTO> batch) {
+        return ForkJoinTask.adapt(() -> {
+            List<ProductPriceResultDTO> results = new ArrayList<>(batch.size());
+            for (ProductPriceCheckDTO item : batch) {
+                results.add(index.price(item));
+            }
+            return results;
+        });
+    }
+
+    private int writeBatch(JsonGenerator gen, List<ProductPriceResultDTO> results) throws IOException {
+        for (ProductPriceResultDTO result : results) {
+            writer.writeValue(gen, result);
+            gen.writeRaw('\n');
+        }
+        // 每批 flush 一次，讓下游可逐批消費
+        gen.flush();
+        return results.size();
+    }
+
+    /**
+     * 寫出終止紀錄；error 為 null 代表串流完整結束，badInput 不為 null 代表輸入格式錯誤。
+     */
+    private static void writeTrailer(JsonGenerator gen, long written, long skipped,
+            JsonProcessingException badInput, Exception error) throws IOException {
+        gen.writeStartObject();
+        if (badInput != null) {
+            gen.writeStringField("error", ResultCodeEnum.INVALID_ARGUMENT.name());
+            gen.writeStringField("message", badInput.getOriginalMessage());
+            if (badInput.getLocation() != null) {
+                gen.writeNumberField("line", badInput.getLocation().getLineNr());
+            }
+        } else if (error != null) {
+            gen.writeStringField("error", ResultCodeEnum.INTERNAL_ERROR.name());
+            gen.writeStringField("message", ResultCodeEnum.INTERNAL_ERROR.getMessage());
+        }
+        gen.writeNumberField("count", written);
+        gen.writeNumberField("skipped", skipped);
+        gen.writeEndObject();
+        gen.writeRaw('\n');
+        gen.flush();
+    }
+}
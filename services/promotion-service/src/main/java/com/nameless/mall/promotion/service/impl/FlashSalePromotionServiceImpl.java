@@ -12,7 +12,9 @@ import com.nameless.mall.promotion.client.ProductClient;
 import com.nameless.mall.promotion.entity.FlashSaleLog;
 import com.nameless.mall.promotion.entity.FlashSalePromotion;
 import com.nameless.mall.promotion.entity.FlashSaleSku;
+import com.nameless.mall.promotion.event.FlashSaleSessionChangedEvent;
 import com.nameless.mall.promotion.manager.FlashSaleStockManager;
+import com.nameless.mall.promotion.manager.FlashSaleStockReconciler;
 import com.nameless.mall.promotion.manager.FlashSaleSyncManager;
 import com.nameless.mall.promotion.enums.PromotionStatus;
 import com.nameless.mall.promotion.mapper.FlashSaleLogMapper;
@@ -22,6 +24,7 @@ import com.nameless.mall.promotion.service.FlashSalePromotionService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
@@ -30,7 +33,6 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -54,6 +56,8 @@ public class FlashSalePromotionServiceImpl extends ServiceImpl<FlashSalePromotio
     private final ProductClient productClient;
     private final FlashSaleStockManager stockManager;
     private final FlashSaleSyncManager syncManager;
+    private final FlashSaleStockReconciler stockReconciler;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 獲取當前進行中的活動列表。
@@ -87,17 +91,38 @@ public class FlashSalePromotionServiceImpl extends ServiceImpl<FlashSalePromotio
         if (promotion == null) {
             return null;
         }
+        return assembleSession(promotion, now);
+    }
+
+    @Override
+    public List<FlashSalePromotion> listActiveOrStartingBefore(LocalDateTime deadline) {
+        return this.list(new LambdaQueryWrapper<FlashSalePromotion>()
+                .eq(FlashSalePromotion::getStatus, PromotionStatus.ACTIVE.getCode())
+                .le(FlashSalePromotion::getStartTime, deadline)
+                .ge(FlashSalePromotion::getEndTime, LocalDateTime.now())
+                .orderByAsc(FlashSalePromotion::getStartTime));
+    }
+
+    /**
+     * 獲取指定活動的場次資訊（預熱用，不限定當前場次）。
+     */
+    @Override
+    public FlashSaleSessionVO getSessionById(Long promotionId) {
+        FlashSalePromotion promotion = this.getById(promotionId);
+        return promotion == null ? null : assembleSession(promotion, LocalDateTime.now());
+    }
 
-        // 2. 取得該活動下所有特賣 SKU
+    private FlashSaleSessionVO assembleSession(FlashSalePromotion promotion, LocalDateTime now) {
+        // 1. 取得該活動下所有特賣 SKU
         List<FlashSaleSku> skus = flashSaleSkuMapper.selectList(
                 new LambdaQueryWrapper<FlashSaleSku>().eq(FlashSaleSku::getPromotionId, promotion.getId()));
 
-        // 3. 透過 Feign 批量填充商品資訊
+        // 2. 透過 Feign 批量填充商品資訊
         List<FlashSaleProductVO> products = skus.isEmpty()
                 ? Collections.emptyList()
                 : enrichWithProductInfo(skus);
 
-        // 4. 組裝場次 VO（含狀態與倒數計時）
+        // 3. 組裝場次 VO（含狀態與倒數計時）
         return buildSessionVO(promotion, products, now);
     }
 
@@ -114,21 +139,8 @@ public class FlashSalePromotionServiceImpl extends ServiceImpl<FlashSalePromotio
         // 排序以防止資料庫死鎖
         deductionList.sort(Comparator.comparing(FlashSaleDeductionDTO::getSkuId));
 
-        // 記錄本次批量中已成功扣減 Redis 的 SKU，用於失敗時的全量補償
-        List<FlashSaleDeductionDTO> successList = new ArrayList<>();
-
-        try {
-            for (FlashSaleDeductionDTO req : deductionList) {
-                // 執行扣減 (內部包含 Redis 與 DB 操作)
-                stockManager.deduct(req);
-                successList.add(req);
-            }
-        } catch (Exception e) {
-            log.error("【特賣服務】批量扣減失敗，啟動 Redis 全量補償機制: {}", e.getMessage());
-            // 只要有一個失敗，必須退回本次已扣減的所有 Redis 庫存
-            successList.forEach(stockManager::rollbackRedisOnly);
-            throw e; // 拋出例外以觸發 DB 回滾
-        }
+        // 單次 Redis Lua 整批扣減 + 批量 DB 寫入；任一 SKU 失敗時整批補償並拋出例外觸發 DB 回滾
+        stockManager.deductBatch(deductionList);
     }
 
     /**
@@ -168,7 +180,7 @@ public class FlashSalePromotionServiceImpl extends ServiceImpl<FlashSalePromotio
     }
 
     /**
-     * 手動觸發快取預熱與庫存同步。
+     * 手動觸發快取預熱與庫存對帳。
      */
     @Override
     public void syncPromotionStock() {
@@ -181,22 +193,16 @@ public class FlashSalePromotionServiceImpl extends ServiceImpl<FlashSalePromotio
                         // 1. 同步商品資料 (MySQL)
                         syncManager.syncPromotion(p);
 
-                        // 2. 庫存預熱：將 DB 最新庫存同步寫入 Redis
-                        List<FlashSaleSku> skus = flashSaleSkuMapper.selectList(
-                                new LambdaQueryWrapper<FlashSaleSku>().eq(FlashSaleSku::getPromotionId, p.getId()));
-
-                        if (!CollectionUtils.isEmpty(skus)) {
-                            skus.forEach(sku -> stockManager.prepare(
-                                    sku.getPromotionId(),
-                                    sku.getVariantId(),
-                                    sku.getFlashSaleStock())); // 使用當前 DB 剩餘庫存
-                            log.info("【庫存預熱】活動 ID={}, SKU 數量={} (已同步至 Redis)", p.getId(), skus.size());
-                        }
+                        // 2. 庫存對帳：以 DB 庫存扣除待落帳扣減後修正 Redis，不覆蓋進行中的扣減
+                        stockReconciler.reconcile(p.getId());
 
                     } catch (Exception e) {
                         log.error("同步活動失敗: id={}", p.getId(), e);
                     }
                 });
+
+        // 3. SKU 與庫存已更新，通知場次快照重建
+        eventPublisher.publishEvent(new FlashSaleSessionChangedEvent(this, null));
     }
 
     private FlashSalePromotion findActiveOrUpcomingPromotion(LocalDateTime now) {
@@ -38,31 +38,11 @@ public class MarketingCampaignServiceImpl extends ServiceImpl<MarketingCampaignM
 
         // 2. 動態計算每個活動的即時狀態並轉為 DTO
         return campaigns.stream().map(c -> {
-            c.setStatus(computeStatus(c, now));
+            c.setStatus(CampaignStatus.resolve(c.getStatus(), c.getStartTime(), c.getEndTime(), now));
             return toDTO(c);
         }).collect(Collectors.toList());
     }
 
-    /**
-     * 根據當前時間與活動起訖時間判定狀態。
-     */
-    private String computeStatus(MarketingCampaign c, LocalDateTime now) {
-        // 1. 缺少時間欄位時保留原始狀態
-        if (c.getStartTime() == null || c.getEndTime() == null)
-            return c.getStatus();
-
-        // 2. 根據當前時間判定活動所處階段
-        if (now.isBefore(c.getStartTime()))
-            return CampaignStatus.UPCOMING.name();
-        if (now.isAfter(c.getEndTime()))
-            return CampaignStatus.ENDED.name();
-
-        // 3. 倒數 24 小時內標記為即將結束，否則為進行中
-        return c.getEndTime().minusHours(24).isBefore(now)
-                ? CampaignStatus.ENDING_SOON.name()
-                : CampaignStatus.ONGOING.name();
-    }
-
     @Override
     public MarketingCampaignDTO getByCode(String code) {
         MarketingCampaign entity = this
@@ -0,0 +1,28 @@
+-- 多 SKU 原子扣減（All-or-Nothing）
+-- KEYS[2i-1]: 庫存 Key (flash_sale:stock:{promoId}:{skuId})
+-- KEYS[2i]:   已扣減 Key (flash_sale:deducted:{promoId}:{skuId})
+-- ARGV[i]:    第 i 個 SKU 的扣減數量
+-- 回傳: {1, 0} 成功；{-2, i} 第 i 個 Key 未預熱；{-1, i} 第 i 個 SKU 庫存不足
+local n = #ARGV
+
+-- 1. 先檢查全部 SKU（同一 Key 重複出現時累計需求量），任一不足即整批放棄
+local need = {}
+for i = 1, n do
+    local key = KEYS[2 * i - 1]
+    local stock = tonumber(redis.call('get', key) or '-1')
+    if stock == -1 then
+        return {-2, i}
+    end
+    need[key] = (need[key] or 0) + tonumber(ARGV[i])
+    if stock < need[key] then
+        return {-1, i}
+    end
+end
+
+-- 2. 全部通過後才扣減（同步累加已扣減計數）
+for i = 1, n do
+    local qty = tonumber(ARGV[i])
+    redis.call('incrby', KEYS[2 * i], qty)
+    redis.call('decrby', KEYS[2 * i - 1], qty)
+end
+return {1, 0}
@@ -0,0 +1,36 @@
+-- KEYS[1]: 庫存 Key (flash_sale:stock:{promoId}:{skuId})
+-- KEYS[2]: 已扣減 Key (flash_sale:deducted:{promoId}:{skuId})
+-- ARGV[1]: DB 剩餘庫存 (flash_sale_skus.flash_sale_stock)
+-- ARGV[2]: DB 已落帳扣減數 (flash_sale_logs 加總)
+-- 回傳: 套用至庫存 Key 的修正量
+local dbStock = tonumber(ARGV[1])
+local logged = tonumber(ARGV[2])
+local stock = redis.call('get', KEYS[1])
+local deducted = redis.call('get', KEYS[2])
+
+-- 1. 庫存 Key 缺失：以 DB 庫存初始化，已扣減計數對齊已落帳數
+if not stock then
+    redis.call('set', KEYS[1], dbStock)
+    redis.call('set', KEYS[2], logged)
+    return dbStock
+end
+stock = tonumber(stock)
+
+-- 2. 舊資料無已扣減計數：視庫存短少為待落帳扣減，僅修正超出 DB 的部分
+if not deducted then
+    local pending = math.max(0, dbStock - stock)
+    redis.call('set', KEYS[2], logged + pending)
+    if stock > dbStock then
+        redis.call('decrby', KEYS[1], stock - dbStock)
+        return dbStock - stock
+    end
+    return 0
+end
+
+-- 3. 期望庫存 = DB 庫存 - 待落帳扣減 (Redis 已扣減 - 已落帳)
+local expected = math.max(0, dbStock - (tonumber(deducted) - logged))
+local delta = expected - stock
+if delta ~= 0 then
+    redis.call('incrby', KEYS[1], delta)
+end
+return delta
@@ -0,0 +1,12 @@
+-- KEYS[1]: 庫存 Key (flash_sale:stock:{promoId}:{skuId})
+-- KEYS[2]: 已扣減 Key (flash_sale:deducted:{promoId}:{skuId})
+-- ARGV[1]: 返還數量
+local qty = tonumber(ARGV[1])
+
+-- 1. 已扣減計數同步回退（對帳前的舊資料可能沒有此 Key）
+if redis.call('exists', KEYS[2]) == 1 then
+    redis.call('decrby', KEYS[2], qty)
+end
+
+-- 2. 返還庫存
+return redis.call('incrby', KEYS[1], qty)
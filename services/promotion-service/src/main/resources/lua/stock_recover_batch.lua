@@ -0,0 +1,12 @@
+-- 多 SKU 原子返還（批量扣減的補償）
+-- KEYS[2i-1]: 庫存 Key (flash_sale:stock:{promoId}:{skuId})
+-- KEYS[2i]:   已扣減 Key (flash_sale:deducted:{promoId}:{skuId})
+-- ARGV[i]:    第 i 個 SKU 的返還數量
+for i = 1, #ARGV do
+    local qty = tonumber(ARGV[i])
+    if redis.call('exists', KEYS[2 * i]) == 1 then
+        redis.call('decrby', KEYS[2 * i], qty)
+    end
+    redis.call('incrby', KEYS[2 * i - 1], qty)
+end
+return #ARGV
@@ -0,0 +1,205 @@
+package com.nameless.mall.promotion.benchmark;
+
+import com.nameless.mall.promotion.api.dto.MarketingCampaignDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceCheckDTO;
+import com.nameless.mall.promotion.api.dto.ProductPriceResultDTO;
+import com.nameless.mall.promotion.api.enums.PromotionType;
+import com.nameless.mall.promotion.api.vo.FlashSaleProductVO;
+import com.nameless.mall.promotion.api.vo.FlashSaleSessionVO;
+import com.nameless.mall.promotion.manager.PricingIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 計價索引 JMH 基準測試。
+ * <p>
+ * 比較預編譯索引與原逐次分組 + 走訪分類樹的查價成本（1 / 50 / 1000 件商品），並量測索引重建成本。
+ * 執行：test-compile 後直接執行 {@link #main(String[])}（不屬於 surefire 測試，不影響 mvn test）。
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PricingIndexBenchmark {
+
+    private static final Long GLOBAL_CATEGORY_ID = -1L;
+    private static final int ROOT_CATEGORIES = 10;
+    private static final int CHILDREN_PER_NODE = 5;
+    private static final int FLASH_PRODUCTS = 200;
+    private static final int CAMPAIGNS = 40;
+
+    @Param({ "1", "50", "1000" })
+    public int itemCount;
+
+    private FlashSaleSessionVO session;
+    private List<MarketingCampaignDTO> campaigns;
+    private Map<Long, Long> parents;
+    private List<Long> categoryIds;
+    private List<ProductPriceCheckDTO> items;
+    private PricingIndex index;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+
+        // 分類樹：10 個根分類，每層 5 個子分類，共 3 層
+        parents = new HashMap<>();
+        categoryIds = new ArrayList<>();
+        long nextId = 1;
+        List<Long> level = new ArrayList<>();
+        for (int i = 0; i < ROOT_CATEGORIES; i++) {
+            level.add(nextId++);
+        }
+        categoryIds.addAll(level);
+        for (int depth = 0; depth < 2; depth++) {
+            List<Long> next = new ArrayList<>();
+            for (Long parent : level) {
+                for (int i = 0; i < CHILDREN_PER_NODE; i++) {
+                    long child = nextId++;
+                    parents.put(child, parent);
+                    next.add(child);
+                }
+            }
+            categoryIds.addAll(next);
+            level = next;
+        }
+
+        // 閃購場次：variantId 1..200
+        List<FlashSaleProductVO> products = new ArrayList<>();
+        for (long v = 1; v <= FLASH_PRODUCTS; v++) {
+            products.add(FlashSaleProductVO.builder()
+                    .variantId(v)
+                    .originalPrice(BigDecimal.valueOf(1000))
+                    .flashPrice(BigDecimal.valueOf(500 + random.nextInt(400)))
+                    .build());
+        }
+        session = FlashSaleSessionVO.builder().id(1L).name("bench").products(products).build();
+
+        // 行銷活動：少量全站活動 + 分散於各層分類
+        campaigns = new ArrayList<>();
+        for (int i = 0; i < CAMPAIGNS; i++) {
+            MarketingCampaignDTO c = new MarketingCampaignDTO();
+            c.setId((long) i);
+            c.setTitle("campaign-" + i);
+            c.setCategoryId(i % 10 == 0 ? null : categoryIds.get(random.nextInt(categoryIds.size())));
+            c.setDiscountRate(BigDecimal.valueOf(50 + random.nextInt(49), 2));
+            campaigns.add(c);
+        }
+
+        // 查價商品：約 10% 命中閃購
+        items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            long variantId = random.nextInt(10) == 0
+                    ? 1 + random.nextInt(FLASH_PRODUCTS)
+                    : 10_000 + random.nextInt(1_000_000);
+            items.add(ProductPriceCheckDTO.builder()
+                    .variantId(variantId)
+                    .categoryId(categoryIds.get(random.nextInt(categoryIds.size())))
+                    .originalPrice(BigDecimal.valueOf(100 + random.nextInt(9_900)))
+                    .build());
+        }
+
+        index = PricingIndex.build(1L, 1L, session, campaigns, parents);
+    }
+
+    @Benchmark
+    public void indexed(Blackhole bh) {
+        for (ProductPriceCheckDTO item : items) {
+            bh.consume(index.price(item));
+        }
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        Map<Long, FlashSaleProductVO> flashSaleMap = session.getProducts().stream()
+                .filter(p -> p.getVariantId() != null)
+                .collect(Collectors.toMap(FlashSaleProductVO::getVariantId, p -> p, (a, b) -> a));
+        Map<Long, List<MarketingCampaignDTO>> campaignMap = campaigns.stream()
+                .collect(Collectors.groupingBy(c -> c.getCategoryId() == null ? GLOBAL_CATEGORY_ID : c.getCategoryId()));
+        for (ProductPriceCheckDTO item : items) {
+            bh.consume(legacySingle(item, flashSaleMap, campaignMap));
+        }
+    }
+
+    @Benchmark
+    public PricingIndex rebuild() {
+        return PricingIndex.build(2L, 2L, session, campaigns, parents);
+    }
+
+    /**
+     * 預編譯前的查價流程，作為對照組。
+     */
+    private ProductPriceResultDTO legacySingle(ProductPriceCheckDTO item,
+            Map<Long, FlashSaleProductVO> flashSaleMap, Map<Long, List<MarketingCampaignDTO>> campaignMap) {
+        FlashSaleProductVO f = flashSaleMap.get(item.getVariantId());
+        if (f != null && f.getFlashPrice() != null) {
+            return result(item.getVariantId(), f.getOriginalPrice(), f.getFlashPrice(),
+                    PromotionType.FLASH_SALE.name(), session.getId(), session.getName());
+        }
+        BigDecimal originalPrice = item.getOriginalPrice();
+        List<MarketingCampaignDTO> candidates = new ArrayList<>(
+                campaignMap.getOrDefault(GLOBAL_CATEGORY_ID, List.of()));
+        Long cur = item.getCategoryId();
+        int safeDepth = 0;
+        while (cur != null && safeDepth++ < 10) {
+            candidates.addAll(campaignMap.getOrDefault(cur, List.of()));
+            cur = parents.get(cur);
+        }
+        return candidates.stream()
+                .filter(c -> c.getDiscountRate() != null
+                        && c.getDiscountRate().compareTo(BigDecimal.ONE) < 0
+                        && c.getDiscountRate().compareTo(BigDecimal.ZERO) > 0)
+                .min(Comparator.comparing(MarketingCampaignDTO::getDiscountRate))
+                .map(c -> result(item.getVariantId(), originalPrice,
+                        originalPrice.multiply(c.getDiscountRate()).setScale(2, RoundingMode.HALF_UP),
+                        PromotionType.CAMPAIGN.name(), c.getId(), c.getTitle()))
+                .orElseGet(() -> result(item.getVariantId(), originalPrice, originalPrice,
+                        PromotionType.NONE.name(), null, null));
+    }
+
+    private static ProductPriceResultDTO result(Long variantId, BigDecimal original, BigDecimal finalPrice,
+            String type, Long id, String name) {
+        return ProductPriceResultDTO.builder()
+                .variantId(variantId)
+                .originalPrice(original)
+                .finalPrice(finalPrice)
+                .discountAmount(original.subtract(finalPrice))
+                .promotionType(type)
+                .promotionId(id)
+                .promotionName(name)
+                .build();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(PricingIndexBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,13 @@
+CREATE DATABASE IF NOT EXISTS `mall_cart` DEFAULT CHARACTER SET utf8mb4;
+
+USE `mall_cart`;
+
+CREATE TABLE IF NOT EXISTS `cart_archive` (
+  `user_id` bigint NOT NULL COMMENT '使用者 ID',
+  `payload` mediumblob NOT NULL COMMENT '整車資料 (CartItemCodec 封存編碼，含數量)',
+  `item_count` int NOT NULL DEFAULT 0 COMMENT '項目數',
+  `last_active_at` datetime DEFAULT NULL COMMENT '最後存取時間',
+  `archived_at` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '封存時間',
+  PRIMARY KEY (`user_id`),
+  KEY `idx_archived_at` (`archived_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='閒置購物車封存表 (自 Redis 移出，存取時還原)';